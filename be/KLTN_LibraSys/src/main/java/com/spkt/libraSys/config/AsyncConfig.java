@@ -1,5 +1,6 @@
 package com.spkt.libraSys.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -7,6 +8,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
@@ -22,4 +24,77 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    // Executor riêng cho mã hóa DRM khi upload nhiều file, có giới hạn để không chiếm hết CPU của request khác
+    @Bean(name = "drmEncryptionExecutor")
+    public Executor drmEncryptionExecutor(@Value("${app.drm.encryption.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(50);
+        // Hàng đợi đầy thì luồng request tự mã hóa thay vì từ chối
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("DrmEncrypt-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Executor xử lý thông báo hàng loạt; hàng đợi đầy thì từ chối để admin gửi lại sau
+    @Bean(name = "notificationFanoutExecutor")
+    public ThreadPoolTaskExecutor notificationFanoutExecutor(
+            @Value("${app.notification.fanout.threads:2}") int threads,
+            @Value("${app.notification.fanout.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("NotifyFanout-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Executor đẩy thông báo qua WebSocket; hàng đợi đầy thì luồng gửi hàng loạt tự đẩy (backpressure)
+    @Bean(name = "notificationPushExecutor")
+    public ThreadPoolTaskExecutor notificationPushExecutor(
+            @Value("${app.notification.push.threads:4}") int threads,
+            @Value("${app.notification.push.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("NotifyPush-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Executor tóm tắt song song các phần của tài liệu; hàng đợi đầy thì luồng trích xuất tự gọi (backpressure)
+    @Bean(name = "summaryExecutor")
+    public ThreadPoolTaskExecutor summaryExecutor(
+            @Value("${app.summary.threads:4}") int threads,
+            @Value("${app.summary.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("Summary-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Executor render trước các trang kế tiếp khi đọc; hàng đợi đầy thì từ chối và người gọi bỏ qua (chỉ là tối ưu)
+    @Bean(name = "viewerPrerenderExecutor")
+    public ThreadPoolTaskExecutor viewerPrerenderExecutor(
+            @Value("${app.viewer.prerender.threads:2}") int threads,
+            @Value("${app.viewer.prerender.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setThreadNamePrefix("Prerender-");
+        executor.initialize();
+        return executor;
+    }
 }
@@ -2,7 +2,6 @@ package com.spkt.libraSys.config;
 
 import com.spkt.libraSys.exception.AppException;
 import com.spkt.libraSys.exception.ErrorCode;
-import com.spkt.libraSys.service.role.RoleEntity;
 import com.spkt.libraSys.service.user.*;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,13 +16,19 @@ import java.util.stream.Collectors;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, PrincipalCache principalCache) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return principalCache.get(username, this::loadFromDatabase);
+    }
+
+    private CustomUserDetails loadFromDatabase(String username) {
         // Tìm người dùng trong cơ sở dữ liệu
         UserEntity userEntity = userRepository.findByUsername(username)
                 .orElseThrow(()->new AppException(ErrorCode.USER_NOT_FOUND));
@@ -38,10 +43,6 @@ public class CustomUserDetailsService implements UserDetailsService {
             default:
                 break;
         }
-        String[] rolesArray = userEntity.getRoleEntities().stream()
-                .map(RoleEntity::getRoleName)
-                .toArray(String[]::new);
-
         List<SimpleGrantedAuthority> authorities = userEntity.getRoleEntities().stream()
                 .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getRoleName()))
                 .collect(Collectors.toList());
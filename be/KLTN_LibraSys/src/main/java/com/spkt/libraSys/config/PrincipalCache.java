@@ -0,0 +1,85 @@
+package com.spkt.libraSys.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.spkt.libraSys.service.user.UserAccessChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Cache ngắn hạn các principal đã xác thực theo username, để JwtFilter và WebSocket không phải
+ * truy vấn người dùng và vai trò ở mỗi request. Chỉ người dùng ACTIVE được lưu; mục bị xóa ngay sau khi
+ * mật khẩu, trạng thái hoặc vai trò thay đổi ({@link UserAccessChangedEvent}), TTL chỉ là lưới an toàn.
+ * Mỗi lần đọc trả về một bản sao, vì Spring Security có thể xóa mật khẩu trên principal đã dùng.
+ */
+@Component
+public class PrincipalCache {
+    private final Cache<String, CustomUserDetails> principals;
+
+    public PrincipalCache(@Value("${app.security.principal-cache.ttl-seconds:60}") long ttlSeconds,
+                          @Value("${app.security.principal-cache.max-size:10000}") long maxSize) {
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Lấy principal theo username, nạp bằng {@code loader} khi chưa có.
+     * Ngoại lệ của loader (người dùng bị khóa, chưa xác minh...) được ném lại và không được lưu
+     */
+    public CustomUserDetails get(String username, Function<String, CustomUserDetails> loader) {
+        return copyOf(principals.get(username, loader));
+    }
+
+    /**
+     * Xóa các principal của những người dùng có userId cho trước
+     */
+    public void evictUsers(Collection<String> userIds) {
+        Set<String> ids = new HashSet<>(userIds);
+        principals.asMap().values().removeIf(principal -> ids.contains(principal.getUserId()));
+    }
+
+    public void evict(String username) {
+        principals.invalidate(username);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserAccessChanged(UserAccessChangedEvent event) {
+        evictUsers(event.getUserIds());
+    }
+
+    public CacheStats stats() {
+        return principals.stats();
+    }
+
+    /**
+     * Số liệu cache để theo dõi: số mục và tỉ lệ trúng
+     */
+    public Map<String, Object> snapshot() {
+        CacheStats stats = principals.stats();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("size", principals.estimatedSize());
+        snapshot.put("hitCount", stats.hitCount());
+        snapshot.put("missCount", stats.missCount());
+        snapshot.put("hitRate", stats.hitRate());
+        snapshot.put("evictionCount", stats.evictionCount());
+        return snapshot;
+    }
+
+    private static CustomUserDetails copyOf(CustomUserDetails principal) {
+        return new CustomUserDetails(principal.getUserId(), principal.getUsername(),
+                principal.getPassword(), principal.getAuthorities());
+    }
+}
@@ -0,0 +1,40 @@
+package com.spkt.libraSys.scheduler;
+
+import java.util.List;
+
+/**
+ * A scheduled job processed in keyset-paged chunks by {@link ChunkedJobRunner}.
+ * {@link #read} and {@link #process} of one chunk run in the same transaction;
+ * {@link #afterCommit} runs once that transaction has committed, so notifications
+ * and other side effects never refer to rows that were rolled back.
+ *
+ * @param <T> Row type read per chunk
+ * @param <K> Keyset key type, strictly increasing in read order
+ */
+public interface ChunkedJob<T, K> {
+
+    /**
+     * Read up to {@code limit} rows whose key is greater than {@code after}, ordered by key
+     * @param after Key of the last row of the previous chunk, null for the first chunk
+     */
+    List<T> read(K after, int limit);
+
+    /**
+     * Key of a row, used as the lower bound of the next chunk
+     */
+    K keyOf(T row);
+
+    /**
+     * Apply the job's updates to the chunk
+     * @return Number of rows updated
+     */
+    int process(List<T> rows);
+
+    /**
+     * Side effects for the chunk after its transaction has committed
+     * @return Number of notifications (or other messages) dispatched
+     */
+    default int afterCommit(List<T> rows) {
+        return 0;
+    }
+}
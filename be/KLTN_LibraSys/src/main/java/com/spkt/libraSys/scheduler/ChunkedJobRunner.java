@@ -0,0 +1,101 @@
+package com.spkt.libraSys.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs {@link ChunkedJob}s: each chunk is read and updated in its own short transaction,
+ * then its after-commit side effects are dispatched. The last run of every job is kept for the admin.
+ */
+@Component
+@Slf4j
+public class ChunkedJobRunner {
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, JobRunMetrics> lastRuns = new ConcurrentHashMap<>();
+
+    @Value("${app.scheduler.chunk-size:500}")
+    private int chunkSize = 500;
+
+    public ChunkedJobRunner(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Run a job to completion. A chunk that fails rolls back and stops the run;
+     * chunks committed before it are kept. Failures of after-commit side effects are counted and skipped.
+     * @param jobName Name the metrics are recorded under
+     * @return Metrics of this run
+     */
+    public <T, K> JobRunMetrics run(String jobName, ChunkedJob<T, K> job) {
+        JobRunMetrics metrics = new JobRunMetrics(jobName);
+        lastRuns.put(jobName, metrics);
+        K after = null;
+        try {
+            while (true) {
+                final K from = after;
+                Chunk<T> chunk = transactionTemplate.execute(status -> {
+                    List<T> rows = job.read(from, chunkSize);
+                    return new Chunk<>(rows, rows.isEmpty() ? 0 : job.process(rows));
+                });
+                if (chunk == null || chunk.rows.isEmpty()) {
+                    break;
+                }
+                metrics.setChunks(metrics.getChunks() + 1);
+                metrics.setRowsRead(metrics.getRowsRead() + chunk.rows.size());
+                metrics.setRowsUpdated(metrics.getRowsUpdated() + chunk.updated);
+                try {
+                    metrics.setDispatched(metrics.getDispatched() + job.afterCommit(chunk.rows));
+                } catch (RuntimeException e) {
+                    log.error("Job {}: error dispatching chunk {}: {}", jobName, metrics.getChunks(), e.getMessage(), e);
+                    metrics.setDispatchFailures(metrics.getDispatchFailures() + 1);
+                }
+                if (chunk.rows.size() < chunkSize) {
+                    break;
+                }
+                after = job.keyOf(chunk.rows.get(chunk.rows.size() - 1));
+            }
+            metrics.setState(JobRunMetrics.State.COMPLETED);
+        } catch (RuntimeException e) {
+            log.error("Job {} failed after {} chunks: {}", jobName, metrics.getChunks(), e.getMessage(), e);
+            metrics.setState(JobRunMetrics.State.FAILED);
+            metrics.setError(e.getMessage());
+        } finally {
+            metrics.setFinishedAt(LocalDateTime.now());
+            metrics.setDurationMillis(Duration.between(metrics.getStartedAt(), metrics.getFinishedAt()).toMillis());
+        }
+        log.info("Job {} {}: {} rows read, {} updated, {} dispatched in {} chunks, {} ms",
+                jobName, metrics.getState(), metrics.getRowsRead(), metrics.getRowsUpdated(),
+                metrics.getDispatched(), metrics.getChunks(), metrics.getDurationMillis());
+        return metrics;
+    }
+
+    /**
+     * Metrics of the last run of every job, by job name
+     */
+    public List<JobRunMetrics> getLastRuns() {
+        List<JobRunMetrics> runs = new ArrayList<>(lastRuns.values());
+        runs.sort(Comparator.comparing(JobRunMetrics::getJobName));
+        return runs;
+    }
+
+    private static class Chunk<T> {
+        final List<T> rows;
+        final int updated;
+
+        Chunk(List<T> rows, int updated) {
+            this.rows = rows;
+            this.updated = updated;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.spkt.libraSys.scheduler;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * Duration and row counts of one run of a chunked job.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class JobRunMetrics {
+    String jobName;
+    State state;
+    LocalDateTime startedAt;
+    LocalDateTime finishedAt;
+    long durationMillis;
+    int chunks;
+    long rowsRead;
+    long rowsUpdated;
+    long dispatched;
+    int dispatchFailures;
+    String error;
+
+    public JobRunMetrics(String jobName) {
+        this.jobName = jobName;
+        this.state = State.RUNNING;
+        this.startedAt = LocalDateTime.now();
+    }
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+}
@@ -27,6 +27,7 @@ public interface AuthService {
 
     /**
      * Retrieves the currently authenticated user.
+     * Repeated calls within the same HTTP request return the same managed entity.
      *
      * @return The current user entity
      */
@@ -15,6 +15,7 @@ import com.spkt.libraSys.service.verificationToken.VerificationService;
 import com.spkt.libraSys.service.verificationToken.VerificationTokenEntity;
 import com.spkt.libraSys.service.verificationToken.VerificationTokenRepository;
 import io.jsonwebtoken.Claims;
+import jakarta.persistence.EntityManager;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
@@ -31,6 +32,8 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -45,6 +48,8 @@ import java.util.stream.Collectors;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 @Service
 public class AuthServiceImpl implements AuthService {
+    static final String CURRENT_USER_ATTRIBUTE = AuthServiceImpl.class.getName() + ".currentUser";
+
     AuthenticationManager authManager;
     UserRepository userRepository;
     RoleRepository roleRepository;
@@ -52,6 +57,7 @@ public class AuthServiceImpl implements AuthService {
     InvalidatedTokenService invalidatedTokenService;
     PasswordEncoder passwordEncoder;
     VerificationService verificationService;
+    EntityManager entityManager;
     @Value("${my-config.base-url}")
     @NonFinal
     private String baseUrl;
@@ -85,8 +91,19 @@ public class AuthServiceImpl implements AuthService {
         Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         if (principal instanceof CustomUserDetails) {
             String userId = ((CustomUserDetails) principal).getUserId();
-            return userRepository.findById(userId)
+            // Reuse the entity already loaded during this request while it is still managed
+            RequestAttributes request = RequestContextHolder.getRequestAttributes();
+            if (request != null
+                    && request.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof UserEntity cached
+                    && userId.equals(cached.getUserId()) && entityManager.contains(cached)) {
+                return cached;
+            }
+            UserEntity user = userRepository.findById(userId)
                     .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND, "Không tìm thấy User đang đăng nhập"));
+            if (request != null) {
+                request.setAttribute(CURRENT_USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+            }
+            return user;
         }
         throw new AppException(ErrorCode.UNAUTHORIZED, "Người dùng chưa đăng nhập");
     }
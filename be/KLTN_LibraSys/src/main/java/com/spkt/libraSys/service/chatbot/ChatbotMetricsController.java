@@ -0,0 +1,39 @@
+package com.spkt.libraSys.service.chatbot;
+
+import com.spkt.libraSys.exception.ApiResponse;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Controller exposing chatbot webhook metrics to administrators.
+ * Kept apart from the webhook itself, which is public and skips JWT authentication.
+ */
+@RestController
+@RequestMapping("/api/v1/chatbot")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ChatbotMetricsController {
+    ChatbotService chatbotService;
+
+    /**
+     * Retrieves call count, errors and latency of every intent since startup, slowest first.
+     * Requires ADMIN role.
+     * @return ResponseEntity containing the metrics of each intent
+     */
+    @GetMapping("/metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<IntentStats>>> getIntentMetrics() {
+        return ResponseEntity.ok(ApiResponse.<List<IntentStats>>builder()
+                .message("Lấy thống kê intent chatbot thành công")
+                .data(chatbotService.getIntentMetrics())
+                .build());
+    }
+}
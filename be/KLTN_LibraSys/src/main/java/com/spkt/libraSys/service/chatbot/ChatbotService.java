@@ -1,6 +1,5 @@
 package com.spkt.libraSys.service.chatbot;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spkt.libraSys.service.access.AuthRequest;
 import com.spkt.libraSys.service.access.AuthResponse;
@@ -18,50 +17,63 @@ import java.util.*;
 @Service
 public class ChatbotService {
 
-    private final List<IntentHandler> handlers;
+    private final IntentHandlerRegistry intentHandlerRegistry;
     private final AuthService authService;
     private final ObjectMapper objectMapper;
+    private final IntentMetrics intentMetrics;
 
-    public ChatbotService(List<IntentHandler> handlers, AuthService authService) {
-        this.handlers = handlers;
+    public ChatbotService(IntentHandlerRegistry intentHandlerRegistry, AuthService authService,
+                          ObjectMapper objectMapper, IntentMetrics intentMetrics) {
+        this.intentHandlerRegistry = intentHandlerRegistry;
         this.authService = authService;
-        this.objectMapper = new ObjectMapper();
+        this.objectMapper = objectMapper;
+        this.intentMetrics = intentMetrics;
     }
 
     public WebhookResponse handleIntent(WebhookRequest request) {
+        String intent = null;
+        IntentHandler handler = null;
+        long start = System.nanoTime();
+        boolean failed = false;
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            String jsonRequest = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(request);
-            log.info("Incoming WebhookRequest:\n{}", jsonRequest);
-
-            Map<String, Object> payload = request.getOriginalDetectIntentRequest().getPayload();
-            String username = payload != null && payload.get("username") != null
-                    ? payload.get("username").toString()
-                    : "unknown";
-
-            log.info("Username : {}", username);
+            if (log.isDebugEnabled()) {
+                log.debug("Incoming WebhookRequest:\n{}",
+                        objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(request));
+                Map<String, Object> payload = request.getOriginalDetectIntentRequest().getPayload();
+                log.debug("Username : {}", payload != null && payload.get("username") != null
+                        ? payload.get("username").toString()
+                        : "unknown");
+            }
 
-            String intent = request.getQueryResult().getIntent().getDisplayName();
+            intent = request.getQueryResult().getIntent().getDisplayName();
             log.info("Handling intent: {}", intent);
 
             // Find appropriate handler for the intent
-            Optional<IntentHandler> handler = handlers.stream()
-                    .filter(h -> h.getIntentName().equals(intent))
-                    .findFirst();
+            handler = intentHandlerRegistry.getHandler(intent);
 
-            if (handler.isPresent()) {
+            if (handler != null) {
                 // Process intent using the corresponding handler
-                return handler.get().handle(request);
+                return handler.handle(request);
             } else {
                 // No suitable handler found
                 return createUnknownIntentResponse(intent);
             }
         } catch (Exception e) {
+            failed = true;
             log.error("Error handling intent: {}", e.getMessage(), e);
             return createErrorResponse(e);
+        } finally {
+            intentMetrics.record(intent, System.nanoTime() - start, failed);
         }
     }
 
+    /**
+     * Per-intent latency and counters since startup, slowest total time first
+     */
+    public List<IntentStats> getIntentMetrics() {
+        return intentMetrics.snapshot();
+    }
+
     private WebhookResponse createUnknownIntentResponse(String intent) {
         List<WebhookResponse.QuickReply> quickReplies = Arrays.asList(
             new WebhookResponse.QuickReply("Tìm sách", "search_book"),
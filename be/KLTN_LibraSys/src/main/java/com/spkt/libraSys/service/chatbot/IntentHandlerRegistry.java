@@ -1,36 +1,95 @@
 package com.spkt.libraSys.service.chatbot;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Service for managing and registering intent handlers.
- * Provides functionality to scan and collect all intent handlers from the Spring context.
+ * Scans the intent handlers in the Spring context once and keeps a routing table by intent name,
+ * so dispatching an intent is a single map lookup.
  */
 @Service
+@Slf4j
 public class IntentHandlerRegistry {
 
     private final ApplicationContext applicationContext;
+    // Built on first use: handlers may depend on this registry, so they cannot be scanned in the constructor
+    private volatile Map<String, IntentHandler> routes;
+    private volatile String systemPrompt;
 
     @Autowired
     public IntentHandlerRegistry(ApplicationContext applicationContext) {
         this.applicationContext = applicationContext;
     }
 
-    // Scan all IntentHandlers in Spring context
+    // All IntentHandlers in Spring context
     public List<IntentHandler> getAllIntentHandlers() {
-        return applicationContext.getBeansOfType(IntentHandler.class)
-                .values()
-                .stream()
-                .collect(Collectors.toList());
+        return new ArrayList<>(routes().values());
     }
 
-    // Generate SYSTEM_PROMPT_INTENT from the list of IntentHandlers
+    /**
+     * Get the handler of an intent
+     * @param intentName Intent display name from Dialogflow
+     * @return The handler, or null if no handler serves this intent
+     */
+    public IntentHandler getHandler(String intentName) {
+        return intentName == null ? null : routes().get(intentName);
+    }
+
+    /**
+     * Names of the intents that have a handler
+     */
+    public Set<String> getIntentNames() {
+        return routes().keySet();
+    }
+
+    // SYSTEM_PROMPT_INTENT generated from the list of IntentHandlers; handlers do not change after startup
     public String generateSystemPrompt() {
+        String prompt = systemPrompt;
+        if (prompt == null) {
+            prompt = buildSystemPrompt();
+            systemPrompt = prompt;
+        }
+        return prompt;
+    }
+
+    private Map<String, IntentHandler> routes() {
+        Map<String, IntentHandler> table = routes;
+        if (table == null) {
+            synchronized (this) {
+                table = routes;
+                if (table == null) {
+                    table = buildRoutes();
+                    routes = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    private Map<String, IntentHandler> buildRoutes() {
+        Map<String, IntentHandler> table = new LinkedHashMap<>();
+        for (IntentHandler handler : applicationContext.getBeansOfType(IntentHandler.class).values()) {
+            IntentHandler existing = table.putIfAbsent(handler.getIntentName(), handler);
+            if (existing != null) {
+                log.warn("Intent {} has more than one handler, keeping {}", handler.getIntentName(),
+                        existing.getClass().getSimpleName());
+            }
+        }
+        log.info("Registered {} intent handlers", table.size());
+        return Collections.unmodifiableMap(table);
+    }
+
+    private String buildSystemPrompt() {
         StringBuilder systemPrompt = new StringBuilder();
         systemPrompt.append("Bạn là một trợ lý thông minh cho hệ thống thư viện số. Dưới đây là các intent hệ thống hỗ trợ:\n");
 
@@ -0,0 +1,121 @@
+package com.spkt.libraSys.service.chatbot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-intent timers and counters of the Dialogflow webhook.
+ * Timers exist only for the intents of {@link IntentHandlerRegistry}; every other intent name from the
+ * webhook payload is counted under {@value #UNKNOWN_INTENT}, so callers cannot grow the table.
+ * Calls slower than {@code app.chatbot.slow-intent-ms} are logged, since Dialogflow drops
+ * webhook answers that take longer than its 5 second deadline.
+ */
+@Component
+@Slf4j
+public class IntentMetrics {
+    static final String UNKNOWN_INTENT = "unknown";
+
+    private final IntentHandlerRegistry intentHandlerRegistry;
+    private final long slowThresholdNanos;
+    private final Timer unknown = new Timer(false);
+    // Built on first use, like the registry's routing table; never changes afterwards
+    private volatile Map<String, Timer> timers;
+
+    public IntentMetrics(IntentHandlerRegistry intentHandlerRegistry,
+                         @Value("${app.chatbot.slow-intent-ms:2000}") long slowThresholdMillis) {
+        this.intentHandlerRegistry = intentHandlerRegistry;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    }
+
+    /**
+     * Record one call of an intent
+     * @param intent Intent display name from the webhook payload, may be null
+     * @param failed Whether the handler threw
+     */
+    public void record(String intent, long elapsedNanos, boolean failed) {
+        Timer timer = intent == null ? null : timers().get(intent);
+        if (timer == null) {
+            timer = unknown;
+            intent = UNKNOWN_INTENT;
+        }
+        timer.count.increment();
+        timer.totalNanos.add(elapsedNanos);
+        timer.maxNanos.accumulate(elapsedNanos);
+        if (failed) {
+            timer.errors.increment();
+        }
+        if (elapsedNanos > slowThresholdNanos) {
+            timer.slow.increment();
+            log.warn("Slow intent {}: {} ms", intent, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        }
+    }
+
+    /**
+     * Counters of every intent seen since startup, slowest total time first
+     */
+    public List<IntentStats> snapshot() {
+        Map<String, Timer> all = new LinkedHashMap<>(timers());
+        all.put(UNKNOWN_INTENT, unknown);
+        List<IntentStats> stats = new ArrayList<>(all.size());
+        all.forEach((intent, timer) -> {
+            long count = timer.count.sum();
+            if (count == 0) {
+                return;
+            }
+            double totalMillis = timer.totalNanos.sum() / 1_000_000.0;
+            stats.add(IntentStats.builder()
+                    .intent(intent)
+                    .handled(timer.handled)
+                    .count(count)
+                    .errors(timer.errors.sum())
+                    .slowCount(timer.slow.sum())
+                    .totalMillis(totalMillis)
+                    .avgMillis(totalMillis / count)
+                    .maxMillis(timer.maxNanos.get() / 1_000_000.0)
+                    .build());
+        });
+        stats.sort(Comparator.comparingDouble(IntentStats::getTotalMillis).reversed());
+        return stats;
+    }
+
+    private Map<String, Timer> timers() {
+        Map<String, Timer> table = timers;
+        if (table == null) {
+            synchronized (this) {
+                table = timers;
+                if (table == null) {
+                    Map<String, Timer> built = new HashMap<>();
+                    intentHandlerRegistry.getIntentNames().forEach(name -> built.put(name, new Timer(true)));
+                    table = Collections.unmodifiableMap(built);
+                    timers = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    private static final class Timer {
+        final boolean handled;
+        final LongAdder count = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder slow = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        Timer(boolean handled) {
+            this.handled = handled;
+        }
+    }
+}
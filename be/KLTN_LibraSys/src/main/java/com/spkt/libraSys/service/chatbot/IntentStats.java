@@ -0,0 +1,25 @@
+package com.spkt.libraSys.service.chatbot;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Latency and outcome counters of one intent since startup
+ */
+@Getter
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class IntentStats {
+    String intent;
+    // false when no handler serves this intent
+    boolean handled;
+    long count;
+    long errors;
+    // Calls slower than the configured slow-intent threshold
+    long slowCount;
+    double avgMillis;
+    double maxMillis;
+    double totalMillis;
+}
@@ -1,27 +1,39 @@
 package com.spkt.libraSys.service.chatbot.aspect;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.spkt.libraSys.service.chatbot.IntentHandler;
 import com.spkt.libraSys.service.chatbot.WebhookRequest;
 import com.spkt.libraSys.service.chatbot.WebhookResponse;
 import com.spkt.libraSys.service.chatbot.annotation.RequiresAuth;
-import com.spkt.libraSys.service.user.UserEntity;
 import com.spkt.libraSys.service.user.UserRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Map;
-import java.util.Optional;
 
 @Aspect
 @Component
 @Slf4j
 public class AuthCheckAspect {
-    @Autowired
-    private UserRepository userRepository;
+    private final UserRepository userRepository;
+    // Username đã xác nhận tồn tại; chỉ lưu kết quả có, để người dùng mới đăng ký dùng được ngay
+    private final Cache<String, Boolean> knownUsernames;
+
+    public AuthCheckAspect(UserRepository userRepository,
+                           @Value("${app.chatbot.auth-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.knownUsernames = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
 
     @Around("@within(com.spkt.libraSys.service.chatbot.annotation.RequiresAuth) && args(request)")
     public Object checkAuth(ProceedingJoinPoint joinPoint, WebhookRequest request) throws Throwable {
@@ -36,9 +48,8 @@ public class AuthCheckAspect {
             username = payload.get("username").toString();
         }
 
-        log.info("AuthCheckAspect:Username: {}", username);
-        Optional<UserEntity> user = userRepository.findByUsername(username);
-        if(user.isEmpty()) {
+        log.debug("AuthCheckAspect:Username: {}", username);
+        if (!isKnownUser(username)) {
             return createAuthRequiredResponse(requiresAuth.message());
         }
 
@@ -46,6 +57,20 @@ public class AuthCheckAspect {
         return joinPoint.proceed();
     }
 
+    private boolean isKnownUser(String username) {
+        if (username == null) {
+            return false;
+        }
+        if (knownUsernames.getIfPresent(username) != null) {
+            return true;
+        }
+        boolean exists = userRepository.existsByUsername(username);
+        if (exists) {
+            knownUsernames.put(username, Boolean.TRUE);
+        }
+        return exists;
+    }
+
     private WebhookResponse createAuthRequiredResponse(String message) {
         WebhookResponse response = new WebhookResponse(message);
         response.getPayload().setQuickReplies(Arrays.asList(
@@ -0,0 +1,16 @@
+package com.spkt.libraSys.service.dashboard;
+
+/**
+ * Row of a per-day GROUP BY (YEAR, MONTH, DAY) aggregate over the loans table, used to rebuild the rollup.
+ */
+public interface DailyBucketRow {
+    Integer getBucketYear();
+
+    Integer getBucketMonth();
+
+    Integer getBucketDay();
+
+    Number getTotal();
+
+    Number getAmount();
+}
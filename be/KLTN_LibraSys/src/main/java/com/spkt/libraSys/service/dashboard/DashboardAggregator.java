@@ -0,0 +1,301 @@
+package com.spkt.libraSys.service.dashboard;
+
+import com.spkt.libraSys.service.document.DocumentRepository;
+import com.spkt.libraSys.service.document.DocumentStatus;
+import com.spkt.libraSys.service.drm.DrmLicenseRepository;
+import com.spkt.libraSys.service.loan.LoanEntity;
+import com.spkt.libraSys.service.loan.LoanRepository;
+import com.spkt.libraSys.service.loan.LoanStatus;
+import com.spkt.libraSys.service.user.UserRepository;
+import com.spkt.libraSys.service.user.UserStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dashboard aggregation engine.
+ * Computes every dashboard section with one grouped scan per table (documents, users, DRM licenses, loans);
+ * the monthly/yearly series are read from the month buckets of the loan statistics rollup,
+ * instead of issuing a separate COUNT/SUM query per metric, month and year.
+ */
+@Component
+@RequiredArgsConstructor
+public class DashboardAggregator {
+    static final int YEARS = 5;
+    static final int QUERY_COUNT = 6;
+    private static final int RECENT_DAYS = 30;
+    private static final Set<LoanEntity.PaymentStatus> PAID =
+            Set.of(LoanEntity.PaymentStatus.CASH, LoanEntity.PaymentStatus.VNPAY);
+
+    private final DocumentRepository documentRepository;
+    private final LoanRepository loanRepository;
+    private final UserRepository userRepository;
+    private final DrmLicenseRepository drmLicenseRepository;
+    private final LoanStatsRollupService rollupService;
+
+    /**
+     * Build a new snapshot of all dashboard sections as of {@code now}
+     * @param now Reference time for "today", "last 30 days" and the current year
+     * @param sourceVersion Loan change counter value the snapshot reflects
+     */
+    @Transactional(readOnly = true)
+    public DashboardSnapshot aggregate(LocalDateTime now, long sourceVersion) {
+        long started = System.nanoTime();
+        Map<String, Map<String, Object>> sections = new HashMap<>();
+
+        sections.put("documents", documentSection(documentRepository.countGroupedByStatus()));
+        sections.put("users", userSection(userRepository.countGroupedByStatus(now.toLocalDate().minusDays(RECENT_DAYS))));
+        sections.put("drm", drmSection(drmLicenseRepository.countGroupedByRevoked(now.minusDays(RECENT_DAYS))));
+
+        LocalDateTime dayStart = now.toLocalDate().atStartOfDay();
+        List<LoanAggregateRow> loanRows = loanRepository.aggregateByStatusAndPaymentStatus(
+                now.toLocalDate(), now.minusDays(RECENT_DAYS), dayStart);
+        sections.put("loans", loanSection(loanRows));
+        sections.put("fines", fineSection(loanRows));
+        sections.put("payments", paymentSection(loanRows));
+        sections.put("daily", dailySection(loanRows));
+
+        int currentYear = now.getYear();
+        LocalDateTime from = LocalDateTime.of(currentYear - YEARS + 1, 1, 1, 0, 0);
+        MonthlySeries series = new MonthlySeries(currentYear);
+        for (LoanStatsBucketEntity bucket : rollupService.buckets(
+                LoanStatsBucketEntity.Granularity.MONTH, from.toLocalDate(), now.toLocalDate())) {
+            int year = bucket.getBucketStart().getYear();
+            int month = bucket.getBucketStart().getMonthValue();
+            series.add("loans", year, month, bucket.getLoanCount());
+            series.add("returns", year, month, bucket.getReturnCount());
+            series.add("fines", year, month, bucket.getFineAmount());
+            series.add("payments", year, month, bucket.getPaymentAmount());
+        }
+        for (MonthlyBucketRow row : userRepository.countRegisteredByMonthSince(from.toLocalDate())) {
+            series.add("users", row.getBucketYear(), row.getBucketMonth(), asLong(row.getTotal()));
+        }
+        sections.put("monthly", series.monthly());
+        sections.put("yearly", series.yearly());
+
+        long buildMillis = (System.nanoTime() - started) / 1_000_000;
+        return new DashboardSnapshot(sections, now, buildMillis, QUERY_COUNT, sourceVersion);
+    }
+
+    private Map<String, Object> documentSection(List<GroupCountRow> rows) {
+        Map<String, Object> statistics = new HashMap<>();
+        long total = 0;
+        for (DocumentStatus status : DocumentStatus.values()) {
+            statistics.put("documentsBy" + status.name(), 0L);
+        }
+        for (GroupCountRow row : rows) {
+            total += asLong(row.getTotal());
+            statistics.put("documentsBy" + ((DocumentStatus) row.getGroupKey()).name(), asLong(row.getTotal()));
+        }
+        statistics.put("totalDocuments", total);
+        return statistics;
+    }
+
+    private Map<String, Object> userSection(List<GroupCountRow> rows) {
+        long total = 0, active = 0, recent = 0;
+        for (GroupCountRow row : rows) {
+            total += asLong(row.getTotal());
+            recent += asLong(row.getRecent());
+            if (row.getGroupKey() == UserStatus.ACTIVE) {
+                active += asLong(row.getTotal());
+            }
+        }
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("totalUsers", total);
+        statistics.put("activeUsers", active);
+        statistics.put("newUsers", recent);
+        return statistics;
+    }
+
+    private Map<String, Object> drmSection(List<GroupCountRow> rows) {
+        long total = 0, revoked = 0, recent = 0;
+        for (GroupCountRow row : rows) {
+            total += asLong(row.getTotal());
+            recent += asLong(row.getRecent());
+            if (Boolean.TRUE.equals(row.getGroupKey())) {
+                revoked += asLong(row.getTotal());
+            }
+        }
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("totalLicenses", total);
+        statistics.put("activeLicenses", total - revoked);
+        statistics.put("revokedLicenses", revoked);
+        statistics.put("recentLicenses", recent);
+        return statistics;
+    }
+
+    private Map<String, Object> loanSection(List<LoanAggregateRow> rows) {
+        long total = 0, active = 0, overdue = 0, recent = 0;
+        for (LoanAggregateRow row : rows) {
+            total += asLong(row.getTotal());
+            recent += asLong(row.getRecent());
+            if (row.getStatus() == LoanStatus.BORROWED) {
+                active += asLong(row.getTotal());
+                overdue += asLong(row.getOverdue());
+            }
+        }
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("totalLoans", total);
+        statistics.put("activeLoans", active);
+        statistics.put("overdueLoans", overdue);
+        statistics.put("recentLoans", recent);
+        return statistics;
+    }
+
+    private Map<String, Object> fineSection(List<LoanAggregateRow> rows) {
+        double totalFines = 0, paidFines = 0, pendingFines = 0;
+        long fined = 0, paid = 0, pending = 0;
+        for (LoanAggregateRow row : rows) {
+            totalFines += asDouble(row.getFineSum());
+            fined += asLong(row.getFined());
+            if (PAID.contains(row.getPaymentStatus())) {
+                paidFines += asDouble(row.getFineSum());
+                paid += asLong(row.getTotal());
+            } else if (row.getPaymentStatus() == LoanEntity.PaymentStatus.UNPAID) {
+                pendingFines += asDouble(row.getFineSum());
+                pending += asLong(row.getTotal());
+            }
+        }
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("totalFines", totalFines);
+        statistics.put("paidFines", paidFines);
+        statistics.put("pendingFines", pendingFines);
+        statistics.put("totalFineTransactions", fined);
+        statistics.put("paidTransactions", paid);
+        statistics.put("pendingTransactions", pending);
+        return statistics;
+    }
+
+    private Map<String, Object> paymentSection(List<LoanAggregateRow> rows) {
+        long cash = 0, vnpay = 0;
+        double cashAmount = 0, vnpayAmount = 0;
+        for (LoanAggregateRow row : rows) {
+            if (row.getPaymentStatus() == LoanEntity.PaymentStatus.CASH) {
+                cash += asLong(row.getTotal());
+                cashAmount += asDouble(row.getFineSum());
+            } else if (row.getPaymentStatus() == LoanEntity.PaymentStatus.VNPAY) {
+                vnpay += asLong(row.getTotal());
+                vnpayAmount += asDouble(row.getFineSum());
+            }
+        }
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("totalPayments", cash + vnpay);
+        statistics.put("cashPayments", cash);
+        statistics.put("vnpayPayments", vnpay);
+        statistics.put("totalAmount", cashAmount + vnpayAmount);
+        statistics.put("cashAmount", cashAmount);
+        statistics.put("vnpayAmount", vnpayAmount);
+        return statistics;
+    }
+
+    private Map<String, Object> dailySection(List<LoanAggregateRow> rows) {
+        long newLoans = 0, returns = 0, newFines = 0, payments = 0;
+        double newFineAmount = 0, paymentAmount = 0;
+        for (LoanAggregateRow row : rows) {
+            newFines += asLong(row.getFinedToday());
+            newFineAmount += asDouble(row.getFineAmountToday());
+            if (row.getStatus() == LoanStatus.BORROWED) {
+                newLoans += asLong(row.getCreatedToday());
+            } else if (row.getStatus() == LoanStatus.RETURNED) {
+                returns += asLong(row.getReturnedToday());
+            }
+            if (PAID.contains(row.getPaymentStatus())) {
+                payments += asLong(row.getPaidToday());
+                paymentAmount += asDouble(row.getPaidAmountToday());
+            }
+        }
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("newLoans", newLoans);
+        statistics.put("returns", returns);
+        statistics.put("newFines", newFines);
+        statistics.put("newFineAmount", newFineAmount);
+        statistics.put("payments", payments);
+        statistics.put("paymentAmount", paymentAmount);
+        return statistics;
+    }
+
+    static long asLong(Number value) {
+        return value == null ? 0L : value.longValue();
+    }
+
+    static double asDouble(Number value) {
+        return value == null ? 0.0 : value.doubleValue();
+    }
+
+    /**
+     * Per-month values of the last {@link #YEARS} years, folded into the monthly (current year)
+     * and yearly views the dashboard exposes.
+     */
+    private static class MonthlySeries {
+        private static final Set<String> NAMES = Set.of("loans", "returns", "fines", "payments", "users");
+        private static final Set<String> AMOUNTS = Set.of("fines", "payments");
+
+        private final int currentYear;
+        private final Map<String, double[]> buckets = new HashMap<>();
+
+        MonthlySeries(int currentYear) {
+            this.currentYear = currentYear;
+            NAMES.forEach(name -> buckets.put(name, new double[YEARS * 12]));
+        }
+
+        void add(String name, int year, int month, double value) {
+            int index = (year - (currentYear - YEARS + 1)) * 12 + month - 1;
+            double[] values = buckets.get(name);
+            if (index >= 0 && index < values.length) {
+                values[index] += value;
+            }
+        }
+
+        Map<String, Object> monthly() {
+            Map<String, Object> statistics = new HashMap<>();
+            int offset = (YEARS - 1) * 12;
+            buckets.forEach((name, values) -> {
+                Map<Integer, Object> byMonth = new HashMap<>();
+                for (int month = 1; month <= 12; month++) {
+                    byMonth.put(month, name.equals("users")
+                            ? (long) suffixSum(values, offset + month - 1)
+                            : value(name, values[offset + month - 1]));
+                }
+                statistics.put(name + "ByMonth", byMonth);
+            });
+            return statistics;
+        }
+
+        Map<String, Object> yearly() {
+            Map<String, Object> statistics = new HashMap<>();
+            buckets.forEach((name, values) -> {
+                Map<Integer, Object> byYear = new HashMap<>();
+                for (int i = 0; i < YEARS; i++) {
+                    double sum = 0;
+                    for (int month = 0; month < 12; month++) {
+                        sum += values[i * 12 + month];
+                    }
+                    byYear.put(currentYear - YEARS + 1 + i, name.equals("users")
+                            ? (long) suffixSum(values, i * 12)
+                            : value(name, sum));
+                }
+                statistics.put(name + "ByYear", byYear);
+            });
+            return statistics;
+        }
+
+        // New-user figures count every registration from the start of the period onwards
+        private static double suffixSum(double[] values, int from) {
+            double sum = 0;
+            for (int i = from; i < values.length; i++) {
+                sum += values[i];
+            }
+            return sum;
+        }
+
+        private Object value(String name, double value) {
+            return AMOUNTS.contains(name) ? (Object) value : (Object) (long) value;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -246,6 +247,61 @@ public class DashboardController {
         }
     }
 
+    /**
+     * Get the freshness of the dashboard snapshot
+     * @return Map containing snapshot age and pending changes
+     */
+    @GetMapping("/snapshot")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getSnapshotStatus() {
+        return ResponseEntity.ok(ApiResponse.<Map<String, Object>>builder()
+                .message("Đã lấy trạng thái snapshot dashboard thành công")
+                .data(dashboardService.getSnapshotStatus())
+                .build());
+    }
+
+    /**
+     * Rebuild the dashboard snapshot immediately
+     * @return Map containing the status of the rebuilt snapshot
+     */
+    @PostMapping("/snapshot/refresh")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> refreshSnapshot() {
+        try {
+            return ResponseEntity.ok(ApiResponse.<Map<String, Object>>builder()
+                    .message("Đã làm mới snapshot dashboard thành công")
+                    .data(dashboardService.refreshSnapshot())
+                    .build());
+        } catch (Exception e) {
+            log.error("Lỗi khi làm mới snapshot dashboard", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.<Map<String, Object>>builder()
+                            .message("Lỗi khi làm mới snapshot dashboard: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    /**
+     * Rebuild the loan statistics rollup from the loans table
+     * @return Map containing the number of buckets written
+     */
+    @PostMapping("/rollup/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> rebuildLoanRollup() {
+        try {
+            return ResponseEntity.ok(ApiResponse.<Map<String, Object>>builder()
+                    .message("Đã xây dựng lại thống kê mượn trả thành công")
+                    .data(dashboardService.rebuildLoanRollup())
+                    .build());
+        } catch (Exception e) {
+            log.error("Lỗi khi xây dựng lại thống kê mượn trả", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.<Map<String, Object>>builder()
+                            .message("Lỗi khi xây dựng lại thống kê mượn trả: " + e.getMessage())
+                            .build());
+        }
+    }
+
     /**
      * Get document statistics by type
      * @return Map containing document statistics by type
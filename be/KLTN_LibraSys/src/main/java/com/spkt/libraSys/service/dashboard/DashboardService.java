@@ -150,4 +150,26 @@ public interface DashboardService {
      * - dailyReturns: Number of returns per day
      */
     Map<String, Object> getLoanStatisticsByDateRange(LocalDate startDate, LocalDate endDate);
-}
\ No newline at end of file
+
+    /**
+     * Get the freshness of the materialised dashboard snapshot
+     * @return Map containing snapshot status including:
+     * - generatedAt: When the snapshot was built
+     * - ageSeconds: Age of the snapshot in seconds
+     * - pendingChanges: Number of loan changes not yet reflected
+     * - stale: Whether the snapshot is due for a rebuild
+     */
+    Map<String, Object> getSnapshotStatus();
+
+    /**
+     * Rebuild the dashboard snapshot immediately
+     * @return Map containing the status of the rebuilt snapshot
+     */
+    Map<String, Object> refreshSnapshot();
+
+    /**
+     * Rebuild the loan statistics rollup (day, month and year buckets) from the loans table
+     * @return Map containing the number of buckets written and the duration
+     */
+    Map<String, Object> rebuildLoanRollup();
+}
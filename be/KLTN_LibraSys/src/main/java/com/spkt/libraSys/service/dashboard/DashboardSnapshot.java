@@ -0,0 +1,46 @@
+package com.spkt.libraSys.service.dashboard;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable, materialised result of one dashboard aggregation run.
+ * Holds every statistics section together with when and how it was produced,
+ * so readers can be served without touching the database and can tell how stale the numbers are.
+ */
+@Getter
+public class DashboardSnapshot {
+    private final Map<String, Map<String, Object>> sections;
+    private final LocalDateTime generatedAt;
+    private final long buildMillis;
+    private final int queryCount;
+    // Loan change counter value the snapshot was built from
+    private final long sourceVersion;
+
+    public DashboardSnapshot(Map<String, Map<String, Object>> sections, LocalDateTime generatedAt,
+                             long buildMillis, int queryCount, long sourceVersion) {
+        Map<String, Map<String, Object>> copy = new HashMap<>();
+        sections.forEach((name, section) -> copy.put(name, Collections.unmodifiableMap(new HashMap<>(section))));
+        this.sections = Collections.unmodifiableMap(copy);
+        this.generatedAt = generatedAt;
+        this.buildMillis = buildMillis;
+        this.queryCount = queryCount;
+        this.sourceVersion = sourceVersion;
+    }
+
+    /**
+     * Get a mutable copy of one section, or an empty map if the section is unknown
+     */
+    public Map<String, Object> section(String name) {
+        return new HashMap<>(sections.getOrDefault(name, Map.of()));
+    }
+
+    public long ageSeconds(LocalDateTime now) {
+        return Math.max(0, Duration.between(generatedAt, now).getSeconds());
+    }
+}
@@ -0,0 +1,131 @@
+package com.spkt.libraSys.service.dashboard;
+
+import com.spkt.libraSys.service.loan.LoanChangedEvent;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the materialised dashboard snapshot.
+ * The snapshot is rebuilt on a fixed schedule and, after loan changes, on the next read
+ * (at most once per minimum refresh interval); concurrent readers share a single rebuild.
+ */
+@Component
+@Log4j2
+public class DashboardSnapshotService {
+    private final DashboardAggregator aggregator;
+    private final Clock clock;
+    private final Object refreshLock = new Object();
+    private final AtomicLong changeVersion = new AtomicLong();
+    private volatile DashboardSnapshot snapshot;
+
+    @Value("${app.dashboard.snapshot.max-age-seconds:300}")
+    private long maxAgeSeconds = 300;
+
+    @Value("${app.dashboard.snapshot.min-refresh-interval-seconds:5}")
+    private long minRefreshIntervalSeconds = 5;
+
+    @Autowired
+    public DashboardSnapshotService(DashboardAggregator aggregator) {
+        this(aggregator, Clock.systemDefaultZone());
+    }
+
+    DashboardSnapshotService(DashboardAggregator aggregator, Clock clock) {
+        this.aggregator = aggregator;
+        this.clock = clock;
+    }
+
+    /**
+     * Get the current snapshot, rebuilding it first if it is missing or stale
+     */
+    public DashboardSnapshot current() {
+        DashboardSnapshot current = snapshot;
+        if (current != null && !needsRefresh(current, LocalDateTime.now(clock), minRefreshIntervalSeconds)) {
+            return current;
+        }
+        return refresh(false);
+    }
+
+    /**
+     * Rebuild the snapshot. Without {@code force}, a snapshot rebuilt meanwhile by another thread is reused.
+     * If the rebuild fails the previous snapshot keeps being served.
+     */
+    public DashboardSnapshot refresh(boolean force) {
+        synchronized (refreshLock) {
+            DashboardSnapshot current = snapshot;
+            LocalDateTime now = LocalDateTime.now(clock);
+            if (!force && current != null && !needsRefresh(current, now, minRefreshIntervalSeconds)) {
+                return current;
+            }
+            long version = changeVersion.get();
+            try {
+                DashboardSnapshot next = aggregator.aggregate(now, version);
+                snapshot = next;
+                log.debug("Dashboard snapshot rebuilt in {} ms", next.getBuildMillis());
+                return next;
+            } catch (RuntimeException e) {
+                if (current == null) {
+                    throw e;
+                }
+                log.error("Error rebuilding dashboard snapshot, serving snapshot from {}", current.getGeneratedAt(), e);
+                return current;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.dashboard.snapshot.refresh-interval-ms:60000}",
+            initialDelayString = "${app.dashboard.snapshot.refresh-interval-ms:60000}")
+    public void scheduledRefresh() {
+        DashboardSnapshot current = snapshot;
+        if (current == null || needsRefresh(current, LocalDateTime.now(clock), 0)) {
+            refresh(false);
+        }
+    }
+
+    /**
+     * Mark the snapshot out of date once a loan change has been committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        changeVersion.incrementAndGet();
+    }
+
+    /**
+     * Describe how stale the served snapshot is
+     */
+    public Map<String, Object> status() {
+        Map<String, Object> status = new HashMap<>();
+        DashboardSnapshot current = snapshot;
+        status.put("maxAgeSeconds", maxAgeSeconds);
+        if (current == null) {
+            status.put("available", false);
+            return status;
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        status.put("available", true);
+        status.put("generatedAt", current.getGeneratedAt());
+        status.put("ageSeconds", current.ageSeconds(now));
+        status.put("buildMillis", current.getBuildMillis());
+        status.put("queryCount", current.getQueryCount());
+        status.put("pendingChanges", changeVersion.get() - current.getSourceVersion());
+        status.put("stale", needsRefresh(current, now, 0));
+        return status;
+    }
+
+    private boolean needsRefresh(DashboardSnapshot current, LocalDateTime now, long minIntervalSeconds) {
+        long age = current.ageSeconds(now);
+        if (age >= maxAgeSeconds || !current.getGeneratedAt().toLocalDate().equals(now.toLocalDate())) {
+            return true;
+        }
+        return current.getSourceVersion() != changeVersion.get() && age >= minIntervalSeconds;
+    }
+}
@@ -0,0 +1,13 @@
+package com.spkt.libraSys.service.dashboard;
+
+/**
+ * Row of a GROUP BY count used by the dashboard aggregates:
+ * the group key (a status enum or flag), its row count and how many of them are recent.
+ */
+public interface GroupCountRow {
+    Object getGroupKey();
+
+    Number getTotal();
+
+    Number getRecent();
+}
@@ -0,0 +1,39 @@
+package com.spkt.libraSys.service.dashboard;
+
+import com.spkt.libraSys.service.loan.LoanEntity;
+import com.spkt.libraSys.service.loan.LoanStatus;
+
+/**
+ * One (status, paymentStatus) group of the single-pass loans aggregate.
+ * Every loan, fine and payment metric of the dashboard is folded from these rows.
+ */
+public interface LoanAggregateRow {
+    LoanStatus getStatus();
+
+    LoanEntity.PaymentStatus getPaymentStatus();
+
+    Number getTotal();
+
+    Number getFineSum();
+
+    // Loans whose due date is before today
+    Number getOverdue();
+
+    // Loans created after the "recent" threshold (last 30 days)
+    Number getRecent();
+
+    // Loans carrying a fine (fineAmount > 0)
+    Number getFined();
+
+    Number getCreatedToday();
+
+    Number getReturnedToday();
+
+    Number getFinedToday();
+
+    Number getFineAmountToday();
+
+    Number getPaidToday();
+
+    Number getPaidAmountToday();
+}
@@ -0,0 +1,39 @@
+package com.spkt.libraSys.service.dashboard;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds the loan statistics rollup from the loans table: once at startup when the rollup is empty,
+ * and nightly to correct any drift from failed or concurrent incremental updates
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class LoanStatsBackfillJob {
+    private final LoanStatsRollupService rollupService;
+    private final LoanStatsBucketRepository bucketRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (bucketRepository.count() == 0) {
+                run();
+            }
+        } catch (Exception e) {
+            log.error("Error backfilling loan statistics rollup at startup", e);
+        }
+    }
+
+    @Scheduled(cron = "${app.dashboard.rollup.backfill-cron:0 30 2 * * *}")
+    public void run() {
+        log.info("Starting loan statistics rollup backfill");
+        long started = System.currentTimeMillis();
+        int buckets = rollupService.rebuild();
+        log.info("Loan statistics rollup rebuilt: {} buckets in {} ms", buckets, System.currentTimeMillis() - started);
+    }
+}
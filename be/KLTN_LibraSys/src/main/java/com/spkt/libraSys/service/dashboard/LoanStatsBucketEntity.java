@@ -0,0 +1,84 @@
+package com.spkt.libraSys.service.dashboard;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated loan, return, fine and payment counters of one day, month or year.
+ * Maintained incrementally from loan state changes and rebuilt by {@link LoanStatsBackfillJob}.
+ */
+@Entity
+@Table(name = "loan_stats_buckets",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"granularity", "bucket_start"}))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class LoanStatsBucketEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Long id;
+
+    @Column(name = "granularity", nullable = false, length = 10)
+    @Enumerated(EnumType.STRING)
+    Granularity granularity;
+
+    // First day covered by the bucket
+    @Column(name = "bucket_start", nullable = false)
+    LocalDate bucketStart;
+
+    @Column(name = "loan_count", nullable = false)
+    long loanCount;
+
+    @Column(name = "return_count", nullable = false)
+    long returnCount;
+
+    @Column(name = "fine_count", nullable = false)
+    long fineCount;
+
+    @Column(name = "fine_amount", nullable = false)
+    double fineAmount;
+
+    @Column(name = "payment_count", nullable = false)
+    long paymentCount;
+
+    @Column(name = "payment_amount", nullable = false)
+    double paymentAmount;
+
+    public void add(LoanStatsBucketEntity other) {
+        loanCount += other.loanCount;
+        returnCount += other.returnCount;
+        fineCount += other.fineCount;
+        fineAmount += other.fineAmount;
+        paymentCount += other.paymentCount;
+        paymentAmount += other.paymentAmount;
+    }
+
+    public enum Granularity {
+        DAY,
+        MONTH,
+        YEAR;
+
+        public LocalDate start(LocalDate date) {
+            return switch (this) {
+                case DAY -> date;
+                case MONTH -> date.withDayOfMonth(1);
+                case YEAR -> date.withDayOfYear(1);
+            };
+        }
+
+        public LocalDate next(LocalDate start) {
+            return switch (this) {
+                case DAY -> start.plusDays(1);
+                case MONTH -> start.plusMonths(1);
+                case YEAR -> start.plusYears(1);
+            };
+        }
+    }
+}
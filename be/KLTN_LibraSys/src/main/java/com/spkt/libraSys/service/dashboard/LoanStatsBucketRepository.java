@@ -0,0 +1,44 @@
+package com.spkt.libraSys.service.dashboard;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LoanStatsBucketRepository extends JpaRepository<LoanStatsBucketEntity, Long> {
+
+    List<LoanStatsBucketEntity> findByGranularityAndBucketStartBetweenOrderByBucketStart(
+            LoanStatsBucketEntity.Granularity granularity, LocalDate from, LocalDate to);
+
+    List<LoanStatsBucketEntity> findByGranularityAndBucketStartIn(
+            LoanStatsBucketEntity.Granularity granularity, Collection<LocalDate> bucketStarts);
+
+    /**
+     * Add the given deltas to the day, month and year buckets in one atomic upsert.
+     * Runs in its own transaction because it is called after the loan transaction has committed.
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "INSERT INTO loan_stats_buckets (granularity, bucket_start, loan_count, return_count, " +
+            "fine_count, fine_amount, payment_count, payment_amount) VALUES " +
+            "('DAY', :day, :loans, :returns, :fines, :fineAmount, :payments, :paymentAmount), " +
+            "('MONTH', :month, :loans, :returns, :fines, :fineAmount, :payments, :paymentAmount), " +
+            "('YEAR', :year, :loans, :returns, :fines, :fineAmount, :payments, :paymentAmount) " +
+            "ON DUPLICATE KEY UPDATE loan_count = loan_count + VALUES(loan_count), " +
+            "return_count = return_count + VALUES(return_count), fine_count = fine_count + VALUES(fine_count), " +
+            "fine_amount = fine_amount + VALUES(fine_amount), payment_count = payment_count + VALUES(payment_count), " +
+            "payment_amount = payment_amount + VALUES(payment_amount)",
+            nativeQuery = true)
+    int increment(@Param("day") LocalDate day, @Param("month") LocalDate month, @Param("year") LocalDate year,
+                  @Param("loans") long loans, @Param("returns") long returns,
+                  @Param("fines") long fines, @Param("fineAmount") double fineAmount,
+                  @Param("payments") long payments, @Param("paymentAmount") double paymentAmount);
+}
@@ -0,0 +1,164 @@
+package com.spkt.libraSys.service.dashboard;
+
+import com.spkt.libraSys.service.dashboard.LoanStatsBucketEntity.Granularity;
+import com.spkt.libraSys.service.loan.LoanChangedEvent;
+import com.spkt.libraSys.service.loan.LoanEntity;
+import com.spkt.libraSys.service.loan.LoanRepository;
+import com.spkt.libraSys.service.loan.LoanStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Rollup store of loan statistics in day, month and year buckets.
+ * Every committed loan state change adds its deltas to the three buckets it falls in,
+ * so historical ranges are answered from O(buckets) rows instead of re-scanning the loans table.
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class LoanStatsRollupService {
+    private static final Set<LoanStatus> BORROWED_STATUSES = Set.of(LoanStatus.BORROWED, LoanStatus.RETURNED);
+    private static final Set<LoanEntity.PaymentStatus> PAID =
+            Set.of(LoanEntity.PaymentStatus.CASH, LoanEntity.PaymentStatus.VNPAY);
+
+    private final LoanStatsBucketRepository bucketRepository;
+    private final LoanRepository loanRepository;
+
+    /**
+     * Apply a committed loan change to its day, month and year buckets.
+     * A failed update is only logged; the nightly backfill corrects the rollup.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        if (event.getOccurredAt() == null) {
+            return;
+        }
+        long loans = 0, returns = 0, fines = 0, payments = 0;
+        double fineAmount = 0, paymentAmount = 0;
+        switch (event.getKind()) {
+            case BORROWED -> loans = event.getCount();
+            case RETURNED -> returns = event.getCount();
+            case FINED -> {
+                fines = event.getCount();
+                fineAmount = event.getAmount();
+            }
+            case PAID -> {
+                payments = event.getCount();
+                paymentAmount = event.getAmount();
+            }
+            default -> {
+                return;
+            }
+        }
+        LocalDate day = event.getOccurredAt().toLocalDate();
+        try {
+            bucketRepository.increment(day, Granularity.MONTH.start(day), Granularity.YEAR.start(day),
+                    loans, returns, fines, fineAmount, payments, paymentAmount);
+        } catch (RuntimeException e) {
+            log.error("Error updating loan statistics rollup for loan {}: {}", event.getLoanId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild every bucket from the loans table
+     * @return Number of buckets written
+     */
+    @Transactional
+    public int rebuild() {
+        Map<Granularity, Map<LocalDate, LoanStatsBucketEntity>> buckets = new EnumMap<>(Granularity.class);
+        fold(buckets, loanRepository.countBorrowedByDay(BORROWED_STATUSES),
+                (bucket, row) -> bucket.setLoanCount(bucket.getLoanCount() + DashboardAggregator.asLong(row.getTotal())));
+        fold(buckets, loanRepository.countReturnedByDay(LoanStatus.RETURNED),
+                (bucket, row) -> bucket.setReturnCount(bucket.getReturnCount() + DashboardAggregator.asLong(row.getTotal())));
+        fold(buckets, loanRepository.sumFinesByDay(), (bucket, row) -> {
+            bucket.setFineCount(bucket.getFineCount() + DashboardAggregator.asLong(row.getTotal()));
+            bucket.setFineAmount(bucket.getFineAmount() + DashboardAggregator.asDouble(row.getAmount()));
+        });
+        fold(buckets, loanRepository.sumPaidByDay(PAID), (bucket, row) -> {
+            bucket.setPaymentCount(bucket.getPaymentCount() + DashboardAggregator.asLong(row.getTotal()));
+            bucket.setPaymentAmount(bucket.getPaymentAmount() + DashboardAggregator.asDouble(row.getAmount()));
+        });
+
+        List<LoanStatsBucketEntity> all = new ArrayList<>();
+        buckets.values().forEach(byStart -> all.addAll(byStart.values()));
+        bucketRepository.deleteAllInBatch();
+        bucketRepository.saveAll(all);
+        return all.size();
+    }
+
+    /**
+     * Get the buckets of one granularity whose start lies in [from, to], ordered by start
+     */
+    @Transactional(readOnly = true)
+    public List<LoanStatsBucketEntity> buckets(Granularity granularity, LocalDate from, LocalDate to) {
+        return bucketRepository.findByGranularityAndBucketStartBetweenOrderByBucketStart(granularity, from, to);
+    }
+
+    /**
+     * Sum the counters of the inclusive date range [start, end], reading whole years and months
+     * where the range covers them and single days only at its edges
+     */
+    @Transactional(readOnly = true)
+    public LoanStatsBucketEntity totals(LocalDate start, LocalDate end) {
+        LoanStatsBucketEntity totals = new LoanStatsBucketEntity();
+        cover(start, end).forEach((granularity, starts) -> {
+            if (!starts.isEmpty()) {
+                bucketRepository.findByGranularityAndBucketStartIn(granularity, starts).forEach(totals::add);
+            }
+        });
+        return totals;
+    }
+
+    /**
+     * Split [start, end] into the fewest whole year, month and day buckets
+     */
+    static Map<Granularity, List<LocalDate>> cover(LocalDate start, LocalDate end) {
+        Map<Granularity, List<LocalDate>> cover = new EnumMap<>(Granularity.class);
+        for (Granularity granularity : Granularity.values()) {
+            cover.put(granularity, new ArrayList<>());
+        }
+        LocalDate cursor = start;
+        while (!cursor.isAfter(end)) {
+            Granularity granularity = fits(Granularity.YEAR, cursor, end) ? Granularity.YEAR
+                    : fits(Granularity.MONTH, cursor, end) ? Granularity.MONTH : Granularity.DAY;
+            cover.get(granularity).add(cursor);
+            cursor = granularity.next(cursor);
+        }
+        return cover;
+    }
+
+    private static boolean fits(Granularity granularity, LocalDate cursor, LocalDate end) {
+        return granularity.start(cursor).equals(cursor) && !granularity.next(cursor).minusDays(1).isAfter(end);
+    }
+
+    private static void fold(Map<Granularity, Map<LocalDate, LoanStatsBucketEntity>> buckets, List<DailyBucketRow> rows,
+                             BiConsumer<LoanStatsBucketEntity, DailyBucketRow> apply) {
+        for (DailyBucketRow row : rows) {
+            LocalDate day = LocalDate.of(row.getBucketYear(), row.getBucketMonth(), row.getBucketDay());
+            for (Granularity granularity : Granularity.values()) {
+                LocalDate bucketStart = granularity.start(day);
+                LoanStatsBucketEntity bucket = buckets.computeIfAbsent(granularity, g -> new HashMap<>())
+                        .computeIfAbsent(bucketStart, s -> LoanStatsBucketEntity.builder()
+                                .granularity(granularity)
+                                .bucketStart(bucketStart)
+                                .build());
+                apply.accept(bucket, row);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.spkt.libraSys.service.dashboard;
+
+/**
+ * Row of a per-month GROUP BY (YEAR, MONTH) aggregate: row count and summed amount of the month.
+ */
+public interface MonthlyBucketRow {
+    Integer getBucketYear();
+
+    Integer getBucketMonth();
+
+    Number getTotal();
+
+    Number getAmount();
+}
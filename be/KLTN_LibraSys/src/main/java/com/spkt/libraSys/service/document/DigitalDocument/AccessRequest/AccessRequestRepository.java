@@ -3,6 +3,8 @@ package com.spkt.libraSys.service.document.DigitalDocument.AccessRequest;
 import io.github.resilience4j.core.lang.NonNull;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Repository;
 
@@ -30,4 +32,13 @@ public interface AccessRequestRepository extends JpaRepository<AccessRequestEnti
     Page<AccessRequestEntity> findByDigitalId(Long   digitalId, Pageable pageable);
 
     List<AccessRequestEntity> findByRequesterId(String requesterId);
+
+    @Query("SELECT a.id, a.requesterId, d.document.documentId FROM AccessRequestEntity a, DigitalDocumentEntity d " +
+            "WHERE d.digitalDocumentId = a.digitalId AND a.status = :status AND a.id > :lastId ORDER BY a.id")
+    List<Object[]> findInteractionsAfter(@Param("status") AccessRequestStatus status, @Param("lastId") long lastId,
+                                         Pageable pageable);
+
+    @Query("SELECT d.document.documentId FROM AccessRequestEntity a, DigitalDocumentEntity d " +
+            "WHERE d.digitalDocumentId = a.digitalId AND a.status = :status AND a.requesterId = :userId")
+    List<Long> findDocumentIdsByUserId(@Param("status") AccessRequestStatus status, @Param("userId") String userId);
 }
@@ -11,10 +11,13 @@ import com.spkt.libraSys.service.document.DocumentEntity;
 import com.spkt.libraSys.service.document.upload.UploadEntity;
 import com.spkt.libraSys.service.document.upload.UploadRepository;
 import com.spkt.libraSys.service.document.viewer.ApprovalStatus;
+import com.spkt.libraSys.service.recommendation.UserInteractionEvent;
+import com.spkt.libraSys.service.recommendation.UserInteractionMatrix;
 import com.spkt.libraSys.service.role.RoleService;
 import com.spkt.libraSys.service.user.UserEntity;
 import com.spkt.libraSys.service.user.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -41,6 +44,8 @@ public class AccessRequestServiceImpl implements AccessRequestService {
     private AccessRequestMapper accessRequestMapper;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     private final  int ACCESS_DAYS_APPROVE = 30;
 
@@ -81,6 +86,9 @@ public class AccessRequestServiceImpl implements AccessRequestService {
         request.setCoverImage(digitalDocument.getDocument().getCoverImage());
 
         AccessRequestEntity savedRequest = accessRequestRepository.save(request);
+        if (status == AccessRequestStatus.APPROVED) {
+            publishAccessInteraction(requesterId, document);
+        }
 
         return covertToDto(savedRequest);
     }
@@ -101,6 +109,8 @@ public class AccessRequestServiceImpl implements AccessRequestService {
         request.setLicenseExpiry(LocalDateTime.now().plusDays(ACCESS_DAYS_APPROVE));  // 30 days after approval
         request.setReviewerId(currentUser.getUserId());
         AccessRequestEntity savedRequest = accessRequestRepository.save(request);
+        digitalDocumentRepository.findById(request.getDigitalId())
+                .ifPresent(digitalDocument -> publishAccessInteraction(request.getRequesterId(), digitalDocument.getDocument()));
 
         return covertToDto(savedRequest);
     }
@@ -304,6 +314,13 @@ public class AccessRequestServiceImpl implements AccessRequestService {
     }
 
 
+    private void publishAccessInteraction(String requesterId, DocumentEntity document) {
+        if (document != null) {
+            eventPublisher.publishEvent(new UserInteractionEvent(requesterId, document.getDocumentId(),
+                    UserInteractionMatrix.Kind.ACCESS));
+        }
+    }
+
     private boolean canViewRequest(AccessRequestEntity request, UserEntity currentUser) {
         return request.getRequesterId().equals(currentUser.getUserId()) ||
                request.getOwnerId().equals(currentUser.getUserId()) ||
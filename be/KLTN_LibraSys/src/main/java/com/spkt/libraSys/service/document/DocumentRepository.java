@@ -1,6 +1,8 @@
 package com.spkt.libraSys.service.document;
 
+import com.spkt.libraSys.service.dashboard.GroupCountRow;
 import com.spkt.libraSys.service.document.course.CourseEntity;
+import com.spkt.libraSys.service.document.viewer.ApprovalStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -23,6 +25,13 @@ public interface DocumentRepository extends JpaRepository<DocumentEntity, Long>
    @Query("SELECT COUNT(d) FROM DocumentEntity d WHERE d.status = :status")
    long countByStatus(@Param("status") DocumentStatus status);
 
+   @Query("SELECT d.status AS groupKey, COUNT(d) AS total, 0 AS recent FROM DocumentEntity d GROUP BY d.status")
+   List<GroupCountRow> countGroupedByStatus();
+
+   @Query("SELECT t.typeName AS groupKey, COUNT(d) AS total, 0 AS recent FROM DocumentEntity d JOIN d.documentTypes t " +
+           "GROUP BY t.typeName")
+   List<GroupCountRow> countGroupedByTypeName();
+
    List<DocumentEntity> findByDocumentNameContainingIgnoreCase(String documentName);
 
    @Query("SELECT DISTINCT d FROM DocumentEntity d LEFT JOIN FETCH d.documentTypes")
@@ -36,4 +45,11 @@ public interface DocumentRepository extends JpaRepository<DocumentEntity, Long>
 
    @Query("SELECT DISTINCT d FROM DocumentEntity d LEFT JOIN FETCH d.documentTypes WHERE d IN :documents")
    List<DocumentEntity> findAllWithDocumentTypesByIds(@Param("documents") Collection<DocumentEntity> documents);
+
+   @Query("SELECT DISTINCT d FROM DocumentEntity d LEFT JOIN FETCH d.documentTypes WHERE d.documentId IN :ids")
+   List<DocumentEntity> findAllWithDocumentTypesByIdIn(@Param("ids") Collection<Long> ids);
+
+   Page<DocumentEntity> findByApprovalStatusAndStatus(ApprovalStatus approvalStatus, DocumentStatus status, Pageable pageable);
+
+   long countByApprovalStatusAndStatus(ApprovalStatus approvalStatus, DocumentStatus status);
 }
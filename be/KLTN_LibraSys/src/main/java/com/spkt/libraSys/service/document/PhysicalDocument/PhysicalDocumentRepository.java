@@ -2,10 +2,21 @@ package com.spkt.libraSys.service.document.PhysicalDocument;
 
 import com.spkt.libraSys.service.document.PhysicalDocument.PhysicalDocumentEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+
 @Repository
 public interface PhysicalDocumentRepository extends JpaRepository<PhysicalDocumentEntity, Long> {
     // Có thể thêm các phương thức tìm kiếm tùy chỉnh nếu cần.
     boolean existsByIsbn(String isbn);
+
+    @Modifying
+    @Query("UPDATE PhysicalDocumentEntity p SET p.unavailableCount = " +
+            "CASE WHEN p.unavailableCount > :by THEN p.unavailableCount - :by ELSE 0 END " +
+            "WHERE p.physicalDocumentId IN :ids")
+    int decrementUnavailableCount(@Param("ids") Collection<Long> ids, @Param("by") int by);
 }
@@ -13,19 +13,29 @@ import com.spkt.libraSys.service.drm.DrmKeyEntity;
 import com.spkt.libraSys.service.drm.DrmKeyRepository;
 import com.spkt.libraSys.service.openAI.OpenAIService;
 import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Summarises and moderates digital documents. The DRM file is decrypted as a stream straight into
+ * PDFBox/POI, text is extracted page by page (paragraph by paragraph for DOCX) and grouped into sections;
+ * sections are summarised concurrently on the summary executor and merged at the end.
+ * No decrypted copy of the file is written next to the DRM file.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class DocumentTextExtractionService {
 
@@ -35,10 +45,38 @@ public class DocumentTextExtractionService {
     private final DocumentRepository documentRepository;
     private final DrmEncryptionUtil drmEncryptionUtil;
     private final DrmKeyRepository drmKeyEntityRepository;
+    private final Executor summaryExecutor;
 
 //    @Value("${OpenAI.apiKey}")
 //    protected String apiKey;
 
+    // Characters per section sent to the LLM (about 3000 tokens)
+    @Value("${app.summary.section-chars:12000}")
+    private int sectionChars = 12000;
+
+    // Sections of one document waiting for the LLM at the same time
+    @Value("${app.summary.max-in-flight:8}")
+    private int maxInFlight = 8;
+
+    @Value("${app.summary.pdf-max-memory-bytes:16777216}")
+    private long pdfMaxMemoryBytes = 16 * 1024 * 1024;
+
+    public DocumentTextExtractionService(TextProcessingService textProcessingService,
+                                         OpenAIService openAIService,
+                                         DigitalDocumentRepository digitalDocumentRepository,
+                                         DocumentRepository documentRepository,
+                                         DrmEncryptionUtil drmEncryptionUtil,
+                                         DrmKeyRepository drmKeyEntityRepository,
+                                         @Qualifier("summaryExecutor") Executor summaryExecutor) {
+        this.textProcessingService = textProcessingService;
+        this.openAIService = openAIService;
+        this.digitalDocumentRepository = digitalDocumentRepository;
+        this.documentRepository = documentRepository;
+        this.drmEncryptionUtil = drmEncryptionUtil;
+        this.drmKeyEntityRepository = drmKeyEntityRepository;
+        this.summaryExecutor = summaryExecutor;
+    }
+
 
     @Async
     @Transactional
@@ -70,36 +108,23 @@ public class DocumentTextExtractionService {
             for (UploadEntity upload : digitalDocument.getUploads()) {
                 String filePath = upload.getFilePath();
                 try {
-                    File encryptedFile = Paths.get(upload.getFilePath()).toFile();
+                    Path encryptedFile = Paths.get(filePath);
 
-                    if (!encryptedFile.exists()) {
-                        log.warn("File không tồn tại tại đường dẫn: {}", upload.getFilePath());
+                    if (!Files.exists(encryptedFile)) {
+                        log.warn("File không tồn tại tại đường dẫn: {}", filePath);
                         continue;
                     }
                     // 1. Get decryption key from DB
                     DrmKeyEntity drmKeyEntity = drmKeyEntityRepository.findByUploadIdAndActive(upload.getUploadId(), true)
                             .orElseThrow(() -> new AppException(ErrorCode.INVALID_CONTENT_KEY, "Key không tồn tại"));
-
-                    // 2. Read encrypted file data
-                    byte[] encryptedData = Files.readAllBytes(encryptedFile.toPath());
-
-                    // 3. Decrypt content
                     String contentKey = drmEncryptionUtil.decryptKey(drmKeyEntity.getContentKey());
-                    byte[] decryptedData = drmEncryptionUtil.decryptContent(encryptedData, contentKey);
-
-                    // 4. Write temporary file for summarization
-                    File decryptedFile = File.createTempFile("decrypted_", ".tmp");
-                    decryptedFile.deleteOnExit();  // Ensure temporary file is deleted when program ends
 
-                    try (FileOutputStream fos = new FileOutputStream(decryptedFile)) {
-                        fos.write(decryptedData);
+                    // 2. Decrypt as a stream and summarize the content; the original name gives the file type
+                    String summary;
+                    try (InputStream content = drmEncryptionUtil.openDecryptedRange(encryptedFile, 0,
+                            drmEncryptionUtil.plainLength(encryptedFile), contentKey)) {
+                        summary = summarizeStream(content, filePath.replaceFirst("\\.drm$", ""), isSummarizeDoc, documentId);
                     }
-
-                    // 5. Change file extension if needed
-                    File convertedFile = convertFileExtension(decryptedFile, filePath);
-
-                    // 6. Summarize file content
-                    String summary = this.summarizeFile(convertedFile,isSummarizeDoc,documentId);
                     if(summary!=null &&  summary.equals("REJECTED_BY_AI")) return;
                     combinedSummary.append(summary).append("\n---\n");
                 } catch (Exception ex) {
@@ -124,76 +149,75 @@ public class DocumentTextExtractionService {
         }
     }
 
-    private File convertFileExtension(File decryptedFile, String originalFilePath) throws IOException {
-        String newFilePath = originalFilePath.replaceFirst("\\.drm$", "");  // Change file extension
-        File convertedFile = new File(newFilePath);
-
-        // Rename decrypted file to original filename
-        Files.move(decryptedFile.toPath(), convertedFile.toPath());
-        return convertedFile;
-    }
-
-
     // Method to process text summarization from file
     public String summarizeFile(File file,boolean isSummarizeDoc,Long documentId) throws IOException {
-        String text;
-
-        // Extract text from file
-        if (file.getName().endsWith(".pdf")) {
-            text = textProcessingService.cleanText(textProcessingService.extractTextFromPDF(file));
-        } else if (file.getName().endsWith(".docx")) {
-            text = textProcessingService.cleanText(textProcessingService.extractTextFromDocx(file));
-        } else {
-            throw new IllegalArgumentException("Unsupported file type!");
+        try (InputStream content = new FileInputStream(file)) {
+            return summarizeStream(content, file.getName(), isSummarizeDoc, documentId);
         }
+    }
 
-        // 2. If only moderation => Call moderation once for entire content
+    /**
+     * Summarize (or only moderate) a decrypted document read from {@code content}
+     * @param fileName Name of the original file, used to pick the PDF or DOCX extractor
+     * @return The summary, the moderation reason, or "REJECTED_BY_AI" when moderation rejects the content
+     */
+    String summarizeStream(InputStream content, String fileName, boolean isSummarizeDoc, Long documentId) throws IOException {
+        // 1. If only moderation => moderate section by section, stopping at the first rejection
         if (!isSummarizeDoc) {
-            DocumentEntity documentEntity = documentRepository.findById(documentId)
-                    .orElseThrow(()->new AppException(ErrorCode.DOCUMENT_NOT_FOUND,"Tai lieu khong ton tai"));
-
-            OpenAIService.ModerationResult result = openAIService.moderateDocumentContent(text);
-            if (result.isRejected()) {
-                log.info( "🚫 Nội dung bị từ chối bởi AI: " + result.getReason());
+            ModerationSections moderation = new ModerationSections();
+            try {
+                extractSections(content, fileName, moderation);
+            } catch (ContentRejected rejected) {
+                DocumentEntity documentEntity = documentRepository.findById(documentId)
+                        .orElseThrow(()->new AppException(ErrorCode.DOCUMENT_NOT_FOUND,"Tai lieu khong ton tai"));
+                log.info( "🚫 Nội dung bị từ chối bởi AI: " + rejected.reason);
                 documentEntity.setApprovalStatus(ApprovalStatus.REJECTED_BY_AI);
-                documentEntity.setReason_approval(result.reason);
+                documentEntity.setReason_approval(rejected.reason);
                 documentRepository.save(documentEntity);
                 return "REJECTED_BY_AI";
             }
-            return result.reason;
+            return null;
         }
 
-        // Split text into smaller sections
-        String[] sections = textProcessingService.splitTextBySections(text);
+        // 2. Summarize sections concurrently while extraction continues, then merge
+        SectionSummarizer summarizer = new SectionSummarizer(openAIService, summaryExecutor, sectionChars, maxInFlight);
+        extractSections(content, fileName, summarizer);
+        return summarizer.finish();
+    }
 
-        StringBuilder fullSummary = new StringBuilder();
-        String previousContext = "";
-        int maxTokenCount = 1000; // Token limit for previousContext
+    // Stream the text of the file into sections handed to sectionConsumer
+    private void extractSections(InputStream content, String fileName, Consumer<String> sectionConsumer)
+            throws IOException {
+        TextSectionBuffer sections = new TextSectionBuffer(sectionChars, sectionConsumer);
+        if (fileName.endsWith(".pdf")) {
+            textProcessingService.extractPdfPages(content, pdfMaxMemoryBytes,
+                    page -> sections.accept(textProcessingService.cleanText(page)));
+        } else if (fileName.endsWith(".docx")) {
+            textProcessingService.extractDocxParagraphs(content,
+                    paragraph -> sections.accept(textProcessingService.cleanText(paragraph)));
+        } else {
+            throw new IllegalArgumentException("Unsupported file type!");
+        }
+        sections.flush();
+    }
 
-        // Summarize each text section
-        for (String section : sections) {
-            if (textProcessingService.estimateTokenCount(section) > 4000) {
-                section = section.substring(0, 4000);  // Truncate if section is too long
+    private class ModerationSections implements Consumer<String> {
+        @Override
+        public void accept(String section) {
+            OpenAIService.ModerationResult result = openAIService.moderateDocumentContent(section);
+            if (result.isRejected()) {
+                throw new ContentRejected(result.reason);
             }
-
-            previousContext = trimContext(previousContext, maxTokenCount);
-
-            String summary = openAIService.summarizeTextWithOpenAI(section, previousContext);
-            fullSummary.append(summary).append("\n");
-
-            previousContext += summary;  // Update context for next section
         }
-
-        return fullSummary.toString();  // Return complete summary
     }
 
-    // Trim context if it exceeds allowed token count
-    private String trimContext(String previousContext, int maxTokenCount) {
-        int tokenCount = textProcessingService.estimateTokenCount(previousContext);
-        if (tokenCount > maxTokenCount) {
-            int trimLength = previousContext.length() - (maxTokenCount * 4);
-            previousContext = previousContext.substring(trimLength);
+    // Stops extraction as soon as one section is rejected
+    private static class ContentRejected extends RuntimeException {
+        private final String reason;
+
+        ContentRejected(String reason) {
+            super(reason, null, false, false);
+            this.reason = reason;
         }
-        return previousContext;
     }
 }
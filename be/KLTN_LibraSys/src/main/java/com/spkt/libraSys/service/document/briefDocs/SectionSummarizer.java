@@ -0,0 +1,108 @@
+package com.spkt.libraSys.service.document.briefDocs;
+
+import com.spkt.libraSys.service.openAI.OpenAIService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Summarises the sections of one document concurrently on a shared executor, then merges
+ * the section summaries in document order. At most {@code maxInFlight} sections wait for the LLM
+ * at once; extraction blocks beyond that, so the text held in memory stays bounded.
+ * Summaries are merged in groups that fit into one section, repeating until one summary remains.
+ */
+class SectionSummarizer implements Consumer<String> {
+    private final OpenAIService openAIService;
+    private final Executor executor;
+    private final int sectionChars;
+    private final Semaphore inFlight;
+    private final List<CompletableFuture<String>> summaries = new ArrayList<>();
+
+    SectionSummarizer(OpenAIService openAIService, Executor executor, int sectionChars, int maxInFlight) {
+        this.openAIService = openAIService;
+        this.executor = executor;
+        this.sectionChars = sectionChars;
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight));
+    }
+
+    @Override
+    public void accept(String section) {
+        summaries.add(submit(() -> openAIService.summarizeTextWithOpenAI(section, "")));
+    }
+
+    /**
+     * Wait for every section summary and merge them
+     * @return The document summary, empty when no text was extracted
+     */
+    String finish() {
+        List<String> parts = join(summaries);
+        while (parts.size() > 1) {
+            List<CompletableFuture<String>> merged = new ArrayList<>();
+            for (List<String> group : group(parts)) {
+                merged.add(group.size() == 1
+                        ? CompletableFuture.completedFuture(group.get(0))
+                        : submit(() -> openAIService.mergeSummaries(group)));
+            }
+            parts = join(merged);
+        }
+        return parts.isEmpty() ? "" : parts.get(0);
+    }
+
+    private CompletableFuture<String> submit(Supplier<String> call) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a summary slot", e);
+        }
+        try {
+            CompletableFuture<String> future = CompletableFuture.supplyAsync(call, executor);
+            future.whenComplete((summary, error) -> inFlight.release());
+            return future;
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    // Consecutive summaries grouped so that each group fits into one section; always at least two per group
+    private List<List<String>> group(List<String> parts) {
+        List<List<String>> groups = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int length = 0;
+        for (String part : parts) {
+            if (current.size() >= 2 && length + part.length() > sectionChars) {
+                groups.add(current);
+                current = new ArrayList<>();
+                length = 0;
+            }
+            current.add(part);
+            length += part.length();
+        }
+        if (current.size() == 1 && !groups.isEmpty()) {
+            groups.get(groups.size() - 1).add(current.get(0));
+        } else if (!current.isEmpty()) {
+            groups.add(current);
+        }
+        return groups;
+    }
+
+    private static List<String> join(List<CompletableFuture<String>> futures) {
+        List<String> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<String> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        return results;
+    }
+}
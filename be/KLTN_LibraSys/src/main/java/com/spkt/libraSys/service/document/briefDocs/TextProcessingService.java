@@ -1,5 +1,6 @@
 package com.spkt.libraSys.service.document.briefDocs;
 
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
@@ -8,6 +9,7 @@ import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class TextProcessingService {
@@ -34,6 +36,33 @@ public class TextProcessingService {
         return sb.toString();
     }
 
+    /**
+     * Extract text from a PDF stream page by page, passing each page to {@code pageConsumer}.
+     * PDFBox keeps at most {@code maxMainMemoryBytes} of the file in memory and spills the rest
+     * to a scratch file that is removed when the document is closed.
+     */
+    public void extractPdfPages(InputStream in, long maxMainMemoryBytes, Consumer<String> pageConsumer) throws IOException {
+        try (PDDocument document = PDDocument.load(in, MemoryUsageSetting.setupMixed(maxMainMemoryBytes))) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            for (int page = 1; page <= document.getNumberOfPages(); page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                pageConsumer.accept(stripper.getText(document));
+            }
+        }
+    }
+
+    /**
+     * Extract text from a DOCX stream paragraph by paragraph, passing each paragraph to {@code paragraphConsumer}
+     */
+    public void extractDocxParagraphs(InputStream in, Consumer<String> paragraphConsumer) throws IOException {
+        try (XWPFDocument document = new XWPFDocument(in)) {
+            for (XWPFParagraph para : document.getParagraphs()) {
+                paragraphConsumer.accept(para.getText());
+            }
+        }
+    }
+
     // Clean text
     public String cleanText(String rawText) {
         return rawText.replaceAll("\\s+", " ").trim();  // Remove extra whitespace
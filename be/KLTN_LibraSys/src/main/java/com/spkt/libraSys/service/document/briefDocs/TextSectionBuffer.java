@@ -0,0 +1,53 @@
+package com.spkt.libraSys.service.document.briefDocs;
+
+import java.util.function.Consumer;
+
+/**
+ * Groups streamed text (pages, paragraphs) into sections of at most {@code sectionChars} characters,
+ * cut at a space where possible, and hands each completed section to a consumer.
+ * Only the section being filled is held in memory.
+ */
+class TextSectionBuffer {
+    private final int sectionChars;
+    private final Consumer<String> sectionConsumer;
+    private final StringBuilder section = new StringBuilder();
+
+    TextSectionBuffer(int sectionChars, Consumer<String> sectionConsumer) {
+        this.sectionChars = sectionChars;
+        this.sectionConsumer = sectionConsumer;
+    }
+
+    /**
+     * Append already cleaned text; sections that fill up are emitted right away
+     */
+    void accept(String text) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        if (section.length() > 0) {
+            section.append(' ');
+        }
+        section.append(text);
+        while (section.length() >= sectionChars) {
+            int cut = section.lastIndexOf(" ", sectionChars);
+            if (cut < sectionChars / 2) {
+                cut = sectionChars;
+            }
+            sectionConsumer.accept(section.substring(0, cut).trim());
+            section.delete(0, cut);
+            while (section.length() > 0 && section.charAt(0) == ' ') {
+                section.deleteCharAt(0);
+            }
+        }
+    }
+
+    /**
+     * Emit the last, partly filled section
+     */
+    void flush() {
+        if (!section.isEmpty()) {
+            sectionConsumer.accept(section.toString());
+            section.setLength(0);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.spkt.libraSys.service.user.UserEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -16,4 +18,11 @@ public interface FavoriteDocumentRepository extends JpaRepository<FavoriteDocume
     List<FavoriteDocumentEntity> findByUser(UserEntity user);
 
     long countByUser(UserEntity user);
+
+    @Query("SELECT f.favoriteId, f.user.userId, f.document.documentId FROM favorite_documents f " +
+            "WHERE f.favoriteId > :lastId ORDER BY f.favoriteId")
+    List<Object[]> findInteractionsAfter(@Param("lastId") long lastId, Pageable pageable);
+
+    @Query("SELECT f.document.documentId FROM favorite_documents f WHERE f.user.userId = :userId")
+    List<Long> findDocumentIdsByUserId(@Param("userId") String userId);
 }
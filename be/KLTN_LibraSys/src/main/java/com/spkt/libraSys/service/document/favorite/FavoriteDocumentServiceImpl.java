@@ -5,6 +5,8 @@ import com.spkt.libraSys.exception.ErrorCode;
 import com.spkt.libraSys.service.access.AuthService;
 import com.spkt.libraSys.service.document.DocumentEntity;
 import com.spkt.libraSys.service.document.DocumentRepository;
+import com.spkt.libraSys.service.recommendation.UserInteractionEvent;
+import com.spkt.libraSys.service.recommendation.UserInteractionMatrix;
 import com.spkt.libraSys.service.user.UserEntity;
 import com.spkt.libraSys.service.user.UserService;
 import jakarta.transaction.Transactional;
@@ -12,6 +14,7 @@ import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -27,6 +30,7 @@ public class FavoriteDocumentServiceImpl implements FavoriteDocumentService {
     UserService userService;
     FavoriteDocumentMapper favoriteMapper;
     AuthService authService;
+    ApplicationEventPublisher eventPublisher;
 
 
     @Override
@@ -41,6 +45,8 @@ public class FavoriteDocumentServiceImpl implements FavoriteDocumentService {
                     .document(document)
                     .build();
             favoriteRepository.save(favorite);
+            eventPublisher.publishEvent(new UserInteractionEvent(user.getUserId(),
+                    document.getDocumentId(), UserInteractionMatrix.Kind.FAVORITE));
         }
     }
 
@@ -18,6 +18,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
@@ -29,6 +31,9 @@ import java.io.*;
 import java.nio.file.*;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -41,6 +46,11 @@ public class UploadServiceImpl implements UploadService {
     EncryptionKeyRepository encryptionKeyRepository;
     DrmService drmService;
 
+    @NonFinal
+    @Autowired
+    @Qualifier("drmEncryptionExecutor")
+    Executor drmEncryptionExecutor;
+
     @NonFinal
     @Value("${upload.dir:uploads/documents/}")
     String UPLOAD_DIR;
@@ -61,25 +71,22 @@ public class UploadServiceImpl implements UploadService {
     @Override
     @Transactional
     public Set<UploadEntity> uploadFiles(List<MultipartFile> fileList) {
-        Set<UploadEntity> result = new HashSet<>();
+        List<UploadEntity> entities = new ArrayList<>();
         for (MultipartFile file : fileList) {
             UploadEntity entity = UploadEntity.builder()
                     .fileName(file.getOriginalFilename())
                     .fileType(getFileExtension(file))
                     .uploadedAt(LocalDateTime.now())
                     .build();
-            entity = uploadRepository.save(entity);
-            entity = uploadAndEncryptFile(file, entity);
-            result.add(entity);
+            entities.add(uploadRepository.save(entity));
         }
-        return result;
+        return new HashSet<>(uploadAndEncryptFiles(fileList, entities));
     }
 
     @Override
     @Transactional
     public Set<UploadEntity> uploadFiles(List<MultipartFile> fileList, DigitalDocumentEntity digitalDocument) {
-        Set<UploadEntity> uploadEntities = new HashSet<>();
-
+        List<UploadEntity> entities = new ArrayList<>();
         for (MultipartFile file : fileList) {
             UploadEntity uploadEntity = UploadEntity.builder()
                     .fileName(file.getOriginalFilename())
@@ -87,48 +94,63 @@ public class UploadServiceImpl implements UploadService {
                     .uploadedAt(LocalDateTime.now())
                     .digitalDocument(digitalDocument)
                     .build();
+            entities.add(uploadRepository.save(uploadEntity));
+        }
 
-            uploadEntity = uploadRepository.save(uploadEntity);
-            uploadEntity = uploadAndEncryptFile(file, uploadEntity);
+        Set<UploadEntity> uploadEntities = new HashSet<>();
+        for (UploadEntity uploadEntity : uploadAndEncryptFiles(fileList, entities)) {
             uploadEntities.add(uploadRepository.save(uploadEntity));
         }
-
         return uploadEntities;
     }
 
-    private UploadEntity uploadAndEncryptFile(MultipartFile file, UploadEntity entity) {
+    /**
+     * Lưu file gốc và tạo khóa tuần tự trên luồng request (cần MultipartFile và transaction),
+     * sau đó mã hóa DRM các file song song trên executor có giới hạn.
+     */
+    private List<UploadEntity> uploadAndEncryptFiles(List<MultipartFile> files, List<UploadEntity> entities) {
+        List<Path> written = new ArrayList<>();
         try {
             Path originalPath = Paths.get(UPLOAD_DIR, "original");
             Path drmPath = Paths.get(UPLOAD_DIR, "drm");
             Files.createDirectories(originalPath);
             Files.createDirectories(drmPath);
 
-            String fileExt = getFileExtension(file);
-            String originalFileName = UUID.randomUUID() + "." + fileExt;
-            String drmFileName = UUID.randomUUID() + "." + fileExt + ".drm";
-
-            // File tạm
-            File tempFile = File.createTempFile("upload_", "." + fileExt);
-            file.transferTo(tempFile);
-            tempFile.deleteOnExit();
-
-            // Lưu file gốc vào thư mục "original" mà không mã hóa
-            File originalFile = originalPath.resolve(originalFileName).toFile();
-            Files.copy(tempFile.toPath(), originalFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-
-            // Tạo file DRM
-            byte[] drmContent = drmService.createDrmPackage(entity.getUploadId(), Files.readAllBytes(tempFile.toPath()));
-            File drmFile = drmPath.resolve(drmFileName).toFile();
-            Files.write(drmFile.toPath(), drmContent);
-
-            // Cập nhật entity với đường dẫn file gốc và file DRM
-            entity.setFilePath(drmFile.getPath());  // Đường dẫn của file DRM
-            entity.setOriginalFilePath(originalFile.getPath());  // Đường dẫn của file gốc
-
-            return entity;
+            List<CompletableFuture<Void>> encryptions = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                MultipartFile file = files.get(i);
+                UploadEntity entity = entities.get(i);
+                String fileExt = getFileExtension(file);
+
+                // Lưu file gốc vào thư mục "original" mà không mã hóa
+                Path originalFile = originalPath.resolve(UUID.randomUUID() + "." + fileExt);
+                file.transferTo(originalFile);
+                written.add(originalFile);
+
+                // Tạo file DRM từ file gốc
+                Path drmFile = drmPath.resolve(UUID.randomUUID() + "." + fileExt + ".drm");
+                String contentKey = drmService.createContentKey(entity.getUploadId());
+                written.add(drmFile);
+                encryptions.add(CompletableFuture.runAsync(
+                        () -> drmService.encryptDrmPackage(originalFile, drmFile, contentKey), drmEncryptionExecutor));
+
+                // Cập nhật entity với đường dẫn file gốc và file DRM
+                entity.setFilePath(drmFile.toString());  // Đường dẫn của file DRM
+                entity.setOriginalFilePath(originalFile.toString());  // Đường dẫn của file gốc
+            }
+            CompletableFuture.allOf(encryptions.toArray(new CompletableFuture[0])).join();
+            return entities;
         } catch (Exception e) {
             log.error("File upload failed", e);
-            throw new AppException(ErrorCode.FILE_UPLOAD_FAILED, "Error uploading file: " + file.getOriginalFilename());
+            for (Path path : written) {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException ignored) {
+                    log.warn("Could not clean up {}", path);
+                }
+            }
+            String fileNames = files.stream().map(MultipartFile::getOriginalFilename).collect(Collectors.joining(", "));
+            throw new AppException(ErrorCode.FILE_UPLOAD_FAILED, "Error uploading file: " + fileNames);
         }
     }
 
@@ -0,0 +1,317 @@
+package com.spkt.libraSys.service.document.viewer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PreDestroy;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTBr;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.STBrType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool các tài liệu đang mở cho trình xem, khóa theo (uploadId, phiên bản tệp).
+ * <p>
+ * PDF được giữ mở dưới dạng {@link PDDocument} (kèm số trang và chiều rộng từng trang) để mỗi lần xem trang không phải phân tích lại tệp.
+ * PDDocument không an toàn khi dùng đồng thời nên mỗi tài liệu có một khóa riêng; khi bị loại khỏi pool,
+ * tài liệu chỉ được đóng sau khi lượt dùng hiện tại kết thúc.
+ * DOCX chỉ cần chỉ mục trang (nội dung văn bản từng trang), được dựng một lần rồi đóng tệp ngay.
+ * Pool giới hạn theo tổng dung lượng ước tính và đóng các tài liệu lâu không được dùng.
+ */
+@Component
+@Slf4j
+public class DocumentHandlePool {
+
+    /**
+     * Thao tác trên PDF đang mở; chạy khi đang giữ khóa của tài liệu
+     */
+    @FunctionalInterface
+    public interface PdfWork<T> {
+        T apply(PDDocument document) throws IOException;
+    }
+
+    private final Cache<HandleKey, OpenDocument> handles;
+
+    @Autowired
+    public DocumentHandlePool(@Value("${app.viewer.handle-pool.max-bytes:268435456}") long maxBytes,
+                              @Value("${app.viewer.handle-pool.idle-minutes:10}") long idleMinutes) {
+        this(maxBytes, idleMinutes, ForkJoinPool.commonPool());
+    }
+
+    DocumentHandlePool(long maxBytes, long idleMinutes, Executor closeExecutor) {
+        this.handles = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((HandleKey key, OpenDocument document) -> document.weight())
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .executor(closeExecutor)
+                .removalListener((HandleKey key, OpenDocument document, RemovalCause cause) -> {
+                    if (document != null) {
+                        document.close();
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Chạy thao tác trên PDF đang mở (mở tệp nếu pool chưa có)
+     */
+    public <T> T withPdf(Long uploadId, String version, Path file, PdfWork<T> work) throws IOException {
+        while (true) {
+            PdfHandle handle = pdf(uploadId, version, file);
+            handle.lock.lock();
+            try {
+                // Bị loại và đóng giữa lúc lấy ra và lúc khóa: lấy lại (lần sau sẽ mở tệp mới)
+                if (handle.closed) {
+                    continue;
+                }
+                return work.apply(handle.document);
+            } finally {
+                handle.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Số trang của PDF, không cần chờ khóa tài liệu
+     */
+    public int pdfPageCount(Long uploadId, String version, Path file) throws IOException {
+        return pdf(uploadId, version, file).pageCount;
+    }
+
+    /**
+     * Chiều rộng hiển thị (point, đã tính góc xoay) của trang, không cần chờ khóa tài liệu
+     * @param pageNumber Số trang, bắt đầu từ 1
+     */
+    public float pdfPageWidth(Long uploadId, String version, Path file, int pageNumber) throws IOException {
+        return pdf(uploadId, version, file).pageWidths[pageNumber - 1];
+    }
+
+    /**
+     * Chỉ mục trang của DOCX: nội dung văn bản từng trang, tách theo ngắt trang
+     */
+    public List<String> wordPages(Long uploadId, String version, Path file) throws IOException {
+        return ((WordIndex) open(new HandleKey(uploadId, version, false), file)).pages;
+    }
+
+    /**
+     * Đóng mọi tài liệu đang mở của một upload
+     */
+    public void evict(Long uploadId) {
+        handles.asMap().keySet().removeIf(key -> key.uploadId.equals(uploadId));
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        handles.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return handles.stats();
+    }
+
+    /**
+     * Số liệu pool: số tài liệu đang mở, tỉ lệ dùng lại và dung lượng ước tính
+     */
+    public Map<String, Object> snapshot() {
+        // Áp dụng các lần ghi đang chờ để dung lượng ước tính là số hiện tại
+        handles.cleanUp();
+        CacheStats stats = handles.stats();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("openDocuments", handles.estimatedSize());
+        snapshot.put("hitCount", stats.hitCount());
+        snapshot.put("missCount", stats.missCount());
+        snapshot.put("hitRate", stats.hitRate());
+        snapshot.put("evictionCount", stats.evictionCount());
+        snapshot.put("averageOpenMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        handles.policy().eviction().ifPresent(eviction -> {
+            snapshot.put("estimatedBytes", eviction.weightedSize().orElse(0L));
+            snapshot.put("maxBytes", eviction.getMaximum());
+        });
+        return snapshot;
+    }
+
+    private PdfHandle pdf(Long uploadId, String version, Path file) throws IOException {
+        return (PdfHandle) open(new HandleKey(uploadId, version, true), file);
+    }
+
+    private OpenDocument open(HandleKey key, Path file) throws IOException {
+        try {
+            return handles.get(key, k -> {
+                try {
+                    return k.pdf ? PdfHandle.open(file) : WordIndex.build(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Tách DOCX thành các trang theo ngắt trang tường minh (w:br type="page") hoặc "page break before".
+     * Đoạn trống không được thêm vào nội dung nhưng ngắt trang của nó vẫn được tính; không tạo trang rỗng.
+     */
+    static List<String> indexWordPages(XWPFDocument document) {
+        List<String> pages = new ArrayList<>();
+        StringBuilder currentPage = new StringBuilder();
+        for (XWPFParagraph paragraph : document.getParagraphs()) {
+            if (paragraph.isPageBreak()) {
+                addPage(pages, currentPage);
+            }
+            String text = paragraph.getText();
+            if (!text.trim().isEmpty()) {
+                currentPage.append(text).append("\n");
+            }
+            if (hasPageBreak(paragraph)) {
+                addPage(pages, currentPage);
+            }
+        }
+        addPage(pages, currentPage);
+        return pages;
+    }
+
+    private static boolean hasPageBreak(XWPFParagraph paragraph) {
+        for (XWPFRun run : paragraph.getRuns()) {
+            for (CTBr br : run.getCTR().getBrList()) {
+                if (br.isSetType() && br.getType() == STBrType.PAGE) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void addPage(List<String> pages, StringBuilder currentPage) {
+        String page = currentPage.toString().trim();
+        if (!page.isEmpty()) {
+            pages.add(page);
+        }
+        currentPage.setLength(0);
+    }
+
+    @EqualsAndHashCode
+    private static final class HandleKey {
+        private final Long uploadId;
+        private final String version;
+        private final boolean pdf;
+
+        private HandleKey(Long uploadId, String version, boolean pdf) {
+            this.uploadId = uploadId;
+            this.version = version;
+            this.pdf = pdf;
+        }
+    }
+
+    private abstract static class OpenDocument {
+        abstract int weight();
+
+        abstract void close();
+    }
+
+    private static final class PdfHandle extends OpenDocument {
+        private final PDDocument document;
+        private final int pageCount;
+        private final float[] pageWidths;
+        private final long fileSize;
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean closed;
+
+        private PdfHandle(PDDocument document, long fileSize) {
+            this.document = document;
+            this.pageCount = document.getNumberOfPages();
+            this.pageWidths = new float[pageCount];
+            int index = 0;
+            for (PDPage page : document.getPages()) {
+                PDRectangle box = page.getCropBox();
+                pageWidths[index++] = page.getRotation() % 180 == 0 ? box.getWidth() : box.getHeight();
+            }
+            this.fileSize = fileSize;
+        }
+
+        static PdfHandle open(Path file) throws IOException {
+            PDDocument document = PDDocument.load(file.toFile());
+            try {
+                return new PdfHandle(document, Files.size(file));
+            } catch (IOException | RuntimeException e) {
+                document.close();
+                throw e;
+            }
+        }
+
+        // Ước tính: cấu trúc đã phân tích xấp xỉ kích thước tệp
+        @Override
+        int weight() {
+            return (int) Math.min(Math.max(fileSize, 1), Integer.MAX_VALUE);
+        }
+
+        @Override
+        void close() {
+            lock.lock();
+            try {
+                if (!closed) {
+                    closed = true;
+                    document.close();
+                }
+            } catch (IOException e) {
+                log.warn("Lỗi khi đóng tài liệu PDF: {}", e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class WordIndex extends OpenDocument {
+        private final List<String> pages;
+
+        private WordIndex(List<String> pages) {
+            this.pages = Collections.unmodifiableList(pages);
+        }
+
+        static WordIndex build(Path file) throws IOException {
+            try (InputStream in = Files.newInputStream(file);
+                 XWPFDocument document = new XWPFDocument(in)) {
+                return new WordIndex(indexWordPages(document));
+            }
+        }
+
+        @Override
+        int weight() {
+            long chars = 64;
+            for (String page : pages) {
+                chars += page.length() + 24;
+            }
+            return (int) Math.min(chars * 2, Integer.MAX_VALUE);
+        }
+
+        @Override
+        void close() {
+        }
+    }
+}
@@ -11,9 +11,11 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/documents")
@@ -25,10 +27,34 @@ public class DocumentViewerController {
     private final AuthService authService;
 
     // Xem một trang tài liệu
-    @GetMapping(value = "/view/{uploadId}/{pageNumber}", produces = MediaType.IMAGE_PNG_VALUE)
-    public ResponseEntity<byte[]> viewDocumentPage(@PathVariable Long uploadId, @PathVariable int pageNumber) {
-        byte[] pageContent = documentViewerService.getDocumentPageContent(uploadId, pageNumber);
-        return ResponseEntity.ok().contentType(MediaType.IMAGE_PNG).body(pageContent);
+    // width hoặc dpi, format (png, jpeg, webp), quality và thumbnail là tùy chọn
+    @GetMapping(value = "/view/{uploadId}/{pageNumber}",
+            produces = {MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_JPEG_VALUE, "image/webp"})
+    public ResponseEntity<byte[]> viewDocumentPage(@PathVariable Long uploadId, @PathVariable int pageNumber,
+                                                   @RequestParam(required = false) Integer width,
+                                                   @RequestParam(required = false) Integer dpi,
+                                                   @RequestParam(required = false) String format,
+                                                   @RequestParam(required = false) Integer quality,
+                                                   @RequestParam(defaultValue = "false") boolean thumbnail,
+                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        PageRenderOptions options = PageRenderOptions.builder()
+                .width(width)
+                .dpi(dpi)
+                .format(PageImageFormat.parse(format))
+                .quality(quality)
+                .thumbnail(thumbnail)
+                .build();
+        return documentViewerService.getDocumentPage(uploadId, pageNumber, options, ifNoneMatch);
+    }
+
+    // Thống kê cache ảnh trang
+    @GetMapping("/view/cache-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getPageCacheStats() {
+        return ResponseEntity.ok(ApiResponse.<Map<String, Object>>builder()
+                .message("Lấy số liệu cache trang thành công")
+                .data(documentViewerService.getPageCacheStats())
+                .build());
     }
 
     // Đọc nội dung tài liệu
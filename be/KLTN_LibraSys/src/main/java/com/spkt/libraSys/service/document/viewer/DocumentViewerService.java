@@ -5,6 +5,7 @@ import org.springframework.http.ResponseEntity;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Map;
 
 /**
  * Service interface for viewing and streaming document content.
@@ -20,6 +21,22 @@ public interface DocumentViewerService {
      */
     byte[] getDocumentPageContent(Long uploadId, int pageNumber);
 
+    /**
+     * Retrieves a rendered page with an ETag, answering 304 Not Modified when the client already has it.
+     * @param uploadId The ID of the uploaded document
+     * @param pageNumber The page number to retrieve
+     * @param options Target width or DPI, image format, quality and thumbnail mode; empty fields use the defaults
+     * @param ifNoneMatch The If-None-Match header sent by the client, may be null
+     * @return ResponseEntity with the page image, or an empty 304 response
+     */
+    ResponseEntity<byte[]> getDocumentPage(Long uploadId, int pageNumber, PageRenderOptions options, String ifNoneMatch);
+
+    /**
+     * Gets hit ratio, render count and memory usage of the rendered-page cache.
+     * @return Cache statistics
+     */
+    Map<String, Object> getPageCacheStats();
+
     /**
      * Gets the total number of pages in a document.
      * @param uploadId The ID of the uploaded document
@@ -5,49 +5,116 @@ import com.spkt.libraSys.exception.ErrorCode;
 import com.spkt.libraSys.service.document.DigitalDocument.DigitalDocumentService;
 import com.spkt.libraSys.service.document.upload.UploadEntity;
 import com.spkt.libraSys.service.document.upload.UploadRepository;
-import lombok.RequiredArgsConstructor;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.rendering.PDFRenderer;
+import com.spkt.libraSys.service.drm.DecryptedDrmContent;
+import com.spkt.libraSys.service.drm.DrmService;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
-@RequiredArgsConstructor
+@Slf4j
 @Transactional
 public class DocumentViewerServiceImpl implements DocumentViewerService {
     private final UploadRepository uploadRepository;
     private final DigitalDocumentService digitalDocumentService;
+    private final DrmService drmService;
+    private final RenderedPageCache renderedPageCache;
+    private final DocumentHandlePool documentHandlePool;
+    private final PageRenderer pageRenderer;
+    private final Executor prerenderExecutor;
+    // Các trang đã xếp hàng render trước, tránh xếp trùng khi người đọc lật trang nhanh
+    private final Set<RenderedPageCache.PageKey> queuedPrerenders = ConcurrentHashMap.newKeySet();
+
+    // Số trang kế tiếp được render trước khi người đọc mở trang k
+    @Value("${app.viewer.read-ahead-pages:3}")
+    private int readAheadPages = 3;
+
+    public DocumentViewerServiceImpl(UploadRepository uploadRepository,
+                                     DigitalDocumentService digitalDocumentService,
+                                     DrmService drmService,
+                                     RenderedPageCache renderedPageCache,
+                                     DocumentHandlePool documentHandlePool,
+                                     PageRenderer pageRenderer,
+                                     @Qualifier("viewerPrerenderExecutor") Executor prerenderExecutor) {
+        this.uploadRepository = uploadRepository;
+        this.digitalDocumentService = digitalDocumentService;
+        this.drmService = drmService;
+        this.renderedPageCache = renderedPageCache;
+        this.documentHandlePool = documentHandlePool;
+        this.pageRenderer = pageRenderer;
+        this.prerenderExecutor = prerenderExecutor;
+    }
 
+    // Không giữ kết nối DB trong lúc render trang
     @Override
-    public byte[] getDocumentPageContent(Long uploadId, int pageNumber) {
-        UploadEntity upload = uploadRepository.findById(uploadId)
-                .orElseThrow(() -> new AppException(ErrorCode.FILE_NOT_FOUND, "Không tìm thấy tệp đã chọn"));
-
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<byte[]> getDocumentPage(Long uploadId, int pageNumber, PageRenderOptions options,
+                                                  String ifNoneMatch) {
+        UploadEntity upload = findExistingUpload(uploadId);
         String filePath = upload.getFilePath();
+        if (!filePath.endsWith(".pdf")) {
+            return ResponseEntity.ok().contentType(MediaType.IMAGE_PNG)
+                    .body(getDocumentPageContent(upload, pageNumber));
+        }
 
-        if (!Files.exists(Paths.get(filePath))) {
-            throw new AppException(ErrorCode.FILE_NOT_FOUND, "Tệp không tồn tại trên hệ thống");
+        RenderedPageCache.PageKey key = pageKey(upload, pageNumber, options);
+        String etag = key.etag();
+        // Trình duyệt đã có đúng ảnh trang này: không cần đọc cache hay render
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            prerenderAhead(key, options, filePath);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
         }
+        byte[] page = renderPdfPage(key, filePath);
+        prerenderAhead(key, options, filePath);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(key.getSpec().getFormat().getMediaType()))
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(page);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public byte[] getDocumentPageContent(Long uploadId, int pageNumber) {
+        return getDocumentPageContent(findExistingUpload(uploadId), pageNumber);
+    }
+
+    @Override
+    public Map<String, Object> getPageCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(renderedPageCache.snapshot());
+        stats.put("handlePool", documentHandlePool.snapshot());
+        stats.put("queuedPrerenders", queuedPrerenders.size());
+        return stats;
+    }
 
+    private byte[] getDocumentPageContent(UploadEntity upload, int pageNumber) {
+        String filePath = upload.getFilePath();
         try {
             if (filePath.endsWith(".pdf")) {
-                return extractPdfPage(filePath, pageNumber);
+                return renderPdfPage(pageKey(upload, pageNumber, PageRenderOptions.defaults()), filePath);
             } else if (filePath.endsWith(".docx")) {
-                List<String> pages = extractWordPages(filePath);
+                List<String> pages = documentHandlePool.wordPages(upload.getUploadId(), version(filePath), Paths.get(filePath));
                 if (pageNumber < 1 || pageNumber > pages.size()) {
                     throw new AppException(ErrorCode.DOCUMENT_NOT_FOUND, "Trang không hợp lệ");
                 }
@@ -59,42 +126,102 @@ public class DocumentViewerServiceImpl implements DocumentViewerService {
             throw new AppException(ErrorCode.FILE_PROCESSING_ERROR, "Lỗi khi đọc tài liệu");
         }
     }
-    private List<String> extractWordPages(String filePath) throws IOException {
-        List<String> pages = new ArrayList<>();
-        try (FileInputStream fis = new FileInputStream(filePath);
-             XWPFDocument document = new XWPFDocument(fis)) {
-
-            StringBuilder currentPage = new StringBuilder();
-
-            for (XWPFParagraph paragraph : document.getParagraphs()) {
-                if (paragraph.getText().trim().isEmpty()) continue;  // Bỏ qua đoạn trống
-
-                currentPage.append(paragraph.getText()).append("\n");
+    private UploadEntity findExistingUpload(Long uploadId) {
+        UploadEntity upload = uploadRepository.findById(uploadId)
+                .orElseThrow(() -> new AppException(ErrorCode.FILE_NOT_FOUND, "Không tìm thấy tệp đã chọn"));
+        if (!Files.exists(Paths.get(upload.getFilePath()))) {
+            throw new AppException(ErrorCode.FILE_NOT_FOUND, "Tệp không tồn tại trên hệ thống");
+        }
+        return upload;
+    }
 
-                // Kiểm tra nếu đoạn văn chứa Page Break
-                if (paragraph.getCTP().toString().contains("<w:br w:type=\"page\"/>")) {
-                    pages.add(currentPage.toString().trim()); // Lưu trang hiện tại
-                    currentPage = new StringBuilder();  // Chuyển sang trang mới
-                }
+    private RenderedPageCache.PageKey pageKey(UploadEntity upload, int pageNumber, PageRenderOptions options) {
+        String version = version(upload.getFilePath());
+        Path file = Paths.get(upload.getFilePath());
+        try {
+            int pageCount = documentHandlePool.pdfPageCount(upload.getUploadId(), version, file);
+            if (pageNumber < 1 || pageNumber > pageCount) {
+                throw new AppException(ErrorCode.DOCUMENT_NOT_FOUND, "Trang không hợp lệ");
             }
+            return pageKey(upload.getUploadId(), version, file, pageNumber, options);
+        } catch (IOException e) {
+            throw new AppException(ErrorCode.FILE_PROCESSING_ERROR, "Lỗi khi đọc tài liệu");
+        }
+    }
 
-            // Thêm trang cuối cùng nếu có nội dung
-            if (!currentPage.isEmpty()) {
-                pages.add(currentPage.toString().trim());
-            }
+    private RenderedPageCache.PageKey pageKey(Long uploadId, String version, Path file, int pageNumber,
+                                              PageRenderOptions options) throws IOException {
+        // Chiều rộng trang chỉ cần khi người đọc yêu cầu theo chiều rộng hoặc thumbnail; đã có sẵn trong pool
+        float width = options.isThumbnail() || options.getWidth() != null
+                ? documentHandlePool.pdfPageWidth(uploadId, version, file, pageNumber) : 0;
+        return new RenderedPageCache.PageKey(uploadId, version, pageNumber,
+                pageRenderer.resolve(options, () -> width));
+    }
+
+    private static String version(String filePath) {
+        try {
+            return RenderedPageCache.version(Paths.get(filePath));
+        } catch (IOException e) {
+            throw new AppException(ErrorCode.FILE_PROCESSING_ERROR, "Lỗi khi đọc tài liệu");
         }
-        return pages;
     }
 
+    private byte[] renderPdfPage(RenderedPageCache.PageKey key, String filePath) {
+        try {
+            return renderedPageCache.get(key, () -> extractPdfPage(key, Paths.get(filePath)));
+        } catch (IOException e) {
+            throw new AppException(ErrorCode.FILE_PROCESSING_ERROR, "Lỗi khi đọc tài liệu");
+        }
+    }
 
-    private byte[] extractPdfPage(String filePath, int pageNumber) throws IOException {
-        try (PDDocument document = PDDocument.load(new File(filePath))) {
-            PDFRenderer renderer = new PDFRenderer(document);
-            BufferedImage image = renderer.renderImageWithDPI(pageNumber - 1, 150);
+    private byte[] extractPdfPage(RenderedPageCache.PageKey key, Path file) throws IOException {
+        BufferedImage image = documentHandlePool.withPdf(key.getUploadId(), key.getVersion(), file,
+                document -> pageRenderer.rasterize(document, key.getPage() - 1, key.getSpec()));
+        // Mã hóa ảnh không cần giữ khóa tài liệu
+        return pageRenderer.encode(image, key.getSpec());
+    }
 
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(image, "png", baos);
-            return baos.toByteArray();
+    /**
+     * Xếp hàng render trước các trang sau trang vừa đọc (bỏ qua trang đã có trong cache hoặc đã xếp hàng)
+     */
+    private void prerenderAhead(RenderedPageCache.PageKey current, PageRenderOptions options, String filePath) {
+        if (readAheadPages <= 0) {
+            return;
+        }
+        Path file = Paths.get(filePath);
+        int pageCount;
+        try {
+            pageCount = documentHandlePool.pdfPageCount(current.getUploadId(), current.getVersion(), file);
+        } catch (IOException e) {
+            return;
+        }
+        int last = Math.min(current.getPage() + readAheadPages, pageCount);
+        for (int page = current.getPage() + 1; page <= last; page++) {
+            RenderedPageCache.PageKey next;
+            try {
+                next = pageKey(current.getUploadId(), current.getVersion(), file, page, options);
+            } catch (IOException e) {
+                return;
+            }
+            if (renderedPageCache.contains(next) || !queuedPrerenders.add(next)) {
+                continue;
+            }
+            try {
+                prerenderExecutor.execute(() -> {
+                    try {
+                        renderedPageCache.get(next, () -> extractPdfPage(next, file));
+                    } catch (IOException | RuntimeException e) {
+                        log.debug("Không render trước được trang {} của tài liệu {}: {}",
+                                next.getPage(), next.getUploadId(), e.getMessage());
+                    } finally {
+                        queuedPrerenders.remove(next);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Hàng đợi đầy: bỏ qua, trang sẽ được render khi người đọc mở tới
+                queuedPrerenders.remove(next);
+                return;
+            }
         }
     }
 
@@ -113,19 +240,16 @@ public class DocumentViewerServiceImpl implements DocumentViewerService {
 
     @Override
     public int getDocumentPageCount(Long uploadId) {
-        UploadEntity upload = uploadRepository.findById(uploadId)
-                .orElseThrow(() -> new AppException(ErrorCode.FILE_NOT_FOUND, "Không tìm thấy tệp đã chọn"));
-
+        UploadEntity upload = findExistingUpload(uploadId);
         String filePath = upload.getFilePath();
-        if (!Files.exists(Paths.get(filePath))) {
-            throw new AppException(ErrorCode.FILE_NOT_FOUND, "Tệp không tồn tại trên hệ thống");
-        }
+        Path file = Paths.get(filePath);
 
         try {
             if (filePath.endsWith(".pdf")) {
-                return getPdfPageCount(filePath);
+                return documentHandlePool.pdfPageCount(uploadId, version(filePath), file);
             } else if (filePath.endsWith(".docx")) {
-                return getWordPageCount(filePath);
+                // Cùng chỉ mục với lúc xem trang, để số trang khớp với các trang xem được
+                return documentHandlePool.wordPages(uploadId, version(filePath), file).size();
             } else {
                 throw new AppException(ErrorCode.UNSUPPORTED_FILE, "Định dạng tệp không được hỗ trợ");
             }
@@ -134,18 +258,6 @@ public class DocumentViewerServiceImpl implements DocumentViewerService {
         }
     }
 
-    private int getPdfPageCount(String filePath) throws IOException {
-        try (PDDocument document = PDDocument.load(new File(filePath))) {
-            return document.getNumberOfPages();
-        }
-    }
-
-    private int getWordPageCount(String filePath) throws IOException {
-        try (FileInputStream fis = new FileInputStream(filePath);
-             XWPFDocument document = new XWPFDocument(fis)) {
-            return document.getProperties().getExtendedProperties().getPages();
-        }
-    }
     @Override
     public ResponseEntity<Resource> streamVideo(Long uploadId, String rangeHeader) throws IOException {
         UploadEntity upload = uploadRepository.findById(uploadId)
@@ -157,6 +269,11 @@ public class DocumentViewerServiceImpl implements DocumentViewerService {
             throw new AppException(ErrorCode.FILE_NOT_FOUND, "Tệp không tồn tại trên hệ thống");
         }
 
+        // File DRM: giải mã đúng các khối mà đoạn yêu cầu bao phủ
+        if (filePath.endsWith(".drm")) {
+            return streamDrmContent(upload, rangeHeader);
+        }
+
         Resource videoResource = new UrlResource(videoPath.toUri());
         long fileSize = Files.size(videoPath);
 
@@ -182,6 +299,75 @@ public class DocumentViewerServiceImpl implements DocumentViewerService {
                 .body(videoResource);
     }
 
+    private ResponseEntity<Resource> streamDrmContent(UploadEntity upload, String rangeHeader) throws IOException {
+        DecryptedDrmContent content = drmService.openDecryptedContent(upload.getUploadId());
+        long fileSize = content.getLength();
+        MediaType mediaType = MediaTypeFactory.getMediaType(upload.getFileName())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+
+        if (rangeHeader == null) {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .contentType(mediaType)
+                    .contentLength(fileSize)
+                    .body(new InputStreamResource(content.open(0, fileSize)));
+        }
+
+        long[] range = parseRange(rangeHeader, fileSize);
+        if (range == null) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize)
+                    .build();
+        }
+        long rangeStart = range[0];
+        long rangeEnd = range[1];
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.add(HttpHeaders.CONTENT_RANGE, "bytes " + rangeStart + "-" + rangeEnd + "/" + fileSize);
+        headers.setContentLength(rangeEnd - rangeStart + 1);
+        headers.setContentType(mediaType);
+
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .body(new InputStreamResource(content.open(rangeStart, rangeEnd + 1)));
+    }
+
+    /**
+     * Phân tích header Range dạng "bytes=a-b", "bytes=a-" hoặc "bytes=-n" (chỉ lấy đoạn đầu tiên)
+     * @return [start, end] (end tính cả), null nếu không hợp lệ hoặc nằm ngoài file
+     */
+    static long[] parseRange(String rangeHeader, long fileSize) {
+        if (!rangeHeader.startsWith("bytes=")) {
+            return null;
+        }
+        String spec = rangeHeader.substring("bytes=".length()).split(",")[0].trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, fileSize - suffix);
+                end = fileSize - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? fileSize - 1 : Math.min(Long.parseLong(last), fileSize - 1);
+            }
+            return start <= end && start < fileSize ? new long[]{start, end} : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     @Override
     public Resource getFullDocumentContent(Long uploadId) throws IOException {
         UploadEntity upload = uploadRepository.findById(uploadId)
@@ -0,0 +1,51 @@
+package com.spkt.libraSys.service.document.viewer;
+
+import com.spkt.libraSys.exception.AppException;
+import com.spkt.libraSys.exception.ErrorCode;
+import lombok.Getter;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Định dạng ảnh trang trả về cho trình xem
+ */
+@Getter
+public enum PageImageFormat {
+    PNG("png", "image/png", false),
+    JPEG("jpg", "image/jpeg", true),
+    // Chỉ dùng được khi có bộ mã hóa WebP (plugin ImageIO) trên classpath, nếu không sẽ dùng JPEG
+    WEBP("webp", "image/webp", true);
+
+    private final String extension;
+    private final String mediaType;
+    // Định dạng nén mất dữ liệu, có tham số chất lượng
+    private final boolean lossy;
+
+    PageImageFormat(String extension, String mediaType, boolean lossy) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+        this.lossy = lossy;
+    }
+
+    /**
+     * Có bộ mã hóa ImageIO cho định dạng này không
+     */
+    public boolean isEncodable() {
+        return ImageIO.getImageWritersByMIMEType(mediaType).hasNext();
+    }
+
+    /**
+     * Đọc định dạng từ tham số yêu cầu ("png", "jpeg"/"jpg", "webp"), null nếu không truyền
+     */
+    public static PageImageFormat parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return switch (value.trim().toLowerCase()) {
+            case "png" -> PNG;
+            case "jpg", "jpeg" -> JPEG;
+            case "webp" -> WEBP;
+            default -> throw new AppException(ErrorCode.INVALID_REQUEST, "Định dạng ảnh không được hỗ trợ: " + value);
+        };
+    }
+}
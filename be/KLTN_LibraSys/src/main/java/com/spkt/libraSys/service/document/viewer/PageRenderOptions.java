@@ -0,0 +1,28 @@
+package com.spkt.libraSys.service.document.viewer;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Tùy chọn render một trang do trình xem yêu cầu; trường nào để trống sẽ dùng cấu hình mặc định
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class PageRenderOptions {
+    // Chiều rộng ảnh mong muốn (pixel), ưu tiên hơn dpi
+    Integer width;
+    Integer dpi;
+    PageImageFormat format;
+    // Chất lượng nén 1-100, chỉ áp dụng cho JPEG/WebP
+    Integer quality;
+    // Ảnh nhỏ cho dải trang: DPI thấp, render nhanh
+    boolean thumbnail;
+
+    public static PageRenderOptions defaults() {
+        return new PageRenderOptions();
+    }
+}
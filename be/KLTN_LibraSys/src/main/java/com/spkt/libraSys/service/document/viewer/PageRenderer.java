@@ -0,0 +1,277 @@
+package com.spkt.libraSys.service.document.viewer;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNumber;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Chuyển tùy chọn của trình xem thành thông số render cụ thể ({@link RenderSpec}), render trang PDF và mã hóa ảnh.
+ * <p>
+ * Chiều rộng mong muốn được đổi sang DPI theo khổ trang rồi làm tròn lên theo bước {@code dpi-step},
+ * để số biến thể trong cache có giới hạn. Chế độ thumbnail render ở DPI thấp với gợi ý render nhanh và cho phép
+ * lấy mẫu thưa ảnh nhúng. Trang chỉ có chữ và nét vẽ xám (không có ảnh, form, shading, pattern, chú thích
+ * hay toán tử đặt màu khác xám) được render ảnh xám, nhanh hơn và nhỏ hơn nhiều khi nén; trang có màu giữ nguyên RGB.
+ */
+@Component
+public class PageRenderer {
+    private static final float POINTS_PER_INCH = 72f;
+    private static final int QUALITY_STEP = 10;
+
+    private final int defaultDpi;
+    private final int minDpi;
+    private final int maxDpi;
+    private final int dpiStep;
+    private final int thumbnailWidth;
+    private final PageImageFormat defaultFormat;
+    private final int defaultQuality;
+    private final int thumbnailQuality;
+    private final boolean grayscaleTextPages;
+
+    public PageRenderer(@Value("${app.viewer.render.default-dpi:150}") int defaultDpi,
+                        @Value("${app.viewer.render.min-dpi:36}") int minDpi,
+                        @Value("${app.viewer.render.max-dpi:300}") int maxDpi,
+                        @Value("${app.viewer.render.dpi-step:12}") int dpiStep,
+                        @Value("${app.viewer.render.thumbnail-width:160}") int thumbnailWidth,
+                        @Value("${app.viewer.render.default-format:png}") String defaultFormat,
+                        @Value("${app.viewer.render.default-quality:80}") int defaultQuality,
+                        @Value("${app.viewer.render.thumbnail-quality:60}") int thumbnailQuality,
+                        @Value("${app.viewer.render.grayscale-text-pages:true}") boolean grayscaleTextPages) {
+        this.defaultDpi = defaultDpi;
+        this.minDpi = minDpi;
+        this.maxDpi = maxDpi;
+        this.dpiStep = Math.max(dpiStep, 1);
+        this.thumbnailWidth = thumbnailWidth;
+        this.defaultFormat = PageImageFormat.parse(defaultFormat);
+        this.defaultQuality = defaultQuality;
+        this.thumbnailQuality = thumbnailQuality;
+        this.grayscaleTextPages = grayscaleTextPages;
+    }
+
+    /**
+     * Thông số render cho một trang
+     * @param pageWidthPoints Chiều rộng hiển thị của trang (point), chỉ được gọi khi cần đổi chiều rộng sang DPI
+     */
+    public RenderSpec resolve(PageRenderOptions options, DoubleSupplier pageWidthPoints) {
+        int dpi;
+        if (options.isThumbnail()) {
+            dpi = Math.max(1, Math.min(dpiForWidth(thumbnailWidth, pageWidthPoints.getAsDouble()), defaultDpi));
+        } else if (options.getWidth() != null && options.getWidth() > 0) {
+            dpi = steppedDpi(dpiForWidth(options.getWidth(), pageWidthPoints.getAsDouble()));
+        } else if (options.getDpi() != null && options.getDpi() > 0) {
+            dpi = steppedDpi(options.getDpi());
+        } else {
+            dpi = defaultDpi;
+        }
+
+        PageImageFormat format = options.getFormat() != null ? options.getFormat()
+                : options.isThumbnail() ? PageImageFormat.JPEG : defaultFormat;
+        if (!format.isEncodable()) {
+            format = PageImageFormat.JPEG;
+        }
+        int quality = 0;
+        if (format.isLossy()) {
+            int requested = options.getQuality() != null ? options.getQuality()
+                    : options.isThumbnail() ? thumbnailQuality : defaultQuality;
+            // Làm tròn theo bậc để mỗi trang chỉ có ít biến thể chất lượng trong cache
+            quality = clamp(Math.round(requested / (float) QUALITY_STEP) * QUALITY_STEP, QUALITY_STEP, 100);
+        }
+        return new RenderSpec(dpi, format, quality, options.isThumbnail());
+    }
+
+    /**
+     * Render một trang (đang giữ khóa của tài liệu)
+     * @param pageIndex Chỉ số trang, bắt đầu từ 0
+     */
+    public BufferedImage rasterize(PDDocument document, int pageIndex, RenderSpec spec) throws IOException {
+        PDFRenderer renderer = new PDFRenderer(document);
+        if (spec.isThumbnail()) {
+            renderer.setSubsamplingAllowed(true);
+            RenderingHints hints = new RenderingHints(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+            hints.put(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            hints.put(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            renderer.setRenderingHints(hints);
+        }
+        ImageType type = grayscaleTextPages && isTextOnly(document.getPage(pageIndex)) ? ImageType.GRAY : ImageType.RGB;
+        return renderer.renderImageWithDPI(pageIndex, spec.getDpi(), type);
+    }
+
+    /**
+     * Mã hóa ảnh theo định dạng và chất lượng của thông số (không cần giữ khóa tài liệu)
+     */
+    public byte[] encode(BufferedImage image, RenderSpec spec) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!spec.getFormat().isLossy()) {
+            ImageIO.write(image, spec.getFormat().getExtension(), out);
+            return out.toByteArray();
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByMIMEType(spec.getFormat().getMediaType());
+        if (!writers.hasNext()) {
+            throw new IOException("Không có bộ mã hóa cho " + spec.getFormat());
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                String[] types = param.getCompressionTypes();
+                if (types != null && types.length > 0 && param.getCompressionType() == null) {
+                    param.setCompressionType(lossyType(types));
+                }
+                param.setCompressionQuality(spec.getQuality() / 100f);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Trang không có ảnh (XObject hay ảnh nhúng trong luồng nội dung), form XObject, shading, pattern hay chú thích
+     * (highlight...), và nội dung chỉ dùng màu xám: chỉ có chữ và nét vẽ đen trắng
+     */
+    static boolean isTextOnly(PDPage page) throws IOException {
+        if (!page.getAnnotations().isEmpty()) {
+            return false;
+        }
+        PDResources resources = page.getResources();
+        if (resources != null) {
+            for (COSName name : resources.getXObjectNames()) {
+                // Ảnh, hoặc form có thể chứa ảnh (trang scan thường bọc ảnh trong form)
+                if (resources.isImageXObject(name) || resources.getXObject(name) instanceof PDFormXObject) {
+                    return false;
+                }
+            }
+            if (resources.getShadingNames().iterator().hasNext() || resources.getPatternNames().iterator().hasNext()) {
+                return false;
+            }
+        }
+        return usesOnlyGray(page);
+    }
+
+    /**
+     * Nội dung trang không đặt màu nào khác xám: rg/RG chỉ được chấp nhận khi ba thành phần bằng nhau,
+     * k/K khi C = M = Y = 0; sc/scn/SC/SCN (màu trong không gian màu tùy ý) và ảnh nhúng BI...ID...EI
+     * luôn bị coi là có màu
+     */
+    private static boolean usesOnlyGray(PDPage page) throws IOException {
+        PDFStreamParser parser = new PDFStreamParser(page);
+        List<Float> operands = new ArrayList<>();
+        for (Object token = parser.parseNextToken(); token != null; token = parser.parseNextToken()) {
+            if (token instanceof COSNumber number) {
+                operands.add(number.floatValue());
+                continue;
+            }
+            if (!(token instanceof Operator operator)) {
+                operands.clear();
+                continue;
+            }
+            switch (operator.getName()) {
+                case "rg", "RG" -> {
+                    if (operands.size() < 3 || !isGray(operands.subList(operands.size() - 3, operands.size()))) {
+                        return false;
+                    }
+                }
+                case "k", "K" -> {
+                    if (operands.size() < 4 || !isGray(List.of(0f, operands.get(operands.size() - 4),
+                            operands.get(operands.size() - 3), operands.get(operands.size() - 2)))) {
+                        return false;
+                    }
+                }
+                case "sc", "scn", "SC", "SCN", "BI" -> {
+                    return false;
+                }
+                default -> {
+                }
+            }
+            operands.clear();
+        }
+        return true;
+    }
+
+    // Mọi thành phần bằng nhau (rg: r = g = b; k: 0 = c = m = y)
+    private static boolean isGray(List<Float> components) {
+        for (Float component : components) {
+            if (Math.abs(component - components.get(0)) > 1e-3f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Làm tròn lên theo bậc DPI rồi giới hạn trong [minDpi, maxDpi], để số biến thể mỗi trang luôn nhỏ
+    private int steppedDpi(int exact) {
+        int bounded = Math.min(exact, maxDpi);
+        return clamp((bounded + dpiStep - 1) / dpiStep * dpiStep, minDpi, maxDpi);
+    }
+
+    private static int dpiForWidth(int widthPixels, double pageWidthPoints) {
+        return (int) Math.ceil(widthPixels * POINTS_PER_INCH / Math.max(pageWidthPoints, 1));
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(value, max));
+    }
+
+    private static String lossyType(String[] types) {
+        for (String type : types) {
+            if (type.toLowerCase().contains("lossy")) {
+                return type;
+            }
+        }
+        return types[0];
+    }
+
+    /**
+     * Thông số render đã xác định của một ảnh trang; là một phần của khóa cache và ETag
+     */
+    @Getter
+    @EqualsAndHashCode
+    public static final class RenderSpec {
+        private final int dpi;
+        private final PageImageFormat format;
+        // 0 với định dạng không mất dữ liệu
+        private final int quality;
+        private final boolean thumbnail;
+
+        public RenderSpec(int dpi, PageImageFormat format, int quality, boolean thumbnail) {
+            this.dpi = dpi;
+            this.format = format;
+            this.quality = quality;
+            this.thumbnail = thumbnail;
+        }
+
+        /**
+         * Định danh ngắn, ví dụ "150-png" hoặc "14-jpg-q60-t"
+         */
+        public String id() {
+            return dpi + "-" + format.getExtension() + (format.isLossy() ? "-q" + quality : "") + (thumbnail ? "-t" : "");
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.spkt.libraSys.service.document.viewer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Cache hai tầng cho ảnh trang đã render: LRU trong bộ nhớ (giới hạn theo số byte) và kho trên đĩa
+ * đặt tên theo băm của khóa (uploadId, phiên bản tệp, trang, thông số render).
+ * <p>
+ * Phiên bản là dấu vân tay của tệp nguồn (đường dẫn, kích thước, thời điểm sửa), nên khi tài liệu bị thay
+ * hoặc mã hóa lại bằng khóa mới thì các trang cũ không còn được dùng và sẽ bị dọn khỏi đĩa theo hạn.
+ * Kho đĩa còn có giới hạn dung lượng: khi vượt, các tệp lâu không được đọc nhất bị xóa trước.
+ * Nhiều yêu cầu cùng trượt một trang chỉ dẫn đến một lần render; các yêu cầu còn lại chờ kết quả đó.
+ */
+@Component
+@Slf4j
+public class RenderedPageCache {
+
+    /**
+     * Hàm render trang khi cả hai tầng cache đều chưa có
+     */
+    @FunctionalInterface
+    public interface Renderer {
+        byte[] render() throws IOException;
+    }
+
+    private final Cache<PageKey, byte[]> memory;
+    private final Path directory;
+    private final Duration diskTtl;
+    private final long diskMaxBytes;
+    // Dung lượng ước tính của kho đĩa, -1 khi chưa đo; được đo lại chính xác mỗi lần dọn
+    private final AtomicLong diskBytes = new AtomicLong(-1);
+    private final Map<PageKey, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder renders = new LongAdder();
+    private final LongAdder renderNanos = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+
+    public RenderedPageCache(@Value("${app.viewer.page-cache.max-bytes:67108864}") long maxBytes,
+                             @Value("${app.viewer.page-cache.dir:uploads/cache/pages}") String directory,
+                             @Value("${app.viewer.page-cache.disk-ttl-hours:168}") long diskTtlHours,
+                             @Value("${app.viewer.page-cache.disk-max-bytes:2147483648}") long diskMaxBytes) {
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((PageKey key, byte[] bytes) -> bytes.length)
+                .recordStats()
+                .build();
+        this.directory = Paths.get(directory);
+        this.diskTtl = Duration.ofHours(diskTtlHours);
+        this.diskMaxBytes = diskMaxBytes;
+    }
+
+    /**
+     * Lấy ảnh trang: bộ nhớ, rồi đĩa, cuối cùng mới render (một lần cho mỗi khóa dù có nhiều yêu cầu đồng thời)
+     */
+    public byte[] get(PageKey key, Renderer renderer) throws IOException {
+        byte[] cached = memory.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            collapsed.increment();
+            return await(running);
+        }
+        try {
+            byte[] bytes = readFromDisk(key);
+            if (bytes == null) {
+                bytes = render(renderer);
+                writeToDisk(key, bytes);
+            }
+            memory.put(key, bytes);
+            mine.complete(bytes);
+            return bytes;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Trang đã có trong bộ nhớ hoặc trên đĩa chưa (không tính vào thống kê trúng/trượt)
+     */
+    public boolean contains(PageKey key) {
+        return memory.policy().getIfPresentQuietly(key) != null || Files.exists(pathOf(key));
+    }
+
+    /**
+     * Xóa mọi trang đã cache của một tài liệu (cả bộ nhớ và đĩa)
+     */
+    public void evict(Long uploadId) {
+        memory.asMap().keySet().removeIf(key -> key.getUploadId().equals(uploadId));
+        Path uploadDir = directory.resolve(String.valueOf(uploadId));
+        if (Files.isDirectory(uploadDir)) {
+            deleteFiles(uploadDir, Instant.MAX);
+            diskBytes.set(-1);
+        }
+    }
+
+    /**
+     * Dọn các tệp trên đĩa lâu không được dùng (trang của phiên bản cũ sẽ không còn được chạm tới),
+     * rồi áp giới hạn dung lượng của kho đĩa
+     */
+    @Scheduled(fixedDelayString = "${app.viewer.page-cache.purge-interval-ms:3600000}",
+            initialDelayString = "${app.viewer.page-cache.purge-interval-ms:3600000}")
+    public void purgeDisk() {
+        if (Files.isDirectory(directory)) {
+            int deleted = deleteFiles(directory, Instant.now().minus(diskTtl));
+            if (deleted > 0) {
+                log.info("Đã xóa {} ảnh trang quá hạn khỏi cache đĩa", deleted);
+            }
+            trimDisk();
+        }
+    }
+
+    /**
+     * Đo lại dung lượng kho đĩa; nếu vượt giới hạn thì xóa các tệp lâu không được đọc nhất (thời điểm sửa cũ nhất)
+     * cho đến khi còn 90% giới hạn, để không phải dọn lại ngay sau lần ghi kế tiếp
+     */
+    synchronized void trimDisk() {
+        List<DiskFile> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.filter(Files::isRegularFile).forEach(file -> {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    files.add(new DiskFile(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                } catch (IOException e) {
+                    // Tệp vừa bị xóa hoặc thay thế
+                }
+            });
+        } catch (NoSuchFileException e) {
+            diskBytes.set(0);
+            return;
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Lỗi khi đo cache trang {}: {}", directory, e.getMessage());
+            return;
+        }
+        long total = files.stream().mapToLong(file -> file.size).sum();
+        if (total > diskMaxBytes) {
+            long target = diskMaxBytes / 10 * 9;
+            int deleted = 0;
+            files.sort(Comparator.comparingLong(file -> file.modifiedMillis));
+            for (DiskFile file : files) {
+                if (total <= target) {
+                    break;
+                }
+                try {
+                    Files.deleteIfExists(file.path);
+                    total -= file.size;
+                    deleted++;
+                } catch (IOException e) {
+                    log.warn("Không xóa được ảnh trang {}: {}", file.path, e.getMessage());
+                }
+            }
+            log.info("Cache đĩa vượt {} byte, đã xóa {} ảnh trang cũ nhất", diskMaxBytes, deleted);
+        }
+        diskBytes.set(total);
+    }
+
+    /**
+     * Dấu vân tay của tệp nguồn, đổi khi tệp bị thay hoặc ghi lại
+     */
+    public static String version(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return sha256(file.toAbsolutePath().normalize() + "|" + attributes.size() + "|"
+                + attributes.lastModifiedTime().toMillis()).substring(0, 16);
+    }
+
+    public CacheStats stats() {
+        return memory.stats();
+    }
+
+    /**
+     * Số liệu cache trang: tỉ lệ trúng bộ nhớ, số lần trúng đĩa, số lần render và thời gian render trung bình
+     */
+    public Map<String, Object> snapshot() {
+        // Áp dụng các lần ghi đang chờ để dung lượng ước tính là số hiện tại
+        memory.cleanUp();
+        CacheStats stats = memory.stats();
+        long renderCount = renders.sum();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("size", memory.estimatedSize());
+        snapshot.put("hitCount", stats.hitCount());
+        snapshot.put("missCount", stats.missCount());
+        snapshot.put("hitRate", stats.hitRate());
+        snapshot.put("evictionCount", stats.evictionCount());
+        memory.policy().eviction().ifPresent(eviction -> {
+            snapshot.put("estimatedBytes", eviction.weightedSize().orElse(0L));
+            snapshot.put("maxBytes", eviction.getMaximum());
+        });
+        snapshot.put("diskHits", diskHits.sum());
+        snapshot.put("diskBytes", diskBytes.get());
+        snapshot.put("diskMaxBytes", diskMaxBytes);
+        snapshot.put("renders", renderCount);
+        snapshot.put("collapsedRequests", collapsed.sum());
+        snapshot.put("averageRenderMillis", renderCount == 0 ? 0.0 : renderNanos.sum() / 1_000_000.0 / renderCount);
+        return snapshot;
+    }
+
+    private byte[] render(Renderer renderer) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return renderer.render();
+        } finally {
+            renders.increment();
+            renderNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private byte[] readFromDisk(PageKey key) {
+        Path file = pathOf(key);
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            // Cập nhật thời điểm sửa để việc dọn theo hạn giữ lại các trang còn được đọc
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+            diskHits.increment();
+            return bytes;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Không đọc được ảnh trang {} từ cache đĩa: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(PageKey key, byte[] bytes) {
+        Path file = pathOf(key);
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), "page", ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Cache đĩa chỉ là tầng phụ, lỗi ghi không làm hỏng yêu cầu
+            log.warn("Không ghi được ảnh trang {} vào cache đĩa: {}", file, e.getMessage());
+            return;
+        }
+        // Lần ghi đầu tiên (hoặc sau khi xóa) đo lại kho đĩa, các lần sau chỉ cộng dồn
+        long used = diskBytes.get() < 0 ? -1 : diskBytes.addAndGet(bytes.length);
+        if (used < 0 || used > diskMaxBytes) {
+            trimDisk();
+        }
+    }
+
+    // <dir>/<uploadId>/<sha256(khóa)>.<định dạng>
+    Path pathOf(PageKey key) {
+        return directory.resolve(String.valueOf(key.getUploadId()))
+                .resolve(sha256(key.getVersion() + "|" + key.getPage() + "|" + key.getSpec().id())
+                        + "." + key.getSpec().getFormat().getExtension());
+    }
+
+    private static int deleteFiles(Path root, Instant olderThan) {
+        int[] deleted = {0};
+        try (Stream<Path> files = Files.walk(root)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                try {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(olderThan)) {
+                        Files.delete(file);
+                        deleted[0]++;
+                    }
+                } catch (IOException e) {
+                    log.warn("Không xóa được ảnh trang {}: {}", file, e.getMessage());
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Lỗi khi dọn cache trang {}: {}", root, e.getMessage());
+        }
+        return deleted[0];
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> running) throws IOException {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Bị ngắt khi chờ render trang", e);
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class DiskFile {
+        private final Path path;
+        private final long size;
+        private final long modifiedMillis;
+
+        private DiskFile(Path path, long size, long modifiedMillis) {
+            this.path = path;
+            this.size = size;
+            this.modifiedMillis = modifiedMillis;
+        }
+    }
+
+    /**
+     * Khóa của một ảnh trang
+     */
+    @Getter
+    @EqualsAndHashCode
+    public static final class PageKey {
+        private final Long uploadId;
+        private final String version;
+        private final int page;
+        private final PageRenderer.RenderSpec spec;
+
+        public PageKey(Long uploadId, String version, int page, PageRenderer.RenderSpec spec) {
+            this.uploadId = uploadId;
+            this.version = version;
+            this.page = page;
+            this.spec = spec;
+        }
+
+        /**
+         * ETag của ảnh trang; không cần render vì ảnh chỉ phụ thuộc vào khóa
+         */
+        public String etag() {
+            return "\"" + sha256(uploadId + "|" + version + "|" + page + "|" + spec.id()).substring(0, 32) + "\"";
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.spkt.libraSys.service.drm;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Nội dung DRM đã được xác thực quyền truy cập, cho phép đọc bản rõ theo từng đoạn byte
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public class DecryptedDrmContent {
+    private final DrmEncryptionUtil encryptionUtil;
+    private final Path path;
+    private final String contentKey;
+
+    // Kích thước bản rõ (byte)
+    @Getter
+    private final long length;
+
+    /**
+     * Mở luồng bản rõ của đoạn [start, end)
+     */
+    public InputStream open(long start, long end) throws IOException {
+        return encryptionUtil.openDecryptedRange(path, start, end, contentKey);
+    }
+}
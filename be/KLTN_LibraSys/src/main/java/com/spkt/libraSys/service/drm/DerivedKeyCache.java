@@ -0,0 +1,142 @@
+package com.spkt.libraSys.service.drm;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache khóa AES đã dẫn xuất bằng PBKDF2, khóa theo (dấu vân tay của khóa bí mật, salt).
+ * <p>
+ * Mỗi lần dẫn xuất tốn 10.000 vòng HMAC-SHA256; với salt cố định (khóa nội dung lưu trong DB, salt theo thiết bị)
+ * kết quả luôn giống nhau nên có thể dùng lại. Khóa bí mật chỉ được lưu dưới dạng SHA-256 để làm định danh;
+ * các mục hết hạn sau một khoảng không dùng đến và bị xóa ngay khi khóa nội dung bị thu hồi.
+ */
+@Component
+public class DerivedKeyCache {
+
+    /**
+     * Hàm dẫn xuất khóa khi cache chưa có
+     */
+    @FunctionalInterface
+    public interface Derivation {
+        SecretKey derive() throws Exception;
+    }
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Cache<DerivationId, SecretKey> keys;
+    private final LongAdder derivations = new LongAdder();
+    private final LongAdder derivationNanos = new LongAdder();
+
+    public DerivedKeyCache(@Value("${app.drm.key-cache.max-size:10000}") long maxSize,
+                           @Value("${app.drm.key-cache.ttl-minutes:30}") long ttlMinutes) {
+        this.keys = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Lấy khóa đã dẫn xuất, dẫn xuất (một lần cho mỗi cặp khóa/salt) nếu chưa có
+     */
+    public SecretKey get(String secret, byte[] salt, Derivation derivation) {
+        return keys.get(new DerivationId(fingerprint(secret), salt.clone()), id -> {
+            long start = System.nanoTime();
+            try {
+                return derivation.derive();
+            } catch (Exception e) {
+                throw new IllegalStateException("Key derivation failed", e);
+            } finally {
+                derivations.increment();
+                derivationNanos.add(System.nanoTime() - start);
+            }
+        });
+    }
+
+    /**
+     * Xóa mọi khóa dẫn xuất từ khóa bí mật này (với mọi salt)
+     */
+    public void invalidate(String secret) {
+        String fingerprint = fingerprint(secret);
+        keys.asMap().keySet().removeIf(id -> id.fingerprint.equals(fingerprint));
+    }
+
+    public void invalidateAll() {
+        keys.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return keys.stats();
+    }
+
+    /**
+     * Số liệu cache để theo dõi: tỉ lệ trúng, số lần dẫn xuất và thời gian dẫn xuất trung bình
+     */
+    public Map<String, Object> snapshot() {
+        CacheStats stats = keys.stats();
+        long count = derivations.sum();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("size", keys.estimatedSize());
+        snapshot.put("hitCount", stats.hitCount());
+        snapshot.put("missCount", stats.missCount());
+        snapshot.put("hitRate", stats.hitRate());
+        snapshot.put("evictionCount", stats.evictionCount());
+        snapshot.put("derivations", count);
+        snapshot.put("averageDerivationMillis", count == 0 ? 0.0 : derivationNanos.sum() / 1_000_000.0 / count);
+        return snapshot;
+    }
+
+    private static String fingerprint(String secret) {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        return Base64.getEncoder().encodeToString(digest.digest(secret.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static final class DerivationId {
+        private final String fingerprint;
+        private final byte[] salt;
+        private final int hash;
+
+        private DerivationId(String fingerprint, byte[] salt) {
+            this.fingerprint = fingerprint;
+            this.salt = salt;
+            this.hash = 31 * fingerprint.hashCode() + Arrays.hashCode(salt);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DerivationId other)) {
+                return false;
+            }
+            return fingerprint.equals(other.fingerprint) && Arrays.equals(salt, other.salt);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.spkt.libraSys.service.drm;
+
+import lombok.Getter;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+/**
+ * Định dạng gói DRM chia khối (phiên bản 2), mã hóa/giải mã với bộ nhớ cố định.
+ * <p>
+ * Bố cục: {@code "LDRM" | version (1) | chunkSize (4) | salt (16) | noncePrefix (8) | plainLength (8) | các khối}.
+ * Mỗi khối gồm {@code chunkSize} byte bản mã (khối cuối có thể ngắn hơn) và tag GCM 16 byte.
+ * Nonce của khối {@code i} là {@code noncePrefix || i} (4 byte big-endian); AAD là toàn bộ header cộng cờ khối cuối,
+ * nên không thể đổi thứ tự, cắt bớt hay ghép khối từ gói khác.
+ * <p>
+ * Khóa AES được dẫn xuất từ khóa nội dung và salt bằng PBKDF2 như gói cũ ({@code salt | iv | ciphertext}),
+ * gói cũ không có MAGIC nên vẫn phân biệt được qua {@link #isChunked(byte[])}.
+ */
+@Getter
+public final class DrmContainer {
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    public static final int HEADER_LENGTH = 41;
+    public static final int TAG_LENGTH = 16;
+
+    private static final byte[] MAGIC = {'L', 'D', 'R', 'M'};
+    private static final byte VERSION = 2;
+    private static final int SALT_LENGTH = 16;
+    private static final int NONCE_PREFIX_LENGTH = 8;
+    private static final int NONCE_LENGTH = 12;
+
+    private final int chunkSize;
+    private final byte[] salt;
+    private final byte[] noncePrefix;
+    private final long plainLength;
+    private final byte[] header;
+
+    private DrmContainer(int chunkSize, byte[] salt, byte[] noncePrefix, long plainLength) {
+        this.chunkSize = chunkSize;
+        this.salt = salt;
+        this.noncePrefix = noncePrefix;
+        this.plainLength = plainLength;
+        this.header = ByteBuffer.allocate(HEADER_LENGTH)
+                .put(MAGIC)
+                .put(VERSION)
+                .putInt(chunkSize)
+                .put(salt)
+                .put(noncePrefix)
+                .putLong(plainLength)
+                .array();
+    }
+
+    /**
+     * Tạo header cho gói mới
+     * @param chunkSize Kích thước khối bản rõ
+     * @param plainLength Kích thước nội dung gốc
+     * @param salt Salt PBKDF2 (16 byte ngẫu nhiên)
+     * @param noncePrefix Tiền tố nonce (8 byte ngẫu nhiên)
+     */
+    public static DrmContainer create(int chunkSize, long plainLength, byte[] salt, byte[] noncePrefix) {
+        if (chunkSize <= 0 || salt.length != SALT_LENGTH || noncePrefix.length != NONCE_PREFIX_LENGTH) {
+            throw new IllegalArgumentException("Invalid DRM container parameters");
+        }
+        if ((plainLength + chunkSize - 1) / chunkSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Content too large for chunk size " + chunkSize);
+        }
+        return new DrmContainer(chunkSize, salt.clone(), noncePrefix.clone(), plainLength);
+    }
+
+    /**
+     * Đọc header từ đầu gói
+     */
+    public static DrmContainer parse(byte[] header) throws IOException {
+        if (!isChunked(header) || header.length < HEADER_LENGTH || header[MAGIC.length] != VERSION) {
+            throw new IOException("Not a chunked DRM container");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(header, MAGIC.length + 1, HEADER_LENGTH - MAGIC.length - 1);
+        int chunkSize = buffer.getInt();
+        byte[] salt = new byte[SALT_LENGTH];
+        buffer.get(salt);
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        buffer.get(noncePrefix);
+        long plainLength = buffer.getLong();
+        if (chunkSize <= 0 || plainLength < 0) {
+            throw new IOException("Corrupted DRM container header");
+        }
+        return new DrmContainer(chunkSize, salt, noncePrefix, plainLength);
+    }
+
+    public static DrmContainer read(ReadableByteChannel in) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        readFully(in, header);
+        return parse(header.array());
+    }
+
+    /**
+     * Gói có bắt đầu bằng MAGIC của định dạng chia khối hay không
+     */
+    public static boolean isChunked(byte[] prefix) {
+        return prefix.length >= MAGIC.length && Arrays.equals(prefix, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    public int chunkCount() {
+        return plainLength == 0 ? 1 : (int) ((plainLength + chunkSize - 1) / chunkSize);
+    }
+
+    public int plainChunkLength(int index) {
+        return (int) Math.min(chunkSize, plainLength - (long) index * chunkSize);
+    }
+
+    /**
+     * Vị trí (tính từ đầu gói) của khối {@code index}
+     */
+    public long chunkOffset(int index) {
+        return HEADER_LENGTH + (long) index * (chunkSize + TAG_LENGTH);
+    }
+
+    public long encryptedLength() {
+        return chunkOffset(chunkCount() - 1) + plainChunkLength(chunkCount() - 1) + TAG_LENGTH;
+    }
+
+    /**
+     * Khởi tạo cipher cho khối {@code index}: nonce riêng và AAD gắn với header và vị trí khối
+     */
+    public void initCipher(Cipher cipher, int mode, SecretKey key, int index) throws GeneralSecurityException {
+        byte[] nonce = ByteBuffer.allocate(NONCE_LENGTH).put(noncePrefix).putInt(index).array();
+        cipher.init(mode, key, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+        cipher.updateAAD(header);
+        cipher.updateAAD(new byte[]{(byte) (index == chunkCount() - 1 ? 1 : 0)});
+    }
+
+    /**
+     * Mã hóa từng khối từ {@code in} sang {@code out}; bộ nhớ dùng chỉ gồm hai buffer cỡ một khối
+     */
+    public void encrypt(ReadableByteChannel in, WritableByteChannel out, SecretKey key, Cipher cipher)
+            throws IOException, GeneralSecurityException {
+        writeFully(out, ByteBuffer.wrap(header));
+        ByteBuffer plain = ByteBuffer.allocate(chunkSize);
+        ByteBuffer sealed = ByteBuffer.allocate(chunkSize + TAG_LENGTH);
+        for (int i = 0; i < chunkCount(); i++) {
+            plain.clear().limit(plainChunkLength(i));
+            readFully(in, plain);
+            plain.flip();
+            sealed.clear();
+            initCipher(cipher, Cipher.ENCRYPT_MODE, key, i);
+            cipher.doFinal(plain, sealed);
+            sealed.flip();
+            writeFully(out, sealed);
+        }
+    }
+
+    /**
+     * Giải mã tuần tự các khối (header đã được đọc khỏi {@code in}) sang {@code out}
+     */
+    public void decrypt(ReadableByteChannel in, WritableByteChannel out, SecretKey key, Cipher cipher)
+            throws IOException, GeneralSecurityException {
+        ByteBuffer sealed = ByteBuffer.allocate(chunkSize + TAG_LENGTH);
+        ByteBuffer plain = ByteBuffer.allocate(chunkSize);
+        for (int i = 0; i < chunkCount(); i++) {
+            sealed.clear().limit(plainChunkLength(i) + TAG_LENGTH);
+            readFully(in, sealed);
+            sealed.flip();
+            plain.clear();
+            initCipher(cipher, Cipher.DECRYPT_MODE, key, i);
+            cipher.doFinal(sealed, plain);
+            plain.flip();
+            writeFully(out, plain);
+        }
+    }
+
+    private static void readFully(ReadableByteChannel in, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                throw new EOFException("Truncated DRM container");
+            }
+        }
+    }
+
+    private static void writeFully(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
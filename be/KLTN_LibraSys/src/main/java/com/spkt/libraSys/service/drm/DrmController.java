@@ -136,6 +136,33 @@ public class DrmController {
                 .body(resource);
     }
 
+    @GetMapping("/key-cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getKeyCacheStats() {
+        return ResponseEntity.ok(ApiResponse.<Map<String, Object>>builder()
+                .message("Lấy số liệu cache khóa thành công")
+                .data(drmService.getKeyCacheStats())
+                .build());
+    }
+
+    @GetMapping("/heartbeat/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getHeartbeatStats() {
+        return ResponseEntity.ok(ApiResponse.<Map<String, Object>>builder()
+                .message("Lấy số liệu heartbeat thành công")
+                .data(drmService.getHeartbeatStats())
+                .build());
+    }
+
+    @GetMapping("/license-cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getLicenseCacheStats() {
+        return ResponseEntity.ok(ApiResponse.<Map<String, Object>>builder()
+                .message("Lấy số liệu cache license thành công")
+                .data(drmService.getLicenseCacheStats())
+                .build());
+    }
+
     @GetMapping("/{digitalDocId}/uploads")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getDocumentUploadsWithKeys(
@@ -12,10 +12,20 @@ import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
 import java.security.KeyFactory;
 import java.security.PublicKey;
 import java.security.SecureRandom;
@@ -24,19 +34,26 @@ import java.security.spec.MGF1ParameterSpec;
 import java.security.spec.RSAPublicKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.Base64;
+import java.util.Map;
 
 @Component
 public class DrmEncryptionUtil {
 
 
     private final KeyPairManagementService serverKeyPair;
-    public DrmEncryptionUtil(KeyPairManagementService serverKeyPair) {
+    private final DerivedKeyCache derivedKeys;
+    public DrmEncryptionUtil(KeyPairManagementService serverKeyPair, DerivedKeyCache derivedKeys) {
         this.serverKeyPair = serverKeyPair;
+        this.derivedKeys = derivedKeys;
     }
 
     
     @Value("${app.drm.master-key}")
     private String masterKey;
+
+    // Kích thước khối bản rõ của gói DRM chia khối
+    @Value("${app.drm.chunk-size:65536}")
+    private int chunkSize = DrmContainer.DEFAULT_CHUNK_SIZE;
     
     private static final String ALGORITHM = "AES/GCM/NoPadding";
     private static final int GCM_TAG_LENGTH = 128;
@@ -44,6 +61,13 @@ public class DrmEncryptionUtil {
     private static final int SALT_LENGTH = 16;
     private static final int ITERATION_COUNT = 10000;
     private static final int KEY_LENGTH = 256;
+
+    // Cipher/SecretKeyFactory không an toàn đa luồng và tốn chi phí khởi tạo: mỗi luồng giữ một instance để dùng lại
+    private static final ThreadLocal<Cipher> GCM_CIPHER = ThreadLocal.withInitial(() -> newInstance(
+            () -> Cipher.getInstance(ALGORITHM)));
+    private static final ThreadLocal<SecretKeyFactory> KEY_FACTORY = ThreadLocal.withInitial(() -> newInstance(
+            () -> SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256")));
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
     
     /**
      * Mã hóa khóa nội dung với master key
@@ -53,8 +77,8 @@ public class DrmEncryptionUtil {
             byte[] salt = generateRandomBytes(SALT_LENGTH);
             byte[] iv = generateRandomBytes(IV_LENGTH);
             
-            SecretKey key = deriveKey(masterKey, salt);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            SecretKey key = deriveFreshKey(masterKey, salt);
+            Cipher cipher = GCM_CIPHER.get();
             GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
             cipher.init(Cipher.ENCRYPT_MODE, key, spec);
             
@@ -89,7 +113,7 @@ public class DrmEncryptionUtil {
             buffer.get(encrypted);
             
             SecretKey key = deriveKey(masterKey, salt);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            Cipher cipher = GCM_CIPHER.get();
             GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
             cipher.init(Cipher.DECRYPT_MODE, key, spec);
             
@@ -108,8 +132,8 @@ public class DrmEncryptionUtil {
             byte[] salt = generateRandomBytes(SALT_LENGTH);
             byte[] iv = generateRandomBytes(IV_LENGTH);
             
-            SecretKey key = deriveKey(contentKey, salt);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            SecretKey key = deriveFreshKey(contentKey, salt);
+            Cipher cipher = GCM_CIPHER.get();
             GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
             cipher.init(Cipher.ENCRYPT_MODE, key, spec);
             
@@ -143,7 +167,7 @@ public class DrmEncryptionUtil {
             buffer.get(encrypted);
             
             SecretKey key = deriveKey(contentKey, salt);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            Cipher cipher = GCM_CIPHER.get();
             GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
             cipher.init(Cipher.DECRYPT_MODE, key, spec);
             
@@ -153,6 +177,99 @@ public class DrmEncryptionUtil {
         }
     }
     
+    /**
+     * Mã hóa file theo định dạng chia khối ({@link DrmContainer}) mà không nạp toàn bộ file vào bộ nhớ
+     * @param source File gốc
+     * @param target File DRM đích (bị ghi đè nếu đã tồn tại)
+     * @param contentKey Khóa nội dung
+     */
+    public void encryptFile(Path source, Path target, String contentKey) {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            DrmContainer container = DrmContainer.create(chunkSize, in.size(),
+                    generateRandomBytes(SALT_LENGTH), generateRandomBytes(8));
+            SecretKey key = deriveFreshKey(contentKey, container.getSalt());
+            container.encrypt(in, out, key, GCM_CIPHER.get());
+        } catch (Exception e) {
+            try {
+                Files.deleteIfExists(target);
+            } catch (IOException ignored) {
+                // File đích dở dang sẽ được ghi đè ở lần thử sau
+            }
+            throw new RuntimeException("Error encrypting file", e);
+        }
+    }
+
+    /**
+     * Giải mã file DRM (định dạng chia khối hoặc định dạng một khối cũ) và ghi bản rõ ra {@code out}
+     */
+    public void decryptFile(Path source, OutputStream out, String contentKey) {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            byte[] prefix = readPrefix(in);
+            in.position(prefix.length);
+            if (!DrmContainer.isChunked(prefix)) {
+                out.write(decryptContent(Files.readAllBytes(source), contentKey));
+                return;
+            }
+            DrmContainer container = DrmContainer.parse(prefix);
+            SecretKey key = deriveKey(contentKey, container.getSalt());
+            container.decrypt(in, Channels.newChannel(out), key, GCM_CIPHER.get());
+        } catch (Exception e) {
+            throw new RuntimeException("Error decrypting file", e);
+        }
+    }
+
+    /**
+     * Kích thước bản rõ của file DRM, đọc từ header (gói chia khối) hoặc suy ra từ kích thước file (gói cũ)
+     */
+    public long plainLength(Path source) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            byte[] prefix = readPrefix(in);
+            if (DrmContainer.isChunked(prefix)) {
+                return DrmContainer.parse(prefix).getPlainLength();
+            }
+            return Math.max(0, in.size() - SALT_LENGTH - IV_LENGTH - GCM_TAG_LENGTH / 8);
+        }
+    }
+
+    /**
+     * Mở luồng bản rõ của đoạn [start, end) trong file DRM.
+     * Gói chia khối chỉ giải mã các khối giao với đoạn; gói cũ (một khối GCM) buộc phải giải mã toàn bộ.
+     */
+    public InputStream openDecryptedRange(Path source, long start, long end, String contentKey) throws IOException {
+        FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+        try {
+            byte[] prefix = readPrefix(in);
+            if (!DrmContainer.isChunked(prefix)) {
+                in.close();
+                byte[] plain = decryptContent(Files.readAllBytes(source), contentKey);
+                if (start < 0 || end < start || end > plain.length) {
+                    throw new IllegalArgumentException("Invalid range " + start + "-" + end);
+                }
+                return new ByteArrayInputStream(plain, (int) start, (int) (end - start));
+            }
+            DrmContainer container = DrmContainer.parse(prefix);
+            SecretKey key = deriveKey(contentKey, container.getSalt());
+            // Luồng có thể được đọc sau khi phương thức trả về nên dùng cipher riêng thay vì cipher của luồng hiện tại
+            Cipher cipher = newInstance(() -> Cipher.getInstance(ALGORITHM));
+            return new DrmRangeInputStream(in, container, key, cipher, start, end);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static byte[] readPrefix(FileChannel in) throws IOException {
+        ByteBuffer prefix = ByteBuffer.allocate((int) Math.min(DrmContainer.HEADER_LENGTH, in.size()));
+        while (prefix.hasRemaining()) {
+            if (in.read(prefix, prefix.position()) < 0) {
+                break;
+            }
+        }
+        return prefix.array();
+    }
+
     /**
      * Mã hóa khóa nội dung cho thiết bị cụ thể
      */
@@ -164,7 +281,7 @@ public class DrmEncryptionUtil {
             byte[] iv = generateRandomBytes(IV_LENGTH);
             
             SecretKey key = deriveKey(masterKey, salt);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            Cipher cipher = GCM_CIPHER.get();
             GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
             cipher.init(Cipher.ENCRYPT_MODE, key, spec);
             
@@ -191,7 +308,7 @@ public class DrmEncryptionUtil {
             byte[] iv = generateRandomBytes(IV_LENGTH);
 
             SecretKey key = deriveKey(publicKey, salt);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            Cipher cipher = GCM_CIPHER.get();
             GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
             cipher.init(Cipher.ENCRYPT_MODE, key, spec);
 
@@ -282,19 +399,60 @@ public class DrmEncryptionUtil {
 
 
 
-    private SecretKey deriveKey(String password, byte[] salt) throws Exception {
-        SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+    /**
+     * Xóa các khóa AES đã dẫn xuất từ khóa nội dung (khi khóa bị thu hồi hoặc thay thế)
+     */
+    public void invalidateDerivedKeys(String contentKey) {
+        derivedKeys.invalidate(contentKey);
+    }
+
+    public Map<String, Object> derivedKeyStats() {
+        return derivedKeys.snapshot();
+    }
+
+    /**
+     * Khóa cho salt đã lưu (giải mã, license theo thiết bị): salt được dùng lại nên khóa được cache
+     */
+    private SecretKey deriveKey(String password, byte[] salt) {
+        return derivedKeys.get(password, salt, () -> pbkdf2(password, salt));
+    }
+
+    /**
+     * Khóa cho salt ngẫu nhiên vừa sinh khi mã hóa: không bao giờ gặp lại nên không đưa vào cache,
+     * tránh đẩy các khóa giải mã ra khỏi cache
+     */
+    private SecretKey deriveFreshKey(String password, byte[] salt) {
+        try {
+            return pbkdf2(password, salt);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error deriving key", e);
+        }
+    }
+
+    private static SecretKey pbkdf2(String password, byte[] salt) throws GeneralSecurityException {
         KeySpec spec = new PBEKeySpec(password.toCharArray(), salt, ITERATION_COUNT, KEY_LENGTH);
-        SecretKey tmp = factory.generateSecret(spec);
+        SecretKey tmp = KEY_FACTORY.get().generateSecret(spec);
         return new SecretKeySpec(tmp.getEncoded(), "AES");
     }
     
     private byte[] generateRandomBytes(int length) {
         byte[] bytes = new byte[length];
-        new SecureRandom().nextBytes(bytes);
+        RANDOM.get().nextBytes(bytes);
         return bytes;
     }
 
+    private interface CryptoFactory<T> {
+        T create() throws GeneralSecurityException;
+    }
+
+    private static <T> T newInstance(CryptoFactory<T> factory) {
+        try {
+            return factory.create();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
 
 
 
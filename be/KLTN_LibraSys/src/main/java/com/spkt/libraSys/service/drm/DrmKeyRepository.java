@@ -6,12 +6,15 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DrmKeyRepository extends JpaRepository<DrmKeyEntity, Long> {
     
     Optional<DrmKeyEntity> findByUploadIdAndActive(Long documentId, boolean active);
+
+    List<DrmKeyEntity> findByUploadId(Long uploadId);
     
     @Modifying
     @Transactional
@@ -1,5 +1,6 @@
 package com.spkt.libraSys.service.drm;
 
+import com.spkt.libraSys.service.dashboard.GroupCountRow;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -32,4 +33,9 @@ public interface DrmLicenseRepository extends JpaRepository<DrmLicenseEntity, Lo
 
     @Query("SELECT COUNT(d) FROM DrmLicenseEntity d WHERE d.issueDate > :date")
     long countRecentLicenses(@Param("date") LocalDateTime date);
+
+    @Query("SELECT d.revoked AS groupKey, COUNT(d) AS total, " +
+            "SUM(CASE WHEN d.issueDate > :since THEN 1 ELSE 0 END) AS recent " +
+            "FROM DrmLicenseEntity d GROUP BY d.revoked")
+    List<GroupCountRow> countGroupedByRevoked(@Param("since") LocalDateTime since);
 }
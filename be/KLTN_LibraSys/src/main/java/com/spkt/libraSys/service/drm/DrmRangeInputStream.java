@@ -0,0 +1,110 @@
+package com.spkt.libraSys.service.drm;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.GeneralSecurityException;
+
+/**
+ * Luồng bản rõ của đoạn [start, end) trong gói DRM chia khối.
+ * Chỉ các khối giao với đoạn được đọc (đọc theo vị trí qua {@link FileChannel}) và giải mã khi cần,
+ * mỗi lần một khối, nên bộ nhớ dùng không phụ thuộc kích thước file hay độ dài đoạn.
+ */
+class DrmRangeInputStream extends InputStream {
+    private final FileChannel channel;
+    private final DrmContainer container;
+    private final SecretKey key;
+    private final Cipher cipher;
+    private final long end;
+    private final ByteBuffer sealed;
+    private final ByteBuffer plain;
+
+    private long position;
+    private int loadedChunk = -1;
+
+    DrmRangeInputStream(FileChannel channel, DrmContainer container, SecretKey key, Cipher cipher,
+                        long start, long end) {
+        if (start < 0 || end < start || end > container.getPlainLength()) {
+            throw new IllegalArgumentException("Invalid range " + start + "-" + end);
+        }
+        this.channel = channel;
+        this.container = container;
+        this.key = key;
+        this.cipher = cipher;
+        this.position = start;
+        this.end = end;
+        this.sealed = ByteBuffer.allocate(container.getChunkSize() + DrmContainer.TAG_LENGTH);
+        this.plain = ByteBuffer.allocate(container.getChunkSize());
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= end) {
+            return -1;
+        }
+        int chunk = (int) (position / container.getChunkSize());
+        if (chunk != loadedChunk) {
+            load(chunk);
+        }
+        int inChunk = (int) (position - (long) chunk * container.getChunkSize());
+        int count = (int) Math.min(Math.min(len, plain.limit() - inChunk), end - position);
+        plain.get(inChunk, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = Math.max(0, Math.min(n, end - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        if (loadedChunk < 0 || position >= end) {
+            return 0;
+        }
+        long loadedEnd = (long) loadedChunk * container.getChunkSize() + plain.limit();
+        return (int) Math.max(0, Math.min(loadedEnd, end) - position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void load(int chunk) throws IOException {
+        loadedChunk = -1;
+        sealed.clear().limit(container.plainChunkLength(chunk) + DrmContainer.TAG_LENGTH);
+        long offset = container.chunkOffset(chunk);
+        while (sealed.hasRemaining()) {
+            if (channel.read(sealed, offset + sealed.position()) < 0) {
+                throw new EOFException("Truncated DRM container");
+            }
+        }
+        sealed.flip();
+        plain.clear();
+        try {
+            container.initCipher(cipher, Cipher.DECRYPT_MODE, key, chunk);
+            cipher.doFinal(sealed, plain);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("DRM chunk " + chunk + " failed authentication", e);
+        }
+        plain.flip();
+        loadedChunk = chunk;
+    }
+}
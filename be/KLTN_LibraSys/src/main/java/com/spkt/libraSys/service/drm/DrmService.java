@@ -55,6 +55,8 @@ public class DrmService {
     DrmLicenseRepository drmLicenseRepository;
     DrmEncryptionUtil encryptionUtil;
     DrmCallbackService callbackService;
+    HeartbeatRegistry heartbeatRegistry;
+    LicenseCache licenseCache;
     private final DrmEncryptionUtil drmEncryptionUtil;
     private final AccessRequestRepository accessRequestRepository;
     private final UploadRepository uploadRepository;
@@ -65,42 +67,40 @@ public class DrmService {
     private final UserDeviceLogRepository userDeviceLogRepository;
 
     /**
-     * Tạo gói DRM cho tài liệu
+     * Tạo gói DRM cho tài liệu (mã hóa theo luồng, bộ nhớ cố định)
      * @param uploadId ID của tài liệu
-     * @param rawContent Nội dung gốc của tài liệu
-     * @return Nội dung được bảo vệ DRM
+     * @param source File gốc của tài liệu
+     * @param target File DRM đích
      */
-    public byte[] createDrmPackage(Long uploadId, byte[] rawContent) {
-        // 1. Tạo khóa mã hóa cho tài liệu
+    public void createDrmPackage(Long uploadId, Path source, Path target) {
+        encryptDrmPackage(source, target, createContentKey(uploadId));
+    }
+
+    /**
+     * Tạo và lưu khóa nội dung mới cho tài liệu
+     * @param uploadId ID của tài liệu
+     * @return Khóa nội dung (chưa mã hóa) để dùng cho {@link #encryptDrmPackage}
+     */
+    public String createContentKey(Long uploadId) {
         String contentKey = generateRandomKey();
-        
-        // 2. Lưu khóa vào cơ sở dữ liệu
+
         DrmKeyEntity keyEntity = new DrmKeyEntity();
         keyEntity.setUploadId(uploadId);
         keyEntity.setContentKey(encryptionUtil.encryptKey(contentKey));
         keyEntity.setCreatedAt(LocalDateTime.now());
         keyEntity.setActive(true);
         drmKeyRepository.save(keyEntity);
-        String fk =  encryptionUtil.encryptKey(contentKey);
-        String ck = encryptionUtil.decryptKey(fk);
-        System.out.println("contentKey"+contentKey);
-        System.out.println("ck"+ck);
-        System.out.println("fk"+fk);
-        // 3. Mã hóa nội dung với khóa này
-        byte[] encryptedContent = encryptionUtil.encryptContent(rawContent, contentKey);
-        //test decryted
-        byte[] decryptedContent = encryptionUtil.decryptContent(encryptedContent, contentKey);
-        System.out.println(contentKey);
-        System.out.println("decryptedContent"+decryptedContent.length);
-        // 4. Tạo header DRM chứa metadata
-        DrmHeader header = new DrmHeader();
-        header.setUploadId(uploadId);
-        header.setTimestamp(LocalDateTime.now());
-        header.setLicenseServerUrl("/api/drm/license");
-        
-        // 5. Đóng gói header và nội dung đã mã hóa
-        //return packagingDrmContent(header, encryptedContent);
-        return encryptedContent;
+        return contentKey;
+    }
+
+    /**
+     * Mã hóa file gốc thành gói DRM chia khối; không truy cập cơ sở dữ liệu nên có thể chạy song song
+     * @param source File gốc của tài liệu
+     * @param target File DRM đích
+     * @param contentKey Khóa nội dung
+     */
+    public void encryptDrmPackage(Path source, Path target, String contentKey) {
+        encryptionUtil.encryptFile(source, target, contentKey);
     }
 
 
@@ -149,19 +149,27 @@ public class DrmService {
      * @return Trạng thái quyền truy cập của người dùng
      */
     private boolean hasValidAccess(Long uploadId, String userId) throws Exception {
+        return !accessValidUntil(uploadId, userId).isBefore(LocalDateTime.now());// Người dùng có quyền truy cập hợp lệ
+    }
+
+    /**
+     * Thời điểm hết quyền truy cập của người dùng đối với tài liệu
+     * @return {@link LocalDateTime#MAX} nếu tài liệu công khai hoặc yêu cầu truy cập không có hạn
+     */
+    private LocalDateTime accessValidUntil(Long uploadId, String userId) {
         //VisibilityStatus = PUBLIC -> true
         UploadEntity uploadEntity = uploadRepository.findById(uploadId)
                 .orElseThrow(() -> new AppException(ErrorCode.RESOURCE_NOT_FOUND, "Document not found"));
         DigitalDocumentEntity digitalDocumentEntity = uploadEntity.getDigitalDocument();
         if(digitalDocumentEntity.getVisibilityStatus().equals(VisibilityStatus.PUBLIC))
-            return true;
+            return LocalDateTime.MAX;
         // Tìm yêu cầu truy cập của người dùng đối với tài liệu
         AccessRequestEntity request = accessRequestRepository
                 .findByDigitalIdAndRequesterIdAndStatus(digitalDocumentEntity.getDigitalDocumentId(), userId, AccessRequestStatus.APPROVED)
                 .orElseThrow(() -> new AppException(ErrorCode.ACCESS_DENIED, "You have not been granted access to this document"));
 
-        // Kiểm tra thời gian hết hạn của giấy phép truy cập
-        return request.getLicenseExpiry() == null || !request.getLicenseExpiry().isBefore(LocalDateTime.now());// Người dùng có quyền truy cập hợp lệ
+        // Thời gian hết hạn của giấy phép truy cập
+        return request.getLicenseExpiry() == null ? LocalDateTime.MAX : request.getLicenseExpiry();
     }
 
     /**
@@ -190,9 +198,20 @@ public class DrmService {
      * Hàm nội bộ thực hiện cấp giấy phép DRM
      */
     private DrmLicense issueLicenseInternal(Long uploadId, String deviceId, String publicKey, boolean isAndroid) throws Exception {
+        long start = System.nanoTime();
         String userId = authService.getCurrentUser().getUserId();
 
-        if (!hasValidAccess(uploadId, userId)) {
+        // Dùng lại license và phiên còn hiệu lực của cùng người dùng, tài liệu, thiết bị và khóa công khai
+        LicenseCache.LicenseKey cacheKey = new LicenseCache.LicenseKey(userId, uploadId, deviceId);
+        String keyFingerprint = LicenseCache.fingerprint(publicKey, isAndroid);
+        DrmLicense reused = reuseLicense(cacheKey, keyFingerprint);
+        if (reused != null) {
+            licenseCache.recordReuse(System.nanoTime() - start);
+            return reused;
+        }
+
+        LocalDateTime accessValidUntil = accessValidUntil(uploadId, userId);
+        if (accessValidUntil.isBefore(LocalDateTime.now())) {
             throw new AppException(ErrorCode.ACCESS_DENIED, "User has no access rights to this document");
         }
 
@@ -226,7 +245,15 @@ public class DrmService {
                 .sessionToken(UUID.randomUUID().toString())
                 .build();
 
-        drmSessionRepository.save(session);
+        session = drmSessionRepository.save(session);
+        heartbeatRegistry.register(session, uploadId);
+
+        LocalDateTime validUntil = accessValidUntil.isBefore(licenseEntity.getExpiryDate())
+                ? accessValidUntil : licenseEntity.getExpiryDate();
+        licenseCache.put(cacheKey, new LicenseCache.CachedLicense(licenseEntity.getId(), session.getId(),
+                session.getSessionToken(), licenseEntity.getExpiryDate(), licenseEntity.getEncryptedContentKey(),
+                keyFingerprint, validUntil));
+        licenseCache.recordIssue(System.nanoTime() - start);
 
         return DrmLicense.builder()
                 .licenseId(licenseEntity.getId())
@@ -236,6 +263,24 @@ public class DrmService {
                 .build();
     }
 
+    /**
+     * License đã cấp trong cache, sau khi mở lại phiên của nó; null nếu không có hoặc license không còn hợp lệ
+     */
+    private DrmLicense reuseLicense(LicenseCache.LicenseKey cacheKey, String keyFingerprint) {
+        LicenseCache.CachedLicense cached = licenseCache.lookup(cacheKey, keyFingerprint);
+        if (cached == null) {
+            return null;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        // Câu UPDATE chỉ khớp khi license chưa bị thu hồi và chưa hết hạn trong DB
+        if (drmSessionRepository.resumeSession(cached.getSessionId(), now) == 0) {
+            licenseCache.invalidate(cacheKey);
+            return null;
+        }
+        heartbeatRegistry.register(cached.getSessionToken(), cached.getSessionId(), cacheKey.getUploadId(), now);
+        return cached.toLicense();
+    }
+
     /**
      * Thu hồi quyền truy cập tài liệu
      * @param uploadId ID tài liệu
@@ -244,11 +289,14 @@ public class DrmService {
         // 1. Đánh dấu tất cả license của tài liệu là đã thu hồi
         drmLicenseRepository.revokeAllLicensesByUploadId(uploadId);
         
-        // 2. Vô hiệu hóa khóa hiện tại
+        // 2. Vô hiệu hóa khóa hiện tại và bỏ các khóa AES đã dẫn xuất từ nó khỏi cache
+        drmKeyRepository.findByUploadIdAndActive(uploadId, true).ifPresent(this::evictDerivedKeys);
         drmKeyRepository.deactivateKeysByUploadId(uploadId);
         
         // 3. Đánh dấu tất cả session đang hoạt động là không hợp lệ
         drmSessionRepository.deactivateSessionsByUploadId(uploadId);
+        heartbeatRegistry.revokeUpload(uploadId);
+        licenseCache.evictUpload(uploadId);
         
         // 4. Gửi thông báo đến các client đang mở tài liệu
         callbackService.notifyRevocation(uploadId);
@@ -261,25 +309,40 @@ public class DrmService {
      * @param sessionToken Token phiên
      */
     public void updateHeartbeat(String sessionToken) {
-        DrmSessionEntity session = drmSessionRepository.findBySessionToken(sessionToken)
-                .orElseThrow(() ->   new AppException(ErrorCode.RESOURCE_NOT_FOUND,"Session not found"));
-        
-        // Kiểm tra xem license có bị thu hồi không
-        DrmLicenseEntity license = drmLicenseRepository.findById(session.getLicenseId())
-                .orElseThrow(() -> new AppException(ErrorCode.RESOURCE_NOT_FOUND,"License not found"));
-        
-        if (license.isRevoked()) {
-            session.setActive(false);
-            drmSessionRepository.save(session);
-            throw new AppException(ErrorCode.FORBIDDEN,"License has been revoked");
-        }
-        
-        // Cập nhật thời gian heartbeat
-        session.setLastHeartbeat(LocalDateTime.now());
-        drmSessionRepository.save(session);
+        // Chỉ cập nhật sổ heartbeat trong bộ nhớ; ghi xuống DB theo lô định kỳ
+        heartbeatRegistry.beat(sessionToken);
+    }
+
+    /**
+     * Số liệu của sổ heartbeat (số phiên đang theo dõi, số lần ghi lô...)
+     */
+    public Map<String, Object> getHeartbeatStats() {
+        return heartbeatRegistry.snapshot();
     }
     
+    /**
+     * Số liệu của cache license (tỉ lệ dùng lại, thời gian cấp trung bình...)
+     */
+    public Map<String, Object> getLicenseCacheStats() {
+        return licenseCache.snapshot();
+    }
+
+    /**
+     * Số liệu của cache khóa dẫn xuất (tỉ lệ trúng, số lần chạy PBKDF2...)
+     */
+    public Map<String, Object> getKeyCacheStats() {
+        return encryptionUtil.derivedKeyStats();
+    }
+
     // Các phương thức phụ trợ
+    private void evictDerivedKeys(DrmKeyEntity keyEntity) {
+        try {
+            encryptionUtil.invalidateDerivedKeys(encryptionUtil.decryptKey(keyEntity.getContentKey()));
+        } catch (RuntimeException e) {
+            log.warn("Could not evict derived keys for DRM key {}", keyEntity.getId(), e);
+        }
+    }
+
     private String generateRandomKey() {
         return UUID.randomUUID().toString();
     }
@@ -405,6 +468,39 @@ public class DrmService {
         }
     }
 
+    /**
+     * Mở nội dung DRM đã giải mã (theo đoạn) cho người dùng hiện tại, dùng cho phát/xem theo Range
+     * @param uploadId ID tài liệu
+     * @return Nội dung cho phép đọc bản rõ của từng đoạn byte
+     */
+    public DecryptedDrmContent openDecryptedContent(Long uploadId) {
+        String userId = authService.getCurrentUser().getUserId();
+        boolean hasAccess;
+        try {
+            hasAccess = hasValidAccess(uploadId, userId);
+        } catch (AppException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new AppException(ErrorCode.ACCESS_DENIED, "Không thể kiểm tra quyền truy cập");
+        }
+        if (!hasAccess) {
+            throw new AppException(ErrorCode.ACCESS_DENIED, "Người dùng không có quyền truy cập tài liệu này");
+        }
+
+        UploadEntity upload = uploadRepository.findById(uploadId)
+                .orElseThrow(() -> new AppException(ErrorCode.RESOURCE_NOT_FOUND, "Tài liệu không tồn tại"));
+        DrmKeyEntity keyEntity = drmKeyRepository.findByUploadIdAndActive(uploadId, true)
+                .orElseThrow(() -> new AppException(ErrorCode.RESOURCE_NOT_FOUND, "DRM key not found or revoked"));
+
+        Path path = Paths.get(upload.getFilePath());
+        try {
+            return new DecryptedDrmContent(encryptionUtil, path,
+                    encryptionUtil.decryptKey(keyEntity.getContentKey()), encryptionUtil.plainLength(path));
+        } catch (IOException e) {
+            throw new AppException(ErrorCode.RESOURCE_NOT_FOUND, "Không tìm thấy tài liệu đã mã hóa");
+        }
+    }
+
     /**
      * Tạo key mới cho tài liệu sau khi bị revoke
      * @param uploadId ID của tài liệu
@@ -420,20 +516,17 @@ public class DrmService {
         // 2. Lấy thông tin tài liệu
         UploadEntity upload = uploadRepository.findById(uploadId)
                 .orElseThrow(() -> new AppException(ErrorCode.RESOURCE_NOT_FOUND, "Không tìm thấy tài liệu"));
-        
-        // 3. Đọc nội dung gốc từ file đã mã hóa
         Path originalFilePath = Paths.get(upload.getOriginalFilePath());
-        byte[] rawContent;
-        try {
-            rawContent = Files.readAllBytes(originalFilePath);
-        } catch (IOException e) {
+        if (!Files.isReadable(originalFilePath)) {
             throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Không thể đọc nội dung tài liệu");
         }
-        
-        // 4. Tạo khóa mã hóa mới cho tài liệu
+
+        // 3. Bỏ khóa dẫn xuất còn lưu trong cache của các khóa cũ, rồi tạo khóa mã hóa mới cho tài liệu
+        drmKeyRepository.findByUploadId(uploadId).forEach(this::evictDerivedKeys);
+        licenseCache.evictUpload(uploadId);
         String newContentKey = generateRandomKey();
         
-        // 5. Lưu khóa mới vào cơ sở dữ liệu
+        // 4. Lưu khóa mới vào cơ sở dữ liệu
         DrmKeyEntity keyEntity = new DrmKeyEntity();
         keyEntity.setUploadId(uploadId);
         keyEntity.setContentKey(encryptionUtil.encryptKey(newContentKey));
@@ -441,10 +534,7 @@ public class DrmService {
         keyEntity.setActive(true);
         drmKeyRepository.save(keyEntity);
         
-        // 6. Mã hóa nội dung với khóa mới
-        byte[] encryptedContent = encryptionUtil.encryptContent(rawContent, newContentKey);
-        
-        // 7. Tạo file DRM mới
+        // 5. Tạo file DRM mới
         Path drmPath = Paths.get("uploads/documents/drm");
         try {
             Files.createDirectories(drmPath);
@@ -455,8 +545,8 @@ public class DrmService {
         Path drmFilePath = drmPath.resolve(drmFileName);
         
         try {
-            // Lưu file DRM mới
-            Files.write(drmFilePath, encryptedContent);
+            // 6. Mã hóa nội dung gốc với khóa mới thành file DRM mới (theo luồng)
+            encryptionUtil.encryptFile(originalFilePath, drmFilePath, newContentKey);
             
             // Xóa file DRM cũ nếu tồn tại
             Path oldDrmPath = Paths.get(upload.getFilePath());
@@ -468,7 +558,7 @@ public class DrmService {
             upload.setFilePath(drmFilePath.toString());
             uploadRepository.save(upload);
             
-        } catch (IOException e) {
+        } catch (IOException | RuntimeException e) {
             // Nếu có lỗi, xóa key mới đã tạo
             drmKeyRepository.delete(keyEntity);
             throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Không thể tạo file DRM mới");
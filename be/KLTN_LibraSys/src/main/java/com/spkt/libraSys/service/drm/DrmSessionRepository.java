@@ -3,10 +3,12 @@ package com.spkt.libraSys.service.drm;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,4 +29,32 @@ public interface DrmSessionRepository extends JpaRepository<DrmSessionEntity, Lo
     Optional<DrmSessionEntity> findByLicenseIdAndDeviceIdAndActiveIsTrue(Long licenseId, String deviceId);
 
     List<DrmSessionEntity> findByActive(boolean active);
+
+    @Query("SELECT s.id AS sessionId, s.licenseId AS licenseId, l.uploadId AS uploadId, l.revoked AS revoked, " +
+            "s.lastHeartbeat AS lastHeartbeat " +
+            "FROM DrmSessionEntity s LEFT JOIN DrmLicenseEntity l ON l.id = s.licenseId " +
+            "WHERE s.sessionToken = :sessionToken")
+    Optional<SessionHeartbeatRow> findHeartbeatRow(@Param("sessionToken") String sessionToken);
+
+    // Trong các phiên cho trước, những phiên có license đã bị thu hồi
+    @Query("SELECT s.id FROM DrmSessionEntity s, DrmLicenseEntity l " +
+            "WHERE l.id = s.licenseId AND l.revoked = true AND s.id IN :ids")
+    List<Long> findRevokedSessionIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE DrmSessionEntity s SET s.active = false WHERE s.id = :id")
+    int deactivateById(@Param("id") Long id);
+
+    // Mở lại phiên của license được dùng lại; không làm gì (trả về 0) nếu license đã bị thu hồi hoặc hết hạn
+    @Modifying
+    @Transactional
+    @Query("UPDATE DrmSessionEntity s SET s.active = true, s.lastHeartbeat = :now WHERE s.id = :id " +
+            "AND s.licenseId IN (SELECT l.id FROM DrmLicenseEntity l WHERE l.revoked = false AND l.expiryDate > :now)")
+    int resumeSession(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE DrmSessionEntity s SET s.active = false WHERE s.active = true AND s.lastHeartbeat < :threshold")
+    int deactivateIdleSessions(@Param("threshold") LocalDateTime threshold);
 }
\ No newline at end of file
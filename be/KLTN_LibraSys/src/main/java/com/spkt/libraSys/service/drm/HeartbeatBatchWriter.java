@@ -0,0 +1,44 @@
+package com.spkt.libraSys.service.drm;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ghi thời điểm heartbeat của nhiều phiên bằng một lô JDBC UPDATE, không qua persistence context
+ */
+@Component
+@RequiredArgsConstructor
+public class HeartbeatBatchWriter {
+    private static final String UPDATE_SQL = "UPDATE drm_sessions SET last_heartbeat = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Cập nhật last_heartbeat cho các phiên trong một lô
+     * @param heartbeats ID phiên -> thời điểm heartbeat mới nhất
+     * @return Số dòng đã cập nhật
+     */
+    @Transactional
+    public int updateAll(Map<Long, LocalDateTime> heartbeats) {
+        if (heartbeats.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> args = new ArrayList<>(heartbeats.size());
+        heartbeats.forEach((sessionId, heartbeat) -> args.add(new Object[]{Timestamp.valueOf(heartbeat), sessionId}));
+        int updated = 0;
+        for (int count : jdbcTemplate.batchUpdate(UPDATE_SQL, args)) {
+            // SUCCESS_NO_INFO (-2) khi driver gộp lô thành một câu lệnh
+            updated += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+        }
+        return updated;
+    }
+}
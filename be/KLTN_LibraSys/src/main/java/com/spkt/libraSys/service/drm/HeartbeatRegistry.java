@@ -0,0 +1,236 @@
+package com.spkt.libraSys.service.drm;
+
+import com.spkt.libraSys.exception.AppException;
+import com.spkt.libraSys.exception.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sổ heartbeat trong bộ nhớ: sessionToken -> thời điểm heartbeat mới nhất và trạng thái thu hồi của license.
+ * <p>
+ * Heartbeat chỉ cập nhật bộ nhớ; các phiên có heartbeat mới được ghi xuống drm_sessions theo lô định kỳ,
+ * và phiên quá hạn được vô hiệu hóa bằng một câu UPDATE duy nhất. Chỉ lần đầu gặp một token mới phải đọc DB.
+ * Thu hồi vẫn có hiệu lực ngay: {@link #revokeUpload} đánh dấu các phiên của tài liệu trong sổ, và mỗi lần ghi lô
+ * đối chiếu lại license trong DB để bắt cả thu hồi không đi qua dịch vụ này.
+ */
+@Component
+@Slf4j
+public class HeartbeatRegistry {
+
+    private final DrmSessionRepository drmSessionRepository;
+    private final HeartbeatBatchWriter batchWriter;
+    private final int batchSize;
+    private final long sessionTimeoutMinutes;
+    private final Clock clock;
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    // Tăng mỗi lần thu hồi, để phiên đang được nạp từ DB giữa lúc thu hồi không bị lọt vào sổ với trạng thái cũ
+    private final AtomicLong revocationEpoch = new AtomicLong();
+    private final LongAdder heartbeats = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder rowsFlushed = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private volatile double lastFlushMillis;
+
+    @Autowired
+    public HeartbeatRegistry(DrmSessionRepository drmSessionRepository,
+                             HeartbeatBatchWriter batchWriter,
+                             @Value("${app.drm.heartbeat.batch-size:500}") int batchSize,
+                             @Value("${app.drm.heartbeat.session-timeout-minutes:3}") long sessionTimeoutMinutes) {
+        this(drmSessionRepository, batchWriter, batchSize, sessionTimeoutMinutes, Clock.systemDefaultZone());
+    }
+
+    HeartbeatRegistry(DrmSessionRepository drmSessionRepository, HeartbeatBatchWriter batchWriter,
+                      int batchSize, long sessionTimeoutMinutes, Clock clock) {
+        this.drmSessionRepository = drmSessionRepository;
+        this.batchWriter = batchWriter;
+        this.batchSize = Math.max(batchSize, 1);
+        this.sessionTimeoutMinutes = sessionTimeoutMinutes;
+        this.clock = clock;
+    }
+
+    /**
+     * Ghi nhận heartbeat của một phiên
+     * @param sessionToken Token phiên
+     * @throws AppException RESOURCE_NOT_FOUND nếu không có phiên/license, FORBIDDEN nếu license đã bị thu hồi
+     */
+    public void beat(String sessionToken) {
+        SessionState state = sessions.get(sessionToken);
+        if (state == null) {
+            state = load(sessionToken);
+        }
+        if (state.revoked) {
+            rejected.increment();
+            throw new AppException(ErrorCode.FORBIDDEN, "License has been revoked");
+        }
+        heartbeats.increment();
+        state.lastHeartbeat = LocalDateTime.now(clock);
+        state.dirty = true;
+    }
+
+    /**
+     * Đưa phiên vừa tạo vào sổ để heartbeat đầu tiên không phải đọc DB
+     */
+    public void register(DrmSessionEntity session, Long uploadId) {
+        register(session.getSessionToken(), session.getId(), uploadId, session.getLastHeartbeat());
+    }
+
+    /**
+     * Đưa phiên vào sổ (phiên mới hoặc phiên được mở lại khi dùng lại license), thay trạng thái cũ nếu có
+     */
+    public void register(String sessionToken, Long sessionId, Long uploadId, LocalDateTime lastHeartbeat) {
+        sessions.put(sessionToken, new SessionState(sessionId, uploadId, lastHeartbeat));
+    }
+
+    /**
+     * Đánh dấu thu hồi mọi phiên của tài liệu; gọi sau khi license đã được thu hồi trong DB
+     */
+    public void revokeUpload(Long uploadId) {
+        revocationEpoch.incrementAndGet();
+        sessions.values().forEach(state -> {
+            if (uploadId.equals(state.uploadId)) {
+                state.revoked = true;
+            }
+        });
+    }
+
+    /**
+     * Ghi heartbeat mới của các phiên xuống DB theo lô, rồi đối chiếu trạng thái thu hồi của các phiên đó
+     * @return Số phiên đã ghi
+     */
+    @Scheduled(fixedDelayString = "${app.drm.heartbeat.flush-interval-ms:15000}",
+            initialDelayString = "${app.drm.heartbeat.flush-interval-ms:15000}")
+    public synchronized int flush() {
+        long start = System.nanoTime();
+        Map<Long, SessionState> pending = new LinkedHashMap<>();
+        for (SessionState state : sessions.values()) {
+            if (state.dirty && !state.revoked) {
+                // Bỏ cờ trước khi đọc thời điểm: heartbeat đến sau đó sẽ đặt lại cờ và được ghi ở lần sau
+                state.dirty = false;
+                pending.put(state.sessionId, state);
+            }
+        }
+        int written = 0;
+        List<Long> ids = new ArrayList<>(pending.keySet());
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            Map<Long, LocalDateTime> batch = new LinkedHashMap<>();
+            chunk.forEach(id -> batch.put(id, pending.get(id).lastHeartbeat));
+            try {
+                written += batchWriter.updateAll(batch);
+                markRevoked(drmSessionRepository.findRevokedSessionIds(chunk), pending);
+            } catch (RuntimeException e) {
+                flushFailures.increment();
+                chunk.forEach(id -> pending.get(id).dirty = true);
+                log.warn("Không ghi được heartbeat của {} phiên, sẽ thử lại: {}", chunk.size(), e.getMessage());
+            }
+        }
+        if (!pending.isEmpty()) {
+            flushes.increment();
+            rowsFlushed.add(written);
+            lastFlushMillis = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        return written;
+    }
+
+    /**
+     * Vô hiệu hóa các phiên không có heartbeat trong khoảng timeout bằng một câu UPDATE, và bỏ chúng khỏi sổ
+     * @return Số phiên bị vô hiệu hóa
+     */
+    public int expireIdleSessions() {
+        flush();
+        LocalDateTime threshold = LocalDateTime.now(clock).minusMinutes(sessionTimeoutMinutes);
+        int deactivated = drmSessionRepository.deactivateIdleSessions(threshold);
+        sessions.values().removeIf(state -> (state.revoked || !state.dirty) && state.lastHeartbeat.isBefore(threshold));
+        expired.add(deactivated);
+        if (deactivated > 0) {
+            log.info("{} DRM sessions marked as inactive due to timeout", deactivated);
+        }
+        return deactivated;
+    }
+
+    /**
+     * Số liệu sổ heartbeat: số phiên đang theo dõi, số lần phải đọc DB, số lần ghi lô và thời gian ghi gần nhất
+     */
+    public Map<String, Object> snapshot() {
+        long dirty = sessions.values().stream().filter(state -> state.dirty).count();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("trackedSessions", sessions.size());
+        snapshot.put("pendingWrites", dirty);
+        snapshot.put("heartbeats", heartbeats.sum());
+        snapshot.put("databaseLoads", loads.sum());
+        snapshot.put("revokedRejections", rejected.sum());
+        snapshot.put("flushes", flushes.sum());
+        snapshot.put("rowsFlushed", rowsFlushed.sum());
+        snapshot.put("flushFailures", flushFailures.sum());
+        snapshot.put("lastFlushMillis", lastFlushMillis);
+        snapshot.put("expiredSessions", expired.sum());
+        return snapshot;
+    }
+
+    private SessionState load(String sessionToken) {
+        while (true) {
+            long epoch = revocationEpoch.get();
+            loads.increment();
+            SessionHeartbeatRow row = drmSessionRepository.findHeartbeatRow(sessionToken)
+                    .orElseThrow(() -> new AppException(ErrorCode.RESOURCE_NOT_FOUND, "Session not found"));
+            if (row.getLicenseId() == null || row.getRevoked() == null) {
+                throw new AppException(ErrorCode.RESOURCE_NOT_FOUND, "License not found");
+            }
+            if (row.getRevoked()) {
+                drmSessionRepository.deactivateById(row.getSessionId());
+                rejected.increment();
+                throw new AppException(ErrorCode.FORBIDDEN, "License has been revoked");
+            }
+            SessionState loaded = new SessionState(row.getSessionId(), row.getUploadId(), row.getLastHeartbeat());
+            SessionState existing = sessions.putIfAbsent(sessionToken, loaded);
+            if (existing != null) {
+                return existing;
+            }
+            if (revocationEpoch.get() == epoch) {
+                return loaded;
+            }
+            // Có thu hồi trong lúc đọc DB: bỏ kết quả vừa nạp và đọc lại trạng thái license
+            sessions.remove(sessionToken, loaded);
+        }
+    }
+
+    private static void markRevoked(List<Long> revokedIds, Map<Long, SessionState> pending) {
+        revokedIds.forEach(id -> {
+            SessionState state = pending.get(id);
+            if (state != null) {
+                state.revoked = true;
+            }
+        });
+    }
+
+    private static final class SessionState {
+        private final Long sessionId;
+        private final Long uploadId;
+        private volatile LocalDateTime lastHeartbeat;
+        private volatile boolean dirty;
+        private volatile boolean revoked;
+
+        private SessionState(Long sessionId, Long uploadId, LocalDateTime lastHeartbeat) {
+            this.sessionId = sessionId;
+            this.uploadId = uploadId;
+            this.lastHeartbeat = lastHeartbeat;
+        }
+    }
+}
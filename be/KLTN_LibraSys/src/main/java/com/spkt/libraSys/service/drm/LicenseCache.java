@@ -0,0 +1,222 @@
+package com.spkt.libraSys.service.drm;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.spkt.libraSys.service.user.UserAccessChangedEvent;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache license đã cấp theo (userId, uploadId, deviceId), để người đọc mở lại cùng tài liệu trên cùng thiết bị
+ * được dùng lại license và phiên cũ thay vì kiểm tra quyền, giải mã khóa, bọc RSA và tạo hai bản ghi mới.
+ * <p>
+ * Mỗi mục chỉ sống tới thời điểm sớm hơn giữa hạn license (24 giờ) và hạn của yêu cầu truy cập, và không được dùng
+ * khi còn dưới {@code min-remaining-minutes}. License chỉ được dùng lại cho đúng khóa công khai đã bọc khóa nội dung.
+ * Mục bị xóa ngay khi tài liệu bị thu hồi hoặc đổi khóa, và khi quyền của người dùng thay đổi
+ * ({@link UserAccessChangedEvent}). Các thay đổi quyền khác (từ chối yêu cầu, đổi chế độ hiển thị) không làm
+ * license đã cấp mất hiệu lực, nên việc trả lại đúng license đó không mở rộng quyền đã cấp.
+ */
+@Component
+public class LicenseCache {
+
+    private final Cache<LicenseKey, CachedLicense> licenses;
+    private final Duration minRemaining;
+    private final Clock clock;
+    private final LongAdder reuses = new LongAdder();
+    private final LongAdder reuseNanos = new LongAdder();
+    private final LongAdder issues = new LongAdder();
+    private final LongAdder issueNanos = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public LicenseCache(@Value("${app.drm.license-cache.max-size:10000}") long maxSize,
+                        @Value("${app.drm.license-cache.min-remaining-minutes:5}") long minRemainingMinutes) {
+        this(maxSize, minRemainingMinutes, Clock.systemDefaultZone());
+    }
+
+    LicenseCache(long maxSize, long minRemainingMinutes, Clock clock) {
+        this.minRemaining = Duration.ofMinutes(minRemainingMinutes);
+        this.clock = clock;
+        this.licenses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<LicenseKey, CachedLicense>() {
+                    @Override
+                    public long expireAfterCreate(LicenseKey key, CachedLicense value, long currentTime) {
+                        return Math.max(Duration.between(LocalDateTime.now(clock), value.validUntil).toNanos(), 0);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(LicenseKey key, CachedLicense value, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(LicenseKey key, CachedLicense value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * License còn dùng được cho khóa và khóa công khai cho trước, hoặc null
+     * @param keyFingerprint Dấu vân tay của khóa công khai ({@link #fingerprint})
+     */
+    public CachedLicense lookup(LicenseKey key, String keyFingerprint) {
+        CachedLicense cached = licenses.getIfPresent(key);
+        if (cached == null || !cached.keyFingerprint.equals(keyFingerprint)) {
+            return null;
+        }
+        if (!cached.validUntil.isAfter(LocalDateTime.now(clock).plus(minRemaining))) {
+            licenses.asMap().remove(key, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    public void put(LicenseKey key, CachedLicense license) {
+        licenses.put(key, license);
+    }
+
+    public void invalidate(LicenseKey key) {
+        licenses.invalidate(key);
+        invalidations.increment();
+    }
+
+    /**
+     * Xóa mọi license đã cache của một tài liệu (thu hồi, đổi khóa)
+     */
+    public void evictUpload(Long uploadId) {
+        if (licenses.asMap().keySet().removeIf(key -> key.uploadId.equals(uploadId))) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Xóa mọi license đã cache của những người dùng cho trước
+     */
+    public void evictUsers(Collection<String> userIds) {
+        Set<String> ids = new HashSet<>(userIds);
+        if (licenses.asMap().keySet().removeIf(key -> ids.contains(key.userId))) {
+            invalidations.increment();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserAccessChanged(UserAccessChangedEvent event) {
+        evictUsers(event.getUserIds());
+    }
+
+    public void recordReuse(long nanos) {
+        reuses.increment();
+        reuseNanos.add(nanos);
+    }
+
+    public void recordIssue(long nanos) {
+        issues.increment();
+        issueNanos.add(nanos);
+    }
+
+    /**
+     * Số liệu cache license: tỉ lệ dùng lại và thời gian cấp trung bình khi dùng lại và khi cấp mới
+     */
+    public Map<String, Object> snapshot() {
+        licenses.cleanUp();
+        long reuseCount = reuses.sum();
+        long issueCount = issues.sum();
+        long total = reuseCount + issueCount;
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("size", licenses.estimatedSize());
+        snapshot.put("reuses", reuseCount);
+        snapshot.put("issues", issueCount);
+        snapshot.put("reuseRate", total == 0 ? 0.0 : (double) reuseCount / total);
+        snapshot.put("averageReuseMillis", reuseCount == 0 ? 0.0 : reuseNanos.sum() / 1_000_000.0 / reuseCount);
+        snapshot.put("averageIssueMillis", issueCount == 0 ? 0.0 : issueNanos.sum() / 1_000_000.0 / issueCount);
+        snapshot.put("invalidations", invalidations.sum());
+        snapshot.put("evictionCount", licenses.stats().evictionCount());
+        return snapshot;
+    }
+
+    /**
+     * Dấu vân tay của khóa công khai đã dùng để bọc khóa nội dung (Android bọc theo cách khác)
+     */
+    public static String fingerprint(String publicKey, boolean android) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((android + "|" + publicKey).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    public static final class LicenseKey {
+        private final String userId;
+        private final Long uploadId;
+        private final String deviceId;
+
+        public LicenseKey(String userId, Long uploadId, String deviceId) {
+            this.userId = userId;
+            this.uploadId = uploadId;
+            this.deviceId = deviceId;
+        }
+    }
+
+    /**
+     * License và phiên đã cấp, kèm khóa công khai đã dùng và thời điểm hết hiệu lực của mục cache
+     */
+    @Getter
+    public static final class CachedLicense {
+        private final Long licenseId;
+        private final Long sessionId;
+        private final String sessionToken;
+        private final LocalDateTime expiryDate;
+        private final String encryptedContentKey;
+        private final String keyFingerprint;
+        private final LocalDateTime validUntil;
+
+        public CachedLicense(Long licenseId, Long sessionId, String sessionToken, LocalDateTime expiryDate,
+                             String encryptedContentKey, String keyFingerprint, LocalDateTime validUntil) {
+            this.licenseId = licenseId;
+            this.sessionId = sessionId;
+            this.sessionToken = sessionToken;
+            this.expiryDate = expiryDate;
+            this.encryptedContentKey = encryptedContentKey;
+            this.keyFingerprint = keyFingerprint;
+            this.validUntil = validUntil;
+        }
+
+        public DrmLicense toLicense() {
+            return DrmLicense.builder()
+                    .licenseId(licenseId)
+                    .sessionToken(sessionToken)
+                    .expiryDate(expiryDate)
+                    .encryptedContentKey(encryptedContentKey)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.spkt.libraSys.service.drm;
+
+import java.time.LocalDateTime;
+
+/**
+ * Thông tin cần cho heartbeat của một phiên: phiên, license và trạng thái thu hồi (null nếu không có license)
+ */
+public interface SessionHeartbeatRow {
+    Long getSessionId();
+
+    Long getLicenseId();
+
+    Long getUploadId();
+
+    Boolean getRevoked();
+
+    LocalDateTime getLastHeartbeat();
+}
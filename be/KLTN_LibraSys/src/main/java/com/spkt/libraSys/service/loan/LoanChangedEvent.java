@@ -0,0 +1,67 @@
+package com.spkt.libraSys.service.loan;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Event published whenever a loan changes state (created, borrowed, returned, cancelled, fined or paid).
+ * Listeners such as the dashboard snapshot use it to know their aggregates are out of date,
+ * and the loan statistics rollup applies {@link #getCount()} and {@link #getAmount()}
+ * to the time bucket of {@link #getOccurredAt()}.
+ */
+@Getter
+@AllArgsConstructor
+public class LoanChangedEvent {
+    private final long loanId;
+    private final Kind kind;
+    private final LocalDateTime occurredAt;
+    // Number of new occurrences to count (0 when a fine is only re-assessed)
+    private final int count;
+    // Fine amount added (FINED) or paid (PAID)
+    private final double amount;
+
+    public static LoanChangedEvent created(LoanEntity loan) {
+        return new LoanChangedEvent(loan.getTransactionId(), Kind.CREATED, LocalDateTime.now(), 1, 0);
+    }
+
+    public static LoanChangedEvent borrowed(LoanEntity loan) {
+        return new LoanChangedEvent(loan.getTransactionId(), Kind.BORROWED, loan.getLoanDate(), 1, 0);
+    }
+
+    public static LoanChangedEvent returned(LoanEntity loan) {
+        return new LoanChangedEvent(loan.getTransactionId(), Kind.RETURNED, loan.getReturnDate(), 1, 0);
+    }
+
+    public static LoanChangedEvent cancelled(LoanEntity loan) {
+        return cancelled(loan.getTransactionId(), LocalDateTime.now());
+    }
+
+    public static LoanChangedEvent cancelled(long loanId, LocalDateTime cancelledAt) {
+        return new LoanChangedEvent(loanId, Kind.CANCELLED, cancelledAt, 1, 0);
+    }
+
+    /**
+     * A fine was set on the loan. Fines of returned loans belong to the return date.
+     * @param previousFine Fine amount before this assessment
+     */
+    public static LoanChangedEvent fined(LoanEntity loan, double previousFine) {
+        LocalDateTime at = loan.getReturnDate() != null ? loan.getReturnDate() : LocalDateTime.now();
+        return new LoanChangedEvent(loan.getTransactionId(), Kind.FINED, at,
+                previousFine > 0 ? 0 : 1, loan.getFineAmount() - previousFine);
+    }
+
+    public static LoanChangedEvent paid(LoanEntity loan) {
+        return new LoanChangedEvent(loan.getTransactionId(), Kind.PAID, loan.getPaidAt(), 1, loan.getFineAmount());
+    }
+
+    public enum Kind {
+        CREATED,
+        BORROWED,
+        RETURNED,
+        CANCELLED,
+        FINED,
+        PAID
+    }
+}
@@ -1,6 +1,7 @@
 package com.spkt.libraSys.service.loan;
 
 import com.spkt.libraSys.exception.ApiResponse;
+import com.spkt.libraSys.scheduler.JobRunMetrics;
 import com.spkt.libraSys.service.PageDTO;
 import jakarta.validation.Valid;
 import lombok.AccessLevel;
@@ -15,6 +16,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * Controller class handling book loan transaction requests.
  * Provides endpoints for creating, updating, retrieving, and managing book loan transactions.
@@ -26,6 +29,7 @@ import org.springframework.web.bind.annotation.*;
 public class LoanController {
 
     LoanService loanService;
+    LoanMaintenanceJobs loanMaintenanceJobs;
 
     /**
      * Creates a new loan transaction.
@@ -191,4 +195,18 @@ public class LoanController {
 
         return ResponseEntity.ok(apiResponse);
     }
+
+    /**
+     * Retrieves duration and row counts of the last run of each nightly loan job.
+     * Requires ADMIN role.
+     * @return ResponseEntity containing the metrics of each job
+     */
+    @GetMapping("/jobs")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<JobRunMetrics>>> getMaintenanceJobRuns() {
+        return ResponseEntity.ok(ApiResponse.<List<JobRunMetrics>>builder()
+                .message("Lấy thống kê tác vụ định kỳ thành công")
+                .data(loanMaintenanceJobs.getLastRuns())
+                .build());
+    }
 }
@@ -0,0 +1,19 @@
+package com.spkt.libraSys.service.loan;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Loan row read by the nightly loan jobs, with the user and document columns they need
+ * joined in the same query instead of loaded lazily per loan.
+ */
+public interface LoanJobRow {
+    Long getTransactionId();
+    String getUserId();
+    String getUsername();
+    Long getPhysicalDocId();
+    Long getDocumentId();
+    String getDocumentName();
+    LocalDateTime getLoanDate();
+    LocalDate getDueDate();
+}
@@ -0,0 +1,242 @@
+package com.spkt.libraSys.service.loan;
+
+import com.spkt.libraSys.scheduler.ChunkedJob;
+import com.spkt.libraSys.scheduler.ChunkedJobRunner;
+import com.spkt.libraSys.scheduler.JobRunMetrics;
+import com.spkt.libraSys.service.document.PhysicalDocument.PhysicalDocumentRepository;
+import com.spkt.libraSys.service.email.EmailService;
+import com.spkt.libraSys.service.notification.NotificationEntity;
+import com.spkt.libraSys.service.notification.NotificationFactory;
+import com.spkt.libraSys.service.notification.NotificationFanoutService;
+import com.spkt.libraSys.service.notification.NotificationType;
+import com.spkt.libraSys.service.user.UserAccessChangedEvent;
+import com.spkt.libraSys.service.user.UserEntity;
+import com.spkt.libraSys.service.user.UserRepository;
+import com.spkt.libraSys.service.webSocket.WebSocketService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Nightly loan maintenance jobs, run chunk by chunk through {@link ChunkedJobRunner}.
+ * Each chunk is read with one joined projection query and updated with bulk UPDATE statements;
+ * notifications, WebSocket updates and emails are sent only after the chunk has committed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LoanMaintenanceJobs {
+    static final String CANCEL_RESERVATIONS = "autoCancelExpiredReservations";
+    static final String NOTIFY_NEAR_DUE = "notifyUsersNearDueDate";
+    static final String LOCK_OVERDUE_USERS = "blockUsersWithReturnOverdue30Days";
+    static final int NOTIFICATION_DAYS_BEFORE_DUE = 3;
+    static final int LOCK_AFTER_OVERDUE_DAYS = 30;
+    static final String LOCK_REASON = "Khóa tài khoản do quá hạn trả sách hoặc nợ phí quá 30 ngày";
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
+
+    private final ChunkedJobRunner jobRunner;
+    private final LoanRepository loanRepository;
+    private final PhysicalDocumentRepository physicalDocumentRepository;
+    private final UserRepository userRepository;
+    private final NotificationFactory notificationFactory;
+    private final NotificationFanoutService notificationFanoutService;
+    private final WebSocketService webSocketService;
+    private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Cancel RESERVED loans made before today, release the reserved copies and the users' borrow slots.
+     * The chunk's loans are locked before the update, and only the ones still RESERVED are cancelled and notified
+     */
+    public JobRunMetrics cancelExpiredReservations() {
+        LocalDateTime reservedBefore = LocalDate.now().atStartOfDay();
+        return jobRunner.run(CANCEL_RESERVATIONS, new LoanJob() {
+            // Rows of the current chunk that were actually cancelled, for afterCommit
+            private List<LoanJobRow> cancelledRows = List.of();
+
+            @Override
+            public List<LoanJobRow> read(Long after, int limit) {
+                return loanRepository.findReservationsAfter(LoanStatus.RESERVED, reservedBefore,
+                        after == null ? 0 : after, PageRequest.of(0, limit));
+            }
+
+            @Override
+            public int process(List<LoanJobRow> rows) {
+                LocalDateTime now = LocalDateTime.now();
+                List<Long> ids = rows.stream().map(LoanJobRow::getTransactionId).toList();
+                // A reservation borrowed or cancelled since the read is left alone: no counters, event or notice
+                Set<Long> stillReserved = new HashSet<>(loanRepository.lockIdsByStatus(ids, LoanStatus.RESERVED));
+                cancelledRows = rows.stream().filter(row -> stillReserved.contains(row.getTransactionId())).toList();
+                if (cancelledRows.size() != rows.size()) {
+                    log.warn("Skipping {} of {} reservations that changed status concurrently",
+                            rows.size() - cancelledRows.size(), rows.size());
+                }
+                if (cancelledRows.isEmpty()) {
+                    return 0;
+                }
+                List<Long> cancelledIds = cancelledRows.stream().map(LoanJobRow::getTransactionId).toList();
+                int cancelled = loanRepository.updateStatusByIds(cancelledIds, LoanStatus.RESERVED,
+                        LoanStatus.CANCELLED_AUTO, now);
+                decrementGrouped(cancelledRows, LoanJobRow::getPhysicalDocId, physicalDocumentRepository::decrementUnavailableCount);
+                decrementGrouped(cancelledRows, LoanJobRow::getUserId, userRepository::decrementCurrentBorrowedCount);
+                // Listeners of this event run after the chunk commits
+                cancelledIds.forEach(id -> eventPublisher.publishEvent(LoanChangedEvent.cancelled(id, now)));
+                return cancelled;
+            }
+
+            @Override
+            public int afterCommit(List<LoanJobRow> rows) {
+                List<NotificationEntity> notifications = new ArrayList<>(cancelledRows.size());
+                for (LoanJobRow row : cancelledRows) {
+                    notifications.add(notificationFactory.createNotification(user(row.getUserId(), row.getUsername()),
+                            NotificationType.LOAN_AUTO_CANCAL, Map.of("bookName", row.getDocumentName()),
+                            String.valueOf(row.getTransactionId()), "LOAN"));
+                    webSocketService.sendUpdateStatusLoan(row.getUserId(), toResponse(row, LoanStatus.CANCELLED_AUTO));
+                }
+                return notifications.isEmpty() ? 0 : notificationFanoutService.dispatch(notifications);
+            }
+        });
+    }
+
+    /**
+     * Remind users of BORROWED loans due within the next {@link #NOTIFICATION_DAYS_BEFORE_DUE} days
+     */
+    public JobRunMetrics notifyNearDueDate() {
+        LocalDate today = LocalDate.now();
+        LocalDate threshold = today.plusDays(NOTIFICATION_DAYS_BEFORE_DUE);
+        return jobRunner.run(NOTIFY_NEAR_DUE, new LoanJob() {
+            @Override
+            public List<LoanJobRow> read(Long after, int limit) {
+                return loanRepository.findDueBetweenAfter(LoanStatus.BORROWED, today, threshold,
+                        after == null ? 0 : after, PageRequest.of(0, limit));
+            }
+
+            @Override
+            public int process(List<LoanJobRow> rows) {
+                return 0;
+            }
+
+            @Override
+            public int afterCommit(List<LoanJobRow> rows) {
+                List<NotificationEntity> notifications = new ArrayList<>(rows.size());
+                for (LoanJobRow row : rows) {
+                    notifications.add(notificationFactory.createNotification(user(row.getUserId(), row.getUsername()),
+                            NotificationType.LOAN_NEAR_DUE,
+                            Map.of("bookName", row.getDocumentName(), "dueDate", row.getDueDate().format(DATE_FORMATTER)),
+                            String.valueOf(row.getTransactionId()), "LOAN"));
+                }
+                return notificationFanoutService.dispatch(notifications);
+            }
+        });
+    }
+
+    /**
+     * Lock users with a loan overdue, or a fine unpaid, for more than {@link #LOCK_AFTER_OVERDUE_DAYS} days.
+     * Only users this job actually moves to LOCKED get the access event and the lock email
+     */
+    public JobRunMetrics lockOverdueUsers() {
+        LocalDate thresholdDate = LocalDate.now().minusDays(LOCK_AFTER_OVERDUE_DAYS);
+        return jobRunner.run(LOCK_OVERDUE_USERS, new ChunkedJob<UserLockRow, String>() {
+            // Rows of the current chunk that were actually locked, for afterCommit
+            private List<UserLockRow> lockedRows = List.of();
+
+            @Override
+            public List<UserLockRow> read(String after, int limit) {
+                return loanRepository.findUsersToLockAfter(thresholdDate, thresholdDate.atStartOfDay(),
+                        after == null ? "" : after, PageRequest.of(0, limit));
+            }
+
+            @Override
+            public String keyOf(UserLockRow row) {
+                return row.getUserId();
+            }
+
+            @Override
+            public int process(List<UserLockRow> rows) {
+                List<String> userIds = rows.stream().map(UserLockRow::getUserId).toList();
+                // A user already locked, or locked concurrently since the read, is neither notified nor emailed again
+                Set<String> unlocked = new HashSet<>(userRepository.lockIdsNotLocked(userIds));
+                lockedRows = rows.stream().filter(row -> unlocked.contains(row.getUserId())).toList();
+                if (lockedRows.isEmpty()) {
+                    return 0;
+                }
+                List<String> lockedIds = lockedRows.stream().map(UserLockRow::getUserId).toList();
+                int locked = userRepository.lockUsers(lockedIds, LocalDateTime.now(), LOCK_REASON);
+                eventPublisher.publishEvent(new UserAccessChangedEvent(lockedIds));
+                return locked;
+            }
+
+            @Override
+            public int afterCommit(List<UserLockRow> rows) {
+                lockedRows.forEach(LoanMaintenanceJobs.this::sendAccountLockEmail);
+                return lockedRows.size();
+            }
+        });
+    }
+
+    /**
+     * Metrics of the last run of every chunked job
+     */
+    public List<JobRunMetrics> getLastRuns() {
+        return jobRunner.getLastRuns();
+    }
+
+    private void sendAccountLockEmail(UserLockRow user) {
+        String subject = "[Thông báo khóa tài khoản thư viện]";
+        String body = String.format(
+                "Kính gửi %s %s,\n\n" +
+                        "Tài khoản thư viện của bạn đã bị khóa do có khoản sách trả quá hạn hoặc khoản phạt chưa thanh toán quá 30 ngày.\n" +
+                        "Vui lòng liên hệ quản trị viên để được hỗ trợ mở lại tài khoản.\n\n" +
+                        "Trân trọng,\nBan Quản lý Thư viện",
+                user.getFirstName() != null ? user.getFirstName() : "",
+                user.getLastName() != null ? user.getLastName() : ""
+        );
+        emailService.sendEmailAsync(user.getUsername(), subject, body);
+    }
+
+    // One bulk UPDATE per distinct decrement; almost always a single statement with decrement 1
+    private static <K> void decrementGrouped(List<LoanJobRow> rows, Function<LoanJobRow, K> key,
+                                             Decrement<K> decrement) {
+        Map<K, Long> counts = rows.stream().collect(Collectors.groupingBy(key, Collectors.counting()));
+        Map<Long, List<K>> byCount = counts.entrySet().stream().collect(Collectors.groupingBy(
+                Map.Entry::getValue, Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+        byCount.forEach((count, ids) -> decrement.apply(ids, count.intValue()));
+    }
+
+    private static UserEntity user(String userId, String username) {
+        return UserEntity.builder().userId(userId).username(username).build();
+    }
+
+    private static LoanResponse toResponse(LoanJobRow row, LoanStatus status) {
+        return LoanResponse.builder()
+                .transactionId(row.getTransactionId())
+                .documentId(row.getDocumentId() == null ? null : String.valueOf(row.getDocumentId()))
+                .physicalDocId(row.getPhysicalDocId())
+                .documentName(row.getDocumentName())
+                .username(row.getUsername())
+                .loanDate(row.getLoanDate())
+                .dueDate(row.getDueDate() == null ? null : row.getDueDate().atStartOfDay())
+                .status(status)
+                .build();
+    }
+
+    private interface Decrement<K> {
+        int apply(Collection<K> ids, int by);
+    }
+
+    private abstract static class LoanJob implements ChunkedJob<LoanJobRow, Long> {
+        @Override
+        public Long keyOf(LoanJobRow row) {
+            return row.getTransactionId();
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package com.spkt.libraSys.service.loan;
 
+import com.spkt.libraSys.service.dashboard.DailyBucketRow;
+import com.spkt.libraSys.service.dashboard.LoanAggregateRow;
 import com.spkt.libraSys.service.document.DocumentEntity;
 import com.spkt.libraSys.service.document.PhysicalDocument.PhysicalDocumentEntity;
 import com.spkt.libraSys.service.user.UserEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -127,6 +132,9 @@ public interface LoanRepository extends JpaRepository<LoanEntity, Long>, JpaSpec
     @Query("SELECT l FROM loans l WHERE l.createdAt >= :date")
     List<LoanEntity> findRecentLoans(@Param("date") LocalDateTime date);
 
+    @Query("SELECT DISTINCT l.userEntity FROM loans l WHERE l.createdAt >= :date")
+    List<UserEntity> findActiveUsersSince(@Param("date") LocalDateTime date);
+
     List<LoanEntity> findByUserEntityAndPaymentStatus(UserEntity user, LoanEntity.PaymentStatus paymentStatus);
 
     List<LoanEntity> findByUserEntity(UserEntity userEntity);
@@ -134,6 +142,13 @@ public interface LoanRepository extends JpaRepository<LoanEntity, Long>, JpaSpec
     @Query("SELECT DISTINCT l FROM loans l LEFT JOIN FETCH l.physicalDoc pd LEFT JOIN FETCH pd.document WHERE l.userEntity = :user")
     List<LoanEntity> findByUserEntityWithDocuments(@Param("user") UserEntity user);
 
+    @Query("SELECT l.transactionId, l.userEntity.userId, l.physicalDoc.document.documentId FROM loans l " +
+            "WHERE l.transactionId > :lastId ORDER BY l.transactionId")
+    List<Object[]> findInteractionsAfter(@Param("lastId") long lastId, Pageable pageable);
+
+    @Query("SELECT l.physicalDoc.document.documentId FROM loans l WHERE l.userEntity.userId = :userId")
+    List<Long> findDocumentIdsByUserId(@Param("userId") String userId);
+
     boolean existsByUserEntityAndReturnDateIsNullAndDueDateBefore(UserEntity user, LocalDate date);
 
     @Query("SELECT l FROM loans l WHERE " +
@@ -145,6 +160,47 @@ public interface LoanRepository extends JpaRepository<LoanEntity, Long>, JpaSpec
             ")")
     List<LoanEntity> findLoansOverdueOrWithUnpaidFine(@Param("thresholdDate") LocalDate thresholdDate);
 
+    @Query("SELECT l.transactionId AS transactionId, u.userId AS userId, u.username AS username, " +
+            "p.physicalDocumentId AS physicalDocId, d.documentId AS documentId, d.documentName AS documentName, " +
+            "l.loanDate AS loanDate, l.dueDate AS dueDate " +
+            "FROM loans l JOIN l.userEntity u JOIN l.physicalDoc p JOIN p.document d " +
+            "WHERE l.status = :status AND l.loanDate < :reservedBefore AND l.transactionId > :lastId " +
+            "ORDER BY l.transactionId")
+    List<LoanJobRow> findReservationsAfter(@Param("status") LoanStatus status,
+                                           @Param("reservedBefore") LocalDateTime reservedBefore,
+                                           @Param("lastId") long lastId, Pageable pageable);
+
+    @Query("SELECT l.transactionId AS transactionId, u.userId AS userId, u.username AS username, " +
+            "p.physicalDocumentId AS physicalDocId, d.documentId AS documentId, d.documentName AS documentName, " +
+            "l.loanDate AS loanDate, l.dueDate AS dueDate " +
+            "FROM loans l JOIN l.userEntity u JOIN l.physicalDoc p JOIN p.document d " +
+            "WHERE l.status = :status AND l.dueDate BETWEEN :from AND :to AND l.transactionId > :lastId " +
+            "ORDER BY l.transactionId")
+    List<LoanJobRow> findDueBetweenAfter(@Param("status") LoanStatus status, @Param("from") LocalDate from,
+                                         @Param("to") LocalDate to, @Param("lastId") long lastId, Pageable pageable);
+
+    // Locks the loans (only) that are still in the given status, so a chunk updates exactly the rows returned
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l.transactionId FROM loans l WHERE l.transactionId IN :ids AND l.status = :status")
+    List<Long> lockIdsByStatus(@Param("ids") Collection<Long> ids, @Param("status") LoanStatus status);
+
+    @Modifying
+    @Query("UPDATE loans l SET l.status = :newStatus, l.updatedAt = :now " +
+            "WHERE l.transactionId IN :ids AND l.status = :oldStatus")
+    int updateStatusByIds(@Param("ids") Collection<Long> ids, @Param("oldStatus") LoanStatus oldStatus,
+                          @Param("newStatus") LoanStatus newStatus, @Param("now") LocalDateTime now);
+
+    @Query("SELECT u.userId AS userId, u.username AS username, u.firstName AS firstName, u.lastName AS lastName " +
+            "FROM users u WHERE u.userId > :lastUserId AND u.isActive <> com.spkt.libraSys.service.user.UserStatus.LOCKED " +
+            "AND EXISTS (SELECT 1 FROM loans l WHERE l.userEntity = u AND (" +
+            "(l.returnDate IS NULL AND l.dueDate <= :thresholdDate) " +
+            "OR (l.paymentStatus = com.spkt.libraSys.service.loan.LoanEntity.PaymentStatus.UNPAID " +
+            "AND l.returnDate IS NOT NULL AND l.returnDate <= :thresholdTime))) " +
+            "ORDER BY u.userId")
+    List<UserLockRow> findUsersToLockAfter(@Param("thresholdDate") LocalDate thresholdDate,
+                                           @Param("thresholdTime") LocalDateTime thresholdTime,
+                                           @Param("lastUserId") String lastUserId, Pageable pageable);
+
     boolean existsByUserEntityAndPaymentStatus(UserEntity user, LoanEntity.PaymentStatus paymentStatus);
 
 
@@ -177,4 +233,45 @@ public interface LoanRepository extends JpaRepository<LoanEntity, Long>, JpaSpec
 
     @Query("SELECT DATE(l.returnDate) as date, COUNT(l) as count FROM loans l WHERE l.returnDate BETWEEN :startDate AND :endDate GROUP BY DATE(l.returnDate)")
     Map<LocalDate, Long> countDailyReturnsBetween(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT l.status AS status, l.paymentStatus AS paymentStatus, COUNT(l) AS total, " +
+            "COALESCE(SUM(l.fineAmount), 0.0) AS fineSum, " +
+            "SUM(CASE WHEN l.dueDate < :today THEN 1 ELSE 0 END) AS overdue, " +
+            "SUM(CASE WHEN l.createdAt > :recentSince THEN 1 ELSE 0 END) AS recent, " +
+            "SUM(CASE WHEN l.fineAmount > 0 THEN 1 ELSE 0 END) AS fined, " +
+            "SUM(CASE WHEN l.createdAt >= :dayStart THEN 1 ELSE 0 END) AS createdToday, " +
+            "SUM(CASE WHEN l.returnDate >= :dayStart THEN 1 ELSE 0 END) AS returnedToday, " +
+            "SUM(CASE WHEN l.fineAmount > 0 AND l.createdAt >= :dayStart THEN 1 ELSE 0 END) AS finedToday, " +
+            "COALESCE(SUM(CASE WHEN l.createdAt >= :dayStart THEN l.fineAmount ELSE 0.0 END), 0.0) AS fineAmountToday, " +
+            "SUM(CASE WHEN l.paidAt >= :dayStart THEN 1 ELSE 0 END) AS paidToday, " +
+            "COALESCE(SUM(CASE WHEN l.paidAt >= :dayStart THEN l.fineAmount ELSE 0.0 END), 0.0) AS paidAmountToday " +
+            "FROM loans l GROUP BY l.status, l.paymentStatus")
+    List<LoanAggregateRow> aggregateByStatusAndPaymentStatus(@Param("today") LocalDate today,
+                                                             @Param("recentSince") LocalDateTime recentSince,
+                                                             @Param("dayStart") LocalDateTime dayStart);
+
+    @Query("SELECT YEAR(l.loanDate) AS bucketYear, MONTH(l.loanDate) AS bucketMonth, DAY(l.loanDate) AS bucketDay, " +
+            "COUNT(l) AS total, 0.0 AS amount FROM loans l WHERE l.status IN :statuses AND l.loanDate IS NOT NULL " +
+            "GROUP BY YEAR(l.loanDate), MONTH(l.loanDate), DAY(l.loanDate)")
+    List<DailyBucketRow> countBorrowedByDay(@Param("statuses") Set<LoanStatus> statuses);
+
+    @Query("SELECT YEAR(l.returnDate) AS bucketYear, MONTH(l.returnDate) AS bucketMonth, DAY(l.returnDate) AS bucketDay, " +
+            "COUNT(l) AS total, 0.0 AS amount FROM loans l WHERE l.status = :status AND l.returnDate IS NOT NULL " +
+            "GROUP BY YEAR(l.returnDate), MONTH(l.returnDate), DAY(l.returnDate)")
+    List<DailyBucketRow> countReturnedByDay(@Param("status") LoanStatus status);
+
+    // A fine belongs to the return date of the loan, or to its last update if the book was never returned
+    @Query("SELECT YEAR(COALESCE(l.returnDate, l.updatedAt, l.createdAt)) AS bucketYear, " +
+            "MONTH(COALESCE(l.returnDate, l.updatedAt, l.createdAt)) AS bucketMonth, " +
+            "DAY(COALESCE(l.returnDate, l.updatedAt, l.createdAt)) AS bucketDay, " +
+            "COUNT(l) AS total, COALESCE(SUM(l.fineAmount), 0.0) AS amount FROM loans l WHERE l.fineAmount > 0 " +
+            "GROUP BY YEAR(COALESCE(l.returnDate, l.updatedAt, l.createdAt)), " +
+            "MONTH(COALESCE(l.returnDate, l.updatedAt, l.createdAt)), DAY(COALESCE(l.returnDate, l.updatedAt, l.createdAt))")
+    List<DailyBucketRow> sumFinesByDay();
+
+    @Query("SELECT YEAR(l.paidAt) AS bucketYear, MONTH(l.paidAt) AS bucketMonth, DAY(l.paidAt) AS bucketDay, " +
+            "COUNT(l) AS total, COALESCE(SUM(l.fineAmount), 0.0) AS amount FROM loans l " +
+            "WHERE l.paymentStatus IN :statuses AND l.paidAt IS NOT NULL " +
+            "GROUP BY YEAR(l.paidAt), MONTH(l.paidAt), DAY(l.paidAt)")
+    List<DailyBucketRow> sumPaidByDay(@Param("statuses") Set<LoanEntity.PaymentStatus> statuses);
 }
@@ -7,15 +7,15 @@ import com.spkt.libraSys.service.document.DocumentEntity;
 import com.spkt.libraSys.service.document.DocumentRepository;
 import com.spkt.libraSys.service.document.PhysicalDocument.PhysicalDocumentEntity;
 import com.spkt.libraSys.service.document.PhysicalDocument.PhysicalDocumentRepository;
-import com.spkt.libraSys.service.email.EmailService;
 import com.spkt.libraSys.service.loan.*;
 import com.spkt.libraSys.service.notification.*;
 import com.spkt.libraSys.service.qrcode.JwtTokenData;
 import com.spkt.libraSys.service.qrcode.QRService;
+import com.spkt.libraSys.service.recommendation.UserInteractionEvent;
+import com.spkt.libraSys.service.recommendation.UserInteractionMatrix;
 import com.spkt.libraSys.service.role.RoleEntity;
 import com.spkt.libraSys.service.user.UserEntity;
 import com.spkt.libraSys.service.user.UserRepository;
-import com.spkt.libraSys.service.user.UserStatus;
 import com.spkt.libraSys.service.webSocket.WebSocketService;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +23,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -49,8 +50,6 @@ import java.util.*;
 public class LoanServiceImpl implements LoanService {
     private static final String ADMIN_ROLE = "ADMIN";
     private static final String MANAGER_ROLE = "MANAGER";
-    private static final int NOTIFICATION_DAYS_BEFORE_DUE = 3;
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
     
     private final AuthService authService;
     private final PhysicalDocumentRepository physicalDocumentRepository;
@@ -61,7 +60,8 @@ public class LoanServiceImpl implements LoanService {
     private final LoanValidationService validationService;
     private final NotificationService notificationService;
     private final WebSocketService webSocketService;
-    private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LoanMaintenanceJobs loanMaintenanceJobs;
 
     @Value("${app.loan.duration.days}")
     @NonFinal
@@ -103,6 +103,9 @@ public class LoanServiceImpl implements LoanService {
         LoanEntity loan = createAndSaveLoan(user, physicalDoc);
         updatePhysicalDocumentAvailability(physicalDoc, true);
         sendLoanNotification(loan, NotificationType.LOAN_CREATED);
+        eventPublisher.publishEvent(new UserInteractionEvent(user.getUserId(),
+                physicalDoc.getDocument().getDocumentId(), UserInteractionMatrix.Kind.LOAN));
+        eventPublisher.publishEvent(LoanChangedEvent.created(loan));
 
         log.info("Loan request created successfully with ID: {}", loan.getTransactionId());
         return loanMapper.toLoanTransactionResponse(loan);
@@ -130,6 +133,7 @@ public class LoanServiceImpl implements LoanService {
             // 4. Check if action is valid for current status
             validateActionForStatus(action, loan.getStatus());
             PhysicalDocumentEntity physicalDoc = loan.getPhysicalDoc();
+            double previousFine = loan.getFineAmount();
             // 5. Process status change
             switch (loan.getStatus()) {
                 case RESERVED -> {
@@ -181,6 +185,14 @@ public class LoanServiceImpl implements LoanService {
 
             // 6. Save transaction information
             loanRepository.save(loan);
+            if (loan.getStatus() == LoanStatus.BORROWED) {
+                eventPublisher.publishEvent(LoanChangedEvent.borrowed(loan));
+            } else {
+                eventPublisher.publishEvent(LoanChangedEvent.returned(loan));
+                if (loan.getFineAmount() != previousFine) {
+                    eventPublisher.publishEvent(LoanChangedEvent.fined(loan, previousFine));
+                }
+            }
 
             // 7. Send real-time update
             webSocketService.sendUpdateStatusLoan(
@@ -250,125 +262,13 @@ public class LoanServiceImpl implements LoanService {
     }
 
     @Override
-    @Transactional
     public void autoCancelExpiredReservations() {
-        log.info("Starting auto-cancel process for expired RESERVED loans");
-        LocalDateTime startTime = LocalDateTime.now();
-
-        List<LoanEntity> expiredLoans = loanRepository.findByStatus(LoanStatus.RESERVED);
-        log.info("Found {} expired loans to process", expiredLoans.size());
-
-        if (expiredLoans.isEmpty()) {
-            log.info("No expired loans to process");
-            return;
-        }
-
-        List<PhysicalDocumentEntity> updatedDocs = new ArrayList<>();
-        List<LoanEntity> updatedLoans = new ArrayList<>();
-
-        for (LoanEntity loan : expiredLoans) {
-            try {
-                // Update loan status
-                loan.setStatus(LoanStatus.CANCELLED_AUTO);
-                updatedLoans.add(loan);
-
-                // Update document availability
-                PhysicalDocumentEntity doc = loan.getPhysicalDoc();
-                doc.setUnavailableCount(doc.getUnavailableCount() - 1);
-                updatedDocs.add(doc);
-                UserEntity user = loan.getUserEntity();
-                user.setCurrentBorrowedCount(user.getCurrentBorrowedCount() - 1);
-                updatedLoans.add(loan);
-                // Prepare notification
-                Map<String, Object> params = Map.of("bookName", doc.getDocument().getDocumentName());
-                notificationService.createAndSendNotification(
-                    loan.getUserEntity().getUserId(), 
-                    NotificationType.LOAN_AUTO_CANCAL, 
-                    params,
-                    String.valueOf(loan.getTransactionId()),
-                    "LOAN"
-                );
-
-                // Send real-time update
-                webSocketService.sendUpdateStatusLoan(
-                    loan.getUserEntity().getUserId(), 
-                    loanMapper.toLoanTransactionResponse(loan)
-                );
-
-            } catch (Exception e) {
-                log.error("Error processing loan ID {}: {}", loan.getTransactionId(), e.getMessage(), e);
-            }
-        }
-
-        // Batch save all updates
-        try {
-            loanRepository.saveAll(updatedLoans);
-            physicalDocumentRepository.saveAll(updatedDocs);
-            
-            LocalDateTime endTime = LocalDateTime.now();
-            log.info("Auto-cancel process completed. Processed {} loans in {} seconds", 
-                updatedLoans.size(),
-                java.time.Duration.between(startTime, endTime).getSeconds()
-            );
-        } catch (Exception e) {
-            log.error("Error saving batch updates: {}", e.getMessage(), e);
-            throw new AppException(ErrorCode.INTERNAL_SERVER_ERROR, "Error processing expired loans");
-        }
+        loanMaintenanceJobs.cancelExpiredReservations();
     }
 
     @Override
-    @Transactional
     public void notifyUsersNearDueDate() {
-        log.info("Starting notification process for loans due in {} days", NOTIFICATION_DAYS_BEFORE_DUE);
-        LocalDateTime startTime = LocalDateTime.now();
-
-        LocalDate today = LocalDate.now();
-        LocalDate dueDateThreshold = today.plusDays(NOTIFICATION_DAYS_BEFORE_DUE);
-
-        List<LoanEntity> loans = loanRepository.findByStatusAndDueDateBetween(
-            LoanStatus.BORROWED,
-            today,
-            dueDateThreshold
-        );
-
-        log.info("Found {} loans due within {} days", loans.size(), NOTIFICATION_DAYS_BEFORE_DUE);
-
-        if (loans.isEmpty()) {
-            log.info("No loans due for notification");
-            return;
-        }
-
-        int successCount = 0;
-        int failureCount = 0;
-
-        for (LoanEntity loan : loans) {
-            try {
-                Map<String, Object> params = Map.of(
-                    "bookName", loan.getPhysicalDoc().getDocument().getDocumentName(),
-                    "dueDate", loan.getDueDate().format(DATE_FORMATTER)
-                );
-
-                notificationService.createAndSendNotification(
-                    loan.getUserEntity().getUserId(),
-                    NotificationType.LOAN_NEAR_DUE,
-                    params,
-                    String.valueOf(loan.getTransactionId()),
-                    "LOAN"
-                );
-                successCount++;
-            } catch (Exception e) {
-                log.error("Failed to send notification for loan ID {}: {}", 
-                    loan.getTransactionId(), e.getMessage(), e);
-                failureCount++;
-            }
-        }
-
-        LocalDateTime endTime = LocalDateTime.now();
-        log.info("Notification process completed in {} seconds. Success: {}, Failed: {}", 
-            java.time.Duration.between(startTime, endTime).getSeconds(),
-            successCount,
-            failureCount
-        );
+        loanMaintenanceJobs.notifyNearDueDate();
     }
 
     // Private helper methods
@@ -496,6 +396,7 @@ public class LoanServiceImpl implements LoanService {
 
         // 3. Calculate fine amount
         PhysicalDocumentEntity physicalDoc = loan.getPhysicalDoc();
+        double previousFine = loan.getFineAmount();
         loan.setFineAmount(physicalDoc.getPrice());
         loan.setReturnCondition(LoanEntity.Condition.DAMAGED);
         loan.setPaymentStatus(LoanEntity.PaymentStatus.UNPAID);
@@ -503,6 +404,7 @@ public class LoanServiceImpl implements LoanService {
         physicalDoc.setUnavailableCount(physicalDoc.getUnavailableCount() + 1);
         physicalDocumentRepository.save(physicalDoc);
         loanRepository.save(loan);
+        eventPublisher.publishEvent(LoanChangedEvent.fined(loan, previousFine));
         // Notify user about fine
         notificationService.createAndSendNotification(
             loan.getUserEntity().getUserId(),
@@ -541,6 +443,7 @@ public class LoanServiceImpl implements LoanService {
         loan.setLibrarianName(authService.getCurrentUser().getUsername());
         // 5. Save changes
         loan = loanRepository.save(loan);
+        eventPublisher.publishEvent(LoanChangedEvent.paid(loan));
 
         // 6. Send notification
         notificationService.createAndSendNotification(
@@ -557,37 +460,9 @@ public class LoanServiceImpl implements LoanService {
         return loanMapper.toLoanTransactionResponse(loan);
     }
 
-    @Transactional
+    @Override
     public void blockUsersWithReturnOverdue30Days() {
-        LocalDate thresholdDate = LocalDate.now().minusDays(30);
-
-        List<LoanEntity> overdueLoans = loanRepository.findLoansOverdueOrWithUnpaidFine(thresholdDate);
-
-        for (LoanEntity loan : overdueLoans) {
-            UserEntity user = loan.getUserEntity();
-            if (user.getIsActive() != UserStatus.LOCKED) {
-                user.setIsActive(UserStatus.LOCKED);
-                user.setLockedAt(LocalDateTime.now());
-                user.setLockReason("Khóa tài khoản do quá hạn trả sách hoặc nợ phí quá 30 ngày");
-                userRepository.save(user);
-                sendAccountLockEmail(user);
-            }
-        }
-    }
-
-    private void sendAccountLockEmail(UserEntity user) {
-        String toEmail = user.getUsername();
-        String subject = "[Thông báo khóa tài khoản thư viện]";
-        String body = String.format(
-                "Kính gửi %s %s,\n\n" +
-                        "Tài khoản thư viện của bạn đã bị khóa do có khoản sách trả quá hạn hoặc khoản phạt chưa thanh toán quá 30 ngày.\n" +
-                        "Vui lòng liên hệ quản trị viên để được hỗ trợ mở lại tài khoản.\n\n" +
-                        "Trân trọng,\nBan Quản lý Thư viện",
-                user.getFirstName() != null ? user.getFirstName() : "",
-                user.getLastName() != null ? user.getLastName() : ""
-        );
-
-        emailService.sendEmailAsync(toEmail, subject, body);
+        loanMaintenanceJobs.lockOverdueUsers();
     }
 
     @Override
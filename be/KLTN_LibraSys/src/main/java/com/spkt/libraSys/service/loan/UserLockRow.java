@@ -0,0 +1,11 @@
+package com.spkt.libraSys.service.loan;
+
+/**
+ * User to be locked by the overdue job, with the fields of the lock email.
+ */
+public interface UserLockRow {
+    String getUserId();
+    String getUsername();
+    String getFirstName();
+    String getLastName();
+}
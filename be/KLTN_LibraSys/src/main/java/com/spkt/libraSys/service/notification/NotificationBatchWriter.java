@@ -0,0 +1,78 @@
+package com.spkt.libraSys.service.notification;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persists notification rows with a single JDBC batch insert per chunk,
+ * bypassing the persistence context so a broadcast does not build up managed entities.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationBatchWriter {
+    private static final String INSERT_SQL =
+            "INSERT INTO notification (user_id, title, content, entity_id, entity_type, created_at, status) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert all notifications in one batch and assign the generated ids back to the entities.
+     * createdAt and status must already be set.
+     * @param notifications Notifications to insert, each with its user set
+     * @return Number of inserted rows
+     */
+    @Transactional
+    public int insertAll(List<NotificationEntity> notifications) {
+        if (notifications.isEmpty()) {
+            return 0;
+        }
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        int[] counts = jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        NotificationEntity notification = notifications.get(i);
+                        ps.setString(1, notification.getUser().getUserId());
+                        ps.setString(2, notification.getTitle());
+                        ps.setString(3, notification.getContent());
+                        ps.setString(4, notification.getEntityId());
+                        ps.setString(5, notification.getEntityType());
+                        ps.setTimestamp(6, Timestamp.valueOf(notification.getCreatedAt()));
+                        ps.setString(7, notification.getStatus().name());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return notifications.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < keys.size() && i < notifications.size(); i++) {
+            Object key = keys.get(i).values().stream().findFirst().orElse(null);
+            if (key instanceof Number id) {
+                notifications.get(i).setId(id.longValue());
+            }
+        }
+        int inserted = 0;
+        for (int count : counts) {
+            // SUCCESS_NO_INFO (-2) is reported when the driver rewrites the batch
+            inserted += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+        }
+        return inserted;
+    }
+}
@@ -0,0 +1,37 @@
+package com.spkt.libraSys.service.notification;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress and throughput of one notification broadcast.
+ */
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class NotificationBroadcastStatus {
+    String broadcastId;
+    State state;
+    String title;
+    int totalRecipients;
+    long resolvedUsers;
+    long missingUsers;
+    long persisted;
+    long pushed;
+    long pushFailed;
+    LocalDateTime submittedAt;
+    LocalDateTime startedAt;
+    LocalDateTime finishedAt;
+    long elapsedMillis;
+    double persistedPerSecond;
+    double pushedPerSecond;
+    String error;
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+}
@@ -19,6 +19,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -79,15 +80,57 @@ public class NotificationController {
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Tạo thông báo mới (Admin)")
-    public ResponseEntity<ApiResponse<Void>> createNotifications(
+    public ResponseEntity<ApiResponse<NotificationBroadcastStatus>> createNotifications(
             @Valid @RequestBody NotificationCreateRequest request) {
-        notificationManagementService.createNotifications(request);
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(ApiResponse.<Void>builder()
-                        .message("Tạo thông báo thành công")
+        NotificationBroadcastStatus status = notificationManagementService.createNotifications(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.<NotificationBroadcastStatus>builder()
+                        .message("Đã xếp hàng gửi thông báo")
+                        .data(status)
                         .build());
     }
 
+    @GetMapping("/broadcasts")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Danh sách thông báo hàng loạt gần đây (Admin)")
+    public ResponseEntity<ApiResponse<List<NotificationBroadcastStatus>>> getRecentBroadcasts() {
+        return ResponseEntity.ok(ApiResponse.<List<NotificationBroadcastStatus>>builder()
+                .message("Lấy danh sách thông báo hàng loạt thành công")
+                .data(notificationManagementService.getRecentBroadcasts())
+                .build());
+    }
+
+    @GetMapping("/broadcasts/metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Thống kê hiệu năng gửi thông báo hàng loạt (Admin)")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getBroadcastMetrics() {
+        return ResponseEntity.ok(ApiResponse.<Map<String, Object>>builder()
+                .message("Lấy thống kê gửi thông báo thành công")
+                .data(notificationManagementService.getBroadcastMetrics())
+                .build());
+    }
+
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Thống kê cache thông báo theo người dùng (Admin)")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCacheStats() {
+        return ResponseEntity.ok(ApiResponse.<Map<String, Object>>builder()
+                .message("Lấy thống kê cache thông báo thành công")
+                .data(notificationManagementService.getCacheStats())
+                .build());
+    }
+
+    @GetMapping("/broadcasts/{broadcastId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Tiến độ một thông báo hàng loạt (Admin)")
+    public ResponseEntity<ApiResponse<NotificationBroadcastStatus>> getBroadcastStatus(
+            @PathVariable("broadcastId") String broadcastId) {
+        return ResponseEntity.ok(ApiResponse.<NotificationBroadcastStatus>builder()
+                .message("Lấy tiến độ thông báo hàng loạt thành công")
+                .data(notificationManagementService.getBroadcastStatus(broadcastId))
+                .build());
+    }
+
     @PostMapping("/send/{userId}")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Gửi thông báo cho người dùng cụ thể (Admin)")
@@ -0,0 +1,319 @@
+package com.spkt.libraSys.service.notification;
+
+import com.spkt.libraSys.exception.ErrorCode;
+import com.spkt.libraSys.service.user.UserEntity;
+import com.spkt.libraSys.service.user.UserRepository;
+import com.spkt.libraSys.service.webSocket.WebSocketService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fan-out pipeline for notifications sent to many users at once.
+ * A broadcast is queued and processed in chunks: users are resolved with one query per chunk,
+ * rows are written with one JDBC batch per chunk, and WebSocket frames are pushed from a bounded
+ * worker pool. When the push queue is full the broadcast thread sends frames itself, which slows
+ * persistence down to the rate clients are actually reached.
+ */
+@Service
+@Slf4j
+public class NotificationFanoutService {
+    private final UserRepository userRepository;
+    private final NotificationBatchWriter batchWriter;
+    private final NotificationMapper notificationMapper;
+    private final WebSocketService webSocketService;
+    private final UserNotificationCache notificationCache;
+    private final Executor fanoutExecutor;
+    private final Executor pushExecutor;
+    private final Map<String, BroadcastJob> history = new LinkedHashMap<>();
+    private final AtomicLong totalPersisted = new AtomicLong();
+    private final AtomicLong totalPushed = new AtomicLong();
+    private final AtomicLong totalPushFailed = new AtomicLong();
+
+    @Value("${app.notification.fanout.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${app.notification.fanout.history-size:50}")
+    private int historySize = 50;
+
+    public NotificationFanoutService(UserRepository userRepository,
+                                     NotificationBatchWriter batchWriter,
+                                     NotificationMapper notificationMapper,
+                                     WebSocketService webSocketService,
+                                     UserNotificationCache notificationCache,
+                                     @Qualifier("notificationFanoutExecutor") Executor fanoutExecutor,
+                                     @Qualifier("notificationPushExecutor") Executor pushExecutor) {
+        this.userRepository = userRepository;
+        this.batchWriter = batchWriter;
+        this.notificationMapper = notificationMapper;
+        this.webSocketService = webSocketService;
+        this.notificationCache = notificationCache;
+        this.fanoutExecutor = fanoutExecutor;
+        this.pushExecutor = pushExecutor;
+    }
+
+    /**
+     * Queue a broadcast and return immediately
+     * @param request Recipients, title and content
+     * @return Initial status of the queued broadcast
+     */
+    public NotificationBroadcastStatus submit(NotificationCreateRequest request) {
+        List<String> recipients = new ArrayList<>(new LinkedHashSet<>(
+                request.getUserIds().stream().filter(Objects::nonNull).toList()));
+        BroadcastJob job = new BroadcastJob(UUID.randomUUID().toString(), request, recipients);
+        remember(job);
+        try {
+            fanoutExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            job.fail("Hàng đợi thông báo hàng loạt đã đầy");
+            throw new NotificationException(ErrorCode.SERVICE_UNAVAILABLE,
+                    "Đang có quá nhiều thông báo hàng loạt chờ gửi, vui lòng thử lại sau");
+        }
+        log.info("Đã xếp hàng thông báo hàng loạt {} cho {} người dùng", job.id, recipients.size());
+        return job.toStatus();
+    }
+
+    /**
+     * Persist already built notifications (each with its own user and content) in batches
+     * and push them through the worker pool. Runs on the caller's thread up to the push.
+     * @param notifications Notifications with user (id and username), title, content and createdAt set
+     * @return Number of persisted notifications
+     */
+    public int dispatch(List<NotificationEntity> notifications) {
+        int inserted = 0;
+        for (int from = 0; from < notifications.size(); from += batchSize) {
+            List<NotificationEntity> chunk = notifications.subList(from, Math.min(from + batchSize, notifications.size()));
+            chunk.forEach(notification -> notification.setStatus(NotificationEntity.NotificationStatus.UNREAD));
+            inserted += batchWriter.insertAll(chunk);
+            for (NotificationEntity notification : chunk) {
+                if (notification.getId() != null) {
+                    push(null, notification);
+                }
+            }
+        }
+        totalPersisted.addAndGet(inserted);
+        return inserted;
+    }
+
+    /**
+     * Get the status of a recent broadcast
+     * @param broadcastId Broadcast id returned by {@link #submit}
+     */
+    public NotificationBroadcastStatus getStatus(String broadcastId) {
+        BroadcastJob job;
+        synchronized (history) {
+            job = history.get(broadcastId);
+        }
+        if (job == null) {
+            throw new NotificationException(ErrorCode.NOTIFICATION_NOT_FOUND, "Không tìm thấy thông báo hàng loạt");
+        }
+        return job.toStatus();
+    }
+
+    /**
+     * Get the statuses of recent broadcasts, newest first
+     */
+    public List<NotificationBroadcastStatus> getRecent() {
+        List<NotificationBroadcastStatus> statuses = new ArrayList<>();
+        synchronized (history) {
+            history.values().forEach(job -> statuses.add(job.toStatus()));
+        }
+        Collections.reverse(statuses);
+        return statuses;
+    }
+
+    /**
+     * Pipeline-wide counters and worker pool occupancy
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        long queued = 0, running = 0;
+        synchronized (history) {
+            for (BroadcastJob job : history.values()) {
+                if (job.state == NotificationBroadcastStatus.State.QUEUED) queued++;
+                if (job.state == NotificationBroadcastStatus.State.RUNNING) running++;
+            }
+        }
+        metrics.put("queuedBroadcasts", queued);
+        metrics.put("runningBroadcasts", running);
+        metrics.put("totalPersisted", totalPersisted.get());
+        metrics.put("totalPushed", totalPushed.get());
+        metrics.put("totalPushFailed", totalPushFailed.get());
+        metrics.put("batchSize", batchSize);
+        if (pushExecutor instanceof ThreadPoolTaskExecutor pool) {
+            metrics.put("pushActiveWorkers", pool.getActiveCount());
+            metrics.put("pushQueueSize", pool.getQueueSize());
+        }
+        return metrics;
+    }
+
+    private void run(BroadcastJob job) {
+        job.start();
+        try {
+            List<String> recipients = job.recipients;
+            for (int from = 0; from < recipients.size(); from += batchSize) {
+                processChunk(job, recipients.subList(from, Math.min(from + batchSize, recipients.size())));
+            }
+        } catch (RuntimeException e) {
+            log.error("Lỗi khi gửi thông báo hàng loạt {}: {}", job.id, e.getMessage(), e);
+            job.fail(e.getMessage());
+        } finally {
+            job.pushDone();
+        }
+    }
+
+    private void processChunk(BroadcastJob job, List<String> userIds) {
+        List<UserEntity> users = userRepository.findAllById(userIds);
+        job.resolved.addAndGet(users.size());
+        job.missing.addAndGet(userIds.size() - users.size());
+
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationEntity> notifications = new ArrayList<>(users.size());
+        for (UserEntity user : users) {
+            notifications.add(NotificationEntity.builder()
+                    .user(user)
+                    .title(job.request.getTitle())
+                    .content(job.request.getContent())
+                    .createdAt(now)
+                    .status(NotificationEntity.NotificationStatus.UNREAD)
+                    .build());
+        }
+        int inserted = batchWriter.insertAll(notifications);
+        job.persisted.addAndGet(inserted);
+        totalPersisted.addAndGet(inserted);
+
+        for (NotificationEntity notification : notifications) {
+            if (notification.getId() != null) {
+                push(job, notification);
+            }
+        }
+    }
+
+    private void push(BroadcastJob job, NotificationEntity notification) {
+        if (job != null) {
+            job.pending.incrementAndGet();
+        }
+        String userId = notification.getUser().getUserId();
+        NotificationResponse response = notificationMapper.toResponse(notification);
+        Long unreadCount = notificationCache.onCreated(userId, response);
+        Runnable send = () -> {
+            try {
+                webSocketService.sendNotificationToUser(userId, response);
+                if (unreadCount != null) {
+                    webSocketService.sendUnreadCountToUser(userId, unreadCount);
+                }
+                if (job != null) job.pushed.incrementAndGet();
+                totalPushed.incrementAndGet();
+            } catch (RuntimeException e) {
+                log.warn("Lỗi khi đẩy thông báo cho user {}: {}", userId, e.getMessage());
+                if (job != null) job.pushFailed.incrementAndGet();
+                totalPushFailed.incrementAndGet();
+            } finally {
+                if (job != null) job.pushDone();
+            }
+        };
+        try {
+            pushExecutor.execute(send);
+        } catch (RejectedExecutionException e) {
+            // Pool is shutting down; the row is persisted and will show up on the next fetch
+            totalPushFailed.incrementAndGet();
+            if (job != null) {
+                job.pushFailed.incrementAndGet();
+                job.pushDone();
+            }
+        }
+    }
+
+    private void remember(BroadcastJob job) {
+        synchronized (history) {
+            history.put(job.id, job);
+            Iterator<BroadcastJob> iterator = history.values().iterator();
+            while (history.size() > historySize && iterator.hasNext()) {
+                BroadcastJob oldest = iterator.next();
+                if (oldest.isFinished()) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static class BroadcastJob {
+        final String id;
+        final NotificationCreateRequest request;
+        final List<String> recipients;
+        final LocalDateTime submittedAt = LocalDateTime.now();
+        final AtomicLong resolved = new AtomicLong();
+        final AtomicLong missing = new AtomicLong();
+        final AtomicLong persisted = new AtomicLong();
+        final AtomicLong pushed = new AtomicLong();
+        final AtomicLong pushFailed = new AtomicLong();
+        // Outstanding pushes plus one for the broadcast thread itself
+        final AtomicLong pending = new AtomicLong(1);
+        volatile NotificationBroadcastStatus.State state = NotificationBroadcastStatus.State.QUEUED;
+        volatile LocalDateTime startedAt;
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+
+        BroadcastJob(String id, NotificationCreateRequest request, List<String> recipients) {
+            this.id = id;
+            this.request = request;
+            this.recipients = recipients;
+        }
+
+        void start() {
+            startedAt = LocalDateTime.now();
+            state = NotificationBroadcastStatus.State.RUNNING;
+        }
+
+        void fail(String message) {
+            error = message;
+            state = NotificationBroadcastStatus.State.FAILED;
+            finishedAt = LocalDateTime.now();
+        }
+
+        void pushDone() {
+            if (pending.decrementAndGet() == 0 && state == NotificationBroadcastStatus.State.RUNNING) {
+                finishedAt = LocalDateTime.now();
+                state = NotificationBroadcastStatus.State.COMPLETED;
+            }
+        }
+
+        boolean isFinished() {
+            return state == NotificationBroadcastStatus.State.COMPLETED
+                    || state == NotificationBroadcastStatus.State.FAILED;
+        }
+
+        NotificationBroadcastStatus toStatus() {
+            LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+            long elapsed = startedAt == null ? 0 : Duration.between(startedAt, end).toMillis();
+            double seconds = Math.max(elapsed, 1) / 1000.0;
+            return NotificationBroadcastStatus.builder()
+                    .broadcastId(id)
+                    .state(state)
+                    .title(request.getTitle())
+                    .totalRecipients(recipients.size())
+                    .resolvedUsers(resolved.get())
+                    .missingUsers(missing.get())
+                    .persisted(persisted.get())
+                    .pushed(pushed.get())
+                    .pushFailed(pushFailed.get())
+                    .submittedAt(submittedAt)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .elapsedMillis(elapsed)
+                    .persistedPerSecond(startedAt == null ? 0 : persisted.get() / seconds)
+                    .pushedPerSecond(startedAt == null ? 0 : pushed.get() / seconds)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -4,10 +4,25 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
 
+import java.util.List;
+import java.util.Map;
+
 public interface NotificationManagementService extends BaseNotificationService {
     @PreAuthorize("hasRole('ADMIN')")
     Page<NotificationResponse> getAllNotifications(Pageable pageable);
     
     @PreAuthorize("hasRole('ADMIN')")
-    void createNotifications(NotificationCreateRequest request);
+    NotificationBroadcastStatus createNotifications(NotificationCreateRequest request);
+
+    @PreAuthorize("hasRole('ADMIN')")
+    NotificationBroadcastStatus getBroadcastStatus(String broadcastId);
+
+    @PreAuthorize("hasRole('ADMIN')")
+    List<NotificationBroadcastStatus> getRecentBroadcasts();
+
+    @PreAuthorize("hasRole('ADMIN')")
+    Map<String, Object> getBroadcastMetrics();
+
+    @PreAuthorize("hasRole('ADMIN')")
+    Map<String, Object> getCacheStats();
 }
\ No newline at end of file
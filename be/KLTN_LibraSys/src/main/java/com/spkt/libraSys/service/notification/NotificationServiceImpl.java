@@ -11,7 +11,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -25,6 +28,8 @@ public class NotificationServiceImpl implements NotificationService, Notificatio
     private final NotificationFactory notificationFactory;
     private final UserRepository userRepository;
     private final AuthService authService;
+    private final NotificationFanoutService notificationFanoutService;
+    private final UserNotificationCache notificationCache;
 
     @Override
     public NotificationResponse createAndSendNotification(String userId, String title, String content) {
@@ -67,6 +72,12 @@ public class NotificationServiceImpl implements NotificationService, Notificatio
     @Transactional(readOnly = true)
     public Page<NotificationResponse> getNotificationsForCurrentUser(Pageable pageable) {
         UserEntity currentUser = authService.getCurrentUser();
+        if (notificationCache.isCacheable(pageable)) {
+            return notificationCache.recentPage(currentUser.getUserId(), pageable,
+                    recent -> notificationRepository.findByUserOrderByCreatedAtDesc(currentUser, recent)
+                            .map(notificationMapper::toResponse),
+                    () -> countUnread(currentUser));
+        }
         return notificationRepository.findByUserOrderByCreatedAtDesc(currentUser, pageable)
                 .map(notificationMapper::toResponse);
     }
@@ -81,8 +92,12 @@ public class NotificationServiceImpl implements NotificationService, Notificatio
     @Override
     public NotificationResponse markAsRead(Long notificationId) {
         NotificationEntity notification = getAndValidateNotification(notificationId);
+        boolean wasUnread = notification.getStatus() == NotificationEntity.NotificationStatus.UNREAD;
         notification.setStatus(NotificationEntity.NotificationStatus.READ);
         NotificationEntity savedNotification = notificationRepository.save(notification);
+        String userId = notification.getUser().getUserId();
+        afterCommit(() -> pushUnreadCount(userId,
+                notificationCache.onRead(userId, String.valueOf(notificationId), wasUnread)));
         return notificationMapper.toResponse(savedNotification);
     }
 
@@ -90,12 +105,20 @@ public class NotificationServiceImpl implements NotificationService, Notificatio
     public void markAllRead() {
         UserEntity currentUser = authService.getCurrentUser();
         notificationRepository.markAllAsReadForUser(currentUser.getUserId());
+        afterCommit(() -> {
+            notificationCache.onAllRead(currentUser.getUserId());
+            webSocketService.sendUnreadCountToUser(currentUser.getUserId(), 0);
+        });
     }
 
     @Override
     public void deleteNotification(Long notificationId) {
         NotificationEntity notification = getAndValidateNotification(notificationId);
+        boolean wasUnread = notification.getStatus() == NotificationEntity.NotificationStatus.UNREAD;
         notificationRepository.delete(notification);
+        String userId = notification.getUser().getUserId();
+        afterCommit(() -> pushUnreadCount(userId,
+                notificationCache.onDeleted(userId, String.valueOf(notificationId), wasUnread)));
     }
 
     @Override
@@ -109,27 +132,36 @@ public class NotificationServiceImpl implements NotificationService, Notificatio
     @Transactional(readOnly = true)
     public Long getUnreadNotificationCountForCurrentUser() {
         UserEntity currentUser = authService.getCurrentUser();
-        return notificationRepository.countByUserAndStatus(
-                currentUser,
-                NotificationEntity.NotificationStatus.UNREAD
-        );
+        return notificationCache.unreadCount(currentUser.getUserId(), () -> countUnread(currentUser));
     }
 
     @Override
-    public void createNotifications(NotificationCreateRequest request) {
-        try {
-            request.getUserIds().forEach(userId -> {
-                try {
-                    createAndSendNotification(userId, request.getTitle(), request.getContent());
-                } catch (Exception e) {
-                    log.error("Lỗi khi gửi thông báo cho user {}: {}", userId, e.getMessage());
-                }
-            });
-        } catch (Exception e) {
-            handleNotificationError("Tạo nhiều thông báo", null, e);
-            throw new NotificationException(ErrorCode.NOTIFICATION_SENDING_ERROR,
-                    "Không thể tạo thông báo hàng loạt");
-        }
+    public NotificationBroadcastStatus createNotifications(NotificationCreateRequest request) {
+        return notificationFanoutService.submit(request);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public NotificationBroadcastStatus getBroadcastStatus(String broadcastId) {
+        return notificationFanoutService.getStatus(broadcastId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<NotificationBroadcastStatus> getRecentBroadcasts() {
+        return notificationFanoutService.getRecent();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getBroadcastMetrics() {
+        return notificationFanoutService.getMetrics();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getCacheStats() {
+        return notificationCache.snapshot();
     }
 
     // Private helper methods
@@ -156,10 +188,51 @@ public class NotificationServiceImpl implements NotificationService, Notificatio
     private NotificationResponse saveAndSendNotification(NotificationEntity notification) {
         NotificationEntity savedNotification = notificationRepository.save(notification);
         NotificationResponse response = notificationMapper.toResponse(savedNotification);
-        webSocketService.sendNotificationToUser(notification.getUser().getUserId(), response);
+        String userId = notification.getUser().getUserId();
+        afterCommit(() -> {
+            Long unreadCount = notificationCache.onCreated(userId, response);
+            webSocketService.sendNotificationToUser(userId, response);
+            pushUnreadCount(userId, unreadCount);
+        });
         return response;
     }
 
+    private long countUnread(UserEntity user) {
+        return notificationRepository.countByUserAndStatus(user, NotificationEntity.NotificationStatus.UNREAD);
+    }
+
+    /**
+     * Runs a cache update and WebSocket push once the surrounding transaction has committed, or right away
+     * without one. A rollback then leaves the cache and the clients untouched, and a loader that read the
+     * database before the commit gets the change applied on top of its entry
+     */
+    private void afterCommit(Runnable action) {
+        Runnable guarded = () -> {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                log.warn("Lỗi khi cập nhật cache/đẩy thông báo sau commit: {}", e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    guarded.run();
+                }
+            });
+        } else {
+            guarded.run();
+        }
+    }
+
+    // Only users with a cached entry get the counter pushed; the others have not opened the app recently
+    private void pushUnreadCount(String userId, Long unreadCount) {
+        if (unreadCount != null) {
+            webSocketService.sendUnreadCountToUser(userId, unreadCount);
+        }
+    }
+
     private void handleNotificationError(String operation, String userId, Exception e) {
         String errorMessage = String.format("Lỗi khi %s", operation);
         if (userId != null) {
@@ -0,0 +1,23 @@
+package com.spkt.libraSys.service.notification;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Unread counter pushed on the user's notification queue whenever it changes,
+ * so clients can update the badge without polling /unread-count.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UnreadCountMessage {
+    public static final String TYPE = "UNREAD_COUNT";
+
+    String type = TYPE;
+    long unreadCount;
+
+    public UnreadCountMessage(long unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+}
@@ -0,0 +1,232 @@
+package com.spkt.libraSys.service.notification;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-user cache of the unread counter and the most recent notifications (newest first).
+ * Entries are immutable and replaced on every change, so the weigher keeps the memory bound accurate.
+ * Writes update cached entries in place instead of evicting them; users without an entry are left alone
+ * and loaded from the database on their next read.
+ */
+@Component
+public class UserNotificationCache {
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+    private static final int NOTIFICATION_OVERHEAD_BYTES = 160;
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt");
+
+    private final Cache<String, Entry> entries;
+    private final int recentSize;
+
+    public UserNotificationCache(@Value("${app.notification.cache.max-bytes:16777216}") long maxBytes,
+                                 @Value("${app.notification.cache.recent-size:20}") int recentSize,
+                                 @Value("${app.notification.cache.ttl-minutes:30}") long ttlMinutes) {
+        this.recentSize = recentSize;
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String userId, Entry entry) -> entry.weight(userId))
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Unread notification count of the user, loaded with {@code loader} on a miss
+     */
+    public long unreadCount(String userId, LongSupplier loader) {
+        return entries.get(userId, id -> new Entry(loader.getAsLong(), null, 0)).unread;
+    }
+
+    /**
+     * Whether a page of the newest-first listing can be served from the recent notifications
+     */
+    public boolean isCacheable(Pageable pageable) {
+        return pageable.getOffset() + pageable.getPageSize() <= recentSize
+                && (pageable.getSort().isUnsorted() || pageable.getSort().equals(NEWEST_FIRST));
+    }
+
+    /**
+     * A page of the user's notifications, newest first. On a miss, or when only the counter is cached,
+     * the first {@code recentSize} notifications are loaded with {@code loader}
+     * @param loader Loads a newest-first page; called with the page of the recent notifications
+     * @param unreadLoader Loads the unread count if the user has no entry yet
+     */
+    public Page<NotificationResponse> recentPage(String userId, Pageable pageable,
+                                                 Function<Pageable, Page<NotificationResponse>> loader,
+                                                 LongSupplier unreadLoader) {
+        Entry entry = entries.getIfPresent(userId);
+        if (entry == null || !entry.covers(pageable)) {
+            Page<NotificationResponse> recent = loader.apply(PageRequest.of(0, recentSize));
+            long unread = entry != null ? entry.unread : unreadLoader.getAsLong();
+            entry = entries.asMap().merge(userId,
+                    new Entry(unread, recent.getContent(), recent.getTotalElements()),
+                    (current, loaded) -> current.recent == null ? loaded.withUnread(current.unread) : current);
+        }
+        List<NotificationResponse> content = entry.recent.subList(
+                (int) Math.min(pageable.getOffset(), entry.recent.size()),
+                (int) Math.min(pageable.getOffset() + pageable.getPageSize(), entry.recent.size()));
+        return new PageImpl<>(new ArrayList<>(content), pageable, entry.total);
+    }
+
+    /**
+     * A notification was created for the user
+     * @return The user's new unread count, null if the user is not cached
+     */
+    public Long onCreated(String userId, NotificationResponse notification) {
+        Entry entry = entries.asMap().computeIfPresent(userId, (id, current) -> current.withCreated(notification, recentSize));
+        return entry == null ? null : entry.unread;
+    }
+
+    /**
+     * A notification of the user was marked as read
+     * @param wasUnread Whether the notification was unread before
+     */
+    public Long onRead(String userId, String notificationId, boolean wasUnread) {
+        Entry entry = entries.asMap().computeIfPresent(userId, (id, current) -> current.withRead(notificationId, wasUnread));
+        return entry == null ? null : entry.unread;
+    }
+
+    /**
+     * All notifications of the user were marked as read
+     */
+    public Long onAllRead(String userId) {
+        Entry entry = entries.asMap().computeIfPresent(userId, (id, current) -> current.withAllRead());
+        return entry == null ? null : entry.unread;
+    }
+
+    /**
+     * A notification of the user was deleted
+     * @param wasUnread Whether the notification was unread before
+     */
+    public Long onDeleted(String userId, String notificationId, boolean wasUnread) {
+        Entry entry = entries.asMap().computeIfPresent(userId, (id, current) -> current.withDeleted(notificationId, wasUnread));
+        return entry == null ? null : entry.unread;
+    }
+
+    public void invalidate(String userId) {
+        entries.invalidate(userId);
+    }
+
+    public CacheStats stats() {
+        return entries.stats();
+    }
+
+    /**
+     * Cache figures for monitoring: hit ratio and estimated memory
+     */
+    public Map<String, Object> snapshot() {
+        // Apply pending writes so the weighted size is current
+        entries.cleanUp();
+        CacheStats stats = entries.stats();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("size", entries.estimatedSize());
+        snapshot.put("hitCount", stats.hitCount());
+        snapshot.put("missCount", stats.missCount());
+        snapshot.put("hitRate", stats.hitRate());
+        snapshot.put("evictionCount", stats.evictionCount());
+        entries.policy().eviction().ifPresent(eviction -> {
+            snapshot.put("estimatedBytes", eviction.weightedSize().orElse(0L));
+            snapshot.put("maxBytes", eviction.getMaximum());
+        });
+        snapshot.put("recentSize", recentSize);
+        return snapshot;
+    }
+
+    private static final class Entry {
+        private final long unread;
+        // Newest first; null when only the counter has been loaded
+        private final List<NotificationResponse> recent;
+        // Total notifications of the user, valid when recent is loaded
+        private final long total;
+
+        private Entry(long unread, List<NotificationResponse> recent, long total) {
+            this.unread = Math.max(unread, 0);
+            this.recent = recent;
+            this.total = Math.max(total, 0);
+        }
+
+        boolean covers(Pageable pageable) {
+            return recent != null && (pageable.getOffset() + pageable.getPageSize() <= recent.size()
+                    || recent.size() >= total);
+        }
+
+        Entry withUnread(long unread) {
+            return new Entry(unread, recent, total);
+        }
+
+        Entry withCreated(NotificationResponse notification, int recentSize) {
+            boolean unreadNotification = notification.getStatus() != NotificationEntity.NotificationStatus.READ;
+            long newUnread = unread + (unreadNotification ? 1 : 0);
+            if (recent == null) {
+                return new Entry(newUnread, null, 0);
+            }
+            List<NotificationResponse> next = new ArrayList<>(Math.min(recent.size() + 1, recentSize));
+            next.add(notification);
+            next.addAll(recent.subList(0, Math.min(recent.size(), recentSize - 1)));
+            return new Entry(newUnread, next, total + 1);
+        }
+
+        Entry withRead(String notificationId, boolean wasUnread) {
+            return new Entry(unread - (wasUnread ? 1 : 0), mapRecent(notificationId), total);
+        }
+
+        Entry withAllRead() {
+            return new Entry(0, mapRecent(null), total);
+        }
+
+        Entry withDeleted(String notificationId, boolean wasUnread) {
+            if (recent == null) {
+                return new Entry(unread - (wasUnread ? 1 : 0), null, 0);
+            }
+            List<NotificationResponse> next = new ArrayList<>(recent);
+            next.removeIf(notification -> notificationId.equals(notification.getId()));
+            return new Entry(unread - (wasUnread ? 1 : 0), next, total - 1);
+        }
+
+        // Copy of the recent list with the given notification (or all when null) marked as read
+        private List<NotificationResponse> mapRecent(String notificationId) {
+            if (recent == null) {
+                return null;
+            }
+            List<NotificationResponse> next = new ArrayList<>(recent.size());
+            for (NotificationResponse notification : recent) {
+                if (notificationId == null || notificationId.equals(notification.getId())) {
+                    notification = notification.toBuilder().status(NotificationEntity.NotificationStatus.READ).build();
+                }
+                next.add(notification);
+            }
+            return next;
+        }
+
+        int weight(String userId) {
+            long bytes = ENTRY_OVERHEAD_BYTES + userId.length() * 2L;
+            if (recent != null) {
+                for (NotificationResponse notification : recent) {
+                    bytes += NOTIFICATION_OVERHEAD_BYTES + 2L * (length(notification.getTitle())
+                            + length(notification.getContent()) + length(notification.getUsername()));
+                }
+            }
+            return (int) Math.min(bytes, Integer.MAX_VALUE);
+        }
+
+        private static int length(String value) {
+            return value == null ? 0 : value.length();
+        }
+    }
+}
@@ -24,7 +24,9 @@ public class OpenAIService {
     @Value("${OpenAI.apiKey}")
     protected String apiKey;
 
-    private static final String OPENAI_URL = "https://api.openai.com/v1/chat/completions";
+    // Có thể trỏ tới một endpoint giả lập cục bộ để đo hiệu năng mà không cần gọi OpenAI
+    @Value("${OpenAI.url:https://api.openai.com/v1/chat/completions}")
+    protected String openAIUrl = "https://api.openai.com/v1/chat/completions";
     private final RestTemplate restTemplate = new RestTemplate();
 
     private static final String SYSTEM_PROMPT_INTENT = """
@@ -52,6 +54,24 @@ public class OpenAIService {
         return response != null ? response : "Không thể tóm tắt nội dung.";
     }
 
+    /**
+     * Gộp bản tóm tắt của các phần (theo thứ tự trong tài liệu) thành một bản tóm tắt chung
+     */
+    public String mergeSummaries(List<String> sectionSummaries) {
+        StringBuilder prompt = new StringBuilder(
+                "Dưới đây là bản tóm tắt của từng phần trong một tài liệu, theo đúng thứ tự. " +
+                "Hãy gộp chúng thành một bản tóm tắt ngắn gọn, mạch lạc, dễ hiểu:\n");
+        for (int i = 0; i < sectionSummaries.size(); i++) {
+            prompt.append("\nPhần ").append(i + 1).append(":\n").append(sectionSummaries.get(i)).append('\n');
+        }
+
+        String response = callOpenAIChatAPI(List.of(
+                new Message("user", prompt.toString())
+        ));
+
+        return response != null ? response : String.join("\n", sectionSummaries);
+    }
+
     /**
      * Dự đoán intent của người dùng
      */
@@ -95,7 +115,7 @@ public class OpenAIService {
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
 
             ResponseEntity<Map> response = restTemplate.exchange(
-                    OPENAI_URL,
+                    openAIUrl,
                     HttpMethod.POST,
                     entity,
                     Map.class
@@ -4,11 +4,13 @@ package com.spkt.libraSys.service.payment.vnpay;
 import com.spkt.libraSys.exception.AppException;
 import com.spkt.libraSys.exception.ErrorCode;
 import com.spkt.libraSys.service.access.AuthService;
+import com.spkt.libraSys.service.loan.LoanChangedEvent;
 import com.spkt.libraSys.service.loan.LoanEntity;
 import com.spkt.libraSys.service.loan.LoanRepository;
 import com.spkt.libraSys.service.user.UserEntity;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.io.UnsupportedEncodingException;
@@ -26,6 +28,8 @@ public class VNPayService {
     VnPayConfig vnp_config;
     @Autowired
     AuthService authService;
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
 
     public String createOrder(Long loanTransactionId) {
         UserEntity currentUser = authService.getCurrentUser();
@@ -159,6 +163,7 @@ public class VNPayService {
                 loanTransaction.setPaidAt(LocalDateTime.now());
                 loanTransaction.setPaymentStatus(LoanEntity.PaymentStatus.VNPAY);
                 loanRepository.save(loanTransaction);
+                eventPublisher.publishEvent(LoanChangedEvent.paid(loanTransaction));
                 return 1;
 
             } else {
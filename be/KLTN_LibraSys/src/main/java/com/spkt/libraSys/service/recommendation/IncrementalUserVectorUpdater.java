@@ -0,0 +1,240 @@
+package com.spkt.libraSys.service.recommendation;
+
+import com.spkt.libraSys.service.document.DigitalDocument.AccessRequest.AccessRequestRepository;
+import com.spkt.libraSys.service.document.DigitalDocument.AccessRequest.AccessRequestStatus;
+import com.spkt.libraSys.service.document.favorite.FavoriteDocumentRepository;
+import com.spkt.libraSys.service.loan.LoanRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cập nhật tăng dần vector người dùng khi có tương tác mới, không cần huấn luyện lại Word2Vec.
+ * <p>
+ * Vector người dùng lúc huấn luyện có dạng {@code (Σ w_i * v_i) / Σ w_i}, trong đó các thành phần tương tác
+ * (mượn 0.25, yêu thích 0.2, truy cập 0.15) là trung bình vector các tài liệu tương ứng. Ở lần cập nhật đầu tiên
+ * của một người dùng, phần "còn lại" (profile, người dùng tương tự) được tách ra khỏi vector trong snapshot;
+ * các lần sau chỉ tính lại trung bình các thành phần tương tác của riêng người dùng đó rồi ghép lại.
+ * Các vector cập nhật được giữ trong bộ nhớ, ưu tiên hơn snapshot và bị xóa khi huấn luyện lại.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IncrementalUserVectorUpdater {
+    private static final float PROFILE_WEIGHT = 0.25f;
+
+    private final LoanRepository loanRepository;
+    private final FavoriteDocumentRepository favoriteRepository;
+    private final AccessRequestRepository accessRequestRepository;
+
+    private final Map<String, UserVectorState> overlay = new ConcurrentHashMap<>();
+    private final AtomicLong unknownDocumentEvents = new AtomicLong();
+
+    /**
+     * Trọng số của từng loại tương tác, giống với lúc huấn luyện
+     */
+    public static float weightOf(UserInteractionMatrix.Kind kind) {
+        return switch (kind) {
+            case LOAN -> 0.25f;
+            case FAVORITE -> 0.2f;
+            case ACCESS -> 0.15f;
+        };
+    }
+
+    /**
+     * Vector đã cập nhật tăng dần của người dùng, null nếu chưa có cập nhật nào kể từ lần huấn luyện gần nhất.
+     * Mảng trả về không được sửa đổi.
+     */
+    public float[] userVector(String userId) {
+        UserVectorState state = userId != null ? overlay.get(userId) : null;
+        return state != null ? state.vector : null;
+    }
+
+    /**
+     * Vector cập nhật tăng dần đã chuẩn hóa L2, null nếu chưa có cập nhật hoặc vector có độ dài 0.
+     * Mảng trả về không được sửa đổi.
+     */
+    public float[] normalizedUserVector(String userId) {
+        UserVectorState state = userId != null ? overlay.get(userId) : null;
+        return state != null ? state.normalized : null;
+    }
+
+    /**
+     * Áp dụng một tương tác mới lên vector của người dùng
+     * @param event Tương tác vừa được lưu
+     * @param snapshot Snapshot vector hiện hành
+     * @return false nếu tài liệu chưa có vector (từ vựng đã thay đổi, cần huấn luyện lại)
+     */
+    public boolean apply(UserInteractionEvent event, VectorSnapshotStore.VectorSnapshot snapshot) {
+        MappedVectorStore documents = snapshot.getDocuments();
+        if (!documents.contains(String.valueOf(event.getDocumentId()))) {
+            unknownDocumentEvents.incrementAndGet();
+            log.debug("Document {} has no vector yet, user {} will be refreshed on next training",
+                    event.getDocumentId(), event.getUserId());
+            return false;
+        }
+
+        String userId = event.getUserId();
+        Map<UserInteractionMatrix.Kind, List<Long>> interactions = loadInteractions(userId);
+        overlay.compute(userId, (id, state) -> {
+            UserVectorState base = state != null ? state : initialState(event, interactions, snapshot);
+            return base.recompute(interactions, documents);
+        });
+        log.debug("Incrementally updated vector of user {} after {} on document {}",
+                userId, event.getKind(), event.getDocumentId());
+        return true;
+    }
+
+    /**
+     * Có tương tác với tài liệu chưa nằm trong mô hình kể từ lần huấn luyện gần nhất hay không
+     */
+    public boolean hasVocabularyDrift() {
+        return unknownDocumentEvents.get() > 0;
+    }
+
+    public int updatedUserCount() {
+        return overlay.size();
+    }
+
+    /**
+     * Xóa toàn bộ cập nhật tăng dần, gọi sau khi snapshot mới được huấn luyện
+     */
+    public void reset() {
+        overlay.clear();
+        unknownDocumentEvents.set(0);
+    }
+
+    private Map<UserInteractionMatrix.Kind, List<Long>> loadInteractions(String userId) {
+        Map<UserInteractionMatrix.Kind, List<Long>> interactions = new EnumMap<>(UserInteractionMatrix.Kind.class);
+        interactions.put(UserInteractionMatrix.Kind.LOAN, loanRepository.findDocumentIdsByUserId(userId));
+        interactions.put(UserInteractionMatrix.Kind.FAVORITE, favoriteRepository.findDocumentIdsByUserId(userId));
+        interactions.put(UserInteractionMatrix.Kind.ACCESS,
+                accessRequestRepository.findDocumentIdsByUserId(AccessRequestStatus.APPROVED, userId));
+        return interactions;
+    }
+
+    /**
+     * Tách phần không phụ thuộc tương tác ra khỏi vector trong snapshot.
+     * Tương tác hiện tại đã gồm cả sự kiện vừa xảy ra nên được loại ra để có trạng thái lúc huấn luyện.
+     */
+    private UserVectorState initialState(UserInteractionEvent event,
+                                         Map<UserInteractionMatrix.Kind, List<Long>> interactions,
+                                         VectorSnapshotStore.VectorSnapshot snapshot) {
+        MappedVectorStore documents = snapshot.getDocuments();
+        float[] trained = snapshot.getUsers().get(event.getUserId());
+        if (trained == null) {
+            // Người dùng chưa có trong mô hình: chỉ dựa trên tương tác
+            return new UserVectorState(new float[documents.dimension()], 0f, null);
+        }
+
+        Map<UserInteractionMatrix.Kind, List<Long>> previous = new EnumMap<>(interactions);
+        List<Long> withoutEvent = new ArrayList<>(interactions.get(event.getKind()));
+        withoutEvent.remove(event.getDocumentId());
+        previous.put(event.getKind(), withoutEvent);
+
+        List<float[]> averages = new ArrayList<>();
+        List<UserInteractionMatrix.Kind> kinds = new ArrayList<>();
+        for (UserInteractionMatrix.Kind kind : UserInteractionMatrix.Kind.values()) {
+            float[] average = average(previous.get(kind), documents);
+            if (average != null) {
+                averages.add(average);
+                kinds.add(kind);
+            }
+        }
+
+        float totalWeight = snapshot.userWeight(event.getUserId());
+        if (Float.isNaN(totalWeight)) {
+            // Snapshot cũ không lưu trọng số: ước lượng theo các thành phần đang có
+            totalWeight = PROFILE_WEIGHT;
+            for (UserInteractionMatrix.Kind kind : kinds) {
+                totalWeight += weightOf(kind);
+            }
+        }
+
+        float[] residual = new float[trained.length];
+        for (int d = 0; d < trained.length; d++) {
+            residual[d] = trained[d] * totalWeight;
+        }
+        float residualWeight = totalWeight;
+        for (int i = 0; i < kinds.size(); i++) {
+            float weight = weightOf(kinds.get(i));
+            float[] average = averages.get(i);
+            for (int d = 0; d < residual.length; d++) {
+                residual[d] -= weight * average[d];
+            }
+            residualWeight -= weight;
+        }
+        return new UserVectorState(residual, Math.max(0f, residualWeight), trained);
+    }
+
+    private static float[] average(List<Long> documentIds, MappedVectorStore documents) {
+        if (documentIds == null || documentIds.isEmpty()) {
+            return null;
+        }
+        float[] sum = new float[documents.dimension()];
+        int count = 0;
+        for (Long documentId : documentIds) {
+            float[] vector = documents.get(String.valueOf(documentId));
+            if (vector == null) {
+                continue;
+            }
+            for (int d = 0; d < sum.length; d++) {
+                sum[d] += vector[d];
+            }
+            count++;
+        }
+        if (count == 0) {
+            return null;
+        }
+        for (int d = 0; d < sum.length; d++) {
+            sum[d] /= count;
+        }
+        return sum;
+    }
+
+    /**
+     * Phần vector không phụ thuộc tương tác (đã nhân trọng số) và vector hiện hành của người dùng
+     */
+    private static final class UserVectorState {
+        final float[] residual;
+        final float residualWeight;
+        final float[] vector;
+        final float[] normalized;
+
+        UserVectorState(float[] residual, float residualWeight, float[] vector) {
+            this.residual = residual;
+            this.residualWeight = residualWeight;
+            this.vector = vector;
+            this.normalized = vector != null ? SimilarityKernel.normalizedCopy(vector) : null;
+        }
+
+        UserVectorState recompute(Map<UserInteractionMatrix.Kind, List<Long>> interactions, MappedVectorStore documents) {
+            float[] combined = residual.clone();
+            float totalWeight = residualWeight;
+            for (UserInteractionMatrix.Kind kind : UserInteractionMatrix.Kind.values()) {
+                float[] average = average(interactions.get(kind), documents);
+                if (average == null) {
+                    continue;
+                }
+                float weight = weightOf(kind);
+                for (int d = 0; d < combined.length; d++) {
+                    combined[d] += weight * average[d];
+                }
+                totalWeight += weight;
+            }
+            if (totalWeight > 0) {
+                for (int d = 0; d < combined.length; d++) {
+                    combined[d] /= totalWeight;
+                }
+            }
+            return new UserVectorState(residual, residualWeight, combined);
+        }
+    }
+}
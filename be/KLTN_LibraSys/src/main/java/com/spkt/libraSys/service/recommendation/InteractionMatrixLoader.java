@@ -0,0 +1,74 @@
+package com.spkt.libraSys.service.recommendation;
+
+import com.spkt.libraSys.service.document.DigitalDocument.AccessRequest.AccessRequestRepository;
+import com.spkt.libraSys.service.document.DigitalDocument.AccessRequest.AccessRequestStatus;
+import com.spkt.libraSys.service.document.favorite.FavoriteDocumentRepository;
+import com.spkt.libraSys.service.loan.LoanRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Nạp toàn bộ lịch sử mượn, yêu thích và yêu cầu truy cập đã duyệt của mọi user bằng vài truy vấn
+ * phân trang theo khóa (keyset), thay cho việc truy vấn lặp lại theo từng user khi huấn luyện.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InteractionMatrixLoader {
+    private static final int BATCH_SIZE = 5000;
+
+    private final LoanRepository loanRepository;
+    private final FavoriteDocumentRepository favoriteRepository;
+    private final AccessRequestRepository accessRequestRepository;
+
+    /**
+     * Tạo ma trận tương tác cho các user đã được đánh chỉ số
+     * @param userIndex Ánh xạ userId → chỉ số hàng
+     * @return Ma trận tương tác user → document
+     */
+    @Transactional(readOnly = true)
+    public UserInteractionMatrix load(Map<String, Integer> userIndex) {
+        UserInteractionMatrix.Builder builder = UserInteractionMatrix.builder(userIndex);
+
+        int loans = scan(loanRepository::findInteractionsAfter, UserInteractionMatrix.Kind.LOAN, builder);
+        int favorites = scan(favoriteRepository::findInteractionsAfter, UserInteractionMatrix.Kind.FAVORITE, builder);
+        // Chỉ yêu cầu truy cập đã được duyệt mới được tính là tương tác
+        int accesses = scan((lastId, batch) -> accessRequestRepository.findInteractionsAfter(AccessRequestStatus.APPROVED, lastId, batch),
+                UserInteractionMatrix.Kind.ACCESS, builder);
+
+        log.info("Loaded interaction matrix for {} users: {} loans, {} favorites, {} approved access requests",
+                userIndex.size(), loans, favorites, accesses);
+        return builder.build();
+    }
+
+    /**
+     * Duyệt bảng theo từng trang sắp xếp theo id; mỗi dòng có dạng [id, userId, documentId]
+     */
+    private int scan(BiFunction<Long, Pageable, List<Object[]>> query,
+                     UserInteractionMatrix.Kind kind,
+                     UserInteractionMatrix.Builder builder) {
+        Pageable batch = PageRequest.of(0, BATCH_SIZE);
+        long lastId = 0L;
+        int total = 0;
+        List<Object[]> rows;
+        do {
+            rows = query.apply(lastId, batch);
+            for (Object[] row : rows) {
+                lastId = ((Number) row[0]).longValue();
+                if (row[1] != null && row[2] != null) {
+                    builder.add(kind, (String) row[1], ((Number) row[2]).longValue());
+                }
+            }
+            total += rows.size();
+        } while (rows.size() == BATCH_SIZE);
+        return total;
+    }
+}
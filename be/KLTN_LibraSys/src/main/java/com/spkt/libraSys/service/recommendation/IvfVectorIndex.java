@@ -0,0 +1,342 @@
+package com.spkt.libraSys.service.recommendation;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Chỉ mục láng giềng gần đúng (ANN) kiểu IVF cho vector tài liệu.
+ * Các vector được chuẩn hóa L2 và lưu liên tiếp trong một mảng float duy nhất, sắp xếp theo cụm
+ * nên mỗi danh sách đảo (inverted list) là một đoạn liền kề. Khi truy vấn chỉ duyệt {@code nprobe}
+ * cụm gần nhất, do đó chi phí là O(nlist + n * nprobe / nlist) thay vì O(n).
+ * Điểm trả về là cosine similarity (tích vô hướng giữa các vector đã chuẩn hóa), tính bằng {@link SimilarityKernel}.
+ */
+public final class IvfVectorIndex {
+
+    private static final int KMEANS_ITERATIONS = 10;
+    private static final int TRAINING_SAMPLES_PER_LIST = 64;
+
+    private final int dimension;
+    private final int listCount;
+    private final float[] centroids;
+    private final int[] listOffsets;
+    private final float[] vectors;
+    private final long[] ids;
+    // ID sắp xếp tăng dần kèm vị trí trong arena, để tra vector theo ID bằng tìm kiếm nhị phân
+    private final long[] lookupIds;
+    private final int[] lookupPositions;
+
+    private IvfVectorIndex(int dimension, float[] centroids, int[] listOffsets, float[] vectors, long[] ids) {
+        this.dimension = dimension;
+        this.listCount = listOffsets.length - 1;
+        this.centroids = centroids;
+        this.listOffsets = listOffsets;
+        this.vectors = vectors;
+        this.ids = ids;
+
+        Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(ids[a], ids[b]));
+        this.lookupIds = new long[ids.length];
+        this.lookupPositions = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            lookupIds[i] = ids[order[i]];
+            lookupPositions[i] = order[i];
+        }
+    }
+
+    public static IvfVectorIndex empty(int dimension) {
+        return new IvfVectorIndex(dimension, new float[0], new int[]{0}, new float[0], new long[0]);
+    }
+
+    /**
+     * Xây dựng chỉ mục với số cụm mặc định xấp xỉ căn bậc hai số vector
+     * @param ids ID của từng vector
+     * @param arena Các vector nối liền nhau theo hàng (ids.length * dimension phần tử)
+     * @param dimension Số chiều vector
+     * @return Chỉ mục đã xây dựng
+     */
+    public static IvfVectorIndex build(long[] ids, float[] arena, int dimension) {
+        return build(ids, arena, dimension, (int) Math.max(1, Math.round(Math.sqrt(ids.length))), 42L);
+    }
+
+    public static IvfVectorIndex build(long[] ids, float[] arena, int dimension, int listCount, long seed) {
+        int n = ids.length;
+        if (arena.length != n * dimension) {
+            throw new IllegalArgumentException("Arena size does not match ids and dimension");
+        }
+        if (n == 0) {
+            return empty(dimension);
+        }
+        float[] normalized = Arrays.copyOf(arena, arena.length);
+        for (int i = 0; i < n; i++) {
+            SimilarityKernel.normalize(normalized, i * dimension, dimension);
+        }
+
+        int lists = Math.min(Math.max(1, listCount), n);
+        float[] centroids = trainCentroids(normalized, n, dimension, lists, seed);
+
+        // Gán mỗi vector vào cụm gần nhất rồi sắp xếp lại arena theo cụm (counting sort)
+        int[] assignment = new int[n];
+        int[] offsets = new int[lists + 1];
+        for (int i = 0; i < n; i++) {
+            assignment[i] = nearestCentroid(centroids, lists, normalized, i * dimension, dimension);
+            offsets[assignment[i] + 1]++;
+        }
+        for (int c = 0; c < lists; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        int[] cursor = Arrays.copyOf(offsets, lists);
+        float[] sortedVectors = new float[normalized.length];
+        long[] sortedIds = new long[n];
+        for (int i = 0; i < n; i++) {
+            int target = cursor[assignment[i]]++;
+            System.arraycopy(normalized, i * dimension, sortedVectors, target * dimension, dimension);
+            sortedIds[target] = ids[i];
+        }
+        return new IvfVectorIndex(dimension, centroids, offsets, sortedVectors, sortedIds);
+    }
+
+    /**
+     * Tìm k vector gần nhất, chỉ duyệt nprobe cụm có tâm gần truy vấn nhất
+     * @param query Vector truy vấn (không cần chuẩn hóa trước)
+     * @param k Số kết quả tối đa
+     * @param nprobe Số cụm được duyệt
+     * @return Kết quả sắp xếp theo điểm giảm dần
+     */
+    public SearchResult search(float[] query, int k, int nprobe) {
+        float[] q = normalizedQuery(query);
+        if (q == null || size() == 0 || k <= 0) {
+            return SearchResult.EMPTY;
+        }
+        int probes = Math.min(Math.max(1, nprobe), listCount);
+        TopK probeLists = new TopK(probes);
+        for (int c = 0; c < listCount; c++) {
+            probeLists.offer(c, dot(centroids, c * dimension, q, dimension));
+        }
+        TopK top = new TopK(Math.min(k, size()));
+        for (int p = 0; p < probeLists.size; p++) {
+            int list = probeLists.positions[p];
+            for (int i = listOffsets[list]; i < listOffsets[list + 1]; i++) {
+                top.offer(i, dot(vectors, i * dimension, q, dimension));
+            }
+        }
+        return top.toResult(ids);
+    }
+
+    /**
+     * Quét toàn bộ (brute-force), dùng làm chuẩn để đo recall
+     */
+    public SearchResult searchExact(float[] query, int k) {
+        float[] q = normalizedQuery(query);
+        if (q == null || size() == 0 || k <= 0) {
+            return SearchResult.EMPTY;
+        }
+        TopK top = new TopK(Math.min(k, size()));
+        for (int i = 0; i < ids.length; i++) {
+            top.offer(i, dot(vectors, i * dimension, q, dimension));
+        }
+        return top.toResult(ids);
+    }
+
+    /**
+     * Cosine similarity giữa vector đã chuẩn hóa sẵn của tài liệu {@code id} và một truy vấn đã chuẩn hóa L2
+     * @return NaN nếu tài liệu không có trong chỉ mục
+     */
+    public float similarity(long id, float[] normalizedQuery) {
+        int found = Arrays.binarySearch(lookupIds, id);
+        if (found < 0 || normalizedQuery == null || normalizedQuery.length != dimension) {
+            return Float.NaN;
+        }
+        return SimilarityKernel.dot(vectors, lookupPositions[found] * dimension, normalizedQuery, 0, dimension);
+    }
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(lookupIds, id) >= 0;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int listCount() {
+        return listCount;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    private float[] normalizedQuery(float[] query) {
+        if (query == null || query.length != dimension) {
+            return null;
+        }
+        float[] q = Arrays.copyOf(query, dimension);
+        SimilarityKernel.normalize(q, 0, dimension);
+        return q;
+    }
+
+    private static float[] trainCentroids(float[] data, int n, int dimension, int lists, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        // Huấn luyện trên một mẫu con để chi phí k-means không tăng theo toàn bộ catalogue
+        int sampleSize = Math.min(n, lists * TRAINING_SAMPLES_PER_LIST);
+        int[] sample = new int[n];
+        for (int i = 0; i < n; i++) {
+            sample[i] = i;
+        }
+        for (int i = 0; i < sampleSize; i++) {
+            int j = i + random.nextInt(n - i);
+            int tmp = sample[i];
+            sample[i] = sample[j];
+            sample[j] = tmp;
+        }
+
+        float[] centroids = new float[lists * dimension];
+        for (int c = 0; c < lists; c++) {
+            System.arraycopy(data, sample[c] * dimension, centroids, c * dimension, dimension);
+        }
+
+        float[] sums = new float[lists * dimension];
+        int[] counts = new int[lists];
+        for (int iteration = 0; iteration < KMEANS_ITERATIONS; iteration++) {
+            Arrays.fill(sums, 0f);
+            Arrays.fill(counts, 0);
+            for (int s = 0; s < sampleSize; s++) {
+                int offset = sample[s] * dimension;
+                int c = nearestCentroid(centroids, lists, data, offset, dimension);
+                counts[c]++;
+                for (int d = 0; d < dimension; d++) {
+                    sums[c * dimension + d] += data[offset + d];
+                }
+            }
+            for (int c = 0; c < lists; c++) {
+                if (counts[c] == 0) {
+                    // Cụm rỗng: khởi tạo lại từ một điểm mẫu ngẫu nhiên
+                    System.arraycopy(data, sample[random.nextInt(sampleSize)] * dimension, centroids, c * dimension, dimension);
+                    continue;
+                }
+                System.arraycopy(sums, c * dimension, centroids, c * dimension, dimension);
+                SimilarityKernel.normalize(centroids, c * dimension, dimension);
+            }
+        }
+        return centroids;
+    }
+
+    private static int nearestCentroid(float[] centroids, int lists, float[] data, int offset, int dimension) {
+        int best = 0;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int c = 0; c < lists; c++) {
+            float score = SimilarityKernel.dot(centroids, c * dimension, data, offset, dimension);
+            if (score > bestScore) {
+                bestScore = score;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    private static float dot(float[] arena, int offset, float[] q, int dimension) {
+        return SimilarityKernel.dot(arena, offset, q, 0, dimension);
+    }
+
+    /**
+     * Kết quả truy vấn: ID và điểm tương ứng, sắp xếp giảm dần theo điểm
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class SearchResult {
+        static final SearchResult EMPTY = new SearchResult(new long[0], new float[0]);
+
+        private final long[] ids;
+        private final float[] scores;
+
+        public int size() {
+            return ids.length;
+        }
+    }
+
+    /**
+     * Min-heap cố định kích thước trên mảng nguyên thủy, giữ k phần tử có điểm cao nhất
+     */
+    private static final class TopK {
+        final int[] positions;
+        final float[] scores;
+        int size;
+
+        TopK(int capacity) {
+            positions = new int[capacity];
+            scores = new float[capacity];
+        }
+
+        void offer(int position, float score) {
+            if (positions.length == 0) {
+                return;
+            }
+            if (size < positions.length) {
+                positions[size] = position;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (score > scores[0]) {
+                positions[0] = position;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        SearchResult toResult(long[] ids) {
+            int n = size;
+            long[] resultIds = new long[n];
+            float[] resultScores = new float[n];
+            // Lấy lần lượt phần tử nhỏ nhất ra cuối mảng kết quả để có thứ tự giảm dần
+            for (int i = n - 1; i >= 0; i--) {
+                resultIds[i] = ids[positions[0]];
+                resultScores[i] = scores[0];
+                size--;
+                positions[0] = positions[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return new SearchResult(resultIds, resultScores);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] <= scores[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) {
+                    return;
+                }
+                int smallest = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+                if (scores[i] <= scores[smallest]) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int p = positions[a];
+            positions[a] = positions[b];
+            positions[b] = p;
+            float s = scores[a];
+            scores[a] = scores[b];
+            scores[b] = s;
+        }
+    }
+}
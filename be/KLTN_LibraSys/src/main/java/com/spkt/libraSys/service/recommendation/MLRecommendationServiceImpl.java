@@ -2,11 +2,9 @@ package com.spkt.libraSys.service.recommendation;
 
 import com.spkt.libraSys.service.access.AuthService;
 import com.spkt.libraSys.service.document.*;
-import com.spkt.libraSys.service.document.DigitalDocument.AccessRequest.AccessRequestEntity;
 import com.spkt.libraSys.service.document.DigitalDocument.AccessRequest.AccessRequestRepository;
 import com.spkt.libraSys.service.document.DigitalDocument.DigitalDocumentEntity;
 import com.spkt.libraSys.service.document.DigitalDocument.DigitalDocumentRepository;
-import com.spkt.libraSys.service.document.favorite.FavoriteDocumentEntity;
 import com.spkt.libraSys.service.document.favorite.FavoriteDocumentRepository;
 import com.spkt.libraSys.service.document.upload.UploadEntity;
 import com.spkt.libraSys.service.document.upload.UploadRepository;
@@ -14,10 +12,8 @@ import com.spkt.libraSys.service.document.viewer.ApprovalStatus;
 import com.spkt.libraSys.service.role.RoleEntity;
 import com.spkt.libraSys.service.user.UserEntity;
 import com.spkt.libraSys.service.PageDTO;
-import com.spkt.libraSys.service.loan.LoanEntity;
 import com.spkt.libraSys.service.loan.LoanRepository;
 import com.spkt.libraSys.service.user.UserRepository;
-import com.spkt.libraSys.service.document.PhysicalDocument.PhysicalDocumentEntity;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
@@ -33,23 +29,23 @@ import org.nd4j.linalg.factory.Nd4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
@@ -65,23 +61,43 @@ public class MLRecommendationServiceImpl implements MLRecommendationService {
     private final DocumentMapper documentMapper;
     private final AuthService authService;
     private final DigitalDocumentRepository digitalDocumentRepository;
+    private final InteractionMatrixLoader interactionMatrixLoader;
+    private final VectorSnapshotStore vectorSnapshotStore;
+    private final IncrementalUserVectorUpdater incrementalUpdater;
+    private final RecommendationCache recommendationCache;
 
     private Word2Vec word2Vec;
-    private Map<String, INDArray> documentVectors;
-    private Map<String, INDArray> userVectors;
-    
-    // Cache for recommendations
-    private final Map<String, List<DocumentResponseDto>> recommendationCache = new ConcurrentHashMap<>();
-    private final Map<String, LocalDateTime> cacheTimestamps = new ConcurrentHashMap<>();
-    private static final Duration CACHE_DURATION = Duration.ofMinutes(30);
-
-    // Cache for document vectors
-    private final Map<Long, INDArray> documentVectorCache = new ConcurrentHashMap<>();
-    
-    // Cache for user vectors
-    private final Map<String, INDArray> userVectorCache = new ConcurrentHashMap<>();
+    // Snapshot vector (ánh xạ bộ nhớ) đang phục vụ truy vấn, được thay thế nguyên khối sau mỗi lần huấn luyện
+    private volatile VectorSnapshotStore.VectorSnapshot vectors = VectorSnapshotStore.VectorSnapshot.empty(VECTOR_SIZE);
+
+    // Số documentId tối đa giữ trong cache cho mỗi người dùng
+    @Value("${app.recommendation.cache.top-n:1000}")
+    private int cachedTopN;
+
+    @Value("${app.recommendation.precompute.enabled:false}")
+    private boolean precomputeEnabled;
+
+    @Value("${app.recommendation.precompute.active-days:30}")
+    private int precomputeActiveDays;
+
+    // Chỉ mục ANN cho vector tài liệu, được thay thế nguyên khối sau mỗi lần huấn luyện/nạp mô hình
+    private volatile IvfVectorIndex documentIndex = IvfVectorIndex.empty(VECTOR_SIZE);
+
+    // Danh sách láng giềng (top-10) của từng người dùng, tính trước khi huấn luyện/nạp mô hình
+    private volatile SimilarUserIndex similarUsers = SimilarUserIndex.empty();
+
+    // Số tài liệu/người dùng của lần huấn luyện gần nhất, dùng để phát hiện thay đổi catalogue
+    private volatile long trainedDocumentCount = -1;
+    private volatile long trainedUserCount = -1;
+
+    @Value("${app.recommendation.ann.nprobe:8}")
+    private int annProbes;
+
+    private static final int VECTOR_SIZE = 200;
+    private static final int CORRELATION_LIMIT = 50;
 
     private static final String MODEL_PATH = "models/word2vec.zip";
+    // Định dạng Java-serialized cũ, chỉ dùng để chuyển đổi sang snapshot ánh xạ bộ nhớ
     private static final String DOC_VECTORS_PATH = "models/document_vectors.ser";
     private static final String USER_VECTORS_PATH = "models/user_vectors.ser";
 
@@ -90,14 +106,11 @@ public class MLRecommendationServiceImpl implements MLRecommendationService {
     public void trainModel() {
         try {
             // Clear caches when retraining
-            recommendationCache.clear();
-            cacheTimestamps.clear();
-            documentVectorCache.clear();
-            userVectorCache.clear();
+            recommendationCache.invalidateAll();
 
             // 1. Thu thập dữ liệu với eager loading
             List<DocumentEntity> documents = documentRepository.findAllWithDocumentTypes();
-            List<UserEntity> users = userRepository.findAll();
+            List<UserEntity> users = userRepository.findAllWithRoles();
             
             if (documents.isEmpty() || users.isEmpty()) {
                 log.warn("No documents or users found in database");
@@ -158,7 +171,7 @@ public class MLRecommendationServiceImpl implements MLRecommendationService {
             word2Vec.fit();
 
             // 5. Tạo vector cho sách - Ensure document types are loaded
-            documentVectors = new HashMap<>();
+            Map<String, INDArray> documentVectors = new HashMap<>();
             for (DocumentEntity doc : documents) {
                 if (doc.getDocumentTypes() == null) {
                     log.warn("Document types is null for document: {}", doc.getDocumentId());
@@ -181,7 +194,22 @@ public class MLRecommendationServiceImpl implements MLRecommendationService {
             }
 
             // 6. Tạo vector cho người dùng với các yếu tố chung
-            userVectors = new HashMap<>();
+            // Nạp tương tác của toàn bộ user một lần, sau đó tính hoàn toàn trong bộ nhớ
+            Map<Long, DocumentEntity> documentsById = new HashMap<>();
+            for (DocumentEntity doc : documents) {
+                if (doc.getDocumentTypes() != null) {
+                    documentsById.put(doc.getDocumentId(), doc);
+                }
+            }
+            Map<String, Integer> userIndex = new HashMap<>();
+            for (UserEntity user : users) {
+                userIndex.putIfAbsent(user.getUserId(), userIndex.size());
+            }
+            UserInteractionMatrix interactions = interactionMatrixLoader.load(userIndex);
+            similarUsers = buildSimilarUserIndex(users, userIndex, interactions);
+
+            Map<String, INDArray> userVectors = new HashMap<>();
+            Map<String, Float> userWeights = new HashMap<>();
             for (UserEntity user : users) {
                 INDArray userVector = Nd4j.zeros(200);
                 double totalWeight = 0.0;
@@ -199,140 +227,72 @@ public class MLRecommendationServiceImpl implements MLRecommendationService {
                 totalWeight += 0.25;
 
                 // 6.2 Thông tin từ lịch sử mượn (weight: 0.25)
-                List<LoanEntity> userLoans = loanRepository.findByUserEntityWithDocuments(user);
-                if (!userLoans.isEmpty()) {
-                    INDArray loanVector = Nd4j.zeros(200);
-                    int loanCount = 0;
-                    Map<String, Integer> documentTypeCount = new HashMap<>();
-                    
-                    for (LoanEntity loan : userLoans) {
-                        try {
-                            PhysicalDocumentEntity physicalDoc = loan.getPhysicalDoc();
-                            if (physicalDoc != null && physicalDoc.getDocument() != null) {
-                                DocumentEntity doc = physicalDoc.getDocument();
-                                // Ensure document types are loaded
-                                DocumentEntity loadedDoc = documentRepository.findByIdWithDocumentTypes(doc.getDocumentId())
-                                    .orElse(null);
-                                if (loadedDoc != null && loadedDoc.getDocumentTypes() != null) {
-                                    INDArray docVector = documentVectors.get(loadedDoc.getDocumentId().toString());
-                                    if (docVector != null) {
-                                        loanVector.addi(docVector);
-                                        loanCount++;
-                                        
-                                        loadedDoc.getDocumentTypes().forEach(type -> 
-                                            documentTypeCount.merge(type.getTypeName(), 1, Integer::sum)
-                                        );
-                                    }
-                                }
-                            }
-                        } catch (Exception e) {
-                            log.warn("Error processing loan for user {}: {}", user.getUserId(), e.getMessage());
-                        }
-                    }
-                    if (loanCount > 0) {
-                        loanVector.divi(loanCount);
-                        userVector.addi(loanVector.mul(0.25));
-                        totalWeight += 0.25;
-                        
-                        log.info("User {} document type preferences: {}", user.getUserId(), documentTypeCount);
-                    }
+                Map<String, Integer> documentTypeCount = new HashMap<>();
+                INDArray loanVector = averageInteractionVector(
+                        interactions.documentIds(UserInteractionMatrix.Kind.LOAN, user.getUserId()),
+                        documentsById, documentVectors, documentTypeCount);
+                if (loanVector != null) {
+                    double loanWeight = IncrementalUserVectorUpdater.weightOf(UserInteractionMatrix.Kind.LOAN);
+                    userVector.addi(loanVector.muli(loanWeight));
+                    totalWeight += loanWeight;
+
+                    log.debug("User {} document type preferences: {}", user.getUserId(), documentTypeCount);
                 }
 
                 // 6.3 Thông tin từ sách yêu thích (weight: 0.2)
-                List<FavoriteDocumentEntity> favorites = favoriteRepository.findByUser(user);
-                if (!favorites.isEmpty()) {
-                    INDArray favoriteVector = Nd4j.zeros(200);
-                    int favoriteCount = 0;
-                    Map<String, Integer> favoriteTypeCount = new HashMap<>();
-                    
-                    for (FavoriteDocumentEntity favorite : favorites) {
-                        DocumentEntity doc = favorite.getDocument();
-                        if (doc != null) {
-                            // Ensure document types are loaded
-                            DocumentEntity loadedDoc = documentRepository.findByIdWithDocumentTypes(doc.getDocumentId())
-                                .orElse(null);
-                            if (loadedDoc != null && loadedDoc.getDocumentTypes() != null) {
-                                INDArray docVector = documentVectors.get(loadedDoc.getDocumentId().toString());
-                                if (docVector != null) {
-                                    favoriteVector.addi(docVector);
-                                    favoriteCount++;
-                                    
-                                    loadedDoc.getDocumentTypes().forEach(type -> 
-                                        favoriteTypeCount.merge(type.getTypeName(), 1, Integer::sum)
-                                    );
-                                }
-                            }
-                        }
-                    }
-                    if (favoriteCount > 0) {
-                        favoriteVector.divi(favoriteCount);
-                        userVector.addi(favoriteVector.mul(0.2));
-                        totalWeight += 0.2;
-                        
-                        log.info("User {} favorite document types: {}", user.getUserId(), favoriteTypeCount);
-                    }
+                Map<String, Integer> favoriteTypeCount = new HashMap<>();
+                INDArray favoriteVector = averageInteractionVector(
+                        interactions.documentIds(UserInteractionMatrix.Kind.FAVORITE, user.getUserId()),
+                        documentsById, documentVectors, favoriteTypeCount);
+                if (favoriteVector != null) {
+                    double favoriteWeight = IncrementalUserVectorUpdater.weightOf(UserInteractionMatrix.Kind.FAVORITE);
+                    userVector.addi(favoriteVector.muli(favoriteWeight));
+                    totalWeight += favoriteWeight;
+
+                    log.debug("User {} favorite document types: {}", user.getUserId(), favoriteTypeCount);
                 }
 
                 // 6.4 Thông tin từ yêu cầu truy cập (weight: 0.15)
-                List<AccessRequestEntity> accessRequests = accessRequestRepository.findByRequesterId(user.getUserId());
-                if (!accessRequests.isEmpty()) {
-                    INDArray accessVector = Nd4j.zeros(200);
-                    int accessCount = 0;
-                    Map<String, Integer> accessTypeCount = new HashMap<>();
-                    
-                    for (AccessRequestEntity request : accessRequests) {
-                        long digitalId = request.getDigitalId();
-                        DigitalDocumentEntity digitalDocument = digitalDocumentRepository.findById(digitalId)
-                                .orElse(null);
-                        if (digitalDocument != null && digitalDocument.getDocument() != null) {
-                            // Ensure document types are loaded
-                            DocumentEntity loadedDoc = documentRepository.findByIdWithDocumentTypes(
-                                    digitalDocument.getDocument().getDocumentId()
-                            ).orElse(null);
-                            
-                            if (loadedDoc != null && loadedDoc.getDocumentTypes() != null) {
-                                INDArray docVector = documentVectors.get(loadedDoc.getDocumentId().toString());
-                                if (docVector != null) {
-                                    accessVector.addi(docVector);
-                                    accessCount++;
-                                    
-                                    loadedDoc.getDocumentTypes().forEach(type -> 
-                                        accessTypeCount.merge(type.getTypeName(), 1, Integer::sum)
-                                    );
-                                }
-                            }
-                        }
-                    }
-                    if (accessCount > 0) {
-                        accessVector.divi(accessCount);
-                        userVector.addi(accessVector.mul(0.15));
-                        totalWeight += 0.15;
-                        
-                        log.info("User {} access document types: {}", user.getUserId(), accessTypeCount);
-                    }
+                Map<String, Integer> accessTypeCount = new HashMap<>();
+                INDArray accessVector = averageInteractionVector(
+                        interactions.documentIds(UserInteractionMatrix.Kind.ACCESS, user.getUserId()),
+                        documentsById, documentVectors, accessTypeCount);
+                if (accessVector != null) {
+                    double accessWeight = IncrementalUserVectorUpdater.weightOf(UserInteractionMatrix.Kind.ACCESS);
+                    userVector.addi(accessVector.muli(accessWeight));
+                    totalWeight += accessWeight;
+
+                    log.debug("User {} access document types: {}", user.getUserId(), accessTypeCount);
                 }
 
-                // 6.5 Thêm thông tin từ các user tương tự (weight: 0.15)
-                Map<String, Double> commonFactors = analyzeCommonUserFactors(user);
-                if (!commonFactors.isEmpty()) {
-                    INDArray similarUserVector = Nd4j.zeros(200);
-                    double similarWeight = 0.0;
-
-                    List<UserEntity> similarUsers = findSimilarUsersML(user);
-                    if (!similarUsers.isEmpty()) {
-                        for (UserEntity similarUser : similarUsers) {
-                            INDArray similarVector = userVectors.get(similarUser.getUserId());
-                            if (similarVector != null) {
-                                similarUserVector.addi(similarVector);
-                                similarWeight += 1.0;
-                            }
-                        }
-                        if (similarWeight > 0) {
-                            similarUserVector.divi(similarWeight);
-                            userVector.addi(similarUserVector.mul(0.15));
-                            totalWeight += 0.15;
-                        }
-                    }
+                if (totalWeight > 0) {
+                    userVector.divi(totalWeight);
+                }
+                userVectors.put(user.getUserId(), userVector);
+                userWeights.put(user.getUserId(), (float) totalWeight);
+            }
+
+            // 6.5 Thêm thông tin từ các user tương tự (weight: 0.15), dùng vector cơ sở của láng giềng
+            // nên kết quả không phụ thuộc thứ tự duyệt user
+            Map<String, INDArray> finalUserVectors = new HashMap<>();
+            for (UserEntity user : users) {
+                String userId = user.getUserId();
+                if (finalUserVectors.containsKey(userId)) {
+                    continue;
+                }
+                double totalWeight = userWeights.get(userId);
+                INDArray userVector = userVectors.get(userId).mul(totalWeight);
+
+                INDArray similarUserVector = Nd4j.zeros(200);
+                double similarWeight = 0.0;
+                for (String neighbourId : similarUsers.neighbours(userId)) {
+                    similarUserVector.addi(userVectors.get(neighbourId));
+                    similarWeight += 1.0;
+                }
+                if (similarWeight > 0) {
+                    similarUserVector.divi(similarWeight);
+                    userVector.addi(similarUserVector.mul(0.15));
+                    totalWeight += 0.15;
                 }
 
                 // 6.6 Chuẩn hóa vector theo tổng trọng số
@@ -340,29 +300,25 @@ public class MLRecommendationServiceImpl implements MLRecommendationService {
                     userVector.divi(totalWeight);
                 }
 
-                userVectors.put(user.getUserId(), userVector);
-                log.info("Created user vector for user {} with total weight {}", user.getUserId(), totalWeight);
+                finalUserVectors.put(userId, userVector);
+                userWeights.put(userId, (float) totalWeight);
+                log.debug("Created user vector for user {} with total weight {}", userId, totalWeight);
             }
 
             // Lưu mô hình và vectors
-            saveModel();
+            saveModel(documentVectors, finalUserVectors, userWeights);
+            rebuildDocumentIndex();
+            trainedDocumentCount = documents.size();
+            trainedUserCount = users.size();
             log.info("Model training completed successfully with user common factors and document types");
-            
-            // After training, pre-compute and cache document vectors
-            documentRepository.findAllWithDocumentTypes().forEach(doc -> {
-                if (doc.getDocumentId() != null) {
-                    documentVectorCache.put(doc.getDocumentId(), documentVectors.get(doc.getDocumentId().toString()));
-                }
-            });
-
-            log.info("Model training completed successfully with optimized caching");
         } catch (Exception e) {
             log.error("Error training model: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to train model", e);
         }
     }
 
-    private void saveModel() {
+    private void saveModel(Map<String, INDArray> documentVectors, Map<String, INDArray> userVectors,
+                           Map<String, Float> userWeights) {
         try {
             // Tạo thư mục nếu chưa tồn tại
             new File("models").mkdirs();
@@ -370,15 +326,10 @@ public class MLRecommendationServiceImpl implements MLRecommendationService {
             // Lưu mô hình Word2Vec
             WordVectorSerializer.writeWord2VecModel(word2Vec, new File(MODEL_PATH));
 
-            // Lưu document vectors
-            try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(DOC_VECTORS_PATH))) {
-                oos.writeObject(documentVectors);
-            }
-
-            // Lưu user vectors
-            try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(USER_VECTORS_PATH))) {
-                oos.writeObject(userVectors);
-            }
+            // Ghi snapshot vector mới rồi chuyển sang phục vụ từ snapshot đó
+            vectors = vectorSnapshotStore.publish(VECTOR_SIZE, toFloatVectors(documentVectors),
+                    toFloatVectors(userVectors), userWeights);
+            incrementalUpdater.reset();
 
             log.info("Model saved successfully");
         } catch (IOException e) {
@@ -406,64 +357,75 @@ public class MLRecommendationServiceImpl implements MLRecommendationService {
                 return;
             }
 
-            // Đọc document vectors
-            File docVectorsFile = new File(DOC_VECTORS_PATH);
-            if (docVectorsFile.exists()) {
-                try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(docVectorsFile))) {
-                    documentVectors = (Map<String, INDArray>) ois.readObject();
-                }
-            } else {
-                documentVectors = new HashMap<>();
+            // Mở snapshot vector (ánh xạ bộ nhớ, đọc lười), chuyển đổi từ file .ser cũ nếu chưa có
+            Optional<VectorSnapshotStore.VectorSnapshot> snapshot = vectorSnapshotStore.openCurrent();
+            if (snapshot.isEmpty()) {
+                snapshot = migrateLegacyVectors();
             }
-
-            // Đọc user vectors
-            File userVectorsFile = new File(USER_VECTORS_PATH);
-            if (userVectorsFile.exists()) {
-                try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(userVectorsFile))) {
-                    userVectors = (Map<String, INDArray>) ois.readObject();
-                }
-            } else {
-                userVectors = new HashMap<>();
+            vectors = snapshot.orElseGet(() -> VectorSnapshotStore.VectorSnapshot.empty(VECTOR_SIZE));
+            incrementalUpdater.reset();
+
+            rebuildDocumentIndex();
+            rebuildSimilarUserIndex();
+            if (snapshot.isPresent()) {
+                trainedDocumentCount = vectors.getDocuments().size();
+                trainedUserCount = vectors.getUsers().size();
             }
-
             log.info("Model loaded successfully");
         } catch (Exception e) {
             log.error("Error loading model: {}", e.getMessage());
-            // Khởi tạo các map rỗng để tránh NPE
-            documentVectors = new HashMap<>();
-            userVectors = new HashMap<>();
+            // Dùng snapshot rỗng để tránh NPE
+            vectors = VectorSnapshotStore.VectorSnapshot.empty(VECTOR_SIZE);
         }
     }
 
+    /**
+     * Chuyển các file vector Java-serialized cũ (models/*.ser) sang định dạng snapshot mới
+     */
+    @SuppressWarnings("unchecked")
+    private Optional<VectorSnapshotStore.VectorSnapshot> migrateLegacyVectors() throws IOException, ClassNotFoundException {
+        File docVectorsFile = new File(DOC_VECTORS_PATH);
+        File userVectorsFile = new File(USER_VECTORS_PATH);
+        if (!docVectorsFile.exists() || !userVectorsFile.exists()) {
+            return Optional.empty();
+        }
+        Map<String, INDArray> documentVectors;
+        Map<String, INDArray> userVectors;
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(docVectorsFile))) {
+            documentVectors = (Map<String, INDArray>) ois.readObject();
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(userVectorsFile))) {
+            userVectors = (Map<String, INDArray>) ois.readObject();
+        }
+        log.info("Migrating legacy serialized vectors to mapped snapshot");
+        return Optional.of(vectorSnapshotStore.publish(VECTOR_SIZE, toFloatVectors(documentVectors),
+                toFloatVectors(userVectors), Collections.emptyMap()));
+    }
+
+    private static Map<String, float[]> toFloatVectors(Map<String, INDArray> source) {
+        Map<String, float[]> result = new HashMap<>(source.size() * 2);
+        source.forEach((id, vector) -> {
+            if (vector != null) {
+                result.put(id, vector.toFloatVector());
+            }
+        });
+        return result;
+    }
+
     @Override
     public double predictUserPreference(UserEntity user, DocumentEntity document) {
         if (user == null || user.getUserId() == null || document == null || document.getDocumentId() == null) {
             return 0.0;
         }
 
-        // Check vector caches first
-        INDArray userVector = userVectors.get(user.getUserId());
-        if (userVector != null) {
-            userVectorCache.put(user.getUserId(), userVector);
-        }
-        
-        INDArray docVector = documentVectorCache.computeIfAbsent(document.getDocumentId(), 
-            (Long k) -> documentVectors.get(k.toString()));
-        
-        if (userVector == null || docVector == null) {
+        // Vector tài liệu (trong chỉ mục) và vector người dùng (trong snapshot/bản cập nhật tăng dần) đã được
+        // chuẩn hóa L2 sẵn, nên cosine similarity chỉ còn một phép tích vô hướng trên mảng float
+        float[] normalizedUser = currentNormalizedUserVector(user.getUserId(), vectors);
+        if (normalizedUser == null) {
             return 0.0;
         }
-
-        // Optimize vector calculations
-        double dotProduct = userVector.mul(docVector).sumNumber().doubleValue();
-        double norm1 = Math.sqrt(userVector.mul(userVector).sumNumber().doubleValue());
-        double norm2 = Math.sqrt(docVector.mul(docVector).sumNumber().doubleValue());
-        
-        if (norm1 == 0 || norm2 == 0) {
-            return 0.0;
-        }
-        
-        return dotProduct / (norm1 * norm2);
+        float similarity = documentIndex.similarity(document.getDocumentId(), normalizedUser);
+        return Float.isNaN(similarity) ? 0.0 : similarity;
     }
 
     @Override
@@ -474,30 +436,41 @@ public class MLRecommendationServiceImpl implements MLRecommendationService {
             return new PageDTO<>(new PageImpl<>(Collections.emptyList()));
         }
 
-        // 1. Lấy danh sách sách
-        List<DocumentEntity> allDocuments = documentRepository.findAllWithDocumentTypes();
-        
-        // 2. Tính điểm dự đoán cho mỗi sách
-        List<DocumentEntity> recommendedDocs = allDocuments.stream()
-            .filter(doc -> doc != null && doc.getDocumentId() != null
-                    &&doc.getApprovalStatus().equals(ApprovalStatus.APPROVED) && doc.getStatus().equals(DocumentStatus.ENABLED))
-            .map(doc -> {
-                try {
-                    double score = predictUserPreference(user, doc);
-                    return new AbstractMap.SimpleEntry<>(doc, score);
-                } catch (Exception e) {
-                    log.warn("Error predicting preference for document {}: {}", doc.getDocumentId(), e.getMessage());
-                    return null;
-                }
-            })
-            .filter(Objects::nonNull)
-            //.filter(entry -> entry.getValue() >= 0)
-            .sorted(Map.Entry.<DocumentEntity, Double>comparingByValue().reversed())
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
+        float[] userVector = currentUserVector(user.getUserId(), vectors);
+        IvfVectorIndex index = documentIndex;
+        if (userVector == null || index.size() == 0) {
+            // Không có vector người dùng: mọi tài liệu cùng điểm, giữ thứ tự mặc định
+            Page<DocumentEntity> page = documentRepository.findByApprovalStatusAndStatus(
+                    ApprovalStatus.APPROVED, DocumentStatus.ENABLED, pageable);
+            return new PageDTO<>(page.map(this::convertToDto));
+        }
+
+        // 1. Lấy các ứng viên gần nhất từ chỉ mục ANN, mở rộng dần nếu bộ lọc loại bớt quá nhiều
+        int needed = (int) pageable.getOffset() + pageable.getPageSize();
+        float[] query = userVector;
+        int k = Math.min(needed * 2, index.size());
+        int probes = annProbes;
+        List<DocumentEntity> recommendedDocs;
+        while (true) {
+            IvfVectorIndex.SearchResult result = index.search(query, k, probes);
+            recommendedDocs = loadRankedDocuments(result.getIds(), doc ->
+                    ApprovalStatus.APPROVED.equals(doc.getApprovalStatus()) && DocumentStatus.ENABLED.equals(doc.getStatus()));
+            boolean exhausted = k >= index.size() && probes >= index.listCount();
+            if (recommendedDocs.size() >= needed || exhausted) {
+                break;
+            }
+            k = Math.min(k * 2, index.size());
+            probes = Math.min(probes * 2, index.listCount());
+        }
 
-        // 3. Phân trang kết quả
-        return paginateResults(recommendedDocs, pageable);
+        // 2. Phân trang kết quả
+        long total = documentRepository.countByApprovalStatusAndStatus(ApprovalStatus.APPROVED, DocumentStatus.ENABLED);
+        int start = (int) Math.min(pageable.getOffset(), recommendedDocs.size());
+        int end = Math.min(needed, recommendedDocs.size());
+        List<DocumentResponseDto> content = recommendedDocs.subList(start, end).stream()
+            .map(this::convertToDto)
+            .collect(Collectors.toList());
+        return new PageDTO<>(new PageImpl<>(content, pageable, Math.max(total, recommendedDocs.size())));
     }
 
     @Override
@@ -516,33 +489,57 @@ public class MLRecommendationServiceImpl implements MLRecommendationService {
             return Collections.emptyMap();
         }
 
-        INDArray bookVector = documentVectors.get(loadedBook.getDocumentId().toString());
+        float[] bookVector = vectors.getDocuments().get(loadedBook.getDocumentId().toString());
         if (bookVector == null) {
             log.warn("Book vector is null for document: {}", loadedBook.getDocumentId());
             return Collections.emptyMap();
         }
         
-        return documentRepository.findAllWithDocumentTypes().stream()
-            .filter(doc -> doc != null && doc.getDocumentId() != null && !doc.equals(loadedBook))
-            .map(doc -> {
-                INDArray docVector = documentVectors.get(doc.getDocumentId().toString());
-                if (docVector == null) {
-                    return null;
-                }
-                return new AbstractMap.SimpleEntry<DocumentEntity, Double>(doc, calculateCosineSimilarity(bookVector, docVector));
-            })
-            .filter(Objects::nonNull)
-            .collect(Collectors.toMap(
-                Map.Entry::getKey,
-                Map.Entry::getValue
-            ));
+        // Chỉ lấy các tài liệu gần nhất từ chỉ mục ANN thay vì so sánh với toàn bộ catalogue
+        IvfVectorIndex.SearchResult result = documentIndex.search(bookVector, CORRELATION_LIMIT + 1, annProbes);
+        Map<Long, Double> scores = new HashMap<>();
+        for (int i = 0; i < result.size(); i++) {
+            scores.put(result.getIds()[i], (double) result.getScores()[i]);
+        }
+        Map<DocumentEntity, Double> correlations = new LinkedHashMap<>();
+        for (DocumentEntity doc : loadRankedDocuments(result.getIds(), doc -> !doc.getDocumentId().equals(loadedBook.getDocumentId()))) {
+            correlations.put(doc, scores.get(doc.getDocumentId()));
+        }
+        return correlations;
     }
 
     @Override
     public void updateModel() {
+        // Vector người dùng đã được cập nhật tăng dần theo sự kiện; chỉ huấn luyện lại khi từ vựng thay đổi
+        if (trainedDocumentCount >= 0
+                && !incrementalUpdater.hasVocabularyDrift()
+                && documentRepository.count() == trainedDocumentCount
+                && userRepository.count() == trainedUserCount) {
+            log.info("Skipping model retraining: no vocabulary drift, {} users updated incrementally",
+                    incrementalUpdater.updatedUserCount());
+            return;
+        }
         trainModel();
     }
 
+    /**
+     * Cập nhật vector của riêng người dùng vừa có tương tác mới (sau khi giao dịch commit)
+     * và chỉ xóa cache gợi ý của người dùng đó
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserInteraction(UserInteractionEvent event) {
+        if (event.getUserId() == null || event.getDocumentId() == null) {
+            return;
+        }
+        try {
+            incrementalUpdater.apply(event, vectors);
+        } catch (Exception e) {
+            log.error("Error updating vector of user {}: {}", event.getUserId(), e.getMessage());
+        }
+        recommendationCache.invalidate(event.getUserId());
+    }
+
     @Override
     public Map<String, Double> analyzeReadingTrendsML() {
         Map<String, Double> trends = new HashMap<>();
@@ -599,39 +596,16 @@ public class MLRecommendationServiceImpl implements MLRecommendationService {
             return Collections.emptyList();
         }
 
-        // Phân tích các yếu tố chung
-        Map<String, Double> commonFactors = analyzeCommonUserFactors(user);
-        log.info("Common factors for user {}: {}", user.getUserId(), commonFactors);
-
-        // Tìm user tương tự dựa trên các yếu tố
-        return userRepository.findAll().stream()
-            .filter(u -> !u.getUserId().equals(user.getUserId()))
-            .map(u -> {
-                double similarity = 0.0;
-                
-                // Tính điểm tương đồng dựa trên các yếu tố
-                String userMajorCode = user.getMajorCode();
-                String otherMajorCode = u.getMajorCode();
-                if (userMajorCode != null && otherMajorCode != null && 
-                    userMajorCode.equals(otherMajorCode)) {
-                    similarity += commonFactors.getOrDefault("major_similarity", 0.0) * 0.3;
-                }
-                
-                Integer userBatch = user.getStudentBatch();
-                Integer otherBatch = u.getStudentBatch();
-                if (userBatch != null && otherBatch != null && 
-                    userBatch.equals(otherBatch)) {
-                    similarity += commonFactors.getOrDefault("batch_similarity", 0.0) * 0.3;
-                }
-                
-                similarity += commonFactors.getOrDefault("loan_similarity", 0.0) * 0.2;
-                similarity += commonFactors.getOrDefault("favorite_similarity", 0.0) * 0.2;
-                
-                return new AbstractMap.SimpleEntry<>(u, similarity);
-            })
-            .sorted(Map.Entry.<UserEntity, Double>comparingByValue().reversed())
-            .limit(10)
-            .map(Map.Entry::getKey)
+        // Tra cứu láng giềng đã tính trước, giữ nguyên thứ tự độ tương đồng
+        List<String> neighbourIds = Arrays.asList(similarUsers.neighbours(user.getUserId()));
+        if (neighbourIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<String, UserEntity> usersById = userRepository.findAllById(neighbourIds).stream()
+            .collect(Collectors.toMap(UserEntity::getUserId, Function.identity()));
+        return neighbourIds.stream()
+            .map(usersById::get)
+            .filter(Objects::nonNull)
             .collect(Collectors.toList());
     }
 
@@ -644,110 +618,112 @@ public class MLRecommendationServiceImpl implements MLRecommendationService {
         }
 
         // Check cache first
-        String cacheKey = user.getUserId();
-        LocalDateTime cacheTime = cacheTimestamps.get(cacheKey);
-        if (cacheTime != null && 
-            Duration.between(cacheTime, LocalDateTime.now()).compareTo(CACHE_DURATION) < 0) {
-            List<DocumentResponseDto> cachedRecommendations = recommendationCache.get(cacheKey);
-            if (cachedRecommendations != null) {
-                int start = (int) pageable.getOffset();
-                int end = Math.min((start + pageable.getPageSize()), cachedRecommendations.size());
-                List<DocumentResponseDto> pagedContent = start < cachedRecommendations.size() 
-                    ? cachedRecommendations.subList(start, end) 
-                    : Collections.emptyList();
-                return new PageDTO<>(new PageImpl<>(pagedContent, pageable, cachedRecommendations.size()));
-            }
+        long end = pageable.getOffset() + pageable.getPageSize();
+        RecommendationCache.RankedDocuments ranked = recommendationCache.get(user.getUserId());
+        if (ranked == null || !ranked.covers(end)) {
+            // Trang nằm ngoài phần top-N đã lưu thì dùng danh sách đầy đủ vừa tính, chỉ lưu phần đầu
+            ranked = rankDocumentsForUser(user, documentRepository.findAllWithDocumentTypes());
+            recommendationCache.put(user.getUserId(), topN(ranked, false));
         }
 
+        // Chỉ nạp và chuyển sang DTO các tài liệu của trang được yêu cầu
+        long[] documentIds = ranked.getDocumentIds();
+        int start = (int) Math.min(pageable.getOffset(), documentIds.length);
+        int stop = (int) Math.min(end, documentIds.length);
+        List<DocumentResponseDto> pagedContent = loadRankedDocuments(Arrays.copyOfRange(documentIds, start, stop), doc -> true)
+            .stream()
+            .map(this::convertToDto)
+            .collect(Collectors.toList());
+
+        return new PageDTO<>(new PageImpl<>(pagedContent, pageable, ranked.getTotal()));
+    }
+
+    /**
+     * Tính trước danh sách gợi ý cho những người dùng có hoạt động mượn gần đây (tùy chọn, tắt mặc định)
+     * để phần lớn lượt gọi getRecommendedDocumentsForUser trúng cache
+     */
+    @Scheduled(cron = "${app.recommendation.precompute.cron:0 30 2 * * ?}")
+    @Transactional(readOnly = true)
+    public void precomputeRecommendations() {
+        if (!precomputeEnabled) {
+            return;
+        }
+        List<UserEntity> activeUsers = loanRepository.findActiveUsersSince(
+            LocalDateTime.now().minusDays(precomputeActiveDays));
+        List<DocumentEntity> documents = documentRepository.findAllWithDocumentTypes();
+        for (UserEntity user : activeUsers) {
+            recommendationCache.put(user.getUserId(), topN(rankDocumentsForUser(user, documents), true));
+        }
+        log.info("Precomputed recommendations for {} active users, cache size {}, {}",
+            activeUsers.size(), recommendationCache.estimatedSize(), recommendationCache.stats());
+    }
+
+    /**
+     * Xếp hạng các tài liệu người dùng chưa mượn/yêu thích theo thể loại, danh mục, ngành và khóa học
+     */
+    private RecommendationCache.RankedDocuments rankDocumentsForUser(UserEntity user, List<DocumentEntity> documents) {
         // Get user's preferences and history
         String userMajor = user.getMajorCode();
         Integer userBatch = user.getStudentBatch();
-        
-        // Get user's loan history with eager loading
-        Set<Long> userLoanedDocIds = loanRepository.findByUserEntityWithDocuments(user).stream()
-            .map(loan -> loan.getPhysicalDoc().getDocument().getDocumentId())
-            .collect(Collectors.toSet());
-
-        // Get user's favorite documents
-        Set<Long> userFavoriteDocIds = favoriteRepository.findByUser(user).stream()
-            .map(fav -> fav.getDocument().getDocumentId())
-            .collect(Collectors.toSet());
-
-        // Get all documents with efficient filtering
-        List<DocumentEntity> allDocuments = documentRepository.findAllWithDocumentTypes().stream()
-            .filter(doc -> doc != null && doc.getDocumentId() != null)
-            .filter(doc -> !userLoanedDocIds.contains(doc.getDocumentId())) // Exclude already loaned
-            .filter(doc -> !userFavoriteDocIds.contains(doc.getDocumentId())) // Exclude favorites
-            .collect(Collectors.toList());
 
-        // Calculate recommendations using multiple factors
-        List<DocumentResponseDto> recommendations = allDocuments.stream()
-            .map(doc -> {
-                double score = 0.0;
-                
-                // 1. Document Type Score (30%)
-                if (doc.getDocumentTypes() != null) {
-                    score += 0.3 * doc.getDocumentTypes().size();
-                }
+        Set<Long> excludedDocIds = new HashSet<>(loanRepository.findDocumentIdsByUserId(user.getUserId()));
+        excludedDocIds.addAll(favoriteRepository.findDocumentIdsByUserId(user.getUserId()));
+
+        List<Map.Entry<Long, Double>> scored = new ArrayList<>();
+        for (DocumentEntity doc : documents) {
+            if (doc == null || doc.getDocumentId() == null || excludedDocIds.contains(doc.getDocumentId())) {
+                continue; // Exclude already loaned or favorite documents
+            }
+            double score = 0.0;
+
+            // 1. Document Type Score (30%)
+            if (doc.getDocumentTypes() != null) {
+                score += 0.3 * doc.getDocumentTypes().size();
+            }
 
-                // 2. Category Score (20%)
-                if (doc.getDocumentCategory() != null) {
+            // 2. Category Score (20%)
+            if (doc.getDocumentCategory() != null) {
+                score += 0.2;
+            }
+
+            // 3. Major Relevance Score (20%)
+            if (userMajor != null && doc.getDocumentTypes() != null) {
+                boolean isRelevantToMajor = doc.getDocumentTypes().stream()
+                    .anyMatch(type -> type.getTypeName().toLowerCase().contains(userMajor.toLowerCase()));
+                if (isRelevantToMajor) {
                     score += 0.2;
                 }
+            }
 
-                // 3. Major Relevance Score (20%)
-                if (userMajor != null && doc.getDocumentTypes() != null) {
-                    boolean isRelevantToMajor = doc.getDocumentTypes().stream()
-                        .anyMatch(type -> type.getTypeName().toLowerCase().contains(userMajor.toLowerCase()));
-                    if (isRelevantToMajor) {
-                        score += 0.2;
-                    }
+            // 4. Batch Relevance Score (15%)
+            if (userBatch != null && doc.getDocumentTypes() != null) {
+                boolean isRelevantToBatch = doc.getDocumentTypes().stream()
+                    .anyMatch(type -> type.getTypeName().toLowerCase().contains("batch " + userBatch));
+                if (isRelevantToBatch) {
+                    score += 0.15;
                 }
+            }
 
-                // 4. Batch Relevance Score (15%)
-                if (userBatch != null && doc.getDocumentTypes() != null) {
-                    boolean isRelevantToBatch = doc.getDocumentTypes().stream()
-                        .anyMatch(type -> type.getTypeName().toLowerCase().contains("batch " + userBatch));
-                    if (isRelevantToBatch) {
-                        score += 0.15;
-                    }
-                }
+            // 5. Popularity Score (15%) chỉ đếm lượt mượn/yêu thích của chính user với tài liệu,
+            // luôn bằng 0 vì các tài liệu đó đã bị loại ở trên nên không cần truy vấn lại
 
-                // 5. Popularity Score (15%)
-                // Get all loans and favorites for this document with eager loading
-                List<LoanEntity> docLoans = loanRepository.findByUserEntityWithDocuments(user).stream()
-                    .filter(loan -> loan.getPhysicalDoc() != null && 
-                                  loan.getPhysicalDoc().getDocument() != null &&
-                                  loan.getPhysicalDoc().getDocument().getDocumentId().equals(doc.getDocumentId()))
-                    .collect(Collectors.toList());
-
-                List<FavoriteDocumentEntity> docFavorites = favoriteRepository.findByUser(user).stream()
-                    .filter(fav -> fav.getDocument() != null && 
-                                 fav.getDocument().getDocumentId().equals(doc.getDocumentId()))
-                    .collect(Collectors.toList());
-
-                double popularityScore = 0.15 * (docLoans.size() + docFavorites.size()) / (allDocuments.size() + 1);
-                score += popularityScore;
-
-                return new AbstractMap.SimpleEntry<>(convertToDto(doc), score);
-            })
-            .filter(entry -> entry.getValue() > 0)
-            .sorted(Map.Entry.<DocumentResponseDto, Double>comparingByValue().reversed())
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
+            if (score > 0) {
+                scored.add(new AbstractMap.SimpleEntry<>(doc.getDocumentId(), score));
+            }
+        }
+        scored.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
 
-        // Update cache
-        recommendationCache.put(cacheKey, recommendations);
-        cacheTimestamps.put(cacheKey, LocalDateTime.now());
+        long[] documentIds = new long[scored.size()];
+        for (int i = 0; i < documentIds.length; i++) {
+            documentIds[i] = scored.get(i).getKey();
+        }
+        return new RecommendationCache.RankedDocuments(documentIds, documentIds.length, false);
+    }
 
-        // Apply pagination
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), recommendations.size());
-        List<DocumentResponseDto> pagedContent = start < recommendations.size() 
-            ? recommendations.subList(start, end) 
-            : Collections.emptyList();
-            
-        return new PageDTO<>(new PageImpl<>(pagedContent, pageable, recommendations.size()));
+    private RecommendationCache.RankedDocuments topN(RecommendationCache.RankedDocuments ranked, boolean precomputed) {
+        long[] documentIds = ranked.getDocumentIds();
+        long[] head = documentIds.length > cachedTopN ? Arrays.copyOf(documentIds, cachedTopN) : documentIds;
+        return new RecommendationCache.RankedDocuments(head, ranked.getTotal(), precomputed);
     }
 
     // Helper methods
@@ -764,322 +740,128 @@ public class MLRecommendationServiceImpl implements MLRecommendationService {
         return vector.divi(words.length);
     }
 
-    private double calculateCosineSimilarity(INDArray vec1, INDArray vec2) {
-        if (vec1 == null || vec2 == null) {
-            return 0.0;
-        }
-        
-        double dotProduct = vec1.mul(vec2).sumNumber().doubleValue();
-        double norm1 = Math.sqrt(vec1.mul(vec1).sumNumber().doubleValue());
-        double norm2 = Math.sqrt(vec2.mul(vec2).sumNumber().doubleValue());
-        
-        return dotProduct / (norm1 * norm2);
-    }
-
-    private PageDTO<DocumentResponseDto> paginateResults(List<DocumentEntity> documents, Pageable pageable) {
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), documents.size());
-        List<DocumentEntity> pagedDocs = start < documents.size() 
-            ? documents.subList(start, end) 
-            : new ArrayList<>();
-            
-        List<DocumentResponseDto> content = pagedDocs.stream()
-            .map(this::convertToDto)
-            .collect(Collectors.toList());
-        Page<DocumentResponseDto> page = new PageImpl<>(content, pageable, documents.size());
-        return new PageDTO<>(page);
-    }
-
-    private DocumentResponseDto convertToDto(DocumentEntity document) {
-        // Implement conversion logic here
-        return documentMapper.toDocumentResponse(document);
-    }
-
-    // Thêm các phương thức mới để phân tích hành vi và yếu tố chung của user
-
     /**
-     * Phân tích các yếu tố chung giữa các user
+     * Tính vector trung bình của các tài liệu mà user đã tương tác
+     * @param documentIds Danh sách documentId từ ma trận tương tác
+     * @param documentsById Tài liệu đã nạp kèm thể loại
+     * @param documentVectors Vector tài liệu vừa tính trong lần huấn luyện hiện tại
+     * @param typeCount Thống kê số lần xuất hiện của từng thể loại (được cập nhật)
+     * @return Vector trung bình hoặc null nếu không có tài liệu hợp lệ
      */
-    private Map<String, Double> analyzeCommonUserFactors(UserEntity user) {
-        Map<String, Double> commonFactors = new HashMap<>();
-        
-        // 1. Phân tích theo ngành học
-        String majorCode = user.getMajorCode();
-        if (majorCode != null) {
-            List<UserEntity> sameMajorUsers = userRepository.findByMajorCode(majorCode);
-            double majorSimilarity = calculateMajorSimilarity(user, sameMajorUsers);
-            commonFactors.put("major_similarity", majorSimilarity);
+    private INDArray averageInteractionVector(long[] documentIds, Map<Long, DocumentEntity> documentsById,
+                                              Map<String, INDArray> documentVectors, Map<String, Integer> typeCount) {
+        if (documentIds.length == 0) {
+            return null;
         }
-
-        // 2. Phân tích theo khóa học
-        int studentBatch = user.getStudentBatch();
-        if (studentBatch > 0) {
-            List<UserEntity> sameBatchUsers = userRepository.findByStudentBatch(studentBatch);
-            double batchSimilarity = calculateBatchSimilarity(user, sameBatchUsers);
-            commonFactors.put("batch_similarity", batchSimilarity);
-        }
-
-        // 3. Phân tích theo lịch sử mượn sách
-        List<LoanEntity> userLoans = loanRepository.findByUserEntity(user);
-        if (!userLoans.isEmpty()) {
-            double loanSimilarity = calculateLoanSimilarity(user, userLoans);
-            commonFactors.put("loan_similarity", loanSimilarity);
-        }
-
-        // 4. Phân tích theo sách yêu thích
-        List<FavoriteDocumentEntity> userFavorites = favoriteRepository.findByUser(user);
-        if (!userFavorites.isEmpty()) {
-            double favoriteSimilarity = calculateFavoriteSimilarity(user, userFavorites);
-            commonFactors.put("favorite_similarity", favoriteSimilarity);
+        INDArray sum = Nd4j.zeros(200);
+        int count = 0;
+        for (long documentId : documentIds) {
+            DocumentEntity doc = documentsById.get(documentId);
+            INDArray docVector = doc != null ? documentVectors.get(String.valueOf(documentId)) : null;
+            if (docVector == null) {
+                continue;
+            }
+            sum.addi(docVector);
+            count++;
+            doc.getDocumentTypes().forEach(type ->
+                typeCount.merge(type.getTypeName(), 1, Integer::sum)
+            );
         }
-
-        return commonFactors;
+        return count > 0 ? sum.divi(count) : null;
     }
 
     /**
-     * Tính độ tương đồng về ngành học
+     * Xây dựng lại chỉ mục ANN từ snapshot vector tài liệu hiện tại
      */
-    private double calculateMajorSimilarity(UserEntity user, List<UserEntity> sameMajorUsers) {
-        if (sameMajorUsers.isEmpty()) return 0.0;
-
-        double totalSimilarity = 0.0;
-        int count = 0;
-
-        for (UserEntity otherUser : sameMajorUsers) {
-            if (!otherUser.getUserId().equals(user.getUserId())) {
-                // So sánh các yếu tố khác ngoài ngành học
-                double similarity = 0.0;
-                
-                // So sánh khóa học
-                if (otherUser.getStudentBatch() == user.getStudentBatch()) {
-                    similarity += 0.3;
-                }
-
-                // So sánh sách yêu thích
-                List<FavoriteDocumentEntity> userFavorites = favoriteRepository.findByUser(user);
-                List<FavoriteDocumentEntity> otherFavorites = favoriteRepository.findByUser(otherUser);
-                if (!userFavorites.isEmpty() && !otherFavorites.isEmpty()) {
-                    Set<Long> userFavoriteIds = userFavorites.stream()
-                        .map(f -> f.getFavoriteId())
-                        .collect(Collectors.toSet());
-                    Set<Long> otherFavoriteIds = otherFavorites.stream()
-                        .map(f -> f.getFavoriteId())
-                        .collect(Collectors.toSet());
-                    
-                    double favoriteOverlap = calculateSetOverlap(userFavoriteIds, otherFavoriteIds);
-                    similarity += favoriteOverlap * 0.4;
-                }
-
-                // So sánh lịch sử mượn
-                List<LoanEntity> userLoans = loanRepository.findByUserEntity(user);
-                List<LoanEntity> otherLoans = loanRepository.findByUserEntity(otherUser);
-                if (!userLoans.isEmpty() && !otherLoans.isEmpty()) {
-                    Set<Long> userLoanDocIds = userLoans.stream()
-                        .map(l -> l.getPhysicalDoc().getDocument().getDocumentId())
-                        .collect(Collectors.toSet());
-                    Set<Long> otherLoanDocIds = otherLoans.stream()
-                        .map(l -> l.getPhysicalDoc().getDocument().getDocumentId())
-                        .collect(Collectors.toSet());
-                    
-                    double loanOverlap = calculateSetOverlap(userLoanDocIds, otherLoanDocIds);
-                    similarity += loanOverlap * 0.3;
-                }
-
-                totalSimilarity += similarity;
-                count++;
-            }
+    private void rebuildDocumentIndex() {
+        MappedVectorStore store = vectors.getDocuments();
+        if (store.dimension() != VECTOR_SIZE) {
+            log.warn("Unexpected document vector dimension {}", store.dimension());
+            documentIndex = IvfVectorIndex.empty(VECTOR_SIZE);
+            return;
         }
-
-        return count > 0 ? totalSimilarity / count : 0.0;
+        long[] ids = new long[store.size()];
+        float[] arena = new float[store.size() * VECTOR_SIZE];
+        for (int row = 0; row < store.size(); row++) {
+            ids[row] = Long.parseLong(store.idAt(row));
+            store.readRow(row, arena, row * VECTOR_SIZE);
+        }
+        documentIndex = IvfVectorIndex.build(ids, arena, VECTOR_SIZE);
+        log.info("Rebuilt document ANN index with {} vectors in {} lists", documentIndex.size(), documentIndex.listCount());
     }
 
     /**
-     * Tính độ tương đồng về khóa học
+     * Nạp tài liệu (kèm thể loại) theo danh sách ID và giữ nguyên thứ tự xếp hạng
      */
-    private double calculateBatchSimilarity(UserEntity user, List<UserEntity> sameBatchUsers) {
-        if (sameBatchUsers.isEmpty()) return 0.0;
-
-        double totalSimilarity = 0.0;
-        int count = 0;
-
-        for (UserEntity otherUser : sameBatchUsers) {
-            if (!otherUser.getUserId().equals(user.getUserId())) {
-                double similarity = 0.0;
-
-                // So sánh ngành học
-                if (otherUser.getMajorCode().equals(user.getMajorCode())) {
-                    similarity += 0.4;
-                }
-
-                // So sánh sách yêu thích
-                List<FavoriteDocumentEntity> userFavorites = favoriteRepository.findByUser(user);
-                List<FavoriteDocumentEntity> otherFavorites = favoriteRepository.findByUser(otherUser);
-                if (!userFavorites.isEmpty() && !otherFavorites.isEmpty()) {
-                    Set<Long> userFavoriteIds = userFavorites.stream()
-                        .map(f -> f.getFavoriteId())
-                        .collect(Collectors.toSet());
-                    Set<Long> otherFavoriteIds = otherFavorites.stream()
-                        .map(f -> f.getFavoriteId())
-                        .collect(Collectors.toSet());
-                    
-                    double favoriteOverlap = calculateSetOverlap(userFavoriteIds, otherFavoriteIds);
-                    similarity += favoriteOverlap * 0.3;
-                }
-
-                // So sánh lịch sử mượn
-                List<LoanEntity> userLoans = loanRepository.findByUserEntity(user);
-                List<LoanEntity> otherLoans = loanRepository.findByUserEntity(otherUser);
-                if (!userLoans.isEmpty() && !otherLoans.isEmpty()) {
-                    Set<Long> userLoanDocIds = userLoans.stream()
-                        .map(l -> l.getPhysicalDoc().getDocument().getDocumentId())
-                        .collect(Collectors.toSet());
-                    Set<Long> otherLoanDocIds = otherLoans.stream()
-                        .map(l -> l.getPhysicalDoc().getDocument().getDocumentId())
-                        .collect(Collectors.toSet());
-                    
-                    double loanOverlap = calculateSetOverlap(userLoanDocIds, otherLoanDocIds);
-                    similarity += loanOverlap * 0.3;
-                }
-
-                totalSimilarity += similarity;
-                count++;
+    private List<DocumentEntity> loadRankedDocuments(long[] rankedIds, Predicate<DocumentEntity> filter) {
+        if (rankedIds.length == 0) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = Arrays.stream(rankedIds).boxed().collect(Collectors.toList());
+        Map<Long, DocumentEntity> byId = documentRepository.findAllWithDocumentTypesByIdIn(ids).stream()
+            .collect(Collectors.toMap(DocumentEntity::getDocumentId, Function.identity(), (a, b) -> a));
+        List<DocumentEntity> ranked = new ArrayList<>(rankedIds.length);
+        for (long id : rankedIds) {
+            DocumentEntity doc = byId.get(id);
+            if (doc != null && filter.test(doc)) {
+                ranked.add(doc);
             }
         }
-
-        return count > 0 ? totalSimilarity / count : 0.0;
+        return ranked;
     }
 
     /**
-     * Tính độ tương đồng về lịch sử mượn
+     * Vector người dùng hiện hành: ưu tiên bản cập nhật tăng dần, sau đó đến snapshot
      */
-    private double calculateLoanSimilarity(UserEntity user, List<LoanEntity> userLoans) {
-        if (userLoans.isEmpty()) return 0.0;
-
-        // Load current user's loans with documents
-        List<LoanEntity> loadedUserLoans = loanRepository.findByUserEntityWithDocuments(user);
-        if (loadedUserLoans.isEmpty()) return 0.0;
-
-        // Lấy danh sách user khác có mượn sách
-        Set<Long> userLoanDocIds = loadedUserLoans.stream()
-            .map(l -> l.getPhysicalDoc().getDocument().getDocumentId())
-            .collect(Collectors.toSet());
-
-        List<UserEntity> otherUsers = userRepository.findAll().stream()
-            .filter(u -> !u.getUserId().equals(user.getUserId()))
-            .collect(Collectors.toList());
-
-        double totalSimilarity = 0.0;
-        int count = 0;
-
-        for (UserEntity otherUser : otherUsers) {
-            // Use eager loading for loans
-            List<LoanEntity> otherLoans = loanRepository.findByUserEntityWithDocuments(otherUser);
-            if (!otherLoans.isEmpty()) {
-                Set<Long> otherLoanDocIds = otherLoans.stream()
-                    .map(l -> l.getPhysicalDoc().getDocument().getDocumentId())
-                    .collect(Collectors.toSet());
-
-                double overlap = calculateSetOverlap(userLoanDocIds, otherLoanDocIds);
-                if (overlap > 0) {
-                    // Thêm các yếu tố khác
-                    double similarity = overlap;
-                    
-                    // Cùng ngành học - Thêm null check
-                    String userMajorCode = user.getMajorCode();
-                    String otherMajorCode = otherUser.getMajorCode();
-                    if (userMajorCode != null && otherMajorCode != null && 
-                        userMajorCode.equals(otherMajorCode)) {
-                        similarity += 0.2;
-                    }
-                    
-                    // Cùng khóa học - Thêm null check
-                    Integer userBatch = user.getStudentBatch();
-                    Integer otherBatch = otherUser.getStudentBatch();
-                    if (userBatch != null && otherBatch != null && 
-                        userBatch.equals(otherBatch)) {
-                        similarity += 0.2;
-                    }
+    private float[] currentUserVector(String userId, VectorSnapshotStore.VectorSnapshot snapshot) {
+        float[] updated = incrementalUpdater.userVector(userId);
+        return updated != null ? updated : snapshot.getUsers().get(userId);
+    }
 
-                    totalSimilarity += similarity;
-                    count++;
-                }
-            }
+    private float[] currentNormalizedUserVector(String userId, VectorSnapshotStore.VectorSnapshot snapshot) {
+        // Bản cập nhật tăng dần được ưu tiên kể cả khi vector của nó có độ dài 0
+        if (incrementalUpdater.userVector(userId) != null) {
+            return incrementalUpdater.normalizedUserVector(userId);
         }
+        return snapshot.normalizedUser(userId);
+    }
 
-        return count > 0 ? totalSimilarity / count : 0.0;
+    private DocumentResponseDto convertToDto(DocumentEntity document) {
+        // Implement conversion logic here
+        return documentMapper.toDocumentResponse(document);
     }
 
     /**
-     * Tính độ tương đồng về sách yêu thích
+     * Xây dựng chỉ mục người dùng tương tự theo đúng thứ tự hàng của ma trận tương tác
      */
-    private double calculateFavoriteSimilarity(UserEntity user, List<FavoriteDocumentEntity> userFavorites) {
-        if (userFavorites.isEmpty()) return 0.0;
-
-        Set<Long> userFavoriteIds = userFavorites.stream()
-            .map(f -> f.getFavoriteId())
-            .collect(Collectors.toSet());
-
-        List<UserEntity> otherUsers = userRepository.findAll().stream()
-            .filter(u -> !u.getUserId().equals(user.getUserId()))
-            .collect(Collectors.toList());
-
-        double totalSimilarity = 0.0;
-        int count = 0;
-
-        for (UserEntity otherUser : otherUsers) {
-            List<FavoriteDocumentEntity> otherFavorites = favoriteRepository.findByUser(otherUser);
-            if (!otherFavorites.isEmpty()) {
-                Set<Long> otherFavoriteIds = otherFavorites.stream()
-                    .map(f -> f.getFavoriteId())
-                    .collect(Collectors.toSet());
-
-                double overlap = calculateSetOverlap(userFavoriteIds, otherFavoriteIds);
-                if (overlap > 0) {
-                    // Thêm các yếu tố khác
-                    double similarity = overlap;
-                    
-                    // Cùng ngành học
-                    if (otherUser.getMajorCode().equals(user.getMajorCode())) {
-                        similarity += 0.2;
-                    }
-                    
-                    // Cùng khóa học
-                    if (otherUser.getStudentBatch() == user.getStudentBatch()) {
-                        similarity += 0.2;
-                    }
-
-                    totalSimilarity += similarity;
-                    count++;
-                }
-            }
+    private SimilarUserIndex buildSimilarUserIndex(List<UserEntity> users, Map<String, Integer> userIndex,
+                                                   UserInteractionMatrix interactions) {
+        int n = userIndex.size();
+        String[] userIds = new String[n];
+        String[] majorCodes = new String[n];
+        int[] batches = new int[n];
+        for (UserEntity user : users) {
+            int row = userIndex.get(user.getUserId());
+            userIds[row] = user.getUserId();
+            majorCodes[row] = user.getMajorCode();
+            batches[row] = user.getStudentBatch();
         }
-
-        return count > 0 ? totalSimilarity / count : 0.0;
+        long start = System.nanoTime();
+        SimilarUserIndex index = SimilarUserIndex.build(userIds, majorCodes, batches, interactions);
+        log.info("Built similar-user index over {} users in {} ms", n, (System.nanoTime() - start) / 1_000_000);
+        return index;
     }
 
     /**
-     * Tính độ chồng lấp giữa hai tập hợp
+     * Dựng lại chỉ mục người dùng tương tự sau khi nạp snapshot (không huấn luyện lại)
      */
-    private double calculateSetOverlap(Set<Long> set1, Set<Long> set2) {
-        if (set1.isEmpty() || set2.isEmpty()) return 0.0;
-        
-        Set<Long> intersection = new HashSet<>(set1);
-        intersection.retainAll(set2);
-        
-        Set<Long> union = new HashSet<>(set1);
-        union.addAll(set2);
-        
-        return (double) intersection.size() / union.size();
-    }
-
-    // Add cache cleanup method
-    @Scheduled(fixedRate = 3600000) // Run every hour
-    public void cleanupCache() {
-        LocalDateTime now = LocalDateTime.now();
-        cacheTimestamps.entrySet().removeIf(entry -> 
-            Duration.between(entry.getValue(), now).compareTo(CACHE_DURATION) >= 0);
-        recommendationCache.keySet().removeIf(key -> !cacheTimestamps.containsKey(key));
-        log.info("Cache cleanup completed");
+    private void rebuildSimilarUserIndex() {
+        List<UserEntity> users = userRepository.findAll();
+        Map<String, Integer> userIndex = new HashMap<>();
+        for (UserEntity user : users) {
+            userIndex.putIfAbsent(user.getUserId(), userIndex.size());
+        }
+        similarUsers = buildSimilarUserIndex(users, userIndex, interactionMatrixLoader.load(userIndex));
     }
 
     // Add new method for scheduled ML training
@@ -1087,7 +869,7 @@ public class MLRecommendationServiceImpl implements MLRecommendationService {
     public void scheduledModelTraining() {
         log.info("Starting scheduled ML model training");
         try {
-            trainModel();
+            updateModel();
             log.info("Scheduled ML model training completed successfully");
         } catch (Exception e) {
             log.error("Error in scheduled ML model training: {}", e.getMessage());
@@ -0,0 +1,190 @@
+package com.spkt.libraSys.service.recommendation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kho vector chỉ đọc, ánh xạ bộ nhớ (memory-mapped) từ file nhị phân:
+ * <pre>
+ * [header 32 byte] magic:int | version:int | dimension:int | count:int | idTableOffset:long | bodyOffset:long
+ * [bảng id]        count x (length:short | UTF-8 bytes), theo thứ tự hàng
+ * [thân]           count x dimension float32 little-endian, row-major, bắt đầu tại bodyOffset (căn 64 byte)
+ * </pre>
+ * Offset của một vector = bodyOffset + row * dimension * 4. Chỉ bảng id được nạp vào heap;
+ * dữ liệu vector được đọc trực tiếp từ page cache của hệ điều hành khi cần.
+ */
+public final class MappedVectorStore {
+
+    static final int MAGIC = 0x4C535643; // "LSVC"
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int BODY_ALIGNMENT = 64;
+
+    private final int dimension;
+    private final String[] ids;
+    private final Map<String, Integer> rows;
+    private final FloatBuffer body;
+
+    private MappedVectorStore(int dimension, String[] ids, Map<String, Integer> rows, FloatBuffer body) {
+        this.dimension = dimension;
+        this.ids = ids;
+        this.rows = rows;
+        this.body = body;
+    }
+
+    public static MappedVectorStore empty(int dimension) {
+        return new MappedVectorStore(dimension, new String[0], Collections.emptyMap(), FloatBuffer.allocate(0));
+    }
+
+    /**
+     * Ghi toàn bộ vector ra file theo định dạng trên
+     * @param path File đích
+     * @param dimension Số chiều vector
+     * @param vectors Ánh xạ id → vector; vector sai số chiều sẽ bị bỏ qua
+     */
+    public static void write(Path path, int dimension, Map<String, float[]> vectors) throws IOException {
+        List<Map.Entry<String, float[]>> entries = vectors.entrySet().stream()
+                .filter(e -> e.getKey() != null && e.getValue() != null && e.getValue().length == dimension)
+                .toList();
+
+        byte[][] encodedIds = new byte[entries.size()][];
+        long idTableSize = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            encodedIds[i] = entries.get(i).getKey().getBytes(StandardCharsets.UTF_8);
+            if (encodedIds[i].length > Short.MAX_VALUE) {
+                throw new IOException("Vector id too long: " + entries.get(i).getKey());
+            }
+            idTableSize += Short.BYTES + encodedIds[i].length;
+        }
+        long bodyOffset = align(HEADER_SIZE + idTableSize);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(dimension).putInt(entries.size())
+                    .putLong(HEADER_SIZE).putLong(bodyOffset).flip();
+            writeFully(channel, header);
+
+            ByteBuffer table = ByteBuffer.allocate((int) (bodyOffset - HEADER_SIZE)).order(ByteOrder.LITTLE_ENDIAN);
+            for (byte[] id : encodedIds) {
+                table.putShort((short) id.length).put(id);
+            }
+            table.position(table.capacity()).flip();
+            writeFully(channel, table);
+
+            ByteBuffer row = ByteBuffer.allocate(dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (Map.Entry<String, float[]> entry : entries) {
+                row.clear();
+                row.asFloatBuffer().put(entry.getValue());
+                row.position(0).limit(row.capacity());
+                writeFully(channel, row);
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Mở file vector ở chế độ ánh xạ bộ nhớ
+     */
+    public static MappedVectorStore open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Vector file too large to map: " + path);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (fileSize < HEADER_SIZE || mapped.getInt(0) != MAGIC) {
+                throw new IOException("Not a vector store file: " + path);
+            }
+            if (mapped.getInt(4) != VERSION) {
+                throw new IOException("Unsupported vector store version " + mapped.getInt(4) + ": " + path);
+            }
+            int dimension = mapped.getInt(8);
+            int count = mapped.getInt(12);
+            int idTableOffset = (int) mapped.getLong(16);
+            int bodyOffset = (int) mapped.getLong(24);
+            long bodySize = (long) count * dimension * Float.BYTES;
+            if (bodyOffset + bodySize > fileSize) {
+                throw new IOException("Truncated vector store file: " + path);
+            }
+
+            String[] ids = new String[count];
+            Map<String, Integer> rows = new HashMap<>(count * 2);
+            int position = idTableOffset;
+            byte[] scratch = new byte[256];
+            for (int row = 0; row < count; row++) {
+                int length = mapped.getShort(position);
+                position += Short.BYTES;
+                if (scratch.length < length) {
+                    scratch = new byte[length];
+                }
+                mapped.get(position, scratch, 0, length);
+                position += length;
+                ids[row] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+                rows.put(ids[row], row);
+            }
+
+            FloatBuffer body = mapped.slice(bodyOffset, (int) bodySize).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            return new MappedVectorStore(dimension, ids, rows, body);
+        }
+    }
+
+    /**
+     * Đọc vector theo id (bản sao trên heap), null nếu không tồn tại
+     */
+    public float[] get(String id) {
+        Integer row = id != null ? rows.get(id) : null;
+        if (row == null) {
+            return null;
+        }
+        float[] vector = new float[dimension];
+        readRow(row, vector, 0);
+        return vector;
+    }
+
+    /**
+     * Chép vector ở hàng {@code row} vào mảng đích tại vị trí offset
+     */
+    public void readRow(int row, float[] target, int offset) {
+        body.get(row * dimension, target, offset, dimension);
+    }
+
+    public boolean contains(String id) {
+        return id != null && rows.containsKey(id);
+    }
+
+    public String idAt(int row) {
+        return ids[row];
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    private static long align(long value) {
+        return (value + BODY_ALIGNMENT - 1) / BODY_ALIGNMENT * BODY_ALIGNMENT;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
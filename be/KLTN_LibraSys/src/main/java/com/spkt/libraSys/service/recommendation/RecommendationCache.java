@@ -0,0 +1,101 @@
+package com.spkt.libraSys.service.recommendation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Cache gợi ý theo người dùng, giới hạn theo dung lượng và loại bỏ theo W-TinyLFU (Caffeine).
+ * Mỗi mục chỉ chứa mảng documentId đã xếp hạng (8 byte/tài liệu) thay vì danh sách DTO;
+ * DTO chỉ được tạo cho trang đang được yêu cầu. Danh sách được tính trước hằng đêm có thời hạn dài hơn
+ * danh sách tính theo yêu cầu; cả hai đều bị xóa khi người dùng có tương tác mới hoặc mô hình được huấn luyện lại.
+ */
+@Component
+public class RecommendationCache {
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    private final Cache<String, RankedDocuments> rankings;
+
+    public RecommendationCache(@Value("${app.recommendation.cache.max-bytes:33554432}") long maxBytes,
+                               @Value("${app.recommendation.cache.ttl-minutes:30}") long ttlMinutes,
+                               @Value("${app.recommendation.precompute.ttl-hours:24}") long precomputedTtlHours) {
+        long ttlNanos = Duration.ofMinutes(ttlMinutes).toNanos();
+        long precomputedTtlNanos = Duration.ofHours(precomputedTtlHours).toNanos();
+        this.rankings = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String userId, RankedDocuments ranked) ->
+                        ENTRY_OVERHEAD_BYTES + userId.length() * 2 + ranked.getDocumentIds().length * Long.BYTES)
+                .expireAfter(new Expiry<String, RankedDocuments>() {
+                    @Override
+                    public long expireAfterCreate(String userId, RankedDocuments ranked, long currentTime) {
+                        return ranked.isPrecomputed() ? precomputedTtlNanos : ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String userId, RankedDocuments ranked, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(userId, ranked, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String userId, RankedDocuments ranked, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Danh sách đã xếp hạng của người dùng, null nếu chưa có hoặc đã hết hạn
+     */
+    public RankedDocuments get(String userId) {
+        return rankings.getIfPresent(userId);
+    }
+
+    public void put(String userId, RankedDocuments ranked) {
+        rankings.put(userId, ranked);
+    }
+
+    public void invalidate(String userId) {
+        rankings.invalidate(userId);
+    }
+
+    public void invalidateAll() {
+        rankings.invalidateAll();
+    }
+
+    public long estimatedSize() {
+        return rankings.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return rankings.stats();
+    }
+
+    /**
+     * Các documentId đã xếp hạng (có thể chỉ là phần đầu top-N) và tổng số tài liệu phù hợp
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class RankedDocuments {
+        private final long[] documentIds;
+        private final int total;
+        private final boolean precomputed;
+
+        /**
+         * Phần đã lưu có phủ được đoạn [0, end) của danh sách đầy đủ hay không
+         */
+        public boolean covers(long end) {
+            return end <= documentIds.length || documentIds.length >= total;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.spkt.libraSys.service.recommendation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+
+/**
+ * Chỉ mục người dùng tương tự, xây dựng một lần mỗi lần huấn luyện.
+ * <p>
+ * Ứng viên của mỗi người dùng được lấy từ các nhóm (bucket) thay vì so sánh với toàn bộ người dùng:
+ * <ul>
+ *     <li>nhóm cùng ngành + khóa, cùng ngành, cùng khóa;</li>
+ *     <li>các band LSH trên chữ ký MinHash của tập tài liệu đã mượn/yêu thích.</li>
+ * </ul>
+ * Trong mỗi nhóm chỉ xét một cửa sổ cố định quanh vị trí của người dùng nên chi phí xây dựng là O(n).
+ * Ứng viên được chấm điểm 0.3 * cùng ngành + 0.3 * cùng khóa + 0.4 * Jaccard(tài liệu), giữ lại tối đa
+ * {@link #NEIGHBOURS} láng giềng trong một mảng kề int phẳng để tra cứu O(1).
+ */
+public final class SimilarUserIndex {
+
+    public static final int NEIGHBOURS = 10;
+
+    private static final int BANDS = 16;
+    private static final int ROWS_PER_BAND = 4;
+    private static final int WINDOW = 16;
+    private static final double MAJOR_WEIGHT = 0.3;
+    private static final double BATCH_WEIGHT = 0.3;
+    private static final double INTERACTION_WEIGHT = 0.4;
+
+    private final String[] userIds;
+    private final Map<String, Integer> rows;
+    private final int[] neighbours;
+
+    private SimilarUserIndex(String[] userIds, int[] neighbours) {
+        this.userIds = userIds;
+        this.neighbours = neighbours;
+        this.rows = new HashMap<>(userIds.length * 2);
+        for (int i = 0; i < userIds.length; i++) {
+            rows.put(userIds[i], i);
+        }
+    }
+
+    public static SimilarUserIndex empty() {
+        return new SimilarUserIndex(new String[0], new int[0]);
+    }
+
+    /**
+     * Xây dựng chỉ mục
+     * @param userIds ID người dùng theo hàng
+     * @param majorCodes Mã ngành theo hàng (có thể null)
+     * @param batches Khóa học theo hàng (0 nếu không có)
+     * @param interactions Ma trận tương tác của cùng tập người dùng
+     * @return Chỉ mục láng giềng
+     */
+    public static SimilarUserIndex build(String[] userIds, String[] majorCodes, int[] batches,
+                                         UserInteractionMatrix interactions) {
+        int n = userIds.length;
+        long[][] documents = new long[n][];
+        for (int u = 0; u < n; u++) {
+            documents[u] = distinctDocuments(interactions, userIds[u]);
+        }
+
+        // Nhóm theo thuộc tính hồ sơ
+        long[][] buckets = new long[3 + BANDS][];
+        buckets[0] = bucket(n, u -> majorCodes[u] != null && batches[u] > 0
+                ? Objects.hash(majorCodes[u], batches[u]) : null);
+        buckets[1] = bucket(n, u -> majorCodes[u] != null ? majorCodes[u].hashCode() : null);
+        buckets[2] = bucket(n, u -> batches[u] > 0 ? batches[u] : null);
+
+        // Nhóm theo band LSH của chữ ký MinHash
+        long[] seeds = new SplittableRandom(17L).longs(BANDS * ROWS_PER_BAND).toArray();
+        int[][] signatures = new int[n][];
+        for (int u = 0; u < n; u++) {
+            signatures[u] = documents[u].length > 0 ? minHash(documents[u], seeds) : null;
+        }
+        for (int b = 0; b < BANDS; b++) {
+            int band = b;
+            buckets[3 + b] = bucket(n, u -> signatures[u] != null
+                    ? Arrays.hashCode(Arrays.copyOfRange(signatures[u], band * ROWS_PER_BAND, (band + 1) * ROWS_PER_BAND))
+                    : null);
+        }
+
+        // Vị trí của từng người dùng trong mỗi nhóm đã sắp xếp
+        int[][] positions = new int[buckets.length][];
+        for (int g = 0; g < buckets.length; g++) {
+            positions[g] = new int[n];
+            Arrays.fill(positions[g], -1);
+            for (int i = 0; i < buckets[g].length; i++) {
+                positions[g][(int) buckets[g][i]] = i;
+            }
+        }
+
+        int[] adjacency = new int[n * NEIGHBOURS];
+        Arrays.fill(adjacency, -1);
+        int[] seen = new int[n];
+        int[] topRows = new int[NEIGHBOURS];
+        double[] topScores = new double[NEIGHBOURS];
+        for (int u = 0; u < n; u++) {
+            int stamp = u + 1;
+            seen[u] = stamp;
+            int found = 0;
+            for (int g = 0; g < buckets.length; g++) {
+                int position = positions[g][u];
+                if (position < 0) {
+                    continue;
+                }
+                long[] entries = buckets[g];
+                int key = (int) (entries[position] >>> 32);
+                int from = Math.max(0, position - WINDOW);
+                int to = Math.min(entries.length - 1, position + WINDOW);
+                for (int i = from; i <= to; i++) {
+                    if ((int) (entries[i] >>> 32) != key) {
+                        continue;
+                    }
+                    int v = (int) entries[i];
+                    if (seen[v] == stamp) {
+                        continue;
+                    }
+                    seen[v] = stamp;
+                    double score = score(u, v, majorCodes, batches, documents);
+                    if (score > 0) {
+                        found = offer(topRows, topScores, found, v, score);
+                    }
+                }
+            }
+            System.arraycopy(topRows, 0, adjacency, u * NEIGHBOURS, found);
+        }
+        return new SimilarUserIndex(userIds.clone(), adjacency);
+    }
+
+    /**
+     * Danh sách userId láng giềng theo thứ tự độ tương đồng giảm dần
+     */
+    public String[] neighbours(String userId) {
+        Integer row = userId != null ? rows.get(userId) : null;
+        if (row == null) {
+            return new String[0];
+        }
+        int count = 0;
+        while (count < NEIGHBOURS && neighbours[row * NEIGHBOURS + count] >= 0) {
+            count++;
+        }
+        String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = userIds[neighbours[row * NEIGHBOURS + i]];
+        }
+        return result;
+    }
+
+    /**
+     * Hàng của láng giềng thứ {@code i} của hàng {@code row}, -1 nếu không có
+     */
+    public int neighbourRow(int row, int i) {
+        return neighbours[row * NEIGHBOURS + i];
+    }
+
+    public int row(String userId) {
+        return rows.getOrDefault(userId, -1);
+    }
+
+    public int size() {
+        return userIds.length;
+    }
+
+    private static double score(int u, int v, String[] majorCodes, int[] batches, long[][] documents) {
+        double score = 0.0;
+        if (majorCodes[u] != null && majorCodes[u].equals(majorCodes[v])) {
+            score += MAJOR_WEIGHT;
+        }
+        if (batches[u] > 0 && batches[u] == batches[v]) {
+            score += BATCH_WEIGHT;
+        }
+        return score + INTERACTION_WEIGHT * jaccard(documents[u], documents[v]);
+    }
+
+    /**
+     * Giữ tối đa NEIGHBOURS phần tử điểm cao nhất, sắp xếp giảm dần (hòa điểm: hàng nhỏ hơn trước)
+     */
+    private static int offer(int[] topRows, double[] topScores, int size, int row, double score) {
+        int i = size < topRows.length ? size : topRows.length - 1;
+        if (size == topRows.length && !better(score, row, topScores[i], topRows[i])) {
+            return size;
+        }
+        while (i > 0 && better(score, row, topScores[i - 1], topRows[i - 1])) {
+            topRows[i] = topRows[i - 1];
+            topScores[i] = topScores[i - 1];
+            i--;
+        }
+        topRows[i] = row;
+        topScores[i] = score;
+        return Math.min(size + 1, topRows.length);
+    }
+
+    private static boolean better(double score, int row, double otherScore, int otherRow) {
+        return score > otherScore || (score == otherScore && row < otherRow);
+    }
+
+    /**
+     * Nhóm người dùng theo khóa: mỗi phần tử là (khóa 32 bit << 32 | hàng), đã sắp xếp để các thành viên liền kề
+     */
+    private static long[] bucket(int n, IntFunction<Integer> keyOf) {
+        long[] entries = new long[n];
+        int size = 0;
+        for (int u = 0; u < n; u++) {
+            Integer key = keyOf.apply(u);
+            if (key != null) {
+                entries[size++] = ((long) key << 32) | u;
+            }
+        }
+        long[] result = Arrays.copyOf(entries, size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static long[] distinctDocuments(UserInteractionMatrix interactions, String userId) {
+        long[] loans = interactions.documentIds(UserInteractionMatrix.Kind.LOAN, userId);
+        long[] favorites = interactions.documentIds(UserInteractionMatrix.Kind.FAVORITE, userId);
+        long[] all = Arrays.copyOf(loans, loans.length + favorites.length);
+        System.arraycopy(favorites, 0, all, loans.length, favorites.length);
+        Arrays.sort(all);
+        int size = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (i == 0 || all[i] != all[i - 1]) {
+                all[size++] = all[i];
+            }
+        }
+        return Arrays.copyOf(all, size);
+    }
+
+    private static int[] minHash(long[] documents, long[] seeds) {
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (long document : documents) {
+            for (int h = 0; h < seeds.length; h++) {
+                int value = (int) (mix(document ^ seeds[h]) >>> 33);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Jaccard chính xác giữa hai mảng đã sắp xếp, không trùng lặp
+     */
+    private static double jaccard(long[] a, long[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return 0.0;
+        }
+        int i = 0, j = 0, common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (a.length + b.length - common);
+    }
+}
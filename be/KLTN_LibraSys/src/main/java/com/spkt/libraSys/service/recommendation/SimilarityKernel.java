@@ -0,0 +1,105 @@
+package com.spkt.libraSys.service.recommendation;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Nhân tính độ tương đồng trên mảng float nguyên thủy, không cấp phát bộ nhớ tạm.
+ * Dùng JDK Vector API (SIMD) nếu JVM được chạy với {@code --add-modules jdk.incubator.vector},
+ * ngược lại dùng vòng lặp vô hướng. Các vector nên được chuẩn hóa L2 trước (một lần mỗi lần huấn luyện)
+ * để cosine similarity chỉ còn là một phép tích vô hướng.
+ */
+@Slf4j
+public final class SimilarityKernel {
+
+    static final String VECTOR_API_IMPLEMENTATION = SimilarityKernel.class.getPackageName() + ".VectorApiDotProduct";
+
+    private static final DotProduct IMPLEMENTATION = select();
+    private static final boolean VECTORIZED = !(IMPLEMENTATION instanceof ScalarDotProduct);
+
+    private SimilarityKernel() {
+    }
+
+    /**
+     * Tích vô hướng giữa hai đoạn vector
+     */
+    public static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        return IMPLEMENTATION.dot(a, aOffset, b, bOffset, length);
+    }
+
+    public static float dot(float[] a, float[] b) {
+        return IMPLEMENTATION.dot(a, 0, b, 0, Math.min(a.length, b.length));
+    }
+
+    /**
+     * Chuẩn hóa L2 tại chỗ một đoạn vector; vector 0 được giữ nguyên
+     * @return false nếu vector có độ dài 0
+     */
+    public static boolean normalize(float[] data, int offset, int length) {
+        float squared = IMPLEMENTATION.dot(data, offset, data, offset, length);
+        if (squared == 0f || !Float.isFinite(squared)) {
+            return false;
+        }
+        float inverse = (float) (1.0 / Math.sqrt(squared));
+        for (int i = offset; i < offset + length; i++) {
+            data[i] *= inverse;
+        }
+        return true;
+    }
+
+    /**
+     * Bản sao đã chuẩn hóa L2 của vector, null nếu vector có độ dài 0
+     */
+    public static float[] normalizedCopy(float[] vector) {
+        float[] copy = vector.clone();
+        return normalize(copy, 0, copy.length) ? copy : null;
+    }
+
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    private static DotProduct select() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Nạp qua reflection: chỉ VectorApiDotProduct được biên dịch với module incubator
+                DotProduct vectorized = (DotProduct) Class.forName(VECTOR_API_IMPLEMENTATION)
+                        .getDeclaredConstructor().newInstance();
+                log.info("Similarity kernel uses JDK Vector API ({} float lanes)", vectorized.lanes());
+                return vectorized;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.warn("JDK Vector API unavailable, falling back to scalar similarity kernel: {}", e.getMessage());
+            }
+        }
+        return new ScalarDotProduct();
+    }
+
+    interface DotProduct {
+        float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+        default int lanes() {
+            return 1;
+        }
+    }
+
+    /**
+     * Vòng lặp vô hướng với bốn bộ cộng dồn độc lập để JIT không bị chặn bởi chuỗi phụ thuộc phép cộng
+     */
+    static final class ScalarDotProduct implements DotProduct {
+        @Override
+        public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+            float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+            int i = 0;
+            int bound = length & ~3;
+            for (; i < bound; i += 4) {
+                s0 += a[aOffset + i] * b[bOffset + i];
+                s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+                s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+                s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+            }
+            for (; i < length; i++) {
+                s0 += a[aOffset + i] * b[bOffset + i];
+            }
+            return (s0 + s1) + (s2 + s3);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.spkt.libraSys.service.recommendation;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Sự kiện phát ra khi người dùng có thêm một tương tác với tài liệu
+ * (mượn sách, đánh dấu yêu thích, được duyệt quyền truy cập).
+ * Dùng để cập nhật tăng dần vector của riêng người dùng đó thay vì huấn luyện lại toàn bộ.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserInteractionEvent {
+    private final String userId;
+    private final Long documentId;
+    private final UserInteractionMatrix.Kind kind;
+}
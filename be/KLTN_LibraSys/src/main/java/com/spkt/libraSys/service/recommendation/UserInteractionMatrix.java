@@ -0,0 +1,120 @@
+package com.spkt.libraSys.service.recommendation;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Ma trận tương tác user → document lưu dạng CSR (compressed sparse row) trên mảng nguyên thủy.
+ * Mỗi loại tương tác (mượn, yêu thích, yêu cầu truy cập) có một bộ offset/documentId riêng,
+ * giữ nguyên số lần lặp lại để việc lấy trung bình vector giống với cách tính cũ.
+ */
+public final class UserInteractionMatrix {
+
+    public enum Kind {
+        LOAN,
+        FAVORITE,
+        ACCESS
+    }
+
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<String, Integer> userIndex;
+    private final int[][] rowOffsets;
+    private final long[][] documentIds;
+
+    private UserInteractionMatrix(Map<String, Integer> userIndex, int[][] rowOffsets, long[][] documentIds) {
+        this.userIndex = userIndex;
+        this.rowOffsets = rowOffsets;
+        this.documentIds = documentIds;
+    }
+
+    /**
+     * Danh sách documentId mà user đã tương tác theo loại cho trước
+     * @param kind Loại tương tác
+     * @param userId ID người dùng
+     * @return Mảng documentId (có thể trùng lặp), rỗng nếu không có
+     */
+    public long[] documentIds(Kind kind, String userId) {
+        Integer row = userIndex.get(userId);
+        if (row == null) {
+            return EMPTY;
+        }
+        int[] offsets = rowOffsets[kind.ordinal()];
+        int from = offsets[row];
+        int to = offsets[row + 1];
+        return from == to ? EMPTY : Arrays.copyOfRange(documentIds[kind.ordinal()], from, to);
+    }
+
+    public int userCount() {
+        return userIndex.size();
+    }
+
+    public int interactionCount(Kind kind) {
+        return documentIds[kind.ordinal()].length;
+    }
+
+    public static Builder builder(Map<String, Integer> userIndex) {
+        return new Builder(userIndex);
+    }
+
+    /**
+     * Gom các cặp (user, document) theo thứ tự bất kỳ rồi sắp xếp lại theo hàng bằng counting sort.
+     */
+    public static final class Builder {
+        private final Map<String, Integer> userIndex;
+        private final int[][] rows = new int[Kind.values().length][];
+        private final long[][] docs = new long[Kind.values().length][];
+        private final int[] sizes = new int[Kind.values().length];
+
+        private Builder(Map<String, Integer> userIndex) {
+            this.userIndex = userIndex;
+            for (int k = 0; k < rows.length; k++) {
+                rows[k] = new int[256];
+                docs[k] = new long[256];
+            }
+        }
+
+        /**
+         * Thêm một tương tác, bỏ qua nếu user không nằm trong tập huấn luyện
+         */
+        public Builder add(Kind kind, String userId, long documentId) {
+            Integer row = userIndex.get(userId);
+            if (row == null) {
+                return this;
+            }
+            int k = kind.ordinal();
+            if (sizes[k] == rows[k].length) {
+                int newLength = rows[k].length * 2;
+                rows[k] = Arrays.copyOf(rows[k], newLength);
+                docs[k] = Arrays.copyOf(docs[k], newLength);
+            }
+            rows[k][sizes[k]] = row;
+            docs[k][sizes[k]] = documentId;
+            sizes[k]++;
+            return this;
+        }
+
+        public UserInteractionMatrix build() {
+            int userCount = userIndex.size();
+            int[][] offsets = new int[rows.length][];
+            long[][] sorted = new long[rows.length][];
+            for (int k = 0; k < rows.length; k++) {
+                int[] counts = new int[userCount + 1];
+                for (int i = 0; i < sizes[k]; i++) {
+                    counts[rows[k][i] + 1]++;
+                }
+                for (int u = 0; u < userCount; u++) {
+                    counts[u + 1] += counts[u];
+                }
+                int[] cursor = Arrays.copyOf(counts, userCount);
+                long[] target = new long[sizes[k]];
+                for (int i = 0; i < sizes[k]; i++) {
+                    target[cursor[rows[k][i]]++] = docs[k][i];
+                }
+                offsets[k] = counts;
+                sorted[k] = target;
+            }
+            return new UserInteractionMatrix(userIndex, offsets, sorted);
+        }
+    }
+}
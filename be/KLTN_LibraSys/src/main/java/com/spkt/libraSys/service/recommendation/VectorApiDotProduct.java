@@ -0,0 +1,37 @@
+package com.spkt.libraSys.service.recommendation;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Tích vô hướng dùng JDK Vector API (fused multiply-add theo từng làn SIMD).
+ * Lớp này chỉ được nạp (qua reflection) khi module {@code jdk.incubator.vector} có mặt lúc chạy, xem {@link SimilarityKernel};
+ * nó được biên dịch riêng với module đó, phần còn lại của mã nguồn không cần module incubator.
+ */
+final class VectorApiDotProduct implements SimilarityKernel.DotProduct {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public int lanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector sum = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, bOffset + i);
+            sum = va.fma(vb, sum);
+        }
+        float result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result += a[aOffset + i] * b[bOffset + i];
+        }
+        return result;
+    }
+}
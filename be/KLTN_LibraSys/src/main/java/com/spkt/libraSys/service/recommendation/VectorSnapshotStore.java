@@ -0,0 +1,178 @@
+package com.spkt.libraSys.service.recommendation;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Quản lý các thế hệ (generation) snapshot vector tài liệu/người dùng trên đĩa.
+ * Mỗi lần huấn luyện ghi ra một thư mục thế hệ mới, sau đó cập nhật file con trỏ {@code CURRENT}
+ * bằng thao tác rename nguyên tử. Nhờ vậy không ghi đè file đang được ánh xạ bộ nhớ và
+ * cặp vector tài liệu/người dùng luôn được chuyển đổi cùng lúc.
+ */
+@Component
+@Slf4j
+public class VectorSnapshotStore {
+    static final String DOCUMENT_FILE = "document_vectors.vec";
+    static final String USER_FILE = "user_vectors.vec";
+    static final String USER_WEIGHT_FILE = "user_weights.vec";
+    static final String NORMALIZED_USER_FILE = "user_vectors_normalized.vec";
+    private static final String CURRENT_FILE = "CURRENT";
+
+    private final Path baseDir;
+
+    public VectorSnapshotStore(@Value("${app.recommendation.snapshot-dir:models/snapshots}") String baseDir) {
+        this.baseDir = Paths.get(baseDir);
+    }
+
+    /**
+     * Ghi một snapshot mới và chuyển con trỏ CURRENT sang nó
+     * @param dimension Số chiều vector
+     * @param documentVectors Vector tài liệu theo documentId
+     * @param userVectors Vector người dùng theo userId
+     * @param userWeights Tổng trọng số đã dùng để chuẩn hóa vector của từng người dùng
+     * @return Snapshot vừa ghi, đã được ánh xạ bộ nhớ
+     */
+    public VectorSnapshot publish(int dimension, Map<String, float[]> documentVectors,
+                                  Map<String, float[]> userVectors,
+                                  Map<String, Float> userWeights) throws IOException {
+        Files.createDirectories(baseDir);
+        long stamp = System.currentTimeMillis();
+        while (Files.exists(baseDir.resolve(String.valueOf(stamp)))) {
+            stamp++;
+        }
+        String generation = String.valueOf(stamp);
+        Path generationDir = baseDir.resolve(generation);
+        Files.createDirectories(generationDir);
+
+        MappedVectorStore.write(generationDir.resolve(DOCUMENT_FILE), dimension, documentVectors);
+        MappedVectorStore.write(generationDir.resolve(USER_FILE), dimension, userVectors);
+        Map<String, float[]> weightRows = new HashMap<>(userWeights.size() * 2);
+        userWeights.forEach((userId, weight) -> weightRows.put(userId, new float[]{weight}));
+        MappedVectorStore.write(generationDir.resolve(USER_WEIGHT_FILE), 1, weightRows);
+        // Vector người dùng chuẩn hóa L2 sẵn một lần mỗi lần huấn luyện để chấm điểm không phải chuẩn hóa lại
+        Map<String, float[]> normalizedUsers = new HashMap<>(userVectors.size() * 2);
+        userVectors.forEach((userId, vector) -> {
+            float[] normalized = SimilarityKernel.normalizedCopy(vector);
+            if (normalized != null) {
+                normalizedUsers.put(userId, normalized);
+            }
+        });
+        MappedVectorStore.write(generationDir.resolve(NORMALIZED_USER_FILE), dimension, normalizedUsers);
+
+        Path pointerTmp = baseDir.resolve(CURRENT_FILE + ".tmp");
+        Files.writeString(pointerTmp, generation, StandardCharsets.UTF_8);
+        Files.move(pointerTmp, baseDir.resolve(CURRENT_FILE),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        VectorSnapshot snapshot = open(generationDir);
+        deleteOldGenerations(generation);
+        log.info("Published vector snapshot {} ({} documents, {} users)",
+                generation, snapshot.getDocuments().size(), snapshot.getUsers().size());
+        return snapshot;
+    }
+
+    /**
+     * Mở snapshot hiện hành nếu có
+     */
+    public Optional<VectorSnapshot> openCurrent() throws IOException {
+        Path pointer = baseDir.resolve(CURRENT_FILE);
+        if (!Files.exists(pointer)) {
+            return Optional.empty();
+        }
+        String generation = Files.readString(pointer, StandardCharsets.UTF_8).trim();
+        Path generationDir = baseDir.resolve(generation);
+        if (!Files.isDirectory(generationDir)) {
+            log.warn("Vector snapshot {} referenced by CURRENT does not exist", generation);
+            return Optional.empty();
+        }
+        return Optional.of(open(generationDir));
+    }
+
+    private VectorSnapshot open(Path generationDir) throws IOException {
+        // Snapshot cũ chưa có file trọng số: coi như không biết trọng số của người dùng nào
+        Path weightFile = generationDir.resolve(USER_WEIGHT_FILE);
+        // Snapshot cũ chưa có file vector chuẩn hóa: chuẩn hóa khi đọc
+        Path normalizedFile = generationDir.resolve(NORMALIZED_USER_FILE);
+        MappedVectorStore users = MappedVectorStore.open(generationDir.resolve(USER_FILE));
+        return new VectorSnapshot(
+                MappedVectorStore.open(generationDir.resolve(DOCUMENT_FILE)),
+                users,
+                Files.exists(weightFile) ? MappedVectorStore.open(weightFile) : MappedVectorStore.empty(1),
+                Files.exists(normalizedFile) ? MappedVectorStore.open(normalizedFile) : null);
+    }
+
+    /**
+     * Xóa các thế hệ cũ; trên Windows file còn đang được ánh xạ sẽ không xóa được và sẽ được thử lại lần sau
+     */
+    private void deleteOldGenerations(String current) {
+        try (Stream<Path> dirs = Files.list(baseDir)) {
+            dirs.filter(Files::isDirectory)
+                    .filter(dir -> !dir.getFileName().toString().equals(current))
+                    .forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Could not list old vector snapshots: {}", e.getMessage());
+        }
+    }
+
+    private void deleteQuietly(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.debug("Old vector snapshot file still in use: {}", path);
+                }
+            });
+        } catch (IOException e) {
+            log.debug("Could not delete old vector snapshot {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Cặp kho vector tài liệu/người dùng thuộc cùng một lần huấn luyện
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class VectorSnapshot {
+        private final MappedVectorStore documents;
+        private final MappedVectorStore users;
+        private final MappedVectorStore userWeights;
+        private final MappedVectorStore normalizedUsers;
+
+        public static VectorSnapshot empty(int dimension) {
+            return new VectorSnapshot(MappedVectorStore.empty(dimension), MappedVectorStore.empty(dimension),
+                    MappedVectorStore.empty(1), MappedVectorStore.empty(dimension));
+        }
+
+        /**
+         * Vector người dùng đã chuẩn hóa L2, null nếu không có hoặc có độ dài 0
+         */
+        public float[] normalizedUser(String userId) {
+            if (normalizedUsers != null) {
+                return normalizedUsers.get(userId);
+            }
+            float[] vector = users.get(userId);
+            return vector != null ? SimilarityKernel.normalizedCopy(vector) : null;
+        }
+
+        /**
+         * Tổng trọng số của vector người dùng lúc huấn luyện, NaN nếu không có
+         */
+        public float userWeight(String userId) {
+            float[] weight = userWeights.get(userId);
+            return weight != null ? weight[0] : Float.NaN;
+        }
+    }
+}
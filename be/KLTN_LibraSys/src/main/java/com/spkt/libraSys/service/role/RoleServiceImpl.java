@@ -2,12 +2,14 @@ package com.spkt.libraSys.service.role;
 
 import com.spkt.libraSys.exception.AppException;
 import com.spkt.libraSys.exception.ErrorCode;
+import com.spkt.libraSys.service.user.UserAccessChangedEvent;
 import com.spkt.libraSys.service.user.UserEntity;
 import com.spkt.libraSys.service.user.UserRepository;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 
@@ -23,6 +25,7 @@ public class RoleServiceImpl implements RoleService {
 
     RoleRepository roleRepository;
     private final UserRepository userRepository;
+    ApplicationEventPublisher eventPublisher;
 
     @Override
     @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
@@ -54,6 +57,7 @@ public class RoleServiceImpl implements RoleService {
         }
         user.setRoleEntities(new HashSet<>(roleEntities));
         userRepository.save(user);
+        eventPublisher.publishEvent(UserAccessChangedEvent.of(userId));
 
     }
 
@@ -1,10 +1,26 @@
 package com.spkt.libraSys.service.token;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface InvalidatedTokenRepository extends JpaRepository<InvalidatedToken, Long> {
     Optional<InvalidatedToken> findByJti(String jti);
+
+    // Change feed: rows inserted after the given id, oldest first
+    List<InvalidatedToken> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM InvalidatedToken t WHERE t.expiryDate < :now")
+    int deleteExpired(@Param("now") Instant now);
 }
@@ -1,27 +1,146 @@
 package com.spkt.libraSys.service.token;
 
-import lombok.AccessLevel;
-import lombok.RequiredArgsConstructor;
-import lombok.experimental.FieldDefaults;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Revoked token ids are kept in memory (jti -> expiry) behind a bloom filter, so the usual
+ * "not revoked" answer costs a few bit lookups and never reaches the database.
+ * The set is loaded at startup and follows the invalidated token table through its id sequence,
+ * which also picks up tokens revoked on other nodes; expired ids are pruned and their rows purged.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
-@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class InvalidatedTokenServiceImpl implements InvalidatedTokenService {
-    InvalidatedTokenRepository blacklistedTokenRepository;
+    static final int SYNC_PAGE_SIZE = 1000;
+    // Identity ids may commit out of order, so each sync re-reads a few ids behind the last one seen
+    static final int SYNC_OVERLAP = 50;
+
+    private final InvalidatedTokenRepository blacklistedTokenRepository;
+    private final Clock clock;
+    private final int expectedTokens;
+    private final double falsePositiveRate;
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private final Object bloomLock = new Object();
+    private volatile JtiBloomFilter bloom;
+    // Until the first load succeeds every check falls back to the database
+    private volatile boolean loaded;
+    private long lastSeenId;
+
+    @Autowired
+    public InvalidatedTokenServiceImpl(InvalidatedTokenRepository blacklistedTokenRepository,
+                                       @Value("${app.security.revocation.expected-tokens:100000}") int expectedTokens,
+                                       @Value("${app.security.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this(blacklistedTokenRepository, expectedTokens, falsePositiveRate, Clock.systemUTC());
+    }
+
+    InvalidatedTokenServiceImpl(InvalidatedTokenRepository blacklistedTokenRepository,
+                                int expectedTokens, double falsePositiveRate, Clock clock) {
+        this.blacklistedTokenRepository = blacklistedTokenRepository;
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.clock = clock;
+        this.bloom = JtiBloomFilter.create(expectedTokens, falsePositiveRate);
+    }
+
+    @PostConstruct
+    public void load() {
+        try {
+            sync();
+            log.info("Loaded {} revoked tokens", revoked.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not load revoked tokens, checking the database until the next sync: {}", e.getMessage());
+        }
+    }
+
     @Override
     public boolean isJtiBlacklisted(String jti) {
-        return blacklistedTokenRepository.findByJti(jti).isPresent();
+        if (!loaded) {
+            return blacklistedTokenRepository.findByJti(jti).isPresent();
+        }
+        // A revoked token stays revoked until it expires, after which JWT validation rejects it anyway
+        return bloom.mightContain(jti) && revoked.containsKey(jti);
     }
 
     @Override
     public void saveBlacklistedToken(String jti, long expirationTimeMillis) {
-        blacklistedTokenRepository.save(new InvalidatedToken(jti, Instant.ofEpochMilli(expirationTimeMillis)));
+        if (revoked.containsKey(jti)) {
+            return;
+        }
+        Instant expiry = Instant.ofEpochMilli(expirationTimeMillis);
+        blacklistedTokenRepository.save(new InvalidatedToken(jti, expiry));
+        remember(jti, expiry);
+    }
+
+    /**
+     * Read rows added since the last sync, from this node or any other
+     */
+    @Scheduled(fixedDelayString = "${app.security.revocation.sync-interval-ms:5000}",
+            initialDelayString = "${app.security.revocation.sync-interval-ms:5000}")
+    public synchronized void sync() {
+        Instant now = clock.instant();
+        long after = Math.max(0, lastSeenId - SYNC_OVERLAP);
+        List<InvalidatedToken> rows;
+        do {
+            rows = blacklistedTokenRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, SYNC_PAGE_SIZE));
+            for (InvalidatedToken row : rows) {
+                if (row.getExpiryDate().isAfter(now)) {
+                    remember(row.getJti(), row.getExpiryDate());
+                }
+                after = row.getId();
+            }
+        } while (rows.size() == SYNC_PAGE_SIZE);
+        lastSeenId = Math.max(lastSeenId, after);
+        loaded = true;
+    }
+
+    /**
+     * Drop expired ids from memory, rebuild the bloom filter without them and delete their rows
+     */
+    @Scheduled(fixedDelayString = "${app.security.revocation.purge-interval-ms:3600000}",
+            initialDelayString = "${app.security.revocation.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        Instant now = clock.instant();
+        revoked.values().removeIf(expiry -> !expiry.isAfter(now));
+        synchronized (bloomLock) {
+            rebuildBloom();
+        }
+        int deleted = blacklistedTokenRepository.deleteExpired(now);
+        log.info("Purged {} expired revoked tokens, {} still revoked", deleted, revoked.size());
+    }
+
+    int revokedCount() {
+        return revoked.size();
+    }
+
+    private void remember(String jti, Instant expiry) {
+        if (revoked.put(jti, expiry) != null) {
+            return;
+        }
+        synchronized (bloomLock) {
+            if (revoked.size() > bloom.capacity()) {
+                rebuildBloom();
+            } else {
+                bloom.put(jti);
+            }
+        }
+    }
 
+    // Caller holds bloomLock; ids added to the set meanwhile wait on the lock and go into the new filter
+    private void rebuildBloom() {
+        JtiBloomFilter rebuilt = JtiBloomFilter.create(Math.max(expectedTokens, revoked.size() * 2), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::put);
+        bloom = rebuilt;
     }
 }
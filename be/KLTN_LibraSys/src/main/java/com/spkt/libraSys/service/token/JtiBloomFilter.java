@@ -0,0 +1,95 @@
+package com.spkt.libraSys.service.token;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over revoked JWT ids. A negative answer is definite, a positive one has to be
+ * confirmed against the revocation set. Bits can only be added, so the filter is rebuilt
+ * from the live set when expired ids are pruned or it grows past its capacity.
+ */
+final class JtiBloomFilter {
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashCount;
+    private final int capacity;
+
+    private JtiBloomFilter(long bitSize, int hashCount, int capacity) {
+        this.bits = new AtomicLongArray((int) ((bitSize + 63) >>> 6));
+        this.bitSize = bitSize;
+        this.hashCount = hashCount;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param expectedInsertions Number of ids the filter is sized for
+     * @param falsePositiveRate Target false positive rate at that size, e.g. 0.001
+     */
+    static JtiBloomFilter create(int expectedInsertions, double falsePositiveRate) {
+        int n = Math.max(expectedInsertions, 1);
+        long m = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        int k = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        return new JtiBloomFilter(m, k, n);
+    }
+
+    void put(String jti) {
+        long hash = hash64(jti);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0
+                    && !bits.compareAndSet(word, current, current | mask)) {
+                // retry until the bit is set
+            }
+        }
+    }
+
+    boolean mightContain(String jti) {
+        long hash = hash64(jti);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long bitSize() {
+        return bitSize;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    private long index(int combined) {
+        // Kirsch–Mitzenmacher double hashing, folded into [0, bitSize)
+        return (combined & 0x7fffffffL) % bitSize;
+    }
+
+    // FNV-1a over the UTF-8 bytes followed by a 64-bit finalizer mix
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
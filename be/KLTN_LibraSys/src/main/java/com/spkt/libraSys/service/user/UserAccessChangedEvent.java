@@ -0,0 +1,22 @@
+package com.spkt.libraSys.service.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Event published when something the authenticated principal is built from changes:
+ * the password, the account status (lock, unlock, delete) or the roles of one or more users.
+ * The principal cache drops those users once the change has committed.
+ */
+@Getter
+@AllArgsConstructor
+public class UserAccessChangedEvent {
+    private final Collection<String> userIds;
+
+    public static UserAccessChangedEvent of(String userId) {
+        return new UserAccessChangedEvent(List.of(userId));
+    }
+}
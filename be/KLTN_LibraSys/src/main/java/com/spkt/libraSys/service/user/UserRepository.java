@@ -1,13 +1,20 @@
 package com.spkt.libraSys.service.user;
 
+import com.spkt.libraSys.service.dashboard.GroupCountRow;
+import com.spkt.libraSys.service.dashboard.MonthlyBucketRow;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,12 +27,44 @@ public interface UserRepository extends JpaRepository<UserEntity, String>, JpaSp
     Optional<UserEntity> findByUsername(String username);
     boolean existsByUsername(String username);
 
+    @Modifying
+    @Query("UPDATE users u SET u.currentBorrowedCount = " +
+            "CASE WHEN u.currentBorrowedCount > :by THEN u.currentBorrowedCount - :by ELSE 0 END " +
+            "WHERE u.userId IN :ids")
+    int decrementCurrentBorrowedCount(@Param("ids") Collection<String> ids, @Param("by") int by);
+
+    @Modifying
+    @Query("UPDATE users u SET u.isActive = com.spkt.libraSys.service.user.UserStatus.LOCKED, " +
+            "u.lockedAt = :lockedAt, u.lockReason = :reason " +
+            "WHERE u.userId IN :ids AND u.isActive <> com.spkt.libraSys.service.user.UserStatus.LOCKED")
+    int lockUsers(@Param("ids") Collection<String> ids, @Param("lockedAt") LocalDateTime lockedAt,
+                  @Param("reason") String reason);
+
+    // Locks the rows of the users (only) that are not LOCKED yet, so lockUsers changes exactly the ids returned
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u.userId FROM users u " +
+            "WHERE u.userId IN :ids AND u.isActive <> com.spkt.libraSys.service.user.UserStatus.LOCKED")
+    List<String> lockIdsNotLocked(@Param("ids") Collection<String> ids);
+
     @Query("SELECT COUNT(u) FROM users u WHERE u.isActive = :status")
     long countByStatus(@Param("status") UserStatus status);
 
     @Query("SELECT COUNT(u) FROM users u WHERE u.registrationDate > :date")
     long countNewUsers(@Param("date") LocalDate date);
 
+    @Query("SELECT u.isActive AS groupKey, COUNT(u) AS total, " +
+            "SUM(CASE WHEN u.registrationDate > :since THEN 1 ELSE 0 END) AS recent " +
+            "FROM users u GROUP BY u.isActive")
+    List<GroupCountRow> countGroupedByStatus(@Param("since") LocalDate since);
+
+    @Query("SELECT YEAR(u.registrationDate) AS bucketYear, MONTH(u.registrationDate) AS bucketMonth, " +
+            "COUNT(u) AS total, 0 AS amount FROM users u WHERE u.registrationDate >= :from " +
+            "GROUP BY YEAR(u.registrationDate), MONTH(u.registrationDate)")
+    List<MonthlyBucketRow> countRegisteredByMonthSince(@Param("from") LocalDate from);
+
+    @Query("SELECT DISTINCT u FROM users u LEFT JOIN FETCH u.roleEntities")
+    List<UserEntity> findAllWithRoles();
+
     List<UserEntity> findByStudentBatch(int studentBatch);
 
     List<UserEntity> findByMajorCode(String majorCode);
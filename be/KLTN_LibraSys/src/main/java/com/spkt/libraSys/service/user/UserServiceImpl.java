@@ -14,6 +14,7 @@ import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -40,6 +41,7 @@ public class UserServiceImpl implements UserService {
     RoleRepository roleRepository;
     RoleService roleService;
     private final EmailService emailService;
+    ApplicationEventPublisher eventPublisher;
 
     @Override
     public UserResponse getMyInfo() {
@@ -128,6 +130,7 @@ public class UserServiceImpl implements UserService {
         UserEntity user = userRepository.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
         user.setIsActive(UserStatus.DELETED);
+        eventPublisher.publishEvent(UserAccessChangedEvent.of(id));
     }
 
     @Override
@@ -142,6 +145,7 @@ public class UserServiceImpl implements UserService {
         String encodedPassword = passwordEncoder.encode(request.getNewPassword());
         user.setPassword(encodedPassword);
         userRepository.save(user);
+        eventPublisher.publishEvent(UserAccessChangedEvent.of(user.getUserId()));
     }
 
     @Override
@@ -154,6 +158,8 @@ public class UserServiceImpl implements UserService {
             user.setIsActive(UserStatus.DELETED);
         }
         userRepository.saveAll(users);
+        eventPublisher.publishEvent(new UserAccessChangedEvent(
+                users.stream().map(UserEntity::getUserId).toList()));
     }
 
     @Override
@@ -164,6 +170,7 @@ public class UserServiceImpl implements UserService {
         user.setLockedAt(LocalDateTime.now());
         user.setLockReason(reason);
         userRepository.save(user);
+        eventPublisher.publishEvent(UserAccessChangedEvent.of(userId));
 
         // Send notification email
         sendLockNotificationEmail(user, reason);
@@ -207,5 +214,6 @@ public class UserServiceImpl implements UserService {
         user.setLockedAt(null);
         user.setLockReason(null);
         userRepository.save(user);
+        eventPublisher.publishEvent(UserAccessChangedEvent.of(userId));
     }
 }
\ No newline at end of file
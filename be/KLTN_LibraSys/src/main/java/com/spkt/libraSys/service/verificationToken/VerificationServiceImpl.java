@@ -6,6 +6,7 @@ import com.spkt.libraSys.service.access.VerificationResponse;
 import com.spkt.libraSys.service.email.EmailService;
 import com.spkt.libraSys.service.role.RoleEntity;
 import com.spkt.libraSys.service.role.RoleService;
+import com.spkt.libraSys.service.user.UserAccessChangedEvent;
 import com.spkt.libraSys.service.user.UserEntity;
 import com.spkt.libraSys.service.user.UserRepository;
 import com.spkt.libraSys.service.user.UserStatus;
@@ -16,6 +17,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -34,6 +36,7 @@ public class VerificationServiceImpl implements VerificationService {
     EmailService emailService;
     PasswordEncoder passwordEncoder;
     private final RoleService roleService;
+    ApplicationEventPublisher eventPublisher;
 
     @Value("${my-config.base-url}")
     @NonFinal
@@ -157,6 +160,7 @@ public class VerificationServiceImpl implements VerificationService {
         UserEntity user = userOptional.get();
         user.setPassword(passwordEncoder.encode(request.getPassword()));
         userRepository.save(user);
+        eventPublisher.publishEvent(UserAccessChangedEvent.of(user.getUserId()));
 
         verificationTokenRepository.delete(tokenEntity); // Xoá token sau khi reset
 
@@ -2,6 +2,7 @@ package com.spkt.libraSys.service.webSocket;
 
 import com.spkt.libraSys.service.loan.LoanResponse;
 import com.spkt.libraSys.service.notification.NotificationResponse;
+import com.spkt.libraSys.service.notification.UnreadCountMessage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
@@ -22,6 +23,16 @@ public class WebSocketService {
         messagingTemplate.convertAndSendToUser(userId , "/queue/notifications", notification);
     }
 
+    /**
+     * Send the user's unread notification count on the notification queue
+     *
+     * @param userId      ID of the user
+     * @param unreadCount Current number of unread notifications
+     */
+    public void sendUnreadCountToUser(String userId, long unreadCount) {
+        messagingTemplate.convertAndSendToUser(userId, "/queue/notifications", new UnreadCountMessage(unreadCount));
+    }
+
     /**
      * Send loan status update to user
      *
@@ -0,0 +1,64 @@
+package com.spkt.libraSys.config;
+
+import com.spkt.libraSys.exception.AppException;
+import com.spkt.libraSys.exception.ErrorCode;
+import com.spkt.libraSys.service.user.UserAccessChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrincipalCacheTest {
+
+    private final PrincipalCache cache = new PrincipalCache(60, 100);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Function<String, CustomUserDetails> loader = username -> {
+        loads.incrementAndGet();
+        return new CustomUserDetails("id-" + username, username, "encoded",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    };
+
+    @Test
+    void get_ShouldLoadOnceAndReturnCopies() {
+        CustomUserDetails first = cache.get("a@spkt.edu.vn", loader);
+        first.eraseCredentials();
+        CustomUserDetails second = cache.get("a@spkt.edu.vn", loader);
+
+        assertEquals(1, loads.get());
+        assertNotSame(first, second);
+        assertEquals("encoded", second.getPassword());
+        assertEquals("id-a@spkt.edu.vn", second.getUserId());
+        assertTrue(second.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    @Test
+    void onUserAccessChanged_ShouldEvictOnlyThoseUsers() {
+        cache.get("a", loader);
+        cache.get("b", loader);
+
+        cache.onUserAccessChanged(UserAccessChangedEvent.of("id-a"));
+        cache.get("a", loader);
+        cache.get("b", loader);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void get_ShouldNotCacheRejectedUsers() {
+        Function<String, CustomUserDetails> locked = username -> {
+            loads.incrementAndGet();
+            throw new AppException(ErrorCode.INSUFFICIENT_PERMISSIONS, "Tài khoản bị khóa");
+        };
+
+        assertThrows(AppException.class, () -> cache.get("a", locked));
+        assertThrows(AppException.class, () -> cache.get("a", locked));
+
+        assertEquals(2, loads.get());
+        assertEquals(0L, cache.snapshot().get("size"));
+    }
+}
@@ -0,0 +1,117 @@
+package com.spkt.libraSys.scheduler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChunkedJobRunnerTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    private ChunkedJobRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        runner = new ChunkedJobRunner(transactionManager);
+        ReflectionTestUtils.setField(runner, "chunkSize", 2);
+    }
+
+    @Test
+    void run_ShouldPageByKeyAndCommitEachChunkBeforeDispatching() {
+        RecordingJob job = new RecordingJob(5);
+
+        JobRunMetrics metrics = runner.run("test", job);
+
+        assertEquals(JobRunMetrics.State.COMPLETED, metrics.getState());
+        assertEquals(List.of(0, 2, 4), job.readFrom);
+        assertEquals(3, metrics.getChunks());
+        assertEquals(5, metrics.getRowsRead());
+        assertEquals(5, metrics.getRowsUpdated());
+        assertEquals(5, metrics.getDispatched());
+        verify(transactionManager, times(3)).commit(transactionStatus);
+        assertEquals(List.of("test"), runner.getLastRuns().stream().map(JobRunMetrics::getJobName).toList());
+    }
+
+    @Test
+    void run_ShouldStopAndRollBackOnFailedChunk() {
+        RecordingJob job = new RecordingJob(6);
+        job.failProcessingFrom = 2;
+
+        JobRunMetrics metrics = runner.run("test", job);
+
+        assertEquals(JobRunMetrics.State.FAILED, metrics.getState());
+        assertEquals(1, metrics.getChunks());
+        assertEquals(2, metrics.getDispatched());
+        verify(transactionManager).rollback(transactionStatus);
+    }
+
+    @Test
+    void run_ShouldCountDispatchFailuresAndContinue() {
+        RecordingJob job = new RecordingJob(4);
+        job.failDispatch = true;
+
+        JobRunMetrics metrics = runner.run("test", job);
+
+        assertEquals(JobRunMetrics.State.COMPLETED, metrics.getState());
+        assertEquals(2, metrics.getChunks());
+        assertEquals(2, metrics.getDispatchFailures());
+    }
+
+    private static class RecordingJob implements ChunkedJob<Integer, Integer> {
+        final List<Integer> rows;
+        final List<Integer> readFrom = new ArrayList<>();
+        int failProcessingFrom = Integer.MAX_VALUE;
+        boolean failDispatch;
+
+        RecordingJob(int rows) {
+            this.rows = IntStream.rangeClosed(1, rows).boxed().collect(Collectors.toList());
+        }
+
+        @Override
+        public List<Integer> read(Integer after, int limit) {
+            int from = after == null ? 0 : after;
+            readFrom.add(from);
+            return rows.stream().filter(row -> row > from).limit(limit).toList();
+        }
+
+        @Override
+        public Integer keyOf(Integer row) {
+            return row;
+        }
+
+        @Override
+        public int process(List<Integer> chunk) {
+            if (chunk.get(0) > failProcessingFrom) {
+                throw new IllegalStateException("db down");
+            }
+            return chunk.size();
+        }
+
+        @Override
+        public int afterCommit(List<Integer> chunk) {
+            if (failDispatch) {
+                throw new IllegalStateException("push failed");
+            }
+            return chunk.size();
+        }
+    }
+}
@@ -10,14 +10,21 @@ import com.spkt.libraSys.service.token.InvalidatedTokenService;
 import com.spkt.libraSys.service.user.*;
 import com.spkt.libraSys.service.verificationToken.VerificationService;
 import io.jsonwebtoken.Claims;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.util.Collections;
 import java.util.Date;
@@ -44,6 +51,8 @@ class AuthServiceImplTest {
     private PasswordEncoder passwordEncoder;
     @Mock
     private VerificationService verificationService;
+    @Mock
+    private EntityManager entityManager;
 
     @InjectMocks
     private AuthServiceImpl authService;
@@ -223,4 +232,55 @@ class AuthServiceImplTest {
         // Assert
         assertFalse(result);
     }
-} 
\ No newline at end of file
+
+    @Test
+    void getCurrentUser_ShouldReuseEntityWithinRequest() {
+        authenticate(testUser);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        when(userRepository.findById("test123")).thenReturn(Optional.of(testUser));
+        when(entityManager.contains(testUser)).thenReturn(true);
+
+        assertSame(testUser, authService.getCurrentUser());
+        assertSame(testUser, authService.getCurrentUser());
+
+        verify(userRepository, times(1)).findById("test123");
+    }
+
+    @Test
+    void getCurrentUser_ShouldReloadDetachedEntity() {
+        authenticate(testUser);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        when(userRepository.findById("test123")).thenReturn(Optional.of(testUser));
+        when(entityManager.contains(testUser)).thenReturn(false);
+
+        authService.getCurrentUser();
+        authService.getCurrentUser();
+
+        verify(userRepository, times(2)).findById("test123");
+    }
+
+    @Test
+    void getCurrentUser_ShouldQueryOutsideRequest() {
+        authenticate(testUser);
+        when(userRepository.findById("test123")).thenReturn(Optional.of(testUser));
+
+        authService.getCurrentUser();
+        authService.getCurrentUser();
+
+        verify(userRepository, times(2)).findById("test123");
+        verifyNoInteractions(entityManager);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private static void authenticate(UserEntity user) {
+        CustomUserDetails principal = new CustomUserDetails(user.getUserId(), user.getUsername(),
+                user.getPassword(), Collections.emptyList());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,115 @@
+package com.spkt.libraSys.service.chatbot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spkt.libraSys.service.access.AuthService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatbotServiceTest {
+
+    @Mock
+    private IntentHandlerRegistry intentHandlerRegistry;
+    @Mock
+    private AuthService authService;
+    @Mock
+    private IntentHandler checkFineHandler;
+
+    private IntentMetrics intentMetrics;
+    private ChatbotService chatbotService;
+
+    @BeforeEach
+    void setUp() {
+        intentMetrics = new IntentMetrics(intentHandlerRegistry, 2000);
+        chatbotService = new ChatbotService(intentHandlerRegistry, authService, new ObjectMapper(), intentMetrics);
+    }
+
+    @Test
+    void handleIntent_ShouldDispatchThroughRoutingTable() {
+        WebhookResponse expected = new WebhookResponse("Bạn không có khoản phạt nào");
+        when(intentHandlerRegistry.getIntentNames()).thenReturn(Set.of("CheckFine"));
+        when(intentHandlerRegistry.getHandler("CheckFine")).thenReturn(checkFineHandler);
+        when(checkFineHandler.handle(any())).thenReturn(expected);
+
+        assertSame(expected, chatbotService.handleIntent(request("CheckFine")));
+        assertSame(expected, chatbotService.handleIntent(request("CheckFine")));
+
+        IntentStats stats = chatbotService.getIntentMetrics().get(0);
+        assertEquals("CheckFine", stats.getIntent());
+        assertTrue(stats.isHandled());
+        assertEquals(2, stats.getCount());
+        assertEquals(0, stats.getErrors());
+    }
+
+    @Test
+    void handleIntent_ShouldAnswerUnknownIntentAndCountIt() {
+        when(intentHandlerRegistry.getIntentNames()).thenReturn(Set.of("CheckFine"));
+        when(intentHandlerRegistry.getHandler(anyString())).thenReturn(null);
+
+        WebhookResponse response = chatbotService.handleIntent(request("Weather"));
+        chatbotService.handleIntent(request("Weather-" + System.nanoTime()));
+
+        assertTrue(response.getFulfillmentText().startsWith("Xin lỗi, tôi không hiểu"));
+        // Unregistered names from the payload share one timer
+        List<IntentStats> metrics = chatbotService.getIntentMetrics();
+        assertEquals(1, metrics.size());
+        IntentStats stats = metrics.get(0);
+        assertEquals(IntentMetrics.UNKNOWN_INTENT, stats.getIntent());
+        assertFalse(stats.isHandled());
+        assertEquals(2, stats.getCount());
+    }
+
+    @Test
+    void handleIntent_ShouldCountHandlerErrors() {
+        when(intentHandlerRegistry.getIntentNames()).thenReturn(Set.of("CheckFine"));
+        when(intentHandlerRegistry.getHandler("CheckFine")).thenReturn(checkFineHandler);
+        when(checkFineHandler.handle(any())).thenThrow(new IllegalStateException("db down"));
+
+        WebhookResponse response = chatbotService.handleIntent(request("CheckFine"));
+
+        assertTrue(response.getFulfillmentText().startsWith("Xin lỗi, đã có lỗi xảy ra"));
+        assertEquals(1, chatbotService.getIntentMetrics().get(0).getErrors());
+    }
+
+    @Test
+    void intentMetrics_ShouldCountSlowCallsAndSortBySlowestTotal() {
+        when(intentHandlerRegistry.getIntentNames()).thenReturn(Set.of("Fast", "Slow"));
+        IntentMetrics metrics = new IntentMetrics(intentHandlerRegistry, 100);
+        metrics.record("Fast", 1_000_000, false);
+        metrics.record("Slow", 300_000_000, false);
+        metrics.record("Slow", 50_000_000, false);
+
+        List<IntentStats> stats = metrics.snapshot();
+
+        assertEquals("Slow", stats.get(0).getIntent());
+        assertEquals(1, stats.get(0).getSlowCount());
+        assertEquals(300.0, stats.get(0).getMaxMillis(), 0.001);
+        assertEquals(175.0, stats.get(0).getAvgMillis(), 0.001);
+        assertEquals(0, stats.get(1).getSlowCount());
+    }
+
+    private static WebhookRequest request(String intentName) {
+        WebhookRequest.Intent intent = new WebhookRequest.Intent();
+        intent.setDisplayName(intentName);
+        WebhookRequest.QueryResult queryResult = new WebhookRequest.QueryResult();
+        queryResult.setIntent(intent);
+        WebhookRequest.OriginalDetectIntentRequest original = new WebhookRequest.OriginalDetectIntentRequest();
+        original.setPayload(Map.of("username", "a@spkt.edu.vn"));
+        WebhookRequest request = new WebhookRequest();
+        request.setQueryResult(queryResult);
+        request.setOriginalDetectIntentRequest(original);
+        return request;
+    }
+}
@@ -0,0 +1,204 @@
+package com.spkt.libraSys.service.dashboard;
+
+import com.spkt.libraSys.service.document.DocumentRepository;
+import com.spkt.libraSys.service.document.DocumentStatus;
+import com.spkt.libraSys.service.drm.DrmLicenseRepository;
+import com.spkt.libraSys.service.loan.LoanEntity.PaymentStatus;
+import com.spkt.libraSys.service.loan.LoanRepository;
+import com.spkt.libraSys.service.loan.LoanStatus;
+import com.spkt.libraSys.service.user.UserRepository;
+import com.spkt.libraSys.service.user.UserStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardAggregatorTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 15, 10, 0);
+
+    @Mock
+    private DocumentRepository documentRepository;
+    @Mock
+    private LoanRepository loanRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private DrmLicenseRepository drmLicenseRepository;
+    @Mock
+    private LoanStatsRollupService rollupService;
+
+    @InjectMocks
+    private DashboardAggregator aggregator;
+
+    @Test
+    void aggregate_ShouldFoldGroupedRowsIntoEverySection() {
+        when(documentRepository.countGroupedByStatus())
+                .thenReturn(List.of(new GroupRow(DocumentStatus.ENABLED, 7, 0)));
+        when(userRepository.countGroupedByStatus(any()))
+                .thenReturn(List.of(new GroupRow(UserStatus.ACTIVE, 10, 2), new GroupRow(UserStatus.LOCKED, 3, 1)));
+        when(drmLicenseRepository.countGroupedByRevoked(any()))
+                .thenReturn(List.of(new GroupRow(false, 8, 4), new GroupRow(true, 2, 0)));
+        when(loanRepository.aggregateByStatusAndPaymentStatus(any(), any(), any())).thenReturn(List.of(
+                new LoanRow(LoanStatus.BORROWED, PaymentStatus.NON_PAYMENT, 5, 0, 2, 3, 0, 1, 0, 0, 0, 0, 0),
+                new LoanRow(LoanStatus.RETURNED, PaymentStatus.UNPAID, 2, 30_000, 0, 1, 2, 0, 1, 1, 10_000, 0, 0),
+                new LoanRow(LoanStatus.RETURNED, PaymentStatus.CASH, 3, 45_000, 0, 0, 3, 0, 0, 0, 0, 1, 15_000),
+                new LoanRow(LoanStatus.RETURNED, PaymentStatus.VNPAY, 1, 5_000, 0, 0, 1, 0, 0, 0, 0, 0, 0)));
+
+        DashboardSnapshot snapshot = aggregator.aggregate(NOW, 4);
+
+        assertEquals(7L, snapshot.section("documents").get("totalDocuments"));
+        assertEquals(0L, snapshot.section("documents").get("documentsByDISABLED"));
+        assertEquals(Map.of("totalUsers", 13L, "activeUsers", 10L, "newUsers", 3L), snapshot.section("users"));
+        assertEquals(8L, snapshot.section("drm").get("activeLicenses"));
+        assertEquals(2L, snapshot.section("drm").get("revokedLicenses"));
+
+        Map<String, Object> loans = snapshot.section("loans");
+        assertEquals(11L, loans.get("totalLoans"));
+        assertEquals(5L, loans.get("activeLoans"));
+        assertEquals(2L, loans.get("overdueLoans"));
+        assertEquals(4L, loans.get("recentLoans"));
+
+        Map<String, Object> fines = snapshot.section("fines");
+        assertEquals(80_000.0, fines.get("totalFines"));
+        assertEquals(50_000.0, fines.get("paidFines"));
+        assertEquals(30_000.0, fines.get("pendingFines"));
+        assertEquals(6L, fines.get("totalFineTransactions"));
+        assertEquals(4L, fines.get("paidTransactions"));
+        assertEquals(2L, fines.get("pendingTransactions"));
+
+        Map<String, Object> payments = snapshot.section("payments");
+        assertEquals(4L, payments.get("totalPayments"));
+        assertEquals(3L, payments.get("cashPayments"));
+        assertEquals(5_000.0, payments.get("vnpayAmount"));
+
+        Map<String, Object> daily = snapshot.section("daily");
+        assertEquals(1L, daily.get("newLoans"));
+        assertEquals(1L, daily.get("returns"));
+        assertEquals(10_000.0, daily.get("newFineAmount"));
+        assertEquals(15_000.0, daily.get("paymentAmount"));
+
+        assertEquals(NOW, snapshot.getGeneratedAt());
+        assertEquals(4, snapshot.getSourceVersion());
+        assertEquals(DashboardAggregator.QUERY_COUNT, snapshot.getQueryCount());
+    }
+
+    @Test
+    void aggregate_ShouldBuildMonthlyAndYearlySeriesFromRollupMonthBuckets() {
+        when(rollupService.buckets(LoanStatsBucketEntity.Granularity.MONTH,
+                LocalDate.of(2021, 1, 1), LocalDate.of(2025, 6, 15))).thenReturn(List.of(
+                month(2023, 11, 2, 0, 5_000, 0), month(2024, 1, 0, 0, 0, 7_000),
+                month(2025, 2, 4, 0, 20_000, 0), month(2025, 3, 0, 3, 0, 0), month(2025, 6, 1, 0, 0, 0)));
+        when(userRepository.countRegisteredByMonthSince(any())).thenReturn(List.of(
+                new MonthRow(2024, 5, 6, 0), new MonthRow(2025, 1, 2, 0), new MonthRow(2025, 4, 3, 0)));
+
+        DashboardSnapshot snapshot = aggregator.aggregate(NOW, 0);
+
+        Map<String, Object> monthly = snapshot.section("monthly");
+        assertEquals(4L, ((Map<?, ?>) monthly.get("loansByMonth")).get(2));
+        assertEquals(0L, ((Map<?, ?>) monthly.get("loansByMonth")).get(12));
+        assertEquals(20_000.0, ((Map<?, ?>) monthly.get("finesByMonth")).get(2));
+        assertEquals(3L, ((Map<?, ?>) monthly.get("returnsByMonth")).get(3));
+        // Users registered from the start of each month onwards
+        assertEquals(5L, ((Map<?, ?>) monthly.get("usersByMonth")).get(1));
+        assertEquals(3L, ((Map<?, ?>) monthly.get("usersByMonth")).get(2));
+        assertEquals(0L, ((Map<?, ?>) monthly.get("usersByMonth")).get(5));
+
+        Map<String, Object> yearly = snapshot.section("yearly");
+        assertEquals(5L, ((Map<?, ?>) yearly.get("loansByYear")).get(2025));
+        assertEquals(2L, ((Map<?, ?>) yearly.get("loansByYear")).get(2023));
+        assertEquals(0L, ((Map<?, ?>) yearly.get("loansByYear")).get(2021));
+        assertEquals(7_000.0, ((Map<?, ?>) yearly.get("paymentsByYear")).get(2024));
+        assertEquals(11L, ((Map<?, ?>) yearly.get("usersByYear")).get(2024));
+        assertEquals(5L, ((Map<?, ?>) yearly.get("usersByYear")).get(2025));
+        assertEquals(5, ((Map<?, ?>) yearly.get("returnsByYear")).size());
+
+        verify(loanRepository, never()).countByStatusAndCreatedAtBetween(any(), any(), any());
+    }
+
+    private static LoanStatsBucketEntity month(int year, int month, long loans, long returns,
+                                               double fineAmount, double paymentAmount) {
+        return LoanStatsBucketEntity.builder()
+                .granularity(LoanStatsBucketEntity.Granularity.MONTH)
+                .bucketStart(LocalDate.of(year, month, 1))
+                .loanCount(loans)
+                .returnCount(returns)
+                .fineAmount(fineAmount)
+                .paymentAmount(paymentAmount)
+                .build();
+    }
+
+    private static class GroupRow implements GroupCountRow {
+        private final Object key;
+        private final long total;
+        private final long recent;
+
+        GroupRow(Object key, long total, long recent) {
+            this.key = key;
+            this.total = total;
+            this.recent = recent;
+        }
+
+        public Object getGroupKey() { return key; }
+        public Number getTotal() { return total; }
+        public Number getRecent() { return recent; }
+    }
+
+    private static class MonthRow implements MonthlyBucketRow {
+        private final int year;
+        private final int month;
+        private final long total;
+        private final double amount;
+
+        MonthRow(int year, int month, long total, double amount) {
+            this.year = year;
+            this.month = month;
+            this.total = total;
+            this.amount = amount;
+        }
+
+        public Integer getBucketYear() { return year; }
+        public Integer getBucketMonth() { return month; }
+        public Number getTotal() { return total; }
+        public Number getAmount() { return amount; }
+    }
+
+    private static class LoanRow implements LoanAggregateRow {
+        private final LoanStatus status;
+        private final PaymentStatus paymentStatus;
+        private final Number[] values;
+
+        // values: total, fineSum, overdue, recent, fined, createdToday, returnedToday,
+        // finedToday, fineAmountToday, paidToday, paidAmountToday
+        LoanRow(LoanStatus status, PaymentStatus paymentStatus, Number... values) {
+            this.status = status;
+            this.paymentStatus = paymentStatus;
+            this.values = values;
+        }
+
+        public LoanStatus getStatus() { return status; }
+        public PaymentStatus getPaymentStatus() { return paymentStatus; }
+        public Number getTotal() { return values[0]; }
+        public Number getFineSum() { return values[1]; }
+        public Number getOverdue() { return values[2]; }
+        public Number getRecent() { return values[3]; }
+        public Number getFined() { return values[4]; }
+        public Number getCreatedToday() { return values[5]; }
+        public Number getReturnedToday() { return values[6]; }
+        public Number getFinedToday() { return values[7]; }
+        public Number getFineAmountToday() { return values[8]; }
+        public Number getPaidToday() { return values[9]; }
+        public Number getPaidAmountToday() { return values[10]; }
+    }
+}
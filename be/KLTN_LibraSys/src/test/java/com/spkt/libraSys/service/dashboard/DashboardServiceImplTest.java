@@ -0,0 +1,58 @@
+package com.spkt.libraSys.service.dashboard;
+
+import com.spkt.libraSys.service.document.DocumentRepository;
+import com.spkt.libraSys.service.loan.LoanRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardServiceImplTest {
+
+    @Mock
+    private DocumentRepository documentRepository;
+    @Mock
+    private LoanRepository loanRepository;
+    @Mock
+    private DashboardSnapshotService snapshotService;
+    @Mock
+    private LoanStatsRollupService rollupService;
+
+    @InjectMocks
+    private DashboardServiceImpl dashboardService;
+
+    @Test
+    void getDocumentTypeStatistics_ShouldUseGroupedCountsWithoutLoadingDocuments() {
+        List<GroupCountRow> rows = List.of(row("Giáo trình", 30), row("Luận văn", 15));
+        when(documentRepository.countGroupedByTypeName()).thenReturn(rows);
+        when(documentRepository.count()).thenReturn(40L);
+
+        Map<String, Object> statistics = dashboardService.getDocumentTypeStatistics();
+
+        assertEquals(Map.of("Giáo trình", 30L, "Luận văn", 15L), statistics.get("totalByType"));
+        assertEquals(Map.of("Giáo trình", 75.0, "Luận văn", 37.5), statistics.get("typeDistribution"));
+        verify(documentRepository, never()).findAllWithDocumentTypes();
+    }
+
+    @Test
+    void documentTypeStatistics_ShouldReportZeroPercentWhenThereAreNoDocuments() {
+        Map<String, Object> statistics = DashboardServiceImpl.documentTypeStatistics(List.of(row("Giáo trình", 3)), 0);
+
+        assertEquals(Map.of("Giáo trình", 0.0), statistics.get("typeDistribution"));
+    }
+
+    private static GroupCountRow row(String typeName, long total) {
+        GroupCountRow row = mock(GroupCountRow.class);
+        when(row.getGroupKey()).thenReturn(typeName);
+        when(row.getTotal()).thenReturn(total);
+        return row;
+    }
+}
@@ -0,0 +1,124 @@
+package com.spkt.libraSys.service.dashboard;
+
+import com.spkt.libraSys.service.loan.LoanChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardSnapshotServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 6, 15, 10, 0);
+
+    @Mock
+    private DashboardAggregator aggregator;
+
+    private MutableClock clock;
+    private DashboardSnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(START);
+        snapshotService = new DashboardSnapshotService(aggregator, clock);
+        when(aggregator.aggregate(any(), anyLong())).thenAnswer(invocation -> new DashboardSnapshot(
+                Map.of("loans", Map.of("totalLoans", 1L)), invocation.getArgument(0), 3,
+                DashboardAggregator.QUERY_COUNT, invocation.getArgument(1)));
+    }
+
+    @Test
+    void current_ShouldServeSnapshotUntilItExpires() {
+        DashboardSnapshot first = snapshotService.current();
+        clock.advanceSeconds(120);
+
+        assertSame(first, snapshotService.current());
+        assertEquals(120L, snapshotService.status().get("ageSeconds"));
+        assertEquals(false, snapshotService.status().get("stale"));
+
+        clock.advanceSeconds(200);
+        DashboardSnapshot second = snapshotService.current();
+
+        assertNotSame(first, second);
+        verify(aggregator, times(2)).aggregate(any(), anyLong());
+    }
+
+    @Test
+    void onLoanChanged_ShouldRebuildOnNextReadAfterMinimumInterval() {
+        DashboardSnapshot first = snapshotService.current();
+        snapshotService.onLoanChanged(new LoanChangedEvent(1L, LoanChangedEvent.Kind.PAID, START, 1, 5_000));
+
+        assertSame(first, snapshotService.current());
+        assertEquals(1L, snapshotService.status().get("pendingChanges"));
+        assertEquals(true, snapshotService.status().get("stale"));
+
+        clock.advanceSeconds(10);
+        DashboardSnapshot second = snapshotService.current();
+
+        assertEquals(1L, second.getSourceVersion());
+        assertEquals(0L, snapshotService.status().get("pendingChanges"));
+    }
+
+    @Test
+    void refresh_ShouldKeepServingPreviousSnapshotWhenRebuildFails() {
+        DashboardSnapshot first = snapshotService.current();
+        doThrow(new IllegalStateException("db down")).when(aggregator).aggregate(any(), anyLong());
+
+        assertSame(first, snapshotService.refresh(true));
+        assertEquals(1L, snapshotService.current().section("loans").get("totalLoans"));
+    }
+
+    @Test
+    void scheduledRefresh_ShouldRebuildWhenDayRollsOver() {
+        snapshotService.current();
+        clock.advanceSeconds(60);
+        snapshotService.scheduledRefresh();
+        verify(aggregator, times(1)).aggregate(any(), anyLong());
+
+        clock.set(START.plusDays(1).withHour(0).withMinute(1));
+        snapshotService.scheduledRefresh();
+        verify(aggregator, times(2)).aggregate(any(), anyLong());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(LocalDateTime start) {
+            set(start);
+        }
+
+        void set(LocalDateTime time) {
+            instant = time.toInstant(ZoneOffset.UTC);
+        }
+
+        void advanceSeconds(long seconds) {
+            instant = instant.plusSeconds(seconds);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
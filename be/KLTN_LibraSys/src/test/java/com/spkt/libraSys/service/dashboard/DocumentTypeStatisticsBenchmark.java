@@ -0,0 +1,105 @@
+package com.spkt.libraSys.service.dashboard;
+
+import com.spkt.libraSys.service.document.DocumentEntity;
+import com.spkt.libraSys.service.document.DocumentType.DocumentTypeEntity;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Document-type statistics over a 1M document catalogue:
+ * the old path (hydrate every DocumentEntity with its types, then flatten and group in Java)
+ * against the new path (fold one grouped row per type).
+ * The database side of the grouped query is not measured here; run with {@code -prof gc}
+ * to compare the allocation per call.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test
+ *      -Dexec.mainClass=com.spkt.libraSys.service.dashboard.DocumentTypeStatisticsBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class DocumentTypeStatisticsBenchmark {
+    private static final int DOCUMENTS = 1_000_000;
+    private static final int TYPES = 40;
+
+    DocumentTypeEntity[] types;
+    int[][] typesByDocument;
+    List<GroupCountRow> groupedRows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(13);
+        types = new DocumentTypeEntity[TYPES];
+        for (int i = 0; i < TYPES; i++) {
+            types[i] = DocumentTypeEntity.builder().documentTypeId((long) i).typeName("type-" + i).build();
+        }
+        long[] counts = new long[TYPES];
+        typesByDocument = new int[DOCUMENTS][];
+        for (int d = 0; d < DOCUMENTS; d++) {
+            int[] assigned = random.ints(1 + random.nextInt(3), 0, TYPES).distinct().toArray();
+            typesByDocument[d] = assigned;
+            for (int type : assigned) {
+                counts[type]++;
+            }
+        }
+        groupedRows = new ArrayList<>();
+        for (int i = 0; i < TYPES; i++) {
+            groupedRows.add(new Row(types[i].getTypeName(), counts[i]));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Long> hydrateAndFlatten() {
+        // Stands in for findAllWithDocumentTypes(): one entity and one type set per document
+        List<DocumentEntity> documents = new ArrayList<>(DOCUMENTS);
+        for (int d = 0; d < DOCUMENTS; d++) {
+            Set<DocumentTypeEntity> documentTypes = new HashSet<>();
+            for (int type : typesByDocument[d]) {
+                documentTypes.add(types[type]);
+            }
+            documents.add(DocumentEntity.builder().documentId((long) d).documentTypes(documentTypes).build());
+        }
+        return documents.stream()
+                .flatMap(doc -> doc.getDocumentTypes().stream())
+                .collect(Collectors.groupingBy(DocumentTypeEntity::getTypeName, Collectors.counting()));
+    }
+
+    @Benchmark
+    public Map<String, Object> groupedProjection() {
+        return DashboardServiceImpl.documentTypeStatistics(groupedRows, DOCUMENTS);
+    }
+
+    private static class Row implements GroupCountRow {
+        private final String typeName;
+        private final long total;
+
+        Row(String typeName, long total) {
+            this.typeName = typeName;
+            this.total = total;
+        }
+
+        public Object getGroupKey() { return typeName; }
+        public Number getTotal() { return total; }
+        public Number getRecent() { return 0; }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DocumentTypeStatisticsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
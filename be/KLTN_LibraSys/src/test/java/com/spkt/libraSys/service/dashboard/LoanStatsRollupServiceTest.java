@@ -0,0 +1,142 @@
+package com.spkt.libraSys.service.dashboard;
+
+import com.spkt.libraSys.service.dashboard.LoanStatsBucketEntity.Granularity;
+import com.spkt.libraSys.service.loan.LoanChangedEvent;
+import com.spkt.libraSys.service.loan.LoanEntity;
+import com.spkt.libraSys.service.loan.LoanRepository;
+import com.spkt.libraSys.service.loan.LoanStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanStatsRollupServiceTest {
+
+    @Mock
+    private LoanStatsBucketRepository bucketRepository;
+    @Mock
+    private LoanRepository loanRepository;
+
+    @InjectMocks
+    private LoanStatsRollupService rollupService;
+
+    @Test
+    void cover_ShouldUseWholeYearsAndMonthsAndOnlyEdgeDays() {
+        Map<Granularity, List<LocalDate>> cover = LoanStatsRollupService.cover(
+                LocalDate.of(2022, 11, 29), LocalDate.of(2025, 2, 2));
+
+        assertEquals(List.of(LocalDate.of(2023, 1, 1), LocalDate.of(2024, 1, 1)), cover.get(Granularity.YEAR));
+        assertEquals(List.of(LocalDate.of(2022, 12, 1), LocalDate.of(2025, 1, 1)), cover.get(Granularity.MONTH));
+        assertEquals(List.of(LocalDate.of(2022, 11, 29), LocalDate.of(2022, 11, 30),
+                LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 2)), cover.get(Granularity.DAY));
+
+        Map<Granularity, List<LocalDate>> wholeYear = LoanStatsRollupService.cover(
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31));
+        assertEquals(List.of(LocalDate.of(2024, 1, 1)), wholeYear.get(Granularity.YEAR));
+        assertTrue(wholeYear.get(Granularity.DAY).isEmpty());
+    }
+
+    @Test
+    void totals_ShouldSumCoveringBuckets() {
+        when(bucketRepository.findByGranularityAndBucketStartIn(eq(Granularity.MONTH), anyCollection()))
+                .thenReturn(List.of(bucket(Granularity.MONTH, 10, 4), bucket(Granularity.MONTH, 5, 5)));
+        when(bucketRepository.findByGranularityAndBucketStartIn(eq(Granularity.DAY), anyCollection()))
+                .thenReturn(List.of(bucket(Granularity.DAY, 1, 0)));
+
+        LoanStatsBucketEntity totals = rollupService.totals(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 1));
+
+        assertEquals(16, totals.getLoanCount());
+        assertEquals(9, totals.getReturnCount());
+        verify(bucketRepository, never()).findByGranularityAndBucketStartIn(eq(Granularity.YEAR), anyCollection());
+    }
+
+    @Test
+    void onLoanChanged_ShouldIncrementDayMonthAndYearBuckets() {
+        LoanEntity loan = LoanEntity.builder()
+                .transactionId(7L)
+                .fineAmount(30_000)
+                .returnDate(LocalDateTime.of(2025, 3, 14, 9, 0))
+                .paidAt(LocalDateTime.of(2025, 3, 20, 9, 0))
+                .build();
+
+        rollupService.onLoanChanged(LoanChangedEvent.fined(loan, 10_000));
+        rollupService.onLoanChanged(LoanChangedEvent.paid(loan));
+        rollupService.onLoanChanged(LoanChangedEvent.cancelled(loan));
+
+        verify(bucketRepository).increment(LocalDate.of(2025, 3, 14), LocalDate.of(2025, 3, 1),
+                LocalDate.of(2025, 1, 1), 0, 0, 0, 20_000.0, 0, 0.0);
+        verify(bucketRepository).increment(LocalDate.of(2025, 3, 20), LocalDate.of(2025, 3, 1),
+                LocalDate.of(2025, 1, 1), 0, 0, 0, 0.0, 1, 30_000.0);
+        verifyNoMoreInteractions(bucketRepository);
+    }
+
+    @Test
+    void onLoanChanged_ShouldNotPropagateRollupFailures() {
+        LoanEntity loan = LoanEntity.builder().transactionId(1L).loanDate(LocalDateTime.now()).build();
+        when(bucketRepository.increment(any(), any(), any(), anyLong(), anyLong(), anyLong(), anyDouble(),
+                anyLong(), anyDouble())).thenThrow(new IllegalStateException("db down"));
+
+        assertDoesNotThrow(() -> rollupService.onLoanChanged(LoanChangedEvent.borrowed(loan)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_ShouldFoldDailyRowsIntoAllGranularities() {
+        when(loanRepository.countBorrowedByDay(anySet())).thenReturn(List.of(
+                new DayRow(2024, 12, 31, 2, 0), new DayRow(2025, 1, 2, 3, 0), new DayRow(2025, 1, 3, 1, 0)));
+        when(loanRepository.countReturnedByDay(LoanStatus.RETURNED)).thenReturn(List.of(new DayRow(2025, 1, 3, 1, 0)));
+        when(loanRepository.sumPaidByDay(anySet())).thenReturn(List.of(new DayRow(2025, 1, 3, 1, 5_000)));
+
+        int written = rollupService.rebuild();
+
+        ArgumentCaptor<List<LoanStatsBucketEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(bucketRepository).deleteAllInBatch();
+        verify(bucketRepository).saveAll(saved.capture());
+        // 3 days + 2 months + 2 years
+        assertEquals(7, written);
+        LoanStatsBucketEntity january = saved.getValue().stream()
+                .filter(b -> b.getGranularity() == Granularity.MONTH && b.getBucketStart().equals(LocalDate.of(2025, 1, 1)))
+                .findFirst().orElseThrow();
+        assertEquals(4, january.getLoanCount());
+        assertEquals(1, january.getReturnCount());
+        assertEquals(5_000.0, january.getPaymentAmount());
+    }
+
+    private static LoanStatsBucketEntity bucket(Granularity granularity, long loans, long returns) {
+        return LoanStatsBucketEntity.builder().granularity(granularity).loanCount(loans).returnCount(returns).build();
+    }
+
+    private static class DayRow implements DailyBucketRow {
+        private final int year;
+        private final int month;
+        private final int day;
+        private final long total;
+        private final double amount;
+
+        DayRow(int year, int month, int day, long total, double amount) {
+            this.year = year;
+            this.month = month;
+            this.day = day;
+            this.total = total;
+            this.amount = amount;
+        }
+
+        public Integer getBucketYear() { return year; }
+        public Integer getBucketMonth() { return month; }
+        public Integer getBucketDay() { return day; }
+        public Number getTotal() { return total; }
+        public Number getAmount() { return amount; }
+    }
+}
@@ -0,0 +1,107 @@
+package com.spkt.libraSys.service.document.briefDocs;
+
+import com.spkt.libraSys.service.openAI.OpenAIService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SectionSummarizerTest {
+
+    @Mock
+    private OpenAIService openAIService;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void textSectionBuffer_ShouldCutAtSpacesWithinLimit() {
+        List<String> sections = new ArrayList<>();
+        TextSectionBuffer buffer = new TextSectionBuffer(20, sections::add);
+
+        buffer.accept("mot hai ba bon nam sau bay");
+        buffer.accept("tam chin muoi");
+        buffer.accept("   ");
+        buffer.flush();
+
+        assertEquals(List.of("mot hai ba bon nam", "sau bay tam chin", "muoi"), sections);
+        sections.forEach(section -> assertTrue(section.length() <= 20));
+    }
+
+    @Test
+    void finish_ShouldMergeSectionSummariesInDocumentOrder() {
+        when(openAIService.summarizeTextWithOpenAI(anyString(), eq(""))).thenAnswer(invocation -> {
+            String section = invocation.getArgument(0);
+            // Later sections answer first
+            Thread.sleep(section.equals("s1") ? 50 : 0);
+            return "tt-" + section;
+        });
+        when(openAIService.mergeSummaries(anyList())).thenAnswer(invocation -> String.join("+", invocation.<List<String>>getArgument(0)));
+        SectionSummarizer summarizer = new SectionSummarizer(openAIService, executor, 1000, 4);
+
+        summarizer.accept("s1");
+        summarizer.accept("s2");
+        summarizer.accept("s3");
+
+        assertEquals("tt-s1+tt-s2+tt-s3", summarizer.finish());
+        verify(openAIService, times(1)).mergeSummaries(anyList());
+    }
+
+    @Test
+    void finish_ShouldMergeHierarchicallyWhenSummariesDoNotFitOneSection() {
+        when(openAIService.summarizeTextWithOpenAI(anyString(), eq(""))).thenReturn("x".repeat(40));
+        when(openAIService.mergeSummaries(anyList())).thenReturn("y".repeat(40));
+        SectionSummarizer summarizer = new SectionSummarizer(openAIService, executor, 100, 4);
+
+        for (int i = 0; i < 8; i++) {
+            summarizer.accept("section " + i);
+        }
+
+        assertEquals("y".repeat(40), summarizer.finish());
+        // 8 summaries -> 4 pairs -> 2 pairs -> 1
+        verify(openAIService, times(7)).mergeSummaries(argThat(group -> group.size() == 2));
+    }
+
+    @Test
+    void accept_ShouldBoundSectionsInFlight() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(openAIService.summarizeTextWithOpenAI(anyString(), eq(""))).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return "tt";
+        });
+        when(openAIService.mergeSummaries(anyList())).thenReturn("tt");
+        SectionSummarizer summarizer = new SectionSummarizer(openAIService, executor, 1000, 2);
+
+        for (int i = 0; i < 10; i++) {
+            summarizer.accept("section " + i);
+        }
+        summarizer.finish();
+
+        assertTrue(maxRunning.get() <= 2, "max running: " + maxRunning.get());
+    }
+
+    @Test
+    void finish_ShouldReturnEmptyWithoutSections() {
+        assertEquals("", new SectionSummarizer(openAIService, executor, 1000, 2).finish());
+        verifyNoInteractions(openAIService);
+    }
+}
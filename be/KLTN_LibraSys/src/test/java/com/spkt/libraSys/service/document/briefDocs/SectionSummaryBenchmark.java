@@ -0,0 +1,109 @@
+package com.spkt.libraSys.service.document.briefDocs;
+
+import com.spkt.libraSys.service.openAI.OpenAIService;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summarising a 40-section document against a local stub of the chat completions endpoint
+ * that answers after a fixed delay, so the benchmark runs offline and measures only the pipeline:
+ * one section at a time (the old sequential loop) against sections in flight on a bounded executor
+ * followed by the merge pass.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test
+ *      -Dexec.mainClass=com.spkt.libraSys.service.document.briefDocs.SectionSummaryBenchmark
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SectionSummaryBenchmark {
+    private static final int SECTIONS = 40;
+    private static final int SECTION_CHARS = 12_000;
+    private static final String COMPLETION =
+            "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"Tóm tắt ngắn của một phần tài liệu.\"}}]}";
+
+    @Param({"100"})
+    int latencyMillis;
+
+    @Param({"4", "8"})
+    int threads;
+
+    HttpServer stub;
+    ExecutorService stubWorkers;
+    ExecutorService summaryExecutor;
+    OpenAIService openAIService;
+    String section;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stubWorkers = Executors.newFixedThreadPool(32);
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.setExecutor(stubWorkers);
+        stub.createContext("/v1/chat/completions", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = COMPLETION.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stub.start();
+
+        openAIService = new OpenAIService(null);
+        ReflectionTestUtils.setField(openAIService, "apiKey", "stub");
+        ReflectionTestUtils.setField(openAIService, "openAIUrl",
+                "http://127.0.0.1:" + stub.getAddress().getPort() + "/v1/chat/completions");
+        summaryExecutor = Executors.newFixedThreadPool(threads);
+        section = "Nội dung chương sách. ".repeat(SECTION_CHARS / 22);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stub.stop(0);
+        stubWorkers.shutdownNow();
+        summaryExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public String sequential() {
+        StringBuilder summary = new StringBuilder();
+        for (int i = 0; i < SECTIONS; i++) {
+            summary.append(openAIService.summarizeTextWithOpenAI(section, "")).append('\n');
+        }
+        return summary.toString();
+    }
+
+    @Benchmark
+    public String concurrentWithMerge() {
+        SectionSummarizer summarizer = new SectionSummarizer(openAIService, summaryExecutor, SECTION_CHARS, threads * 2);
+        for (int i = 0; i < SECTIONS; i++) {
+            summarizer.accept(section);
+        }
+        return summarizer.finish();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SectionSummaryBenchmark.class.getSimpleName()).build()).run();
+    }
+}
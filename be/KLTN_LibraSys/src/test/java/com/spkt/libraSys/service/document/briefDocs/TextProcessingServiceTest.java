@@ -0,0 +1,69 @@
+package com.spkt.libraSys.service.document.briefDocs;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextProcessingServiceTest {
+
+    private final TextProcessingService textProcessingService = new TextProcessingService();
+
+    @Test
+    void extractPdfPages_ShouldPassEachPageInOrder() throws IOException {
+        List<String> pages = new ArrayList<>();
+
+        textProcessingService.extractPdfPages(new ByteArrayInputStream(pdf("Page one", "Page two", "Page three")),
+                1024, page -> pages.add(textProcessingService.cleanText(page)));
+
+        assertEquals(List.of("Page one", "Page two", "Page three"), pages);
+    }
+
+    @Test
+    void extractDocxParagraphs_ShouldPassEachParagraphInOrder() throws IOException {
+        List<String> paragraphs = new ArrayList<>();
+
+        textProcessingService.extractDocxParagraphs(new ByteArrayInputStream(docx("Chương 1", "Chương 2")),
+                paragraphs::add);
+
+        assertEquals(List.of("Chương 1", "Chương 2"), paragraphs);
+    }
+
+    private static byte[] pdf(String... pageTexts) throws IOException {
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (String text : pageTexts) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText(text);
+                    content.endText();
+                }
+            }
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] docx(String... paragraphs) throws IOException {
+        try (XWPFDocument document = new XWPFDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (String text : paragraphs) {
+                document.createParagraph().createRun().setText(text);
+            }
+            document.write(out);
+            return out.toByteArray();
+        }
+    }
+}
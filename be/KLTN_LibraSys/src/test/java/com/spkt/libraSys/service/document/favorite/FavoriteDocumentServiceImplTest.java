@@ -3,6 +3,7 @@ package com.spkt.libraSys.service.document.favorite;
 import com.spkt.libraSys.service.access.AuthService;
 import com.spkt.libraSys.service.document.DocumentEntity;
 import com.spkt.libraSys.service.document.DocumentRepository;
+import com.spkt.libraSys.service.recommendation.UserInteractionEvent;
 import com.spkt.libraSys.service.user.UserEntity;
 import com.spkt.libraSys.service.user.UserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,6 +12,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -36,6 +38,8 @@ class FavoriteDocumentServiceImplTest {
     private FavoriteDocumentMapper favoriteMapper;
     @Mock
     private AuthService authService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private FavoriteDocumentServiceImpl favoriteDocumentService;
@@ -85,6 +89,7 @@ class FavoriteDocumentServiceImplTest {
 
         // Assert
         verify(favoriteRepository).save(any(FavoriteDocumentEntity.class));
+        verify(eventPublisher).publishEvent(any(UserInteractionEvent.class));
     }
 
     @Test
@@ -37,10 +37,12 @@ import java.nio.file.Paths;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.Executor;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -109,6 +111,7 @@ class UploadServiceImplTest {
 
         // Set upload directory for testing
         ReflectionTestUtils.setField(uploadService, "UPLOAD_DIR", testUploadDir.toString() + "/");
+        ReflectionTestUtils.setField(uploadService, "drmEncryptionExecutor", (Executor) Runnable::run);
     }
 
     @Test
@@ -143,8 +146,7 @@ class UploadServiceImplTest {
         // Arrange
         List<MultipartFile> files = Collections.singletonList(testFile);
         when(uploadRepository.save(any(UploadEntity.class))).thenReturn(testUpload);
-        when(drmService.createDrmPackage(anyLong(), any(byte[].class)))
-                .thenReturn("encrypted content".getBytes());
+        when(drmService.createContentKey(1L)).thenReturn("content-key");
 
         // Act
         Set<UploadEntity> result = uploadService.uploadFiles(files);
@@ -153,6 +155,7 @@ class UploadServiceImplTest {
         assertNotNull(result);
         assertFalse(result.isEmpty());
         verify(uploadRepository, times(1)).save(any(UploadEntity.class));
+        verify(drmService).encryptDrmPackage(any(Path.class), any(Path.class), eq("content-key"));
     }
 
     @Test
@@ -160,8 +163,7 @@ class UploadServiceImplTest {
         // Arrange
         List<MultipartFile> files = Collections.singletonList(testFile);
         when(uploadRepository.save(any(UploadEntity.class))).thenReturn(testUpload);
-        when(drmService.createDrmPackage(anyLong(), any(byte[].class)))
-                .thenReturn("encrypted content".getBytes());
+        when(drmService.createContentKey(1L)).thenReturn("content-key");
 
         // Act
         Set<UploadEntity> result = uploadService.uploadFiles(files, testDigitalDocument);
@@ -172,6 +174,28 @@ class UploadServiceImplTest {
         verify(uploadRepository, times(2)).save(any(UploadEntity.class));
     }
 
+    @Test
+    void uploadFiles_EncryptionFails_RemovesWrittenFiles() throws IOException {
+        // Arrange
+        List<MultipartFile> files = Collections.singletonList(testFile);
+        when(uploadRepository.save(any(UploadEntity.class))).thenReturn(testUpload);
+        when(drmService.createContentKey(1L)).thenReturn("content-key");
+        doThrow(new RuntimeException("Error encrypting file"))
+                .when(drmService).encryptDrmPackage(any(Path.class), any(Path.class), anyString());
+        Path originalDir = testUploadDir.resolve("original");
+        Files.createDirectories(originalDir);
+        long before;
+        try (var originals = Files.list(originalDir)) {
+            before = originals.count();
+        }
+
+        // Act & Assert
+        assertThrows(AppException.class, () -> uploadService.uploadFiles(files));
+        try (var originals = Files.list(originalDir)) {
+            assertEquals(before, originals.count());
+        }
+    }
+
     @Test
     void deleteFiles_Success() throws IOException {
         // Arrange
@@ -0,0 +1,94 @@
+package com.spkt.libraSys.service.document.viewer;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.poi.xwpf.usermodel.BreakType;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentHandlePoolTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final DocumentHandlePool pool = new DocumentHandlePool(1 << 24, 10, Runnable::run);
+
+    @Test
+    void withPdf_ShouldKeepDocumentOpenBetweenCalls() throws IOException {
+        Path pdf = pdf(3);
+
+        PDDocument first = pool.withPdf(1L, "v1", pdf, document -> document);
+        PDDocument second = pool.withPdf(1L, "v1", pdf, document -> document);
+
+        assertSame(first, second);
+        assertEquals(3, pool.pdfPageCount(1L, "v1", pdf));
+        assertEquals(1L, pool.stats().missCount());
+        assertFalse(first.getDocument().isClosed());
+    }
+
+    @Test
+    void withPdf_NewVersionOrEvictionShouldOpenFreshDocument() throws IOException {
+        Path pdf = pdf(1);
+        PDDocument original = pool.withPdf(1L, "v1", pdf, document -> document);
+
+        PDDocument newVersion = pool.withPdf(1L, "v2", pdf, document -> document);
+        pool.evict(1L);
+        PDDocument reopened = pool.withPdf(1L, "v1", pdf, document -> document);
+
+        assertNotSame(original, newVersion);
+        assertNotSame(original, reopened);
+        assertTrue(original.getDocument().isClosed());
+        assertTrue(newVersion.getDocument().isClosed());
+    }
+
+    @Test
+    void withPdf_ShouldNotPoolUnreadableFiles() throws IOException {
+        Path broken = Files.write(tempDir.resolve("broken.pdf"), new byte[]{1, 2, 3});
+
+        assertThrows(IOException.class, () -> pool.withPdf(1L, "v1", broken, document -> document));
+        assertEquals(0L, pool.snapshot().get("openDocuments"));
+    }
+
+    @Test
+    void wordPages_ShouldSplitOnPageBreaksWithoutEmptyPages() throws IOException {
+        Path docx = tempDir.resolve("notes.docx");
+        try (XWPFDocument document = new XWPFDocument(); OutputStream out = Files.newOutputStream(docx)) {
+            document.createParagraph().createRun().setText("Chương 1");
+            document.createParagraph().createRun().setText("Nội dung 1");
+            // Ngắt trang nằm trong một đoạn không có chữ
+            document.createParagraph().createRun().addBreak(BreakType.PAGE);
+            document.createParagraph().createRun().setText("Chương 2");
+            XWPFParagraph chapter3 = document.createParagraph();
+            chapter3.setPageBreak(true);
+            chapter3.createRun().setText("Chương 3");
+            document.createParagraph().createRun().addBreak(BreakType.PAGE);
+            document.write(out);
+        }
+
+        List<String> pages = pool.wordPages(5L, "v1", docx);
+
+        assertEquals(List.of("Chương 1\nNội dung 1", "Chương 2", "Chương 3"), pages);
+        assertSame(pages, pool.wordPages(5L, "v1", docx));
+    }
+
+    private Path pdf(int pages) throws IOException {
+        Path pdf = tempDir.resolve("doc-" + pages + ".pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                document.addPage(new PDPage());
+            }
+            document.save(pdf.toFile());
+        }
+        return pdf;
+    }
+}
@@ -0,0 +1,192 @@
+package com.spkt.libraSys.service.document.viewer;
+
+import com.spkt.libraSys.exception.AppException;
+import com.spkt.libraSys.service.document.DigitalDocument.DigitalDocumentService;
+import com.spkt.libraSys.service.document.upload.UploadEntity;
+import com.spkt.libraSys.service.document.upload.UploadRepository;
+import com.spkt.libraSys.service.drm.DecryptedDrmContent;
+import com.spkt.libraSys.service.drm.DrmService;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentViewerServiceImplTest {
+
+    @Mock
+    private UploadRepository uploadRepository;
+    @Mock
+    private DigitalDocumentService digitalDocumentService;
+    @Mock
+    private DrmService drmService;
+    @Mock
+    private DecryptedDrmContent content;
+
+    @InjectMocks
+    private DocumentViewerServiceImpl documentViewerService;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parseRange_ShouldHandleOpenEndedSuffixAndInvalidRanges() {
+        assertArrayEquals(new long[]{0, 99}, DocumentViewerServiceImpl.parseRange("bytes=0-", 100));
+        assertArrayEquals(new long[]{10, 19}, DocumentViewerServiceImpl.parseRange("bytes=10-19", 100));
+        assertArrayEquals(new long[]{90, 99}, DocumentViewerServiceImpl.parseRange("bytes=90-500", 100));
+        assertArrayEquals(new long[]{70, 99}, DocumentViewerServiceImpl.parseRange("bytes=-30", 100));
+        assertArrayEquals(new long[]{0, 4}, DocumentViewerServiceImpl.parseRange("bytes=0-4, 10-20", 100));
+        assertNull(DocumentViewerServiceImpl.parseRange("bytes=100-", 100));
+        assertNull(DocumentViewerServiceImpl.parseRange("bytes=20-10", 100));
+        assertNull(DocumentViewerServiceImpl.parseRange("items=0-1", 100));
+        assertNull(DocumentViewerServiceImpl.parseRange("bytes=abc", 100));
+    }
+
+    @Test
+    void streamVideo_DrmFile_ShouldServeOnlyRequestedDecryptedRange() throws IOException {
+        UploadEntity upload = drmUpload();
+        when(uploadRepository.findById(1L)).thenReturn(Optional.of(upload));
+        when(drmService.openDecryptedContent(1L)).thenReturn(content);
+        when(content.getLength()).thenReturn(1_000_000L);
+        when(content.open(500_000L, 500_100L)).thenReturn(new ByteArrayInputStream(new byte[100]));
+
+        ResponseEntity<Resource> response = documentViewerService.streamVideo(1L, "bytes=500000-500099");
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 500000-500099/1000000", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(100, response.getHeaders().getContentLength());
+        assertEquals("video/mp4", response.getHeaders().getContentType().toString());
+        assertEquals(100, response.getBody().getInputStream().readAllBytes().length);
+    }
+
+    @Test
+    void streamVideo_DrmFile_ShouldRejectUnsatisfiableRange() throws IOException {
+        UploadEntity upload = drmUpload();
+        when(uploadRepository.findById(1L)).thenReturn(Optional.of(upload));
+        when(drmService.openDecryptedContent(1L)).thenReturn(content);
+        when(content.getLength()).thenReturn(10L);
+
+        ResponseEntity<Resource> response = documentViewerService.streamVideo(1L, "bytes=50-");
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+        assertEquals("bytes */10", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        verify(content, never()).open(anyLong(), anyLong());
+    }
+
+    @Test
+    void getDocumentPage_Pdf_ShouldServeCachedPageAndAnswerNotModified() throws IOException {
+        RenderedPageCache pageCache = newPageCache();
+        DocumentViewerServiceImpl viewer = newViewer(pageCache, Runnable::run);
+        mockPdfUpload(2L, 2);
+
+        ResponseEntity<byte[]> first = viewer.getDocumentPage(2L, 2, PageRenderOptions.defaults(), null);
+        ResponseEntity<byte[]> second = viewer.getDocumentPage(2L, 2, PageRenderOptions.defaults(), "\"other\"");
+        ResponseEntity<byte[]> notModified = viewer.getDocumentPage(2L, 2, PageRenderOptions.defaults(), first.getHeaders().getETag());
+
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertNotNull(first.getHeaders().getETag());
+        assertEquals(MediaType.IMAGE_PNG, first.getHeaders().getContentType());
+        assertArrayEquals(first.getBody(), second.getBody());
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertEquals(first.getHeaders().getETag(), notModified.getHeaders().getETag());
+        assertNull(notModified.getBody());
+        assertEquals(1L, pageCache.snapshot().get("renders"));
+        assertThrows(AppException.class, () -> viewer.getDocumentPage(2L, 3, PageRenderOptions.defaults(), null));
+    }
+
+    @Test
+    void getDocumentPage_Pdf_ShouldPrerenderFollowingPagesOnce() throws IOException {
+        RenderedPageCache pageCache = newPageCache();
+        List<Runnable> queued = new ArrayList<>();
+        DocumentViewerServiceImpl viewer = newViewer(pageCache, queued::add);
+        mockPdfUpload(3L, 5);
+
+        viewer.getDocumentPage(3L, 1, PageRenderOptions.defaults(), null);
+        // Lật trang trước khi các trang sau render xong: không xếp hàng trùng
+        viewer.getDocumentPage(3L, 1, PageRenderOptions.defaults(), null);
+        assertEquals(3, queued.size());
+
+        queued.forEach(Runnable::run);
+        assertEquals(4L, pageCache.snapshot().get("renders"));
+        viewer.getDocumentPage(3L, 2, PageRenderOptions.defaults(), null);
+        viewer.getDocumentPage(3L, 3, PageRenderOptions.defaults(), null);
+        assertEquals(4L, pageCache.snapshot().get("renders"));
+        // Chỉ trang 5 được xếp thêm (một lần) sau khi đọc trang 2 và 3
+        assertEquals(4, queued.size());
+        assertEquals(5, viewer.getDocumentPageCount(3L));
+    }
+
+    @Test
+    void getDocumentPage_Pdf_ShouldRenderRequestedWidthAndFormat() throws IOException {
+        RenderedPageCache pageCache = newPageCache();
+        DocumentViewerServiceImpl viewer = newViewer(pageCache, task -> { });
+        mockPdfUpload(4L, 1);
+
+        ResponseEntity<byte[]> jpeg = viewer.getDocumentPage(4L, 1, PageRenderOptions.builder()
+                .width(600).format(PageImageFormat.JPEG).quality(70).build(), null);
+        ResponseEntity<byte[]> thumbnail = viewer.getDocumentPage(4L, 1,
+                PageRenderOptions.builder().thumbnail(true).build(), null);
+
+        assertEquals(MediaType.IMAGE_JPEG, jpeg.getHeaders().getContentType());
+        // US Letter rộng 612pt: 600px cần 71 DPI, làm tròn lên bội của 12 thành 72 DPI = 612px
+        assertEquals(612, ImageIO.read(new ByteArrayInputStream(jpeg.getBody())).getWidth());
+        assertEquals(160, ImageIO.read(new ByteArrayInputStream(thumbnail.getBody())).getWidth(), 4);
+        assertNotEquals(jpeg.getHeaders().getETag(), thumbnail.getHeaders().getETag());
+    }
+
+    private RenderedPageCache newPageCache() {
+        return new RenderedPageCache(1 << 20, tempDir.resolve("pages").toString(), 168, 1 << 20);
+    }
+
+    private DocumentViewerServiceImpl newViewer(RenderedPageCache pageCache, Executor prerenderExecutor) {
+        return new DocumentViewerServiceImpl(uploadRepository, digitalDocumentService, drmService, pageCache,
+                new DocumentHandlePool(1 << 24, 10, Runnable::run), newPageRenderer(), prerenderExecutor);
+    }
+
+    private static PageRenderer newPageRenderer() {
+        return new PageRenderer(150, 36, 300, 12, 160, "png", 80, 60, true);
+    }
+
+    private void mockPdfUpload(Long uploadId, int pages) throws IOException {
+        Path pdf = tempDir.resolve("book-" + uploadId + ".pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                document.addPage(new PDPage());
+            }
+            document.save(pdf.toFile());
+        }
+        when(uploadRepository.findById(uploadId)).thenReturn(Optional.of(UploadEntity.builder()
+                .uploadId(uploadId).fileName("book.pdf").filePath(pdf.toString()).build()));
+    }
+
+    private UploadEntity drmUpload() throws IOException {
+        Path drmFile = Files.write(tempDir.resolve("video.mp4.drm"), new byte[]{1});
+        return UploadEntity.builder()
+                .uploadId(1L)
+                .fileName("lecture.mp4")
+                .filePath(drmFile.toString())
+                .build();
+    }
+}
@@ -0,0 +1,181 @@
+package com.spkt.libraSys.service.document.viewer;
+
+import com.spkt.libraSys.exception.AppException;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDInlineImage;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageRendererTest {
+
+    private final PageRenderer renderer = new PageRenderer(150, 36, 300, 12, 160, "png", 80, 60, true);
+
+    @Test
+    void resolve_ShouldUseDefaultsWhenNothingRequested() {
+        PageRenderer.RenderSpec spec = renderer.resolve(PageRenderOptions.defaults(),
+                () -> { throw new AssertionError("page width not needed"); });
+
+        assertEquals(new PageRenderer.RenderSpec(150, PageImageFormat.PNG, 0, false), spec);
+        assertEquals("150-png", spec.id());
+    }
+
+    @Test
+    void resolve_ShouldConvertWidthToSteppedDpiWithinBounds() {
+        // 612pt = 8.5 inch: 1000px cần 118 DPI, làm tròn lên 120
+        assertEquals(120, renderer.resolve(PageRenderOptions.builder().width(1000).build(), () -> 612).getDpi());
+        assertEquals(36, renderer.resolve(PageRenderOptions.builder().width(50).build(), () -> 612).getDpi());
+        assertEquals(300, renderer.resolve(PageRenderOptions.builder().width(10000).build(), () -> 612).getDpi());
+        assertEquals(300, renderer.resolve(PageRenderOptions.builder().dpi(600).build(), () -> 612).getDpi());
+    }
+
+    @Test
+    void resolve_ShouldRoundExplicitDpiAndQualityToFewVariants() {
+        assertEquals(108, renderer.resolve(PageRenderOptions.builder().dpi(97).build(), () -> 612).getDpi());
+        assertEquals(108, renderer.resolve(PageRenderOptions.builder().dpi(108).build(), () -> 612).getDpi());
+        assertEquals(300, renderer.resolve(PageRenderOptions.builder().dpi(Integer.MAX_VALUE).build(),
+                () -> 612).getDpi());
+
+        PageRenderOptions.PageRenderOptionsBuilder jpeg = PageRenderOptions.builder().format(PageImageFormat.JPEG);
+        assertEquals(70, renderer.resolve(jpeg.quality(73).build(), () -> 612).getQuality());
+        assertEquals(80, renderer.resolve(jpeg.quality(76).build(), () -> 612).getQuality());
+        assertEquals(10, renderer.resolve(jpeg.quality(1).build(), () -> 612).getQuality());
+    }
+
+    @Test
+    void resolve_ThumbnailShouldUseLowDpiJpeg() {
+        PageRenderer.RenderSpec spec = renderer.resolve(PageRenderOptions.builder().thumbnail(true).build(), () -> 612);
+
+        assertEquals(19, spec.getDpi());
+        assertEquals(PageImageFormat.JPEG, spec.getFormat());
+        assertEquals(60, spec.getQuality());
+        assertEquals("19-jpg-q60-t", spec.id());
+    }
+
+    @Test
+    void resolve_ShouldClampQualityAndFallBackWhenWebpCannotBeEncoded() {
+        PageRenderer.RenderSpec spec = renderer.resolve(PageRenderOptions.builder()
+                .format(PageImageFormat.WEBP).quality(150).build(), () -> 612);
+
+        assertEquals(PageImageFormat.WEBP.isEncodable() ? PageImageFormat.WEBP : PageImageFormat.JPEG, spec.getFormat());
+        assertEquals(100, spec.getQuality());
+    }
+
+    @Test
+    void parseFormat_ShouldAcceptAliasesAndRejectUnknown() {
+        assertEquals(PageImageFormat.JPEG, PageImageFormat.parse("JPG"));
+        assertEquals(PageImageFormat.PNG, PageImageFormat.parse("png"));
+        assertNull(PageImageFormat.parse(" "));
+        assertThrows(AppException.class, () -> PageImageFormat.parse("gif"));
+    }
+
+    @Test
+    void rasterize_ShouldRenderTextOnlyPagesInGrayscaleAndImagePagesInColor() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage textPage = new PDPage();
+            document.addPage(textPage);
+            try (PDPageContentStream content = new PDPageContentStream(document, textPage)) {
+                content.beginText();
+                content.setFont(PDType1Font.HELVETICA, 12);
+                content.newLineAtOffset(72, 700);
+                content.showText("Chapter 1");
+                content.endText();
+            }
+            PDPage imagePage = new PDPage();
+            document.addPage(imagePage);
+            PDImageXObject image = LosslessFactory.createFromImage(document,
+                    new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB));
+            try (PDPageContentStream content = new PDPageContentStream(document, imagePage)) {
+                content.drawImage(image, 72, 72, 100, 100);
+            }
+            PageRenderer.RenderSpec spec = new PageRenderer.RenderSpec(36, PageImageFormat.PNG, 0, false);
+
+            assertTrue(PageRenderer.isTextOnly(textPage));
+            assertFalse(PageRenderer.isTextOnly(imagePage));
+            assertEquals(BufferedImage.TYPE_BYTE_GRAY, renderer.rasterize(document, 0, spec).getType());
+            assertNotEquals(BufferedImage.TYPE_BYTE_GRAY, renderer.rasterize(document, 1, spec).getType());
+        }
+    }
+
+    @Test
+    void rasterize_ShouldKeepColouredVectorPagesInColor() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage chartPage = new PDPage();
+            document.addPage(chartPage);
+            try (PDPageContentStream content = new PDPageContentStream(document, chartPage)) {
+                content.setNonStrokingColor(0.8f, 0.1f, 0.1f);
+                content.addRect(72, 72, 200, 100);
+                content.fill();
+            }
+            PDPage grayPage = new PDPage();
+            document.addPage(grayPage);
+            try (PDPageContentStream content = new PDPageContentStream(document, grayPage)) {
+                content.setStrokingColor(0.5f, 0.5f, 0.5f);
+                content.addRect(72, 72, 200, 100);
+                content.stroke();
+                content.beginText();
+                content.setNonStrokingColor(0f, 0f, 0f, 1f);
+                content.setFont(PDType1Font.HELVETICA, 12);
+                content.newLineAtOffset(72, 700);
+                content.showText("Chapter 2");
+                content.endText();
+            }
+            PageRenderer.RenderSpec spec = new PageRenderer.RenderSpec(36, PageImageFormat.PNG, 0, false);
+
+            assertFalse(PageRenderer.isTextOnly(chartPage));
+            assertTrue(PageRenderer.isTextOnly(grayPage));
+            assertNotEquals(BufferedImage.TYPE_BYTE_GRAY, renderer.rasterize(document, 0, spec).getType());
+            assertEquals(BufferedImage.TYPE_BYTE_GRAY, renderer.rasterize(document, 1, spec).getType());
+        }
+    }
+
+    @Test
+    void rasterize_ShouldKeepPagesWithInlineImagesInColor() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage scanPage = new PDPage();
+            document.addPage(scanPage);
+            COSDictionary parameters = new COSDictionary();
+            parameters.setInt(COSName.W, 2);
+            parameters.setInt(COSName.H, 1);
+            parameters.setInt(COSName.BPC, 8);
+            parameters.setItem(COSName.CS, COSName.getPDFName("RGB"));
+            PDInlineImage image = new PDInlineImage(parameters, new byte[]{(byte) 255, 0, 0, 0, 0, (byte) 255},
+                    scanPage.getResources());
+            try (PDPageContentStream content = new PDPageContentStream(document, scanPage)) {
+                content.drawImage(image, 72, 72, 200, 100);
+            }
+            PageRenderer.RenderSpec spec = new PageRenderer.RenderSpec(36, PageImageFormat.PNG, 0, false);
+
+            assertFalse(PageRenderer.isTextOnly(scanPage));
+            assertNotEquals(BufferedImage.TYPE_BYTE_GRAY, renderer.rasterize(document, 0, spec).getType());
+        }
+    }
+
+    @Test
+    void encode_JpegShouldHonourQuality() throws IOException {
+        BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 200; x++) {
+            for (int y = 0; y < 200; y++) {
+                image.setRGB(x, y, (x * 31 + y * 17) % 256 << 16 | (x * y) % 256 << 8 | (x ^ y) & 0xff);
+            }
+        }
+
+        byte[] high = renderer.encode(image, new PageRenderer.RenderSpec(72, PageImageFormat.JPEG, 95, false));
+        byte[] low = renderer.encode(image, new PageRenderer.RenderSpec(72, PageImageFormat.JPEG, 30, false));
+
+        assertTrue(low.length < high.length);
+        assertEquals(200, ImageIO.read(new ByteArrayInputStream(low)).getWidth());
+    }
+}
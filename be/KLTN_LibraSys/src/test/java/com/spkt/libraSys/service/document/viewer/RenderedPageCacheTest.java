@@ -0,0 +1,165 @@
+package com.spkt.libraSys.service.document.viewer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderedPageCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final RenderedPageCache.PageKey key = new RenderedPageCache.PageKey(7L, "v1", 3, png(150));
+
+    @Test
+    void get_ShouldRenderOnceThenServeFromMemory() throws IOException {
+        RenderedPageCache cache = newCache();
+        AtomicInteger renders = new AtomicInteger();
+
+        byte[] first = cache.get(key, () -> { renders.incrementAndGet(); return new byte[]{1, 2, 3}; });
+        byte[] second = cache.get(key, () -> { renders.incrementAndGet(); return new byte[]{9}; });
+
+        assertArrayEquals(new byte[]{1, 2, 3}, first);
+        assertSame(first, second);
+        assertEquals(1, renders.get());
+        assertTrue(Files.exists(cache.pathOf(key)));
+    }
+
+    @Test
+    void get_ShouldReadDiskTierAfterRestart() throws IOException {
+        newCache().get(key, () -> new byte[]{4, 5});
+
+        RenderedPageCache restarted = newCache();
+        byte[] bytes = restarted.get(key, () -> { throw new AssertionError("should not render"); });
+
+        assertArrayEquals(new byte[]{4, 5}, bytes);
+        assertEquals(1L, restarted.snapshot().get("diskHits"));
+        assertEquals(0L, restarted.snapshot().get("renders"));
+    }
+
+    @Test
+    void get_ConcurrentMissesShouldCollapseIntoOneRender() throws Exception {
+        RenderedPageCache cache = newCache();
+        AtomicInteger renders = new AtomicInteger();
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            results.add(pool.submit(() -> cache.get(key, () -> {
+                renders.incrementAndGet();
+                rendering.countDown();
+                await(release);
+                return new byte[]{42};
+            })));
+            assertTrue(rendering.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 7; i++) {
+                results.add(pool.submit(() -> cache.get(key, () -> {
+                    renders.incrementAndGet();
+                    return new byte[]{0};
+                })));
+            }
+            // Cho các yêu cầu sau kịp vào hàng chờ trước khi render đầu tiên xong
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<byte[]> result : results) {
+                assertArrayEquals(new byte[]{42}, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, renders.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_FailedRenderShouldNotBeCached() throws IOException {
+        RenderedPageCache cache = newCache();
+
+        assertThrows(IOException.class, () -> cache.get(key, () -> { throw new IOException("broken pdf"); }));
+        byte[] bytes = cache.get(key, () -> new byte[]{1});
+
+        assertArrayEquals(new byte[]{1}, bytes);
+    }
+
+    @Test
+    void evictAndPurge_ShouldRemoveCachedPages() throws IOException {
+        RenderedPageCache cache = newCache();
+        RenderedPageCache.PageKey other = new RenderedPageCache.PageKey(8L, "v1", 1, png(150));
+        cache.get(key, () -> new byte[]{1});
+        cache.get(other, () -> new byte[]{2});
+
+        cache.evict(7L);
+        assertFalse(Files.exists(cache.pathOf(key)));
+        AtomicInteger renders = new AtomicInteger();
+        cache.get(key, () -> { renders.incrementAndGet(); return new byte[]{1}; });
+        assertEquals(1, renders.get());
+
+        Files.setLastModifiedTime(cache.pathOf(other), FileTime.from(Instant.now().minus(200, ChronoUnit.HOURS)));
+        cache.purgeDisk();
+        assertFalse(Files.exists(cache.pathOf(other)));
+        assertTrue(Files.exists(cache.pathOf(key)));
+    }
+
+    @Test
+    void writeToDisk_ShouldDeleteLeastRecentlyUsedPagesOverTheByteLimit() throws IOException {
+        RenderedPageCache cache = new RenderedPageCache(1 << 20, tempDir.resolve("pages").toString(), 168, 250);
+        List<RenderedPageCache.PageKey> keys = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            RenderedPageCache.PageKey pageKey = new RenderedPageCache.PageKey(7L, "v1", page, png(150));
+            cache.get(pageKey, () -> new byte[100]);
+            Files.setLastModifiedTime(cache.pathOf(pageKey),
+                    FileTime.from(Instant.now().minus(3 - page, ChronoUnit.HOURS)));
+            keys.add(pageKey);
+        }
+
+        // 300 byte > 250: xóa trang cũ nhất, còn 200 byte <= 90% giới hạn
+        assertFalse(Files.exists(cache.pathOf(keys.get(0))));
+        assertTrue(Files.exists(cache.pathOf(keys.get(1))));
+        assertTrue(Files.exists(cache.pathOf(keys.get(2))));
+        assertEquals(200L, cache.snapshot().get("diskBytes"));
+    }
+
+    @Test
+    void etag_ShouldDependOnVersionPageAndRenderSpec() {
+        assertEquals(key.etag(), new RenderedPageCache.PageKey(7L, "v1", 3, png(150)).etag());
+        assertNotEquals(key.etag(), new RenderedPageCache.PageKey(7L, "v2", 3, png(150)).etag());
+        assertNotEquals(key.etag(), new RenderedPageCache.PageKey(7L, "v1", 4, png(150)).etag());
+        assertNotEquals(key.etag(), new RenderedPageCache.PageKey(7L, "v1", 3, png(72)).etag());
+        assertNotEquals(key.etag(), new RenderedPageCache.PageKey(7L, "v1", 3,
+                new PageRenderer.RenderSpec(150, PageImageFormat.JPEG, 80, false)).etag());
+        assertTrue(key.etag().startsWith("\"") && key.etag().endsWith("\""));
+    }
+
+    private static PageRenderer.RenderSpec png(int dpi) {
+        return new PageRenderer.RenderSpec(dpi, PageImageFormat.PNG, 0, false);
+    }
+
+    private RenderedPageCache newCache() {
+        return new RenderedPageCache(1 << 20, tempDir.resolve("pages").toString(), 168, 1 << 20);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
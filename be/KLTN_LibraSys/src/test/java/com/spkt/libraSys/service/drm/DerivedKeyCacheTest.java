@@ -0,0 +1,57 @@
+package com.spkt.libraSys.service.drm;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DerivedKeyCacheTest {
+
+    private final AtomicInteger derivations = new AtomicInteger();
+
+    @Test
+    void get_ShouldDeriveOncePerSecretAndSalt() {
+        DerivedKeyCache cache = new DerivedKeyCache(100, 5);
+        byte[] salt = {1, 2, 3};
+
+        SecretKey first = cache.get("content-key", salt, this::derive);
+        SecretKey second = cache.get("content-key", salt.clone(), this::derive);
+        cache.get("content-key", new byte[]{9}, this::derive);
+
+        assertSame(first, second);
+        assertEquals(2, derivations.get());
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(2L, cache.snapshot().get("derivations"));
+    }
+
+    @Test
+    void invalidate_ShouldDropEverySaltOfOneSecretOnly() {
+        DerivedKeyCache cache = new DerivedKeyCache(100, 5);
+        cache.get("revoked", new byte[]{1}, this::derive);
+        cache.get("revoked", new byte[]{2}, this::derive);
+        cache.get("other", new byte[]{1}, this::derive);
+
+        cache.invalidate("revoked");
+        cache.get("other", new byte[]{1}, this::derive);
+        cache.get("revoked", new byte[]{1}, this::derive);
+
+        assertEquals(4, derivations.get());
+    }
+
+    @Test
+    void get_ShouldWrapDerivationFailures() {
+        DerivedKeyCache cache = new DerivedKeyCache(100, 5);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("key", new byte[]{1}, () -> {
+            throw new GeneralSecurityException("boom");
+        }));
+    }
+
+    private SecretKey derive() {
+        return new SecretKeySpec(new byte[]{(byte) derivations.incrementAndGet()}, "AES");
+    }
+}
@@ -0,0 +1,160 @@
+package com.spkt.libraSys.service.drm;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DrmContainerTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private DrmEncryptionUtil encryptionUtil;
+
+    @BeforeEach
+    void setUp() {
+        encryptionUtil = new DrmEncryptionUtil(null, new DerivedKeyCache(100, 5));
+        ReflectionTestUtils.setField(encryptionUtil, "masterKey", "TestMasterKey123!@#");
+        ReflectionTestUtils.setField(encryptionUtil, "chunkSize", CHUNK_SIZE);
+    }
+
+    @Test
+    void encryptFile_ShouldRoundTripAcrossChunkBoundaries() throws IOException {
+        for (int length : new int[]{0, 1, CHUNK_SIZE, CHUNK_SIZE + 1, 5 * CHUNK_SIZE - 3}) {
+            byte[] content = randomBytes(length);
+            Path source = Files.write(tempDir.resolve("doc-" + length + ".pdf"), content);
+            Path target = tempDir.resolve("doc-" + length + ".pdf.drm");
+
+            encryptionUtil.encryptFile(source, target, "content-key");
+
+            DrmContainer container = DrmContainer.parse(Files.readAllBytes(target));
+            assertEquals(length, container.getPlainLength());
+            assertEquals(container.encryptedLength(), Files.size(target));
+            assertArrayEquals(content, decrypt(target, "content-key"));
+        }
+    }
+
+    @Test
+    void encrypt_ShouldNotCacheKeysForFreshSalts() throws IOException {
+        Path source = Files.write(tempDir.resolve("doc.pdf"), randomBytes(3 * CHUNK_SIZE));
+        Path target = tempDir.resolve("doc.pdf.drm");
+
+        String encryptedKey = encryptionUtil.encryptKey("content-key");
+        encryptionUtil.encryptFile(source, target, "content-key");
+        encryptionUtil.encryptContent(new byte[]{1, 2, 3}, "content-key");
+        assertEquals(0L, encryptionUtil.derivedKeyStats().get("missCount"));
+
+        // Salt đã lưu được dùng lại khi giải mã: dẫn xuất một lần rồi trúng cache
+        assertEquals("content-key", encryptionUtil.decryptKey(encryptedKey));
+        assertEquals("content-key", encryptionUtil.decryptKey(encryptedKey));
+        decrypt(target, "content-key");
+        decrypt(target, "content-key");
+        assertEquals(2L, encryptionUtil.derivedKeyStats().get("derivations"));
+        assertEquals(2L, encryptionUtil.derivedKeyStats().get("hitCount"));
+    }
+
+    @Test
+    void decryptFile_ShouldRejectTamperedOrReorderedChunks() throws IOException {
+        byte[] content = randomBytes(3 * CHUNK_SIZE);
+        Path source = Files.write(tempDir.resolve("doc.pdf"), content);
+        Path target = tempDir.resolve("doc.pdf.drm");
+        encryptionUtil.encryptFile(source, target, "content-key");
+        byte[] sealed = Files.readAllBytes(target);
+        DrmContainer container = DrmContainer.parse(sealed);
+
+        byte[] flipped = sealed.clone();
+        flipped[(int) container.chunkOffset(1) + 7] ^= 1;
+        Path tampered = Files.write(tempDir.resolve("tampered.drm"), flipped);
+        assertThrows(RuntimeException.class, () -> decrypt(tampered, "content-key"));
+
+        byte[] swapped = sealed.clone();
+        int chunk = CHUNK_SIZE + DrmContainer.TAG_LENGTH;
+        System.arraycopy(sealed, (int) container.chunkOffset(0), swapped, (int) container.chunkOffset(1), chunk);
+        System.arraycopy(sealed, (int) container.chunkOffset(1), swapped, (int) container.chunkOffset(0), chunk);
+        Path reordered = Files.write(tempDir.resolve("reordered.drm"), swapped);
+        assertThrows(RuntimeException.class, () -> decrypt(reordered, "content-key"));
+
+        assertThrows(RuntimeException.class, () -> decrypt(target, "wrong-key"));
+    }
+
+    @Test
+    void decryptFile_ShouldStillReadLegacySingleBlockPackages() throws IOException {
+        byte[] content = randomBytes(3000);
+        Path legacy = Files.write(tempDir.resolve("legacy.drm"), encryptionUtil.encryptContent(content, "content-key"));
+
+        assertArrayEquals(content, decrypt(legacy, "content-key"));
+    }
+
+    @Test
+    void openDecryptedRange_ShouldDecryptOnlyRequestedBytes() throws IOException {
+        byte[] content = randomBytes(4 * CHUNK_SIZE + 100);
+        Path source = Files.write(tempDir.resolve("video.mp4"), content);
+        Path target = tempDir.resolve("video.mp4.drm");
+        encryptionUtil.encryptFile(source, target, "content-key");
+
+        assertEquals(content.length, encryptionUtil.plainLength(target));
+        long[][] ranges = {{0, 1}, {CHUNK_SIZE - 10, CHUNK_SIZE + 10}, {CHUNK_SIZE, 3 * CHUNK_SIZE},
+                {content.length - 7, content.length}, {5, 5}};
+        for (long[] range : ranges) {
+            try (InputStream in = encryptionUtil.openDecryptedRange(target, range[0], range[1], "content-key")) {
+                assertArrayEquals(Arrays.copyOfRange(content, (int) range[0], (int) range[1]), in.readAllBytes());
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> encryptionUtil.openDecryptedRange(target, 0, content.length + 1, "content-key"));
+    }
+
+    @Test
+    void openDecryptedRange_ShouldFailOnTamperedChunkInsideRange() throws IOException {
+        byte[] content = randomBytes(3 * CHUNK_SIZE);
+        Path source = Files.write(tempDir.resolve("video.mp4"), content);
+        Path target = tempDir.resolve("video.mp4.drm");
+        encryptionUtil.encryptFile(source, target, "content-key");
+        byte[] sealed = Files.readAllBytes(target);
+        sealed[(int) DrmContainer.parse(sealed).chunkOffset(2) + 3] ^= 1;
+        Files.write(target, sealed);
+
+        try (InputStream in = encryptionUtil.openDecryptedRange(target, 0, CHUNK_SIZE, "content-key")) {
+            assertArrayEquals(Arrays.copyOf(content, CHUNK_SIZE), in.readAllBytes());
+        }
+        try (InputStream in = encryptionUtil.openDecryptedRange(target, 0, content.length, "content-key")) {
+            assertThrows(IOException.class, in::readAllBytes);
+        }
+    }
+
+    @Test
+    void openDecryptedRange_ShouldSliceLegacyPackages() throws IOException {
+        byte[] content = randomBytes(3000);
+        Path legacy = Files.write(tempDir.resolve("legacy.drm"), encryptionUtil.encryptContent(content, "content-key"));
+
+        assertEquals(content.length, encryptionUtil.plainLength(legacy));
+        try (InputStream in = encryptionUtil.openDecryptedRange(legacy, 100, 200, "content-key")) {
+            assertArrayEquals(Arrays.copyOfRange(content, 100, 200), in.readAllBytes());
+        }
+    }
+
+    private byte[] decrypt(Path source, String contentKey) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encryptionUtil.decryptFile(source, out, contentKey);
+        return out.toByteArray();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
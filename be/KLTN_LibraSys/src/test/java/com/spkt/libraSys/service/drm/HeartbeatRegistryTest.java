@@ -0,0 +1,182 @@
+package com.spkt.libraSys.service.drm;
+
+import com.spkt.libraSys.exception.AppException;
+import com.spkt.libraSys.exception.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HeartbeatRegistryTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-10T08:00:00Z");
+    private static final LocalDateTime NOW_LOCAL = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+
+    @Mock
+    private DrmSessionRepository drmSessionRepository;
+
+    @Mock
+    private HeartbeatBatchWriter batchWriter;
+
+    private HeartbeatRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new HeartbeatRegistry(drmSessionRepository, batchWriter, 2, 3,
+                Clock.fixed(NOW, ZoneId.of("UTC")));
+    }
+
+    @Test
+    void beat_ShouldLoadSessionOnceAndFlushInBatches() {
+        when(drmSessionRepository.findHeartbeatRow("t1")).thenReturn(Optional.of(row(1L, 10L, false)));
+        when(drmSessionRepository.findHeartbeatRow("t2")).thenReturn(Optional.of(row(2L, 10L, false)));
+        when(drmSessionRepository.findHeartbeatRow("t3")).thenReturn(Optional.of(row(3L, 11L, false)));
+        when(batchWriter.updateAll(anyMap())).thenAnswer(invocation -> ((Map<?, ?>) invocation.getArgument(0)).size());
+
+        registry.beat("t1");
+        registry.beat("t1");
+        registry.beat("t2");
+        registry.beat("t3");
+
+        verify(drmSessionRepository, times(1)).findHeartbeatRow("t1");
+        verify(drmSessionRepository, never()).save(any());
+        assertEquals(3, registry.flush());
+        // Lô 2 phiên rồi lô 1 phiên
+        verify(batchWriter, times(2)).updateAll(anyMap());
+        assertEquals(0, registry.flush());
+        assertEquals(3L, registry.snapshot().get("databaseLoads"));
+        assertEquals(4L, registry.snapshot().get("heartbeats"));
+    }
+
+    @Test
+    void flush_ShouldWriteLatestHeartbeat() {
+        DrmSessionEntity session = DrmSessionEntity.builder()
+                .id(5L).sessionToken("issued").lastHeartbeat(NOW_LOCAL.minusMinutes(1)).build();
+        registry.register(session, 20L);
+        when(batchWriter.updateAll(anyMap())).thenReturn(1);
+
+        registry.beat("issued");
+        registry.flush();
+
+        verify(drmSessionRepository, never()).findHeartbeatRow(any());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Long, LocalDateTime>> batch = ArgumentCaptor.forClass(Map.class);
+        verify(batchWriter).updateAll(batch.capture());
+        assertEquals(Map.of(5L, NOW_LOCAL), batch.getValue());
+    }
+
+    @Test
+    void revokeUpload_ShouldRejectNextHeartbeatWithoutDatabase() {
+        when(drmSessionRepository.findHeartbeatRow("t1")).thenReturn(Optional.of(row(1L, 10L, false)));
+        registry.beat("t1");
+
+        registry.revokeUpload(10L);
+
+        AppException e = assertThrows(AppException.class, () -> registry.beat("t1"));
+        assertEquals(ErrorCode.FORBIDDEN, e.getErrorCode());
+        verify(drmSessionRepository, times(1)).findHeartbeatRow("t1");
+        // Phiên đã thu hồi không được ghi heartbeat nữa
+        assertEquals(0, registry.flush());
+        verifyNoInteractions(batchWriter);
+    }
+
+    @Test
+    void beat_RevokedInDatabaseShouldDeactivateSession() {
+        when(drmSessionRepository.findHeartbeatRow("t1")).thenReturn(Optional.of(row(1L, 10L, true)));
+
+        AppException e = assertThrows(AppException.class, () -> registry.beat("t1"));
+
+        assertEquals(ErrorCode.FORBIDDEN, e.getErrorCode());
+        verify(drmSessionRepository).deactivateById(1L);
+    }
+
+    @Test
+    void beat_UnknownSessionShouldThrowNotFound() {
+        when(drmSessionRepository.findHeartbeatRow("missing")).thenReturn(Optional.empty());
+
+        AppException e = assertThrows(AppException.class, () -> registry.beat("missing"));
+
+        assertEquals(ErrorCode.RESOURCE_NOT_FOUND, e.getErrorCode());
+    }
+
+    @Test
+    void flush_ShouldPickUpRevocationMadeOutsideRegistry() {
+        when(drmSessionRepository.findHeartbeatRow("t1")).thenReturn(Optional.of(row(1L, 10L, false)));
+        when(batchWriter.updateAll(anyMap())).thenReturn(1);
+        when(drmSessionRepository.findRevokedSessionIds(List.of(1L))).thenReturn(List.of(1L));
+        registry.beat("t1");
+
+        registry.flush();
+
+        assertThrows(AppException.class, () -> registry.beat("t1"));
+    }
+
+    @Test
+    void flush_FailedBatchShouldBeRetried() {
+        when(drmSessionRepository.findHeartbeatRow("t1")).thenReturn(Optional.of(row(1L, 10L, false)));
+        when(batchWriter.updateAll(anyMap())).thenThrow(new IllegalStateException("db down")).thenReturn(1);
+        registry.beat("t1");
+
+        assertEquals(0, registry.flush());
+        assertEquals(1, registry.flush());
+        assertEquals(1L, registry.snapshot().get("flushFailures"));
+    }
+
+    @Test
+    void expireIdleSessions_ShouldUseOneBulkUpdateAndForgetStaleSessions() {
+        DrmSessionEntity stale = DrmSessionEntity.builder()
+                .id(7L).sessionToken("stale").lastHeartbeat(NOW_LOCAL.minusMinutes(10)).build();
+        registry.register(stale, 30L);
+        when(drmSessionRepository.deactivateIdleSessions(NOW_LOCAL.minusMinutes(3))).thenReturn(4);
+
+        assertEquals(4, registry.expireIdleSessions());
+
+        verify(drmSessionRepository, never()).findByActive(anyBoolean());
+        assertEquals(0, registry.snapshot().get("trackedSessions"));
+    }
+
+    private static SessionHeartbeatRow row(Long sessionId, Long uploadId, boolean revoked) {
+        return new SessionHeartbeatRow() {
+            @Override
+            public Long getSessionId() {
+                return sessionId;
+            }
+
+            @Override
+            public Long getLicenseId() {
+                return sessionId + 100;
+            }
+
+            @Override
+            public Long getUploadId() {
+                return uploadId;
+            }
+
+            @Override
+            public Boolean getRevoked() {
+                return revoked;
+            }
+
+            @Override
+            public LocalDateTime getLastHeartbeat() {
+                return NOW_LOCAL.minusMinutes(1);
+            }
+        };
+    }
+}
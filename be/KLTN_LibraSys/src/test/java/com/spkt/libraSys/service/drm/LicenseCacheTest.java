@@ -0,0 +1,85 @@
+package com.spkt.libraSys.service.drm;
+
+import com.spkt.libraSys.service.user.UserAccessChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LicenseCacheTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-10T08:00:00Z");
+    private static final LocalDateTime NOW_LOCAL = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+
+    private final LicenseCache cache = new LicenseCache(100, 5, Clock.fixed(NOW, ZoneId.of("UTC")));
+    private final LicenseCache.LicenseKey key = new LicenseCache.LicenseKey("u1", 10L, "device-1");
+    private final String fingerprint = LicenseCache.fingerprint("public-key", false);
+
+    @Test
+    void lookup_ShouldReturnLicenseOnlyForSameDeviceKey() {
+        cache.put(key, license(1L, NOW_LOCAL.plusHours(24)));
+
+        LicenseCache.CachedLicense cached = cache.lookup(new LicenseCache.LicenseKey("u1", 10L, "device-1"), fingerprint);
+
+        assertNotNull(cached);
+        assertEquals(1L, cached.toLicense().getLicenseId());
+        assertEquals("token-1", cached.toLicense().getSessionToken());
+        assertNull(cache.lookup(key, LicenseCache.fingerprint("other-key", false)));
+        assertNull(cache.lookup(key, LicenseCache.fingerprint("public-key", true)));
+        assertNull(cache.lookup(new LicenseCache.LicenseKey("u1", 10L, "device-2"), fingerprint));
+    }
+
+    @Test
+    void lookup_ShouldNotReuseLicenseCloseToAccessExpiry() {
+        cache.put(key, license(1L, NOW_LOCAL.plusMinutes(4)));
+
+        assertNull(cache.lookup(key, fingerprint));
+        assertEquals(0L, cache.snapshot().get("size"));
+    }
+
+    @Test
+    void evictUpload_ShouldDropOnlyThatDocument() {
+        LicenseCache.LicenseKey other = new LicenseCache.LicenseKey("u1", 11L, "device-1");
+        cache.put(key, license(1L, NOW_LOCAL.plusHours(24)));
+        cache.put(other, license(2L, NOW_LOCAL.plusHours(24)));
+
+        cache.evictUpload(10L);
+
+        assertNull(cache.lookup(key, fingerprint));
+        assertNotNull(cache.lookup(other, fingerprint));
+    }
+
+    @Test
+    void onUserAccessChanged_ShouldDropUsersLicenses() {
+        LicenseCache.LicenseKey other = new LicenseCache.LicenseKey("u2", 10L, "device-9");
+        cache.put(key, license(1L, NOW_LOCAL.plusHours(24)));
+        cache.put(other, license(2L, NOW_LOCAL.plusHours(24)));
+
+        cache.onUserAccessChanged(UserAccessChangedEvent.of("u1"));
+
+        assertNull(cache.lookup(key, fingerprint));
+        assertNotNull(cache.lookup(other, fingerprint));
+    }
+
+    @Test
+    void snapshot_ShouldReportReuseRateAndLatency() {
+        cache.recordIssue(40_000_000);
+        cache.recordReuse(2_000_000);
+        cache.recordReuse(4_000_000);
+        cache.recordReuse(6_000_000);
+
+        assertEquals(0.75, (double) cache.snapshot().get("reuseRate"), 1e-9);
+        assertEquals(40.0, (double) cache.snapshot().get("averageIssueMillis"), 1e-9);
+        assertEquals(4.0, (double) cache.snapshot().get("averageReuseMillis"), 1e-9);
+    }
+
+    private LicenseCache.CachedLicense license(Long id, LocalDateTime validUntil) {
+        return new LicenseCache.CachedLicense(id, id + 100, "token-" + id, NOW_LOCAL.plusHours(24),
+                "wrapped-" + id, fingerprint, validUntil);
+    }
+}
@@ -0,0 +1,198 @@
+package com.spkt.libraSys.service.loan;
+
+import com.spkt.libraSys.scheduler.ChunkedJobRunner;
+import com.spkt.libraSys.scheduler.JobRunMetrics;
+import com.spkt.libraSys.service.document.PhysicalDocument.PhysicalDocumentRepository;
+import com.spkt.libraSys.service.email.EmailService;
+import com.spkt.libraSys.service.notification.NotificationEntity;
+import com.spkt.libraSys.service.notification.NotificationFactory;
+import com.spkt.libraSys.service.notification.NotificationFanoutService;
+import com.spkt.libraSys.service.notification.NotificationMapper;
+import com.spkt.libraSys.service.notification.NotificationType;
+import com.spkt.libraSys.service.user.UserAccessChangedEvent;
+import com.spkt.libraSys.service.user.UserRepository;
+import com.spkt.libraSys.service.webSocket.WebSocketService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanMaintenanceJobsTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private TransactionStatus transactionStatus;
+    @Mock
+    private LoanRepository loanRepository;
+    @Mock
+    private PhysicalDocumentRepository physicalDocumentRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private NotificationFanoutService notificationFanoutService;
+    @Mock
+    private WebSocketService webSocketService;
+    @Mock
+    private EmailService emailService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private LoanMaintenanceJobs jobs;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        jobs = new LoanMaintenanceJobs(new ChunkedJobRunner(transactionManager), loanRepository,
+                physicalDocumentRepository, userRepository, new NotificationFactory(new NotificationMapper()),
+                notificationFanoutService, webSocketService, emailService, eventPublisher);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cancelExpiredReservations_ShouldBulkUpdateAndNotifyAfterCommit() {
+        when(loanRepository.findReservationsAfter(eq(LoanStatus.RESERVED), eq(LocalDate.now().atStartOfDay()),
+                eq(0L), any())).thenReturn(List.of(new Row(1L, "u1", 10L), new Row(2L, "u2", 10L)));
+        when(loanRepository.lockIdsByStatus(List.of(1L, 2L), LoanStatus.RESERVED)).thenReturn(List.of(1L, 2L));
+        when(loanRepository.updateStatusByIds(eq(List.of(1L, 2L)), eq(LoanStatus.RESERVED),
+                eq(LoanStatus.CANCELLED_AUTO), any())).thenReturn(2);
+        when(notificationFanoutService.dispatch(anyList())).thenReturn(2);
+
+        JobRunMetrics metrics = jobs.cancelExpiredReservations();
+
+        assertEquals(JobRunMetrics.State.COMPLETED, metrics.getState());
+        assertEquals(2, metrics.getRowsUpdated());
+        assertEquals(2, metrics.getDispatched());
+        verify(physicalDocumentRepository).decrementUnavailableCount(List.of(10L), 2);
+        verify(userRepository).decrementCurrentBorrowedCount(argThat(ids -> ids.containsAll(List.of("u1", "u2"))), eq(1));
+        verify(eventPublisher, times(2)).publishEvent(any(LoanChangedEvent.class));
+        verify(webSocketService).sendUpdateStatusLoan(eq("u2"),
+                argThat(response -> response.getStatus() == LoanStatus.CANCELLED_AUTO));
+        ArgumentCaptor<List<NotificationEntity>> notifications = ArgumentCaptor.forClass(List.class);
+        verify(notificationFanoutService).dispatch(notifications.capture());
+        assertEquals(NotificationType.LOAN_AUTO_CANCAL.getTitle(), notifications.getValue().get(0).getTitle());
+        verify(transactionManager).commit(transactionStatus);
+        verify(loanRepository, never()).findByStatus(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cancelExpiredReservations_ShouldOnlyReleaseAndNotifyLoansStillReserved() {
+        when(loanRepository.findReservationsAfter(eq(LoanStatus.RESERVED), eq(LocalDate.now().atStartOfDay()),
+                eq(0L), any())).thenReturn(List.of(new Row(1L, "u1", 10L), new Row(2L, "u2", 11L)));
+        // Loan 2 was borrowed between the read and the update
+        when(loanRepository.lockIdsByStatus(List.of(1L, 2L), LoanStatus.RESERVED)).thenReturn(List.of(1L));
+        when(loanRepository.updateStatusByIds(eq(List.of(1L)), eq(LoanStatus.RESERVED),
+                eq(LoanStatus.CANCELLED_AUTO), any())).thenReturn(1);
+        when(notificationFanoutService.dispatch(anyList())).thenReturn(1);
+
+        JobRunMetrics metrics = jobs.cancelExpiredReservations();
+
+        assertEquals(2, metrics.getRowsRead());
+        assertEquals(1, metrics.getRowsUpdated());
+        verify(physicalDocumentRepository).decrementUnavailableCount(List.of(10L), 1);
+        verify(physicalDocumentRepository, never()).decrementUnavailableCount(argThat(ids -> ids.contains(11L)), anyInt());
+        verify(userRepository).decrementCurrentBorrowedCount(List.of("u1"), 1);
+        verify(eventPublisher, times(1)).publishEvent(any(LoanChangedEvent.class));
+        verify(webSocketService, never()).sendUpdateStatusLoan(eq("u2"), any());
+        ArgumentCaptor<List<NotificationEntity>> notifications = ArgumentCaptor.forClass(List.class);
+        verify(notificationFanoutService).dispatch(notifications.capture());
+        assertEquals(1, notifications.getValue().size());
+    }
+
+    @Test
+    void notifyNearDueDate_ShouldOnlyDispatchNotifications() {
+        when(loanRepository.findDueBetweenAfter(eq(LoanStatus.BORROWED), any(), any(), eq(0L), any()))
+                .thenReturn(List.of(new Row(5L, "u1", 10L)));
+        when(notificationFanoutService.dispatch(anyList())).thenReturn(1);
+
+        JobRunMetrics metrics = jobs.notifyNearDueDate();
+
+        assertEquals(1, metrics.getRowsRead());
+        assertEquals(0, metrics.getRowsUpdated());
+        assertEquals(1, metrics.getDispatched());
+        verify(notificationFanoutService).dispatch(argThat(list ->
+                list.size() == 1 && list.get(0).getContent().contains("Giáo trình Java")));
+        verifyNoInteractions(userRepository, physicalDocumentRepository);
+    }
+
+    @Test
+    void lockOverdueUsers_ShouldLockInBulkAndEmailAfterCommit() {
+        UserLockRow user = mock(UserLockRow.class);
+        when(user.getUserId()).thenReturn("u1");
+        when(user.getUsername()).thenReturn("u1@spkt.edu.vn");
+        LocalDate threshold = LocalDate.now().minusDays(LoanMaintenanceJobs.LOCK_AFTER_OVERDUE_DAYS);
+        when(loanRepository.findUsersToLockAfter(eq(threshold), eq(threshold.atStartOfDay()), eq(""), any()))
+                .thenReturn(List.of(user));
+        when(userRepository.lockIdsNotLocked(List.of("u1"))).thenReturn(List.of("u1"));
+        when(userRepository.lockUsers(eq(List.of("u1")), any(LocalDateTime.class), eq(LoanMaintenanceJobs.LOCK_REASON)))
+                .thenReturn(1);
+
+        JobRunMetrics metrics = jobs.lockOverdueUsers();
+
+        assertEquals(1, metrics.getRowsUpdated());
+        verify(emailService).sendEmailAsync(eq("u1@spkt.edu.vn"), anyString(), anyString());
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof UserAccessChangedEvent changed
+                && changed.getUserIds().equals(List.of("u1"))));
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void lockOverdueUsers_ShouldOnlyEmailUsersThatWereNotLockedYet() {
+        UserLockRow locked = mock(UserLockRow.class);
+        when(locked.getUserId()).thenReturn("u1");
+        when(locked.getUsername()).thenReturn("u1@spkt.edu.vn");
+        UserLockRow alreadyLocked = mock(UserLockRow.class);
+        when(alreadyLocked.getUserId()).thenReturn("u2");
+        LocalDate threshold = LocalDate.now().minusDays(LoanMaintenanceJobs.LOCK_AFTER_OVERDUE_DAYS);
+        when(loanRepository.findUsersToLockAfter(eq(threshold), eq(threshold.atStartOfDay()), eq(""), any()))
+                .thenReturn(List.of(locked, alreadyLocked));
+        // u2 was locked by an admin between the read and the update
+        when(userRepository.lockIdsNotLocked(List.of("u1", "u2"))).thenReturn(List.of("u1"));
+        when(userRepository.lockUsers(eq(List.of("u1")), any(LocalDateTime.class), eq(LoanMaintenanceJobs.LOCK_REASON)))
+                .thenReturn(1);
+
+        JobRunMetrics metrics = jobs.lockOverdueUsers();
+
+        assertEquals(1, metrics.getRowsUpdated());
+        verify(emailService).sendEmailAsync(eq("u1@spkt.edu.vn"), anyString(), anyString());
+        verify(emailService, times(1)).sendEmailAsync(anyString(), anyString(), anyString());
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof UserAccessChangedEvent changed
+                && changed.getUserIds().equals(List.of("u1"))));
+    }
+
+    private static class Row implements LoanJobRow {
+        private final long transactionId;
+        private final String userId;
+        private final long physicalDocId;
+
+        Row(long transactionId, String userId, long physicalDocId) {
+            this.transactionId = transactionId;
+            this.userId = userId;
+            this.physicalDocId = physicalDocId;
+        }
+
+        public Long getTransactionId() { return transactionId; }
+        public String getUserId() { return userId; }
+        public String getUsername() { return userId + "@spkt.edu.vn"; }
+        public Long getPhysicalDocId() { return physicalDocId; }
+        public Long getDocumentId() { return 3L; }
+        public String getDocumentName() { return "Giáo trình Java"; }
+        public LocalDateTime getLoanDate() { return LocalDateTime.of(2025, 3, 1, 9, 0); }
+        public LocalDate getDueDate() { return LocalDate.of(2025, 3, 15); }
+    }
+}
@@ -6,11 +6,11 @@ import com.spkt.libraSys.service.access.AuthService;
 import com.spkt.libraSys.service.document.DocumentEntity;
 import com.spkt.libraSys.service.document.PhysicalDocument.PhysicalDocumentEntity;
 import com.spkt.libraSys.service.document.PhysicalDocument.PhysicalDocumentRepository;
-import com.spkt.libraSys.service.email.EmailService;
 import com.spkt.libraSys.service.notification.NotificationService;
 import com.spkt.libraSys.service.notification.NotificationType;
 import com.spkt.libraSys.service.qrcode.JwtTokenData;
 import com.spkt.libraSys.service.qrcode.QRService;
+import com.spkt.libraSys.service.recommendation.UserInteractionEvent;
 import com.spkt.libraSys.service.role.RoleEntity;
 import com.spkt.libraSys.service.user.UserEntity;
 import com.spkt.libraSys.service.user.UserRepository;
@@ -22,6 +22,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -58,7 +59,9 @@ class LoanServiceImplTest {
     @Mock
     private WebSocketService webSocketService;
     @Mock
-    private EmailService emailService;
+    private LoanMaintenanceJobs loanMaintenanceJobs;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private LoanServiceImpl loanService;
@@ -153,6 +156,7 @@ class LoanServiceImplTest {
         assertEquals(testLoanResponse.getTransactionId(), response.getTransactionId());
         verify(loanRepository).save(any());
         verify(notificationService).createAndSendNotification(any(), any(), any(), any(), any());
+        verify(eventPublisher).publishEvent(any(UserInteractionEvent.class));
     }
 
     @Test
@@ -287,20 +291,12 @@ class LoanServiceImplTest {
 
     @Test
     void blockUsersWithReturnOverdue30Days_Success() {
-        // Arrange
-        LocalDate thresholdDate = LocalDate.now().minusDays(30);
-        List<LoanEntity> overdueLoans = Collections.singletonList(testLoan);
-        when(loanRepository.findLoansOverdueOrWithUnpaidFine(thresholdDate)).thenReturn(overdueLoans);
-        when(userRepository.save(any())).thenReturn(testUser);
-
         // Act
         loanService.blockUsersWithReturnOverdue30Days();
 
         // Assert
-        assertEquals(UserStatus.LOCKED, testUser.getIsActive());
-        assertNotNull(testUser.getLockedAt());
-        verify(userRepository).save(any());
-        verify(emailService).sendEmailAsync(anyString(), anyString(), anyString());
+        verify(loanMaintenanceJobs).lockOverdueUsers();
+        verifyNoInteractions(userRepository);
     }
 
     @Test
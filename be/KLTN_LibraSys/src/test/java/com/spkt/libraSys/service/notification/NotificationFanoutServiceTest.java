@@ -0,0 +1,149 @@
+package com.spkt.libraSys.service.notification;
+
+import com.spkt.libraSys.exception.ErrorCode;
+import com.spkt.libraSys.service.user.UserEntity;
+import com.spkt.libraSys.service.user.UserRepository;
+import com.spkt.libraSys.service.webSocket.WebSocketService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationFanoutServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private NotificationBatchWriter batchWriter;
+    @Mock
+    private WebSocketService webSocketService;
+
+    private final List<Runnable> queuedBroadcasts = new ArrayList<>();
+    private NotificationFanoutService fanoutService;
+
+    @BeforeEach
+    void setUp() {
+        Executor fanoutExecutor = queuedBroadcasts::add;
+        Executor directPush = Runnable::run;
+        fanoutService = new NotificationFanoutService(userRepository, batchWriter, new NotificationMapper(),
+                webSocketService, new UserNotificationCache(1 << 20, 20, 30), fanoutExecutor, directPush);
+        ReflectionTestUtils.setField(fanoutService, "batchSize", 2);
+    }
+
+    @Test
+    void submit_ShouldQueueWithoutTouchingDatabase() {
+        NotificationBroadcastStatus status = fanoutService.submit(request("u1", "u2", "u1"));
+
+        assertEquals(NotificationBroadcastStatus.State.QUEUED, status.getState());
+        assertEquals(2, status.getTotalRecipients());
+        assertEquals(1, queuedBroadcasts.size());
+        verifyNoInteractions(userRepository, batchWriter, webSocketService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void broadcast_ShouldResolveUsersAndInsertPerChunkThenPushEveryRow() {
+        when(userRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<UserEntity> users = new ArrayList<>();
+            for (String id : (Iterable<String>) invocation.getArgument(0)) {
+                if (!id.equals("missing")) {
+                    users.add(UserEntity.builder().userId(id).username(id + "@spkt.edu.vn").build());
+                }
+            }
+            return users;
+        });
+        AtomicLong ids = new AtomicLong();
+        when(batchWriter.insertAll(anyList())).thenAnswer(invocation -> {
+            List<NotificationEntity> rows = invocation.getArgument(0);
+            rows.forEach(row -> row.setId(ids.incrementAndGet()));
+            return rows.size();
+        });
+
+        String id = fanoutService.submit(request("u1", "u2", "missing", "u3", "u4")).getBroadcastId();
+        queuedBroadcasts.forEach(Runnable::run);
+
+        NotificationBroadcastStatus status = fanoutService.getStatus(id);
+        assertEquals(NotificationBroadcastStatus.State.COMPLETED, status.getState());
+        assertEquals(4, status.getResolvedUsers());
+        assertEquals(1, status.getMissingUsers());
+        assertEquals(4, status.getPersisted());
+        assertEquals(4, status.getPushed());
+        // 5 recipients in chunks of 2
+        verify(userRepository, times(3)).findAllById(anyIterable());
+        verify(batchWriter, times(3)).insertAll(anyList());
+        verify(webSocketService).sendNotificationToUser(eq("u4"), argThat(r -> r.getId().equals("4")));
+        assertEquals(4L, fanoutService.getMetrics().get("totalPushed"));
+    }
+
+    @Test
+    void broadcast_ShouldCountPushFailuresWithoutStopping() {
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(
+                UserEntity.builder().userId("u1").username("a").build(),
+                UserEntity.builder().userId("u2").username("b").build()));
+        when(batchWriter.insertAll(anyList())).thenAnswer(invocation -> {
+            List<NotificationEntity> rows = invocation.getArgument(0);
+            for (int i = 0; i < rows.size(); i++) {
+                rows.get(i).setId((long) i + 1);
+            }
+            return rows.size();
+        });
+        doThrow(new IllegalStateException("session closed"))
+                .when(webSocketService).sendNotificationToUser(eq("u1"), any());
+
+        String id = fanoutService.submit(request("u1", "u2")).getBroadcastId();
+        queuedBroadcasts.forEach(Runnable::run);
+
+        NotificationBroadcastStatus status = fanoutService.getStatus(id);
+        assertEquals(NotificationBroadcastStatus.State.COMPLETED, status.getState());
+        assertEquals(1, status.getPushed());
+        assertEquals(1, status.getPushFailed());
+    }
+
+    @Test
+    void broadcast_ShouldFailWhenBatchInsertFails() {
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(
+                UserEntity.builder().userId("u1").username("a").build()));
+        when(batchWriter.insertAll(anyList())).thenThrow(new IllegalStateException("db down"));
+
+        String id = fanoutService.submit(request("u1")).getBroadcastId();
+        queuedBroadcasts.forEach(Runnable::run);
+
+        NotificationBroadcastStatus status = fanoutService.getStatus(id);
+        assertEquals(NotificationBroadcastStatus.State.FAILED, status.getState());
+        assertEquals("db down", status.getError());
+        verifyNoInteractions(webSocketService);
+    }
+
+    @Test
+    void submit_ShouldRejectWhenBroadcastQueueIsFull() {
+        fanoutService = new NotificationFanoutService(userRepository, batchWriter, new NotificationMapper(),
+                webSocketService, new UserNotificationCache(1 << 20, 20, 30),
+                task -> { throw new RejectedExecutionException("full"); }, Runnable::run);
+
+        NotificationException exception = assertThrows(NotificationException.class,
+                () -> fanoutService.submit(request("u1")));
+        assertEquals(ErrorCode.SERVICE_UNAVAILABLE, exception.getErrorCode());
+        assertEquals(NotificationBroadcastStatus.State.FAILED, fanoutService.getRecent().get(0).getState());
+    }
+
+    private static NotificationCreateRequest request(String... userIds) {
+        return NotificationCreateRequest.builder()
+                .userIds(List.of(userIds))
+                .title("Thông báo")
+                .content("Thư viện nghỉ lễ")
+                .build();
+    }
+}
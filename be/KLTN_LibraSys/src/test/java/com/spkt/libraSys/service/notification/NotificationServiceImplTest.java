@@ -10,11 +10,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.*;
 
@@ -37,6 +40,10 @@ class NotificationServiceImplTest {
     private UserRepository userRepository;
     @Mock
     private AuthService authService;
+    @Mock
+    private NotificationFanoutService notificationFanoutService;
+    @Spy
+    private UserNotificationCache notificationCache = new UserNotificationCache(1 << 20, 20, 30);
 
     @InjectMocks
     private NotificationServiceImpl notificationService;
@@ -130,6 +137,8 @@ class NotificationServiceImplTest {
         when(authService.getCurrentUser()).thenReturn(testUser);
         when(notificationRepository.findByUserOrderByCreatedAtDesc(eq(testUser), any(Pageable.class)))
                 .thenReturn(notificationPage);
+        when(notificationRepository.countByUserAndStatus(testUser, NotificationEntity.NotificationStatus.UNREAD))
+                .thenReturn(1L);
         when(notificationMapper.toResponse(any())).thenReturn(testNotificationResponse);
 
         // Act
@@ -141,6 +150,79 @@ class NotificationServiceImplTest {
         assertEquals(testNotificationResponse.getId(), response.getContent().get(0).getId());
     }
 
+    @Test
+    void getNotificationsForCurrentUser_ShouldServeRepeatedFirstPagesFromCache() {
+        Page<NotificationEntity> notificationPage = new PageImpl<>(List.of(testNotification), PageRequest.of(0, 20), 1);
+        when(authService.getCurrentUser()).thenReturn(testUser);
+        when(notificationRepository.findByUserOrderByCreatedAtDesc(eq(testUser), any(Pageable.class)))
+                .thenReturn(notificationPage);
+        when(notificationRepository.countByUserAndStatus(testUser, NotificationEntity.NotificationStatus.UNREAD))
+                .thenReturn(1L);
+        when(notificationMapper.toResponse(any())).thenReturn(testNotificationResponse);
+
+        notificationService.getNotificationsForCurrentUser(PageRequest.of(0, 10));
+        Page<NotificationResponse> second = notificationService.getNotificationsForCurrentUser(PageRequest.of(0, 10));
+        Long count = notificationService.getUnreadNotificationCountForCurrentUser();
+
+        assertEquals(1, second.getTotalElements());
+        assertEquals(1L, count);
+        verify(notificationRepository, times(1)).findByUserOrderByCreatedAtDesc(eq(testUser), any(Pageable.class));
+        verify(notificationRepository, times(1)).countByUserAndStatus(any(), any());
+    }
+
+    @Test
+    void unreadCount_ShouldBeUpdatedInPlaceAndPushedOnChanges() {
+        when(authService.getCurrentUser()).thenReturn(testUser);
+        when(notificationRepository.countByUserAndStatus(testUser, NotificationEntity.NotificationStatus.UNREAD))
+                .thenReturn(3L);
+        when(userRepository.findById("test123")).thenReturn(Optional.of(testUser));
+        when(notificationFactory.createNotification(eq(testUser), anyString(), anyString(), isNull(), isNull()))
+                .thenReturn(testNotification);
+        when(notificationRepository.save(any())).thenReturn(testNotification);
+        when(notificationRepository.findById(1L)).thenReturn(Optional.of(testNotification));
+        when(notificationMapper.toResponse(any())).thenReturn(testNotificationResponse);
+
+        assertEquals(3L, notificationService.getUnreadNotificationCountForCurrentUser());
+        notificationService.createAndSendNotification("test123", "Test", "Test");
+        assertEquals(4L, notificationService.getUnreadNotificationCountForCurrentUser());
+        notificationService.markAsRead(1L);
+        assertEquals(3L, notificationService.getUnreadNotificationCountForCurrentUser());
+
+        verify(notificationRepository, times(1)).countByUserAndStatus(any(), any());
+        verify(webSocketService).sendUnreadCountToUser("test123", 4L);
+        verify(webSocketService).sendUnreadCountToUser("test123", 3L);
+    }
+
+    @Test
+    void cacheAndPushes_ShouldWaitForCommitAndBeSkippedOnRollback() {
+        when(authService.getCurrentUser()).thenReturn(testUser);
+        when(notificationRepository.countByUserAndStatus(testUser, NotificationEntity.NotificationStatus.UNREAD))
+                .thenReturn(3L);
+        when(notificationRepository.findById(1L)).thenReturn(Optional.of(testNotification));
+        when(notificationRepository.save(any())).thenReturn(testNotification);
+        when(notificationMapper.toResponse(any())).thenReturn(testNotificationResponse);
+        assertEquals(3L, notificationService.getUnreadNotificationCountForCurrentUser());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            notificationService.markAsRead(1L);
+            assertEquals(3L, notificationService.getUnreadNotificationCountForCurrentUser());
+            verifyNoInteractions(webSocketService);
+
+            // Rolled back: the synchronizations are dropped without running
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.initSynchronization();
+            testNotification.setStatus(NotificationEntity.NotificationStatus.UNREAD);
+            notificationService.markAsRead(1L);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(2L, notificationService.getUnreadNotificationCountForCurrentUser());
+        verify(webSocketService).sendUnreadCountToUser("test123", 2L);
+    }
+
     @Test
     void getUnreadNotificationCountForCurrentUser_Success() {
         // Arrange
@@ -200,18 +282,20 @@ class NotificationServiceImplTest {
     @Test
     void createNotifications_Success() {
         // Arrange
-        when(userRepository.findById("test123")).thenReturn(Optional.of(testUser));
-        when(notificationFactory.createNotification(eq(testUser), anyString(), anyString(), isNull(), isNull()))
-                .thenReturn(testNotification);
-        when(notificationRepository.save(any())).thenReturn(testNotification);
-        when(notificationMapper.toResponse(any())).thenReturn(testNotificationResponse);
+        NotificationBroadcastStatus queued = NotificationBroadcastStatus.builder()
+                .broadcastId("b1")
+                .state(NotificationBroadcastStatus.State.QUEUED)
+                .totalRecipients(1)
+                .build();
+        when(notificationFanoutService.submit(testCreateRequest)).thenReturn(queued);
 
         // Act
-        notificationService.createNotifications(testCreateRequest);
+        NotificationBroadcastStatus status = notificationService.createNotifications(testCreateRequest);
 
         // Assert
-        verify(notificationRepository).save(any());
-        verify(webSocketService).sendNotificationToUser(eq("test123"), any());
+        assertSame(queued, status);
+        verify(notificationRepository, never()).save(any());
+        verifyNoInteractions(userRepository, webSocketService);
     }
 
     @Test
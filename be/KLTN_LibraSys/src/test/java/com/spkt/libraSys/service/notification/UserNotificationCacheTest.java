@@ -0,0 +1,80 @@
+package com.spkt.libraSys.service.notification;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserNotificationCacheTest {
+
+    private final UserNotificationCache cache = new UserNotificationCache(1 << 20, 3, 30);
+
+    @Test
+    void isCacheable_ShouldOnlyAcceptNewestFirstPagesWithinRecentSize() {
+        assertTrue(cache.isCacheable(PageRequest.of(0, 3)));
+        assertTrue(cache.isCacheable(PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "createdAt"))));
+        assertFalse(cache.isCacheable(PageRequest.of(1, 3)));
+        assertFalse(cache.isCacheable(PageRequest.of(0, 3, Sort.by("title"))));
+    }
+
+    @Test
+    void recentPage_ShouldKeepNewestFirstListUpToDateWithoutReloading() {
+        AtomicInteger loads = new AtomicInteger();
+        List<NotificationResponse> stored = new ArrayList<>(List.of(response("2"), response("1")));
+        cache.recentPage("u1", PageRequest.of(0, 3), pageable -> {
+            loads.incrementAndGet();
+            return new PageImpl<>(stored, pageable, stored.size());
+        }, () -> 2);
+
+        cache.onCreated("u1", response("3"));
+        cache.onCreated("u1", response("4"));
+        cache.onRead("u1", "3", true);
+        cache.onDeleted("u1", "4", true);
+        Page<NotificationResponse> page = cache.recentPage("u1", PageRequest.of(0, 2), pageable -> {
+            throw new AssertionError("should be served from the cache");
+        }, () -> 0);
+
+        assertEquals(1, loads.get());
+        assertEquals(List.of("3", "2"), page.getContent().stream().map(NotificationResponse::getId).toList());
+        assertEquals(NotificationEntity.NotificationStatus.READ, page.getContent().get(0).getStatus());
+        assertEquals(3, page.getTotalElements());
+        assertEquals(2L, cache.unreadCount("u1", () -> { throw new AssertionError(); }));
+    }
+
+    @Test
+    void onCreated_ShouldIgnoreUsersWithoutEntry() {
+        assertNull(cache.onCreated("u2", response("1")));
+        assertEquals(5L, cache.unreadCount("u2", () -> 5));
+        assertEquals(6L, cache.onCreated("u2", response("2")));
+        assertEquals(0L, cache.onAllRead("u2"));
+    }
+
+    @Test
+    void snapshot_ShouldReportHitRateAndMemory() {
+        cache.unreadCount("u3", () -> 1);
+        cache.unreadCount("u3", () -> 1);
+
+        Map<String, Object> snapshot = cache.snapshot();
+
+        assertEquals(1L, snapshot.get("hitCount"));
+        assertEquals(1L, snapshot.get("missCount"));
+        assertTrue((Long) snapshot.get("estimatedBytes") > 0);
+    }
+
+    private static NotificationResponse response(String id) {
+        return NotificationResponse.builder()
+                .id(id)
+                .title("Thông báo " + id)
+                .content("Nội dung")
+                .status(NotificationEntity.NotificationStatus.UNREAD)
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.spkt.libraSys.service.recommendation;
+
+import com.spkt.libraSys.service.document.DigitalDocument.AccessRequest.AccessRequestRepository;
+import com.spkt.libraSys.service.document.DigitalDocument.AccessRequest.AccessRequestStatus;
+import com.spkt.libraSys.service.document.favorite.FavoriteDocumentRepository;
+import com.spkt.libraSys.service.loan.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IncrementalUserVectorUpdaterTest {
+
+    @Mock
+    private LoanRepository loanRepository;
+    @Mock
+    private FavoriteDocumentRepository favoriteRepository;
+    @Mock
+    private AccessRequestRepository accessRequestRepository;
+
+    @InjectMocks
+    private IncrementalUserVectorUpdater updater;
+
+    @TempDir
+    Path tempDir;
+
+    private VectorSnapshotStore.VectorSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // User "u": profile (0.5, 0.5) trọng số 0.25 và đã mượn tài liệu 1 lúc huấn luyện
+        // → vector = (0.25 * (0.5, 0.5) + 0.25 * (1, 0)) / 0.5 = (0.75, 0.25)
+        snapshot = new VectorSnapshotStore(tempDir.toString()).publish(2,
+                Map.of("1", new float[]{1f, 0f}, "2", new float[]{0f, 1f}, "3", new float[]{1f, 1f}),
+                Map.of("u", new float[]{0.75f, 0.25f}),
+                Map.of("u", 0.5f));
+    }
+
+    @Test
+    void apply_ShouldRecomputeOnlyInteractionComponents() {
+        when(loanRepository.findDocumentIdsByUserId("u")).thenReturn(List.of(1L, 2L));
+        when(favoriteRepository.findDocumentIdsByUserId("u")).thenReturn(Collections.emptyList());
+        when(accessRequestRepository.findDocumentIdsByUserId(AccessRequestStatus.APPROVED, "u"))
+                .thenReturn(Collections.emptyList());
+
+        assertTrue(updater.apply(new UserInteractionEvent("u", 2L, UserInteractionMatrix.Kind.LOAN), snapshot));
+
+        // (0.25 * (0.5, 0.5) + 0.25 * (0.5, 0.5)) / 0.5
+        assertArrayEquals(new float[]{0.5f, 0.5f}, updater.userVector("u"), 1e-5f);
+
+        when(favoriteRepository.findDocumentIdsByUserId("u")).thenReturn(List.of(3L));
+        updater.apply(new UserInteractionEvent("u", 3L, UserInteractionMatrix.Kind.FAVORITE), snapshot);
+
+        // (0.25 * (0.5, 0.5) + 0.25 * (0.5, 0.5) + 0.2 * (1, 1)) / 0.7
+        float expected = 0.45f / 0.7f;
+        assertArrayEquals(new float[]{expected, expected}, updater.userVector("u"), 1e-5f);
+        float unit = (float) Math.sqrt(0.5);
+        assertArrayEquals(new float[]{unit, unit}, updater.normalizedUserVector("u"), 1e-5f);
+        assertNull(updater.userVector("other"));
+        assertFalse(updater.hasVocabularyDrift());
+    }
+
+    @Test
+    void apply_ShouldBuildVectorForUserMissingFromSnapshot() {
+        when(loanRepository.findDocumentIdsByUserId("new")).thenReturn(List.of(1L));
+        when(favoriteRepository.findDocumentIdsByUserId("new")).thenReturn(Collections.emptyList());
+        when(accessRequestRepository.findDocumentIdsByUserId(AccessRequestStatus.APPROVED, "new"))
+                .thenReturn(Collections.emptyList());
+
+        updater.apply(new UserInteractionEvent("new", 1L, UserInteractionMatrix.Kind.LOAN), snapshot);
+
+        assertArrayEquals(new float[]{1f, 0f}, updater.userVector("new"), 1e-6f);
+    }
+
+    @Test
+    void apply_ShouldReportDriftForUnknownDocument() {
+        assertFalse(updater.apply(new UserInteractionEvent("u", 99L, UserInteractionMatrix.Kind.ACCESS), snapshot));
+
+        assertTrue(updater.hasVocabularyDrift());
+        assertNull(updater.userVector("u"));
+        verify(loanRepository, never()).findDocumentIdsByUserId(anyString());
+        verify(accessRequestRepository, never()).findDocumentIdsByUserId(any(), anyString());
+
+        updater.reset();
+        assertFalse(updater.hasVocabularyDrift());
+    }
+}
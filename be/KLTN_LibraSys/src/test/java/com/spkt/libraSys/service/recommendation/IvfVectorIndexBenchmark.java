@@ -0,0 +1,134 @@
+package com.spkt.libraSys.service.recommendation;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh độ trễ giữa chỉ mục IVF, quét toàn bộ trên arena float[] và cách quét bằng ND4J cũ
+ * (mul/sumNumber trên từng INDArray). Recall@10 của IVF so với quét toàn bộ được in ra khi setup.
+ *
+ * Chạy: mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.spkt.libraSys.service.recommendation.IvfVectorIndexBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IvfVectorIndexBenchmark {
+    private static final int DIMENSION = 200;
+    private static final int TOP_K = 10;
+    private static final int QUERY_COUNT = 64;
+
+    @Param({"10000", "100000"})
+    int catalogueSize;
+
+    @Param({"8"})
+    int nprobe;
+
+    IvfVectorIndex index;
+    Map<String, INDArray> documentVectors;
+    float[][] queries;
+    int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(7);
+        // Dữ liệu dạng cụm giống phân bố vector Word2Vec theo chủ đề
+        int topics = Math.max(16, catalogueSize / 500);
+        float[] topicCentres = gaussian(random, topics * DIMENSION, 1.0);
+        long[] ids = new long[catalogueSize];
+        float[] arena = new float[catalogueSize * DIMENSION];
+        for (int i = 0; i < catalogueSize; i++) {
+            ids[i] = i + 1;
+            int topic = random.nextInt(topics);
+            for (int d = 0; d < DIMENSION; d++) {
+                arena[i * DIMENSION + d] = topicCentres[topic * DIMENSION + d] + (float) (random.nextGaussian() * 0.6);
+            }
+        }
+        index = IvfVectorIndex.build(ids, arena, DIMENSION);
+
+        documentVectors = new HashMap<>();
+        for (int i = 0; i < catalogueSize; i++) {
+            documentVectors.put(String.valueOf(ids[i]),
+                    Nd4j.create(Arrays.copyOfRange(arena, i * DIMENSION, (i + 1) * DIMENSION)));
+        }
+
+        queries = new float[QUERY_COUNT][];
+        for (int q = 0; q < QUERY_COUNT; q++) {
+            int topic = random.nextInt(topics);
+            queries[q] = new float[DIMENSION];
+            for (int d = 0; d < DIMENSION; d++) {
+                queries[q][d] = topicCentres[topic * DIMENSION + d] + (float) (random.nextGaussian() * 0.8);
+            }
+        }
+
+        double recall = 0.0;
+        for (float[] query : queries) {
+            Set<Long> expected = new HashSet<>();
+            for (long id : index.searchExact(query, TOP_K).getIds()) {
+                expected.add(id);
+            }
+            int hits = 0;
+            for (long id : index.search(query, TOP_K, nprobe).getIds()) {
+                if (expected.contains(id)) {
+                    hits++;
+                }
+            }
+            recall += (double) hits / TOP_K;
+        }
+        System.out.printf("%nIVF recall@%d (n=%d, lists=%d, nprobe=%d): %.3f%n",
+                TOP_K, catalogueSize, index.listCount(), nprobe, recall / QUERY_COUNT);
+    }
+
+    private float[] nextQuery() {
+        return queries[cursor++ & (QUERY_COUNT - 1)];
+    }
+
+    @Benchmark
+    public IvfVectorIndex.SearchResult annSearch() {
+        return index.search(nextQuery(), TOP_K, nprobe);
+    }
+
+    @Benchmark
+    public IvfVectorIndex.SearchResult exactArenaScan() {
+        return index.searchExact(nextQuery(), TOP_K);
+    }
+
+    @Benchmark
+    public List<Map.Entry<String, Double>> nd4jBruteForceScan() {
+        INDArray query = Nd4j.create(nextQuery());
+        List<Map.Entry<String, Double>> scored = new ArrayList<>(documentVectors.size());
+        for (Map.Entry<String, INDArray> entry : documentVectors.entrySet()) {
+            INDArray docVector = entry.getValue();
+            double dot = query.mul(docVector).sumNumber().doubleValue();
+            double norm1 = Math.sqrt(query.mul(query).sumNumber().doubleValue());
+            double norm2 = Math.sqrt(docVector.mul(docVector).sumNumber().doubleValue());
+            scored.add(new AbstractMap.SimpleEntry<>(entry.getKey(), dot / (norm1 * norm2)));
+        }
+        scored.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        return scored.subList(0, TOP_K);
+    }
+
+    private static float[] gaussian(SplittableRandom random, int size, double sigma) {
+        float[] values = new float[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = (float) (random.nextGaussian() * sigma);
+        }
+        return values;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IvfVectorIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
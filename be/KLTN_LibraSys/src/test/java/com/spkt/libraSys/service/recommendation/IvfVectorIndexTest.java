@@ -0,0 +1,110 @@
+package com.spkt.libraSys.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IvfVectorIndexTest {
+
+    private static final int DIMENSION = 16;
+
+    @Test
+    void searchExact_ShouldReturnNearestByCosine() {
+        long[] ids = {1L, 2L, 3L};
+        float[] arena = new float[3 * DIMENSION];
+        arena[0] = 1f;                 // id 1: trục x
+        arena[DIMENSION + 1] = 5f;     // id 2: trục y (độ dài không ảnh hưởng cosine)
+        arena[2 * DIMENSION] = 1f;     // id 3: giữa x và y
+        arena[2 * DIMENSION + 1] = 1f;
+        IvfVectorIndex index = IvfVectorIndex.build(ids, arena, DIMENSION, 1, 1L);
+
+        float[] query = new float[DIMENSION];
+        query[1] = 2f;
+        IvfVectorIndex.SearchResult result = index.searchExact(query, 2);
+
+        assertArrayEquals(new long[]{2L, 3L}, result.getIds());
+        assertEquals(1.0f, result.getScores()[0], 1e-5);
+        assertEquals((float) Math.sqrt(0.5), result.getScores()[1], 1e-5);
+    }
+
+    @Test
+    void search_ShouldMatchExactScanWhenAllListsProbed() {
+        Random random = new Random(3);
+        int n = 500;
+        long[] ids = new long[n];
+        float[] arena = new float[n * DIMENSION];
+        for (int i = 0; i < n; i++) {
+            ids[i] = 1000 + i;
+            for (int d = 0; d < DIMENSION; d++) {
+                arena[i * DIMENSION + d] = (float) random.nextGaussian();
+            }
+        }
+        IvfVectorIndex index = IvfVectorIndex.build(ids, arena, DIMENSION);
+        float[] query = new float[DIMENSION];
+        for (int d = 0; d < DIMENSION; d++) {
+            query[d] = (float) random.nextGaussian();
+        }
+
+        IvfVectorIndex.SearchResult exact = index.searchExact(query, 10);
+        IvfVectorIndex.SearchResult full = index.search(query, 10, index.listCount());
+
+        assertArrayEquals(exact.getIds(), full.getIds());
+        for (int i = 1; i < full.size(); i++) {
+            assertTrue(full.getScores()[i - 1] >= full.getScores()[i]);
+        }
+    }
+
+    @Test
+    void search_ShouldReturnAllVectorsOnceWhenKExceedsSize() {
+        long[] ids = {5L, 6L, 7L, 8L};
+        float[] arena = new float[4 * DIMENSION];
+        for (int i = 0; i < 4; i++) {
+            arena[i * DIMENSION + i] = 1f;
+        }
+        IvfVectorIndex index = IvfVectorIndex.build(ids, arena, DIMENSION, 2, 1L);
+        float[] query = new float[DIMENSION];
+        query[0] = 1f;
+
+        IvfVectorIndex.SearchResult result = index.search(query, 100, 2);
+
+        Set<Long> found = new HashSet<>();
+        for (long id : result.getIds()) {
+            found.add(id);
+        }
+        assertEquals(Set.of(5L, 6L, 7L, 8L), found);
+        assertEquals(5L, result.getIds()[0]);
+    }
+
+    @Test
+    void similarity_ShouldLookUpPrecomputedNormalizedVectorById() {
+        long[] ids = {30L, 10L, 20L};
+        float[] arena = new float[3 * DIMENSION];
+        arena[0] = 2f;                 // id 30: trục x
+        arena[DIMENSION + 1] = 3f;     // id 10: trục y
+        arena[2 * DIMENSION] = 1f;     // id 20: giữa x và y
+        arena[2 * DIMENSION + 1] = 1f;
+        IvfVectorIndex index = IvfVectorIndex.build(ids, arena, DIMENSION, 2, 1L);
+        float[] query = new float[DIMENSION];
+        query[0] = 1f;
+
+        assertEquals(1.0f, index.similarity(30L, query), 1e-6);
+        assertEquals(0.0f, index.similarity(10L, query), 1e-6);
+        assertEquals((float) Math.sqrt(0.5), index.similarity(20L, query), 1e-6);
+        assertTrue(Float.isNaN(index.similarity(99L, query)));
+        assertTrue(index.contains(10L));
+        assertFalse(index.contains(99L));
+    }
+
+    @Test
+    void search_ShouldReturnEmptyForEmptyIndexOrWrongDimension() {
+        IvfVectorIndex empty = IvfVectorIndex.empty(DIMENSION);
+        assertEquals(0, empty.search(new float[DIMENSION], 5, 1).size());
+
+        IvfVectorIndex index = IvfVectorIndex.build(new long[]{1L}, new float[DIMENSION], DIMENSION);
+        assertEquals(0, index.search(new float[DIMENSION + 1], 5, 1).size());
+    }
+}
@@ -0,0 +1,67 @@
+package com.spkt.libraSys.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedVectorStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writeAndOpen_ShouldRoundTripVectors() throws IOException {
+        Map<String, float[]> vectors = new LinkedHashMap<>();
+        vectors.put("1", new float[]{0.5f, -1f, 2f});
+        vectors.put("c0ffee-người-dùng", new float[]{3f, 4f, 5f});
+        vectors.put("bad", new float[]{1f});
+        Path file = tempDir.resolve("vectors.vec");
+
+        MappedVectorStore.write(file, 3, vectors);
+        MappedVectorStore store = MappedVectorStore.open(file);
+
+        assertEquals(2, store.size());
+        assertEquals(3, store.dimension());
+        assertArrayEquals(new float[]{0.5f, -1f, 2f}, store.get("1"));
+        assertArrayEquals(new float[]{3f, 4f, 5f}, store.get("c0ffee-người-dùng"));
+        assertNull(store.get("bad"));
+        assertNull(store.get("missing"));
+
+        float[] arena = new float[6];
+        store.readRow(1, arena, 3);
+        assertEquals(store.idAt(1), "c0ffee-người-dùng");
+        assertEquals(5f, arena[5]);
+    }
+
+    @Test
+    void open_ShouldRejectForeignFile() throws IOException {
+        Path file = tempDir.resolve("foreign.vec");
+        Files.write(file, new byte[64]);
+
+        assertThrows(IOException.class, () -> MappedVectorStore.open(file));
+    }
+
+    @Test
+    void snapshotStore_ShouldSwitchCurrentGeneration() throws IOException {
+        VectorSnapshotStore snapshotStore = new VectorSnapshotStore(tempDir.resolve("snapshots").toString());
+        assertTrue(snapshotStore.openCurrent().isEmpty());
+
+        snapshotStore.publish(2, Map.of("10", new float[]{1f, 0f}),
+                Map.of("u", new float[]{0f, 1f}, "v", new float[]{3f, 4f}), Map.of("u", 0.65f));
+        VectorSnapshotStore.VectorSnapshot current = snapshotStore.openCurrent().orElseThrow();
+
+        assertArrayEquals(new float[]{1f, 0f}, current.getDocuments().get("10"));
+        assertArrayEquals(new float[]{0f, 1f}, current.getUsers().get("u"));
+        assertEquals(0.65f, current.userWeight("u"));
+        assertTrue(Float.isNaN(current.userWeight("missing")));
+        assertArrayEquals(new float[]{0.6f, 0.8f}, current.normalizedUser("v"), 1e-6f);
+        assertNull(current.normalizedUser("missing"));
+    }
+}
@@ -0,0 +1,36 @@
+package com.spkt.libraSys.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecommendationCacheTest {
+
+    @Test
+    void rankedDocuments_ShouldCoverOnlyStoredPrefixUnlessComplete() {
+        RecommendationCache.RankedDocuments head =
+                new RecommendationCache.RankedDocuments(new long[]{5L, 3L, 9L}, 10, false);
+        RecommendationCache.RankedDocuments complete =
+                new RecommendationCache.RankedDocuments(new long[]{5L, 3L}, 2, true);
+
+        assertTrue(head.covers(3));
+        assertFalse(head.covers(4));
+        assertTrue(complete.covers(20));
+    }
+
+    @Test
+    void cache_ShouldInvalidateSingleUserOrAll() {
+        RecommendationCache cache = new RecommendationCache(1 << 20, 30, 24);
+        cache.put("a", new RecommendationCache.RankedDocuments(new long[]{1L}, 1, false));
+        cache.put("b", new RecommendationCache.RankedDocuments(new long[]{2L}, 1, true));
+
+        cache.invalidate("a");
+
+        assertNull(cache.get("a"));
+        assertArrayEquals(new long[]{2L}, cache.get("b").getDocumentIds());
+        assertEquals(1, cache.stats().hitCount());
+
+        cache.invalidateAll();
+        assertNull(cache.get("b"));
+    }
+}
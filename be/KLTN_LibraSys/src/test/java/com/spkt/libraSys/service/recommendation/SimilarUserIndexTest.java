@@ -0,0 +1,70 @@
+package com.spkt.libraSys.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarUserIndexTest {
+
+    @Test
+    void neighbours_ShouldRankByCohortAndSharedDocuments() {
+        String[] userIds = {"a", "b", "c", "d", "e"};
+        String[] majors = {"IT", "IT", "IT", "ECO", null};
+        int[] batches = {2020, 2020, 2021, 2019, 0};
+        UserInteractionMatrix interactions = UserInteractionMatrix.builder(indexOf(userIds))
+                .add(UserInteractionMatrix.Kind.LOAN, "a", 1L)
+                .add(UserInteractionMatrix.Kind.FAVORITE, "a", 2L)
+                .add(UserInteractionMatrix.Kind.LOAN, "c", 1L)
+                .add(UserInteractionMatrix.Kind.FAVORITE, "c", 2L)
+                .add(UserInteractionMatrix.Kind.LOAN, "b", 7L)
+                .build();
+
+        SimilarUserIndex index = SimilarUserIndex.build(userIds, majors, batches, interactions);
+
+        // b: 0.3 + 0.3; c: 0.3 + 0.4 * 1.0
+        assertArrayEquals(new String[]{"c", "b"}, index.neighbours("a"));
+        assertArrayEquals(new String[0], index.neighbours("d"));
+        assertArrayEquals(new String[0], index.neighbours("e"));
+        assertArrayEquals(new String[0], index.neighbours("unknown"));
+        assertEquals(-1, index.neighbourRow(index.row("a"), 2));
+    }
+
+    @Test
+    void neighbours_ShouldFindSharedReadersOutsideCohortWindow() {
+        int n = 2000;
+        String[] userIds = new String[n];
+        String[] majors = new String[n];
+        int[] batches = new int[n];
+        for (int i = 0; i < n; i++) {
+            userIds[i] = "u" + i;
+            majors[i] = "IT";
+            batches[i] = 2020;
+        }
+        UserInteractionMatrix.Builder builder = UserInteractionMatrix.builder(indexOf(userIds));
+        for (int i = 1; i < n - 1; i++) {
+            builder.add(UserInteractionMatrix.Kind.LOAN, userIds[i], 100_000L + i);
+        }
+        for (long documentId : new long[]{9001L, 9002L, 9003L}) {
+            builder.add(UserInteractionMatrix.Kind.LOAN, "u0", documentId);
+            builder.add(UserInteractionMatrix.Kind.FAVORITE, "u1999", documentId);
+        }
+
+        SimilarUserIndex index = SimilarUserIndex.build(userIds, majors, batches, builder.build());
+
+        String[] neighbours = index.neighbours("u0");
+        assertEquals(SimilarUserIndex.NEIGHBOURS, neighbours.length);
+        assertEquals("u1999", neighbours[0]);
+        assertEquals("u0", index.neighbours("u1999")[0]);
+    }
+
+    private static Map<String, Integer> indexOf(String[] userIds) {
+        Map<String, Integer> index = new HashMap<>();
+        for (String userId : userIds) {
+            index.put(userId, index.size());
+        }
+        return index;
+    }
+}
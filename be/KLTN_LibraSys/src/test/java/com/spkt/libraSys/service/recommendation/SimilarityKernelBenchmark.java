@@ -0,0 +1,114 @@
+package com.spkt.libraSys.service.recommendation;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh chi phí chấm điểm một cặp (user, tài liệu) 200 chiều:
+ * cách ND4J cũ (mul/sumNumber ba lần), cosine vô hướng và tích vô hướng trên vector đã chuẩn hóa
+ * (vòng lặp vô hướng và JDK Vector API).
+ *
+ * Chạy: mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.spkt.libraSys.service.recommendation.SimilarityKernelBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class SimilarityKernelBenchmark {
+    private static final int DIMENSION = 200;
+    private static final int PAIRS = 256;
+
+    float[][] users;
+    float[][] documents;
+    float[][] normalizedUsers;
+    float[][] normalizedDocuments;
+    INDArray[] userArrays;
+    INDArray[] documentArrays;
+    SimilarityKernel.DotProduct scalar;
+    SimilarityKernel.DotProduct vectorApi;
+    int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(5);
+        users = new float[PAIRS][];
+        documents = new float[PAIRS][];
+        normalizedUsers = new float[PAIRS][];
+        normalizedDocuments = new float[PAIRS][];
+        userArrays = new INDArray[PAIRS];
+        documentArrays = new INDArray[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            users[i] = gaussian(random);
+            documents[i] = gaussian(random);
+            normalizedUsers[i] = SimilarityKernel.normalizedCopy(users[i]);
+            normalizedDocuments[i] = SimilarityKernel.normalizedCopy(documents[i]);
+            userArrays[i] = Nd4j.create(users[i]);
+            documentArrays[i] = Nd4j.create(documents[i]);
+        }
+        scalar = new SimilarityKernel.ScalarDotProduct();
+        vectorApi = SimilarityKernel.isVectorized() ? new VectorApiDotProduct() : scalar;
+        System.out.printf("%nVector API kernel active: %s%n", SimilarityKernel.isVectorized());
+    }
+
+    private int next() {
+        return cursor++ & (PAIRS - 1);
+    }
+
+    @Benchmark
+    public double nd4jCosine() {
+        int i = next();
+        INDArray userVector = userArrays[i];
+        INDArray docVector = documentArrays[i];
+        double dotProduct = userVector.mul(docVector).sumNumber().doubleValue();
+        double norm1 = Math.sqrt(userVector.mul(userVector).sumNumber().doubleValue());
+        double norm2 = Math.sqrt(docVector.mul(docVector).sumNumber().doubleValue());
+        return dotProduct / (norm1 * norm2);
+    }
+
+    @Benchmark
+    public double scalarCosineUnnormalized() {
+        int i = next();
+        float[] u = users[i];
+        float[] d = documents[i];
+        float dot = scalar.dot(u, 0, d, 0, DIMENSION);
+        float norm1 = scalar.dot(u, 0, u, 0, DIMENSION);
+        float norm2 = scalar.dot(d, 0, d, 0, DIMENSION);
+        return dot / Math.sqrt((double) norm1 * norm2);
+    }
+
+    @Benchmark
+    public float scalarDotNormalized() {
+        int i = next();
+        return scalar.dot(normalizedUsers[i], 0, normalizedDocuments[i], 0, DIMENSION);
+    }
+
+    @Benchmark
+    public float vectorApiDotNormalized() {
+        int i = next();
+        return vectorApi.dot(normalizedUsers[i], 0, normalizedDocuments[i], 0, DIMENSION);
+    }
+
+    private static float[] gaussian(SplittableRandom random) {
+        float[] values = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            values[i] = (float) random.nextGaussian();
+        }
+        return values;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SimilarityKernelBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
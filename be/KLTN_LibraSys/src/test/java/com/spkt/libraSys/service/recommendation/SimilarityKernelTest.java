@@ -0,0 +1,55 @@
+package com.spkt.libraSys.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarityKernelTest {
+
+    @Test
+    void dot_ShouldMatchScalarLoopForAnyLengthAndOffset() {
+        Random random = new Random(11);
+        SimilarityKernel.ScalarDotProduct scalar = new SimilarityKernel.ScalarDotProduct();
+        for (int length : new int[]{0, 1, 3, 7, 16, 199, 200}) {
+            float[] a = new float[length + 5];
+            float[] b = new float[length + 2];
+            for (int i = 0; i < a.length; i++) {
+                a[i] = (float) random.nextGaussian();
+            }
+            for (int i = 0; i < b.length; i++) {
+                b[i] = (float) random.nextGaussian();
+            }
+            double expected = 0.0;
+            for (int i = 0; i < length; i++) {
+                expected += (double) a[3 + i] * b[1 + i];
+            }
+
+            assertEquals(expected, SimilarityKernel.dot(a, 3, b, 1, length), 1e-4);
+            assertEquals(expected, scalar.dot(a, 3, b, 1, length), 1e-4);
+        }
+    }
+
+    @Test
+    void dot_ShouldUseVectorApiWhenModuleIsPresent() {
+        // Surefire chạy với --add-modules jdk.incubator.vector
+        boolean moduleLoaded = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        assertEquals(moduleLoaded, SimilarityKernel.isVectorized());
+        if (moduleLoaded) {
+            float[] a = {1f, 2f, 3f, 4f, 5f, 6f, 7f, 8f, 9f};
+            assertEquals(285f, new VectorApiDotProduct().dot(a, 0, a, 0, a.length), 1e-4);
+        }
+    }
+
+    @Test
+    void normalizedCopy_ShouldHaveUnitLengthAndKeepZeroVectorUnnormalizable() {
+        float[] vector = {3f, 0f, 4f};
+
+        float[] normalized = SimilarityKernel.normalizedCopy(vector);
+
+        assertArrayEquals(new float[]{0.6f, 0f, 0.8f}, normalized, 1e-6f);
+        assertArrayEquals(new float[]{3f, 0f, 4f}, vector);
+        assertNull(SimilarityKernel.normalizedCopy(new float[3]));
+    }
+}
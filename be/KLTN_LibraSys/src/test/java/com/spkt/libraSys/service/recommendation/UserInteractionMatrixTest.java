@@ -0,0 +1,48 @@
+package com.spkt.libraSys.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserInteractionMatrixTest {
+
+    @Test
+    void build_ShouldGroupInteractionsByUserAndKind() {
+        Map<String, Integer> userIndex = new HashMap<>();
+        userIndex.put("u1", 0);
+        userIndex.put("u2", 1);
+
+        UserInteractionMatrix matrix = UserInteractionMatrix.builder(userIndex)
+                .add(UserInteractionMatrix.Kind.LOAN, "u2", 10L)
+                .add(UserInteractionMatrix.Kind.LOAN, "u1", 11L)
+                .add(UserInteractionMatrix.Kind.LOAN, "u2", 10L)
+                .add(UserInteractionMatrix.Kind.FAVORITE, "u1", 12L)
+                .add(UserInteractionMatrix.Kind.ACCESS, "unknown", 13L)
+                .build();
+
+        assertArrayEquals(new long[]{11L}, matrix.documentIds(UserInteractionMatrix.Kind.LOAN, "u1"));
+        assertArrayEquals(new long[]{10L, 10L}, matrix.documentIds(UserInteractionMatrix.Kind.LOAN, "u2"));
+        assertArrayEquals(new long[]{12L}, matrix.documentIds(UserInteractionMatrix.Kind.FAVORITE, "u1"));
+        assertEquals(0, matrix.documentIds(UserInteractionMatrix.Kind.FAVORITE, "u2").length);
+        assertEquals(0, matrix.interactionCount(UserInteractionMatrix.Kind.ACCESS));
+        assertEquals(0, matrix.documentIds(UserInteractionMatrix.Kind.LOAN, "unknown").length);
+    }
+
+    @Test
+    void build_ShouldGrowBeyondInitialCapacity() {
+        Map<String, Integer> userIndex = Map.of("u1", 0);
+        UserInteractionMatrix.Builder builder = UserInteractionMatrix.builder(userIndex);
+        for (long i = 0; i < 1000; i++) {
+            builder.add(UserInteractionMatrix.Kind.ACCESS, "u1", i);
+        }
+
+        UserInteractionMatrix matrix = builder.build();
+
+        long[] ids = matrix.documentIds(UserInteractionMatrix.Kind.ACCESS, "u1");
+        assertEquals(1000, ids.length);
+        assertEquals(999L, ids[999]);
+    }
+}
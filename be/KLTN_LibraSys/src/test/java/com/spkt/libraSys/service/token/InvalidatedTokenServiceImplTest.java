@@ -0,0 +1,129 @@
+package com.spkt.libraSys.service.token;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InvalidatedTokenServiceImplTest {
+
+    private static final Instant NOW = Instant.parse("2025-06-15T10:00:00Z");
+
+    @Mock
+    private InvalidatedTokenRepository repository;
+
+    private InvalidatedTokenServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new InvalidatedTokenServiceImpl(repository, 1000, 0.001, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void isJtiBlacklisted_ShouldQueryDatabaseUntilLoaded() {
+        when(repository.findByJti("a")).thenReturn(Optional.of(token(1, "a", NOW.plusSeconds(60))));
+
+        assertTrue(service.isJtiBlacklisted("a"));
+        verify(repository).findByJti("a");
+    }
+
+    @Test
+    void load_ShouldAnswerFromMemoryWithoutDatabase() {
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                token(1, "live", NOW.plusSeconds(60)),
+                token(2, "expired", NOW.minusSeconds(60))));
+
+        service.load();
+
+        assertTrue(service.isJtiBlacklisted("live"));
+        assertFalse(service.isJtiBlacklisted("expired"));
+        assertFalse(service.isJtiBlacklisted("never-revoked"));
+        assertEquals(1, service.revokedCount());
+        verify(repository, never()).findByJti(anyString());
+    }
+
+    @Test
+    void saveBlacklistedToken_ShouldPersistOnceAndRevokeImmediately() {
+        loadEmpty();
+
+        service.saveBlacklistedToken("a", NOW.plusSeconds(60).toEpochMilli());
+        service.saveBlacklistedToken("a", NOW.plusSeconds(60).toEpochMilli());
+
+        assertTrue(service.isJtiBlacklisted("a"));
+        verify(repository, times(1)).save(any(InvalidatedToken.class));
+    }
+
+    @Test
+    void sync_ShouldPageThroughChangeFeedAndRereadOverlap() {
+        List<InvalidatedToken> firstPage = new ArrayList<>();
+        for (int i = 1; i <= InvalidatedTokenServiceImpl.SYNC_PAGE_SIZE; i++) {
+            firstPage.add(token(i, "t" + i, NOW.plusSeconds(60)));
+        }
+        long lastId = InvalidatedTokenServiceImpl.SYNC_PAGE_SIZE;
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class))).thenReturn(firstPage);
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(lastId), any(Pageable.class)))
+                .thenReturn(List.of(token(lastId + 1, "other-node", NOW.plusSeconds(60))));
+
+        service.sync();
+        service.sync();
+
+        assertTrue(service.isJtiBlacklisted("other-node"));
+        assertEquals(InvalidatedTokenServiceImpl.SYNC_PAGE_SIZE + 1, service.revokedCount());
+        // Second sync restarts a few ids behind the last one seen
+        verify(repository).findByIdGreaterThanOrderByIdAsc(
+                eq(lastId + 1 - InvalidatedTokenServiceImpl.SYNC_OVERLAP), any(Pageable.class));
+    }
+
+    @Test
+    void remember_ShouldGrowBloomFilterPastCapacity() {
+        service = new InvalidatedTokenServiceImpl(repository, 10, 0.001, Clock.fixed(NOW, ZoneOffset.UTC));
+        loadEmpty();
+
+        for (int i = 0; i < 50; i++) {
+            service.saveBlacklistedToken("t" + i, NOW.plusSeconds(60).toEpochMilli());
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(service.isJtiBlacklisted("t" + i));
+        }
+    }
+
+    @Test
+    void purgeExpired_ShouldDropExpiredIdsAndDeleteRows() {
+        loadEmpty();
+        service.saveBlacklistedToken("old", NOW.minus(Duration.ofMinutes(1)).toEpochMilli());
+        service.saveBlacklistedToken("live", NOW.plus(Duration.ofMinutes(1)).toEpochMilli());
+        when(repository.deleteExpired(NOW)).thenReturn(1);
+
+        service.purgeExpired();
+
+        assertFalse(service.isJtiBlacklisted("old"));
+        assertTrue(service.isJtiBlacklisted("live"));
+        assertEquals(1, service.revokedCount());
+        verify(repository).deleteExpired(NOW);
+    }
+
+    private void loadEmpty() {
+        when(repository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class))).thenReturn(List.of());
+        service.load();
+    }
+
+    private static InvalidatedToken token(long id, String jti, Instant expiry) {
+        return new InvalidatedToken(id, jti, expiry);
+    }
+}
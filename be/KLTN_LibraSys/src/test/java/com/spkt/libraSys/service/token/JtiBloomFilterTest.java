@@ -0,0 +1,50 @@
+package com.spkt.libraSys.service.token;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JtiBloomFilterTest {
+
+    @Test
+    void mightContain_ShouldNeverMissAddedIds() {
+        JtiBloomFilter filter = JtiBloomFilter.create(10_000, 0.001);
+        String[] ids = new String[10_000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUID.randomUUID().toString();
+            filter.put(ids[i]);
+        }
+
+        for (String id : ids) {
+            assertTrue(filter.mightContain(id));
+        }
+    }
+
+    @Test
+    void mightContain_ShouldKeepFalsePositivesNearTarget() {
+        JtiBloomFilter filter = JtiBloomFilter.create(10_000, 0.001);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(UUID.randomUUID().toString());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        // Target 0.1% -> about 100 of 100 000
+        assertTrue(falsePositives < 400, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void create_ShouldSizeFromCapacityAndRate() {
+        JtiBloomFilter filter = JtiBloomFilter.create(100_000, 0.001);
+
+        assertEquals(100_000, filter.capacity());
+        assertEquals(10, filter.hashCount());
+        assertTrue(filter.bitSize() > 1_400_000 && filter.bitSize() < 1_500_000);
+    }
+}
@@ -14,6 +14,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -25,6 +26,7 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,6 +46,8 @@ class UserServiceImplTest {
     private RoleService roleService;
     @Mock
     private EmailService emailService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private UserServiceImpl userService;
@@ -266,6 +270,8 @@ class UserServiceImplTest {
         // Assert
         verify(userRepository).save(any(UserEntity.class));
         verify(emailService).sendEmailAsync(anyString(), anyString(), anyString());
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof UserAccessChangedEvent changed
+                && changed.getUserIds().contains("test123")));
     }
 
     @Test
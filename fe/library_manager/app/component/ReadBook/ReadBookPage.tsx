@@ -5,6 +5,7 @@ import { useEffect, useState, useRef, useLayoutEffect } from 'react';
 import { Box, CircularProgress, Typography, IconButton, Slider, Paper } from '@mui/material';
 import { NavigateNext, NavigateBefore, ZoomIn, ZoomOut } from '@mui/icons-material';
 import apiService from '@/app/untils/api';
+import { decryptContentBufferToBuffer } from '@/app/untils/drmContent';
 import { Document, Page, pdfjs } from 'react-pdf';
 
 pdfjs.GlobalWorkerOptions.workerSrc = `//cdnjs.cloudflare.com/ajax/libs/pdf.js/${pdfjs.version}/pdf.worker.min.js`;
@@ -60,45 +61,6 @@ interface LicenseResponse {
   };
 }
 
-async function deriveAesKey(contentKey: string, salt: ArrayBuffer | Uint8Array): Promise<CryptoKey> {
-  const enc = new TextEncoder();
-  const keyMaterial = await window.crypto.subtle.importKey(
-    'raw',
-    enc.encode(contentKey),
-    { name: 'PBKDF2' },
-    false,
-    ['deriveKey']
-  );
-
-  const saltUint8 = new Uint8Array(salt as ArrayBuffer);
-
-  return await window.crypto.subtle.deriveKey(
-    {
-      name: 'PBKDF2',
-      salt: saltUint8,
-      iterations: 10000,
-      hash: 'SHA-256',
-    },
-    keyMaterial,
-    { name: 'AES-GCM', length: 256 },
-    false,
-    ['decrypt']
-  );
-}
-
-async function decryptContentBufferToBuffer(encryptedBuffer: ArrayBuffer, contentKey: string): Promise<ArrayBuffer> {
-  const salt = new Uint8Array(encryptedBuffer.slice(0, 16));
-  const iv = new Uint8Array(encryptedBuffer.slice(16, 28));
-  const ciphertext = encryptedBuffer.slice(28);
-
-  const aesKey = await deriveAesKey(contentKey, salt);
-  return await window.crypto.subtle.decrypt(
-    { name: 'AES-GCM', iv },
-    aesKey,
-    ciphertext
-  );
-}
-
 const DEFAULT_PDF_WIDTH = 800;
 
 const ReadPdfPage = () => {
@@ -2,6 +2,7 @@ import { useSearchParams } from 'next/navigation';
 import { useEffect, useState } from 'react';
 import { Box, CircularProgress, Typography, Paper } from '@mui/material';
 import apiService from '@/app/untils/api';
+import { decryptContentBufferToBuffer } from '@/app/untils/drmContent';
 import * as mammoth from 'mammoth';
 
 const arrayBufferToBase64 = (buffer: ArrayBuffer): string => {
@@ -55,45 +56,6 @@ interface LicenseResponse {
   };
 }
 
-async function deriveAesKey(contentKey: string, salt: ArrayBuffer | Uint8Array): Promise<CryptoKey> {
-  const enc = new TextEncoder();
-  const keyMaterial = await window.crypto.subtle.importKey(
-    'raw',
-    enc.encode(contentKey),
-    { name: 'PBKDF2' },
-    false,
-    ['deriveKey']
-  );
-
-  const saltUint8 = new Uint8Array(salt as ArrayBuffer);
-
-  return await window.crypto.subtle.deriveKey(
-    {
-      name: 'PBKDF2',
-      salt: saltUint8,
-      iterations: 10000,
-      hash: 'SHA-256',
-    },
-    keyMaterial,
-    { name: 'AES-GCM', length: 256 },
-    false,
-    ['decrypt']
-  );
-}
-
-async function decryptContentBufferToBuffer(encryptedBuffer: ArrayBuffer, contentKey: string): Promise<ArrayBuffer> {
-  const salt = new Uint8Array(encryptedBuffer.slice(0, 16));
-  const iv = new Uint8Array(encryptedBuffer.slice(16, 28));
-  const ciphertext = encryptedBuffer.slice(28);
-
-  const aesKey = await deriveAesKey(contentKey, salt);
-  return await window.crypto.subtle.decrypt(
-    { name: 'AES-GCM', iv },
-    aesKey,
-    ciphertext
-  );
-}
-
 const ReadWordPage = () => {
   const searchParams = useSearchParams();
   const id = searchParams.get('id');
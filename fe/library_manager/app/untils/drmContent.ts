@@ -0,0 +1,84 @@
+// Giải mã nội dung DRM dùng chung cho các trình đọc: gói chia khối (v2) và gói cũ salt | iv | ciphertext
+
+async function deriveAesKey(contentKey: string, salt: ArrayBuffer | Uint8Array): Promise<CryptoKey> {
+  const enc = new TextEncoder();
+  const keyMaterial = await window.crypto.subtle.importKey(
+    'raw',
+    enc.encode(contentKey),
+    { name: 'PBKDF2' },
+    false,
+    ['deriveKey']
+  );
+
+  const saltUint8 = new Uint8Array(salt as ArrayBuffer);
+
+  return await window.crypto.subtle.deriveKey(
+    {
+      name: 'PBKDF2',
+      salt: saltUint8,
+      iterations: 10000,
+      hash: 'SHA-256',
+    },
+    keyMaterial,
+    { name: 'AES-GCM', length: 256 },
+    false,
+    ['decrypt']
+  );
+}
+
+// Gói DRM chia khối: "LDRM" | version | chunkSize | salt(16) | noncePrefix(8) | plainLength(8) | [ciphertext + tag]...
+const DRM_MAGIC = [0x4c, 0x44, 0x52, 0x4d];
+const DRM_HEADER_LENGTH = 41;
+const GCM_TAG_BYTES = 16;
+
+function isChunkedDrm(buffer: ArrayBuffer): boolean {
+  const prefix = new Uint8Array(buffer, 0, Math.min(DRM_MAGIC.length, buffer.byteLength));
+  return prefix.length === DRM_MAGIC.length && DRM_MAGIC.every((b, i) => prefix[i] === b);
+}
+
+async function decryptChunkedBuffer(encryptedBuffer: ArrayBuffer, contentKey: string): Promise<ArrayBuffer> {
+  const view = new DataView(encryptedBuffer);
+  const header = new Uint8Array(encryptedBuffer.slice(0, DRM_HEADER_LENGTH));
+  const chunkSize = view.getInt32(5);
+  const salt = header.slice(9, 25);
+  const noncePrefix = header.slice(25, 33);
+  const plainLength = Number(view.getBigInt64(33));
+  const chunkCount = plainLength === 0 ? 1 : Math.ceil(plainLength / chunkSize);
+
+  const aesKey = await deriveAesKey(contentKey, salt);
+  const plain = new Uint8Array(plainLength);
+  for (let i = 0; i < chunkCount; i++) {
+    const chunkLength = Math.min(chunkSize, plainLength - i * chunkSize);
+    const offset = DRM_HEADER_LENGTH + i * (chunkSize + GCM_TAG_BYTES);
+    const iv = new Uint8Array(12);
+    iv.set(noncePrefix);
+    new DataView(iv.buffer).setInt32(8, i);
+    const aad = new Uint8Array(DRM_HEADER_LENGTH + 1);
+    aad.set(header);
+    aad[DRM_HEADER_LENGTH] = i === chunkCount - 1 ? 1 : 0;
+    const chunk = await window.crypto.subtle.decrypt(
+      { name: 'AES-GCM', iv, additionalData: aad },
+      aesKey,
+      encryptedBuffer.slice(offset, offset + chunkLength + GCM_TAG_BYTES)
+    );
+    plain.set(new Uint8Array(chunk), i * chunkSize);
+  }
+  return plain.buffer;
+}
+
+export async function decryptContentBufferToBuffer(encryptedBuffer: ArrayBuffer, contentKey: string): Promise<ArrayBuffer> {
+  if (isChunkedDrm(encryptedBuffer)) {
+    return decryptChunkedBuffer(encryptedBuffer, contentKey);
+  }
+
+  const salt = new Uint8Array(encryptedBuffer.slice(0, 16));
+  const iv = new Uint8Array(encryptedBuffer.slice(16, 28));
+  const ciphertext = encryptedBuffer.slice(28);
+
+  const aesKey = await deriveAesKey(contentKey, salt);
+  return await window.crypto.subtle.decrypt(
+    { name: 'AES-GCM', iv },
+    aesKey,
+    ciphertext
+  );
+}